@@ -0,0 +1,227 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.benchmarks;
+
+import com.acciente.oacc.AccessControlContext;
+import com.acciente.oacc.PasswordCredentials;
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.ResourcePermission;
+import com.acciente.oacc.ResourcePermissions;
+import com.acciente.oacc.Resources;
+import com.acciente.oacc.encryptor.PasswordEncryptor;
+import com.acciente.oacc.encryptor.bcrypt.BCryptPasswordEncryptor;
+import com.acciente.oacc.sql.SQLAccessControlContextFactory;
+import com.acciente.oacc.sql.SQLProfile;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An embedded OACC database populated with a parameterized data shape, shared by all benchmarks.
+ * <p>
+ * The data set consists of a tree of domains below a single benchmark domain, with <code>domainFanOut</code>
+ * child domains per domain and <code>domainTreeDepth</code> levels below the benchmark domain, and a chain of
+ * <code>inheritanceDepth + 1</code> user resources, in which each user inherits from the next via the INHERIT
+ * system permission. The last user in the chain holds READ on <code>grantsPerAccessor</code> documents, spread
+ * evenly across the leaf domains of the tree, and holds WRITE on all documents through a global permission on
+ * the benchmark domain. The benchmarks query on behalf of the first user in the chain, so that every check has
+ * to resolve the full inheritance chain, and the global permission check also has to resolve the domain
+ * ancestors of the leaf domains.
+ * <p>
+ * The access control contexts are single sessions, so the benchmarks that use this state must run with a
+ * single thread.
+ */
+@State(Scope.Benchmark)
+public class AccessControlState {
+   static final String DOMAIN_NAME         = "BENCHMARK";
+   static final String USER_CLASS_NAME     = "USER";
+   static final String DOCUMENT_CLASS_NAME = "DOCUMENT";
+
+   static final ResourcePermission READ  = ResourcePermissions.getInstance("READ");
+   static final ResourcePermission WRITE = ResourcePermissions.getInstance("WRITE");
+
+   private static final String OACC_ROOT_PASSWORD = "benchmark-root-password";
+   private static final String USER_PASSWORD      = "benchmark-user-password";
+
+   /**
+    * The name of the SQL profile; the profile's dialect selects the embedded database.
+    */
+   @Param({"HSQLDB_2_3_NON_RECURSIVE", "SQLite_3_8_RECURSIVE", "SQLite_3_8_NON_RECURSIVE"})
+   public String sqlProfile;
+
+   /**
+    * The number of INHERIT hops between the accessor and the resource that holds the permissions.
+    */
+   @Param({"0", "4"})
+   public int inheritanceDepth;
+
+   /**
+    * The number of domain levels below the benchmark domain; the documents reside in the lowest level.
+    */
+   @Param({"1", "3"})
+   public int domainTreeDepth;
+
+   /**
+    * The number of child domains of each domain above the lowest level.
+    */
+   @Param({"3"})
+   public int domainFanOut;
+
+   /**
+    * The number of documents the last user in the inheritance chain is directly granted READ on.
+    */
+   @Param({"10", "100"})
+   public int grantsPerAccessor;
+
+   /**
+    * The BCrypt cost factor of the password encryptor; the default is the minimum, so that
+    * the authentication benchmark measures OACC rather than the password hash.
+    */
+   @Param({"4"})
+   public int bcryptCostFactor;
+
+   EmbeddedDatabase     database;
+   AccessControlContext accessControlContext;
+   AccessControlContext authenticationContext;
+   PasswordCredentials  accessorCredentials;
+   Resource             accessorResource;
+   Resource             granteeResource;
+   List<Resource>       documentResources;
+   List<String>         leafDomainNames;
+
+   private int documentCursor;
+   private int leafDomainCursor;
+
+   @Setup(Level.Trial)
+   public void setUp() throws SQLException, IOException {
+      final SQLProfile sqlProfile = SQLProfile.valueOf(this.sqlProfile);
+      final PasswordEncryptor passwordEncryptor = BCryptPasswordEncryptor.newInstance(bcryptCostFactor);
+
+      database = EmbeddedDatabase.newInstance(sqlProfile);
+      try {
+         database.initializeOACC(OACC_ROOT_PASSWORD.toCharArray(), passwordEncryptor);
+
+         accessControlContext = newAccessControlContext(passwordEncryptor);
+         accessControlContext.authenticate(Resources.getInstance(0),
+                                           PasswordCredentials.newInstance(OACC_ROOT_PASSWORD.toCharArray()));
+         authenticationContext = newAccessControlContext(passwordEncryptor);
+         accessorCredentials = PasswordCredentials.newInstance(USER_PASSWORD.toCharArray());
+
+         populate();
+      }
+      catch (SQLException | RuntimeException e) {
+         // JMH does not call the tear down method when the set up fails
+         tearDown();
+         throw e;
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() throws SQLException {
+      if (database != null) {
+         database.close();
+         database = null;
+      }
+   }
+
+   /**
+    * Returns the documents the accessor holds READ on, in round-robin order.
+    */
+   Resource nextDocumentResource() {
+      final Resource documentResource = documentResources.get(documentCursor);
+      documentCursor = (documentCursor + 1) % documentResources.size();
+      return documentResource;
+   }
+
+   /**
+    * Returns the names of the domains in the lowest level of the domain tree, in round-robin order.
+    */
+   String nextLeafDomainName() {
+      final String leafDomainName = leafDomainNames.get(leafDomainCursor);
+      leafDomainCursor = (leafDomainCursor + 1) % leafDomainNames.size();
+      return leafDomainName;
+   }
+
+   private AccessControlContext newAccessControlContext(PasswordEncryptor passwordEncryptor) {
+      return SQLAccessControlContextFactory.getAccessControlContext(database.getDataSource(),
+                                                                    database.getSchemaName(),
+                                                                    database.getSqlProfile(),
+                                                                    passwordEncryptor);
+   }
+
+   private void populate() {
+      accessControlContext.createResourceClass(USER_CLASS_NAME, true, false);
+      accessControlContext.createResourceClass(DOCUMENT_CLASS_NAME, false, false);
+      accessControlContext.createResourcePermission(DOCUMENT_CLASS_NAME, READ.getPermissionName());
+      accessControlContext.createResourcePermission(DOCUMENT_CLASS_NAME, WRITE.getPermissionName());
+
+      accessControlContext.createDomain(DOMAIN_NAME);
+      leafDomainNames = new ArrayList<>();
+      createDomainTree(DOMAIN_NAME, domainTreeDepth);
+
+      // each user in the chain inherits from the next one, and the last one holds the permissions
+      Resource permissionHolderResource = createUser();
+      accessorResource = permissionHolderResource;
+      for (int i = 0; i < inheritanceDepth; i++) {
+         final Resource inheritedResource = createUser();
+         accessControlContext.grantResourcePermissions(permissionHolderResource,
+                                                       inheritedResource,
+                                                       ResourcePermissions.getInstance(ResourcePermissions.INHERIT));
+         permissionHolderResource = inheritedResource;
+      }
+
+      documentResources = new ArrayList<>(grantsPerAccessor);
+      for (int i = 0; i < grantsPerAccessor; i++) {
+         final Resource documentResource = accessControlContext.createResource(DOCUMENT_CLASS_NAME, nextLeafDomainName());
+         accessControlContext.grantResourcePermissions(permissionHolderResource, documentResource, READ);
+         documentResources.add(documentResource);
+      }
+      accessControlContext.grantGlobalResourcePermissions(permissionHolderResource,
+                                                          DOCUMENT_CLASS_NAME,
+                                                          DOMAIN_NAME,
+                                                          WRITE);
+
+      granteeResource = createUser();
+   }
+
+   private void createDomainTree(String domainName, int remainingDepth) {
+      if (remainingDepth == 0) {
+         leafDomainNames.add(domainName);
+         return;
+      }
+      for (int i = 0; i < domainFanOut; i++) {
+         final String childDomainName = domainName + "_" + i;
+         accessControlContext.createDomain(childDomainName, domainName);
+         createDomainTree(childDomainName, remainingDepth - 1);
+      }
+   }
+
+   private Resource createUser() {
+      return accessControlContext.createResource(USER_CLASS_NAME,
+                                                 DOMAIN_NAME,
+                                                 PasswordCredentials.newInstance(USER_PASSWORD.toCharArray()));
+   }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.benchmarks;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.ResourcePermission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the permission checks and queries, which are the calls an application makes on every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationBenchmarks {
+   @Benchmark
+   public boolean hasResourcePermissions(AccessControlState state) {
+      return state.accessControlContext.hasResourcePermissions(state.accessorResource,
+                                                               state.nextDocumentResource(),
+                                                               AccessControlState.READ);
+   }
+
+   @Benchmark
+   public boolean hasResourcePermissions_global(AccessControlState state) {
+      return state.accessControlContext.hasResourcePermissions(state.accessorResource,
+                                                               state.nextDocumentResource(),
+                                                               AccessControlState.WRITE);
+   }
+
+   @Benchmark
+   public Set<ResourcePermission> getEffectiveResourcePermissions(AccessControlState state) {
+      return state.accessControlContext.getEffectiveResourcePermissions(state.accessorResource,
+                                                                        state.nextDocumentResource());
+   }
+
+   @Benchmark
+   public Set<Resource> getResourcesByResourcePermissions(AccessControlState state) {
+      return state.accessControlContext.getResourcesByResourcePermissions(state.accessorResource,
+                                                                          AccessControlState.DOCUMENT_CLASS_NAME,
+                                                                          AccessControlState.READ);
+   }
+}
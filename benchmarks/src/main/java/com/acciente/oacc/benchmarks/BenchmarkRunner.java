@@ -0,0 +1,56 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks with the JMH command line, but writes the results as JSON by default.
+ * <p>
+ * Unless the result format is specified with <code>-rf</code>, the results are written to
+ * <code>jmh-result.json</code>, or the file specified with <code>-rff</code>. All other JMH options,
+ * such as <code>-p</code> to override the data shape parameters, are passed through unchanged.
+ */
+public class BenchmarkRunner {
+   public static void main(String[] args) throws RunnerException, IOException {
+      boolean isResultFormatSpecified;
+      try {
+         isResultFormatSpecified = new CommandLineOptions(args).getResultFormat().hasValue();
+      }
+      catch (CommandLineOptionException e) {
+         // let JMH report the invalid options
+         isResultFormatSpecified = true;
+      }
+
+      if (isResultFormatSpecified) {
+         Main.main(args);
+      }
+      else {
+         final String[] jsonArgs = Arrays.copyOf(args, args.length + 2);
+         jsonArgs[args.length] = "-rf";
+         jsonArgs[args.length + 1] = "json";
+         Main.main(jsonArgs);
+      }
+   }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.benchmarks;
+
+import com.acciente.oacc.encryptor.PasswordEncryptor;
+import com.acciente.oacc.sql.SQLAccessControlSystemInitializer;
+import com.acciente.oacc.sql.SQLProfile;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An embedded HSQLDB or SQLite database with an initialized OACC schema, created from scratch for each
+ * benchmark trial.
+ * <p>
+ * HSQLDB databases are held in memory, with the OACC tables in the <code>OACC</code> schema. SQLite databases
+ * are held in a temporary file, because SQLite does not support schemas and an in-memory SQLite database is
+ * private to the connection that created it.
+ */
+class EmbeddedDatabase {
+   private static final String HSQLDB_USER     = "SA";
+   private static final String HSQLDB_PASSWORD = "";
+   private static final String HSQLDB_SCHEMA   = "OACC";
+
+   private static final AtomicInteger databaseCounter = new AtomicInteger();
+
+   private final SQLProfile                 sqlProfile;
+   private final String                     url;
+   private final String                     user;
+   private final String                     password;
+   private final String                     schemaName;
+   private final File                       databaseFile;
+   private final SingleConnectionDataSource dataSource;
+
+   private EmbeddedDatabase(SQLProfile sqlProfile,
+                            String url,
+                            String user,
+                            String password,
+                            String schemaName,
+                            File databaseFile,
+                            Connection connection) {
+      this.sqlProfile = sqlProfile;
+      this.url = url;
+      this.user = user;
+      this.password = password;
+      this.schemaName = schemaName;
+      this.databaseFile = databaseFile;
+      this.dataSource = new SingleConnectionDataSource(connection);
+   }
+
+   /**
+    * Creates an empty embedded database for the dialect of the specified SQL profile, and creates the OACC
+    * tables and all optional OACC tables in it, using the scripts in <code>src/main/dbscripts</code>.
+    *
+    * @param sqlProfile a HSQLDB or SQLite SQL profile
+    * @return an embedded database with empty OACC tables
+    * @throws IllegalArgumentException if the SQL profile is not for HSQLDB or SQLite
+    */
+   static EmbeddedDatabase newInstance(SQLProfile sqlProfile) throws SQLException, IOException {
+      final EmbeddedDatabase embeddedDatabase;
+
+      switch (sqlProfile.getSqlDialect()) {
+         case HSQLDB_2_3: {
+            final String url = "jdbc:hsqldb:mem:oacc_benchmark_" + databaseCounter.incrementAndGet();
+            final Connection connection = DriverManager.getConnection(url, HSQLDB_USER, HSQLDB_PASSWORD);
+            embeddedDatabase = new EmbeddedDatabase(sqlProfile,
+                                                    url,
+                                                    HSQLDB_USER,
+                                                    HSQLDB_PASSWORD,
+                                                    HSQLDB_SCHEMA,
+                                                    null,
+                                                    connection);
+            embeddedDatabase.executeScript("/hsqldb/create_tables.sql");
+            embeddedDatabase.executeScript("/hsqldb/create_optional_tables.sql");
+            break;
+         }
+         case SQLite_3_8: {
+            final File databaseFile = File.createTempFile("oacc_benchmark_", ".db");
+            final String url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+            // same settings as the SQLite test configuration: enforce FKs, but don't wait for the disk on commit
+            final Properties connectionProperties = new Properties();
+            connectionProperties.setProperty("foreign_keys", "true");
+            connectionProperties.setProperty("synchronous", "OFF");
+            try {
+               final Connection connection = DriverManager.getConnection(url, connectionProperties);
+               embeddedDatabase = new EmbeddedDatabase(sqlProfile,
+                                                       url,
+                                                       null,
+                                                       null,
+                                                       null,
+                                                       databaseFile,
+                                                       connection);
+            }
+            catch (SQLException e) {
+               databaseFile.delete();
+               throw e;
+            }
+            embeddedDatabase.executeScript("/sqlite/create_tables.sql");
+            embeddedDatabase.executeScript("/sqlite/create_optional_tables.sql");
+            break;
+         }
+         default:
+            throw new IllegalArgumentException("Benchmarks only support the embedded HSQLDB and SQLite databases, not: "
+                                                     + SQLProfile.nameOf(sqlProfile));
+      }
+
+      return embeddedDatabase;
+   }
+
+   /**
+    * Creates the OACC system domain and system resource, which also seeds the domain closure table with the row
+    * for the system domain, so that the database can be used with any HSQLDB or SQLite profile.
+    *
+    * @param oaccRootPwd       the password of the OACC system resource
+    * @param passwordEncryptor the password encryptor the access control contexts will use
+    */
+   void initializeOACC(char[] oaccRootPwd, PasswordEncryptor passwordEncryptor) throws SQLException {
+      SQLAccessControlSystemInitializer.initializeOACC(url, user, password, schemaName, oaccRootPwd, passwordEncryptor);
+   }
+
+   SQLProfile getSqlProfile() {
+      return sqlProfile;
+   }
+
+   String getSchemaName() {
+      return schemaName;
+   }
+
+   DataSource getDataSource() {
+      return dataSource;
+   }
+
+   void close() throws SQLException {
+      try {
+         if (databaseFile == null) {
+            // in-memory HSQLDB databases live until they are shut down
+            try (Statement statement = dataSource.getConnection().createStatement()) {
+               statement.execute("SHUTDOWN");
+            }
+         }
+      }
+      finally {
+         dataSource.closeConnection();
+         if (databaseFile != null && !databaseFile.delete()) {
+            databaseFile.deleteOnExit();
+         }
+      }
+   }
+
+   private void executeScript(String scriptName) throws SQLException, IOException {
+      try (Statement statement = dataSource.getConnection().createStatement()) {
+         for (String sql : readScript(scriptName).split(";")) {
+            if (!sql.trim().isEmpty()) {
+               statement.execute(sql);
+            }
+         }
+      }
+   }
+
+   private static String readScript(String scriptName) throws IOException {
+      final InputStream inputStream = EmbeddedDatabase.class.getResourceAsStream(scriptName);
+      if (inputStream == null) {
+         throw new IOException("Script not found: " + scriptName);
+      }
+
+      final StringBuilder script = new StringBuilder();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+         String line;
+         while ((line = reader.readLine()) != null) {
+            // skip comment lines, so that statements are only ever separated by semicolons
+            if (!line.trim().startsWith("--")) {
+               script.append(line).append('\n');
+            }
+         }
+      }
+      return script.toString();
+   }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.benchmarks;
+
+import com.acciente.oacc.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the calls that create resources and change their permissions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceManagementBenchmarks {
+   @Benchmark
+   public Resource createResource(AccessControlState state) {
+      return state.accessControlContext.createResource(AccessControlState.DOCUMENT_CLASS_NAME,
+                                                       state.nextLeafDomainName());
+   }
+
+   /**
+    * Grants a permission and revokes it again, so that every invocation performs an actual grant instead of
+    * re-granting a permission the accessor already holds. The measured time includes both calls.
+    */
+   @Benchmark
+   public void grantResourcePermissions(AccessControlState state) {
+      final Resource documentResource = state.nextDocumentResource();
+      state.accessControlContext.grantResourcePermissions(state.granteeResource,
+                                                          documentResource,
+                                                          AccessControlState.READ);
+      state.accessControlContext.revokeResourcePermissions(state.granteeResource,
+                                                           documentResource,
+                                                           AccessControlState.READ);
+   }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.benchmarks;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * A data source that hands out the same physical connection on every call, so that the benchmarks measure the
+ * work OACC does per call instead of the cost of opening a connection to the embedded database.
+ * <p>
+ * The connections returned by this data source ignore calls to {@link Connection#close()}; the physical
+ * connection is closed with {@link #closeConnection()}. Since the connection is shared, this data source
+ * must only be used from one thread at a time.
+ */
+class SingleConnectionDataSource implements DataSource {
+   private final Connection connection;
+   private final Connection nonClosingConnection;
+   private       PrintWriter logWriter;
+
+   SingleConnectionDataSource(Connection connection) {
+      this.connection = connection;
+      this.nonClosingConnection
+            = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                  new Class<?>[]{Connection.class},
+                                                  new NonClosingInvocationHandler(connection));
+   }
+
+   void closeConnection() throws SQLException {
+      connection.close();
+   }
+
+   @Override
+   public Connection getConnection() {
+      return nonClosingConnection;
+   }
+
+   @Override
+   public Connection getConnection(String username, String password) {
+      return nonClosingConnection;
+   }
+
+   @Override
+   public PrintWriter getLogWriter() {
+      return logWriter;
+   }
+
+   @Override
+   public void setLogWriter(PrintWriter logWriter) {
+      this.logWriter = logWriter;
+   }
+
+   @Override
+   public void setLoginTimeout(int seconds) {
+   }
+
+   @Override
+   public int getLoginTimeout() {
+      return 0;
+   }
+
+   @Override
+   public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+   }
+
+   @Override
+   public <T> T unwrap(Class<T> iface) throws SQLException {
+      if (iface.isInstance(this)) {
+         return iface.cast(this);
+      }
+      throw new SQLException("Not a wrapper for " + iface.getName());
+   }
+
+   @Override
+   public boolean isWrapperFor(Class<?> iface) {
+      return iface.isInstance(this);
+   }
+
+   private static class NonClosingInvocationHandler implements InvocationHandler {
+      private final Connection connection;
+
+      private NonClosingInvocationHandler(Connection connection) {
+         this.connection = connection;
+      }
+
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+         if ("close".equals(method.getName())) {
+            return null;
+         }
+         try {
+            return method.invoke(connection, args);
+         }
+         catch (InvocationTargetException e) {
+            throw e.getCause();
+         }
+      }
+   }
+}
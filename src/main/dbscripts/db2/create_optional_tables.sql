@@ -0,0 +1,62 @@
+-- Optional OACC tables for DB2. Each table is only required by the feature that uses it:
+--   OAC_DomainClosure            the *_DOMAIN_CLOSURE SQL profiles
+--   OAC_InheritanceClosure       SQLAccessControlContextOptions inheritanceClosureEnabled
+--   OAC_PermissionChangeCounter  SQLAccessControlContextOptions permissionChangeCounterEnabled
+--   OAC_DomainChangeCounter      SQLAccessControlContextOptions domainChangeCounterEnabled
+-- Run the script after the OACC tables have been created; leave out the tables of features that
+-- are not used. The INSERT statements populate each table from the existing OACC data, so the
+-- script also migrates an OACC database that is already in use (see README.md), provided no
+-- OACC application modifies it meanwhile.
+
+CREATE TABLE OACC.OAC_DomainClosure (
+   AncestorDomainId   BIGINT NOT NULL,
+   DescendantDomainId BIGINT NOT NULL,
+   Depth              INTEGER NOT NULL,
+   CONSTRAINT OAC_DomainClosure_PK PRIMARY KEY (AncestorDomainId, DescendantDomainId),
+   CONSTRAINT OAC_DomainClosure_Ancestor_FK FOREIGN KEY (AncestorDomainId) REFERENCES OACC.OAC_Domain (DomainId),
+   CONSTRAINT OAC_DomainClosure_Descendant_FK FOREIGN KEY (DescendantDomainId) REFERENCES OACC.OAC_Domain (DomainId)
+);
+CREATE INDEX OACC.OAC_DomainClosure_Descendant ON OACC.OAC_DomainClosure (DescendantDomainId);
+
+CREATE TABLE OACC.OAC_InheritanceClosure (
+   AccessorResourceId  BIGINT NOT NULL,
+   InheritedResourceId BIGINT NOT NULL,
+   CONSTRAINT OAC_InheritanceClosure_PK PRIMARY KEY (AccessorResourceId, InheritedResourceId),
+   CONSTRAINT OAC_InheritanceClosure_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_InheritanceClosure_Inherited_FK FOREIGN KEY (InheritedResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+CREATE INDEX OACC.OAC_InheritanceClosure_Inherited ON OACC.OAC_InheritanceClosure (InheritedResourceId);
+
+CREATE TABLE OACC.OAC_PermissionChangeCounter (
+   ChangeCount BIGINT NOT NULL
+);
+
+CREATE TABLE OACC.OAC_DomainChangeCounter (
+   ChangeCount BIGINT NOT NULL
+);
+
+-- every domain is its own ancestor at depth 0, and the ancestor of its descendants at their depth below it
+INSERT INTO OACC.OAC_DomainClosure ( AncestorDomainId, DescendantDomainId, Depth )
+WITH C ( AncestorDomainId, DescendantDomainId, Depth ) AS (
+   SELECT DomainId AncestorDomainId, DomainId DescendantDomainId, 0 Depth FROM OACC.OAC_Domain
+   UNION ALL
+   SELECT C.AncestorDomainId, D.DomainId, C.Depth + 1
+     FROM C JOIN OACC.OAC_Domain D ON D.ParentDomainId = C.DescendantDomainId
+)
+SELECT AncestorDomainId, DescendantDomainId, Depth FROM C;
+
+-- a resource inherits from every resource reachable through INHERIT (system permission id -101) grants;
+-- OACC does not allow inheritance cycles, so the recursion ends
+INSERT INTO OACC.OAC_InheritanceClosure ( AccessorResourceId, InheritedResourceId )
+WITH C ( AccessorResourceId, InheritedResourceId ) AS (
+   SELECT AccessorResourceId, AccessedResourceId InheritedResourceId FROM OACC.OAC_Grant_ResPerm_Sys WHERE SysPermissionId = -101
+   UNION ALL
+   SELECT C.AccessorResourceId, G.AccessedResourceId
+     FROM C JOIN OACC.OAC_Grant_ResPerm_Sys G ON G.AccessorResourceId = C.InheritedResourceId
+    WHERE G.SysPermissionId = -101
+)
+SELECT DISTINCT AccessorResourceId, InheritedResourceId FROM C;
+
+-- the change counters hold a single row
+INSERT INTO OACC.OAC_PermissionChangeCounter ( ChangeCount ) VALUES ( 0 );
+INSERT INTO OACC.OAC_DomainChangeCounter ( ChangeCount ) VALUES ( 0 );
@@ -0,0 +1,199 @@
+-- OACC schema for HSQLDB. Create the tables, then the optional tables in
+-- create_optional_tables.sql if required, then run the SQLAccessControlSystemInitializer.
+
+CREATE SCHEMA OACC;
+
+CREATE SEQUENCE OACC.OAC_DomainId START WITH 1;
+CREATE SEQUENCE OACC.OAC_ResourceClassId START WITH 1;
+CREATE SEQUENCE OACC.OAC_PermissionId START WITH 1;
+CREATE SEQUENCE OACC.OAC_ResourceId START WITH 1;
+
+CREATE TABLE OACC.OAC_Domain (
+   DomainId          BIGINT      NOT NULL,
+   DomainName        VARCHAR(64) NOT NULL,
+   ParentDomainId    BIGINT,
+   CONSTRAINT OAC_Domain_PK PRIMARY KEY (DomainId),
+   CONSTRAINT OAC_Domain_DomainName UNIQUE (DomainName),
+   CONSTRAINT OAC_Domain_ParentDomainId_FK FOREIGN KEY (ParentDomainId) REFERENCES OACC.OAC_Domain (DomainId)
+);
+CREATE INDEX OAC_Domain_ParentDomainId ON OACC.OAC_Domain (ParentDomainId);
+
+CREATE TABLE OACC.OAC_ResourceClass (
+   ResourceClassId                BIGINT       NOT NULL,
+   ResourceClassName              VARCHAR(128) NOT NULL,
+   IsAuthenticatable              SMALLINT     NOT NULL,
+   IsUnauthenticatedCreateAllowed SMALLINT     NOT NULL,
+   CONSTRAINT OAC_ResourceClass_PK PRIMARY KEY (ResourceClassId),
+   CONSTRAINT OAC_ResourceClass_ResourceClassName UNIQUE (ResourceClassName)
+);
+
+CREATE TABLE OACC.OAC_ResourceClassPermission (
+   ResourceClassId BIGINT      NOT NULL,
+   PermissionId    BIGINT      NOT NULL,
+   PermissionName  VARCHAR(64) NOT NULL,
+   CONSTRAINT OAC_ResourceClassPermission_PK PRIMARY KEY (ResourceClassId, PermissionId),
+   CONSTRAINT OAC_ResourceClassPermission_PermissionName UNIQUE (ResourceClassId, PermissionName),
+   CONSTRAINT OAC_ResourceClassPermission_ResourceClassId_FK FOREIGN KEY (ResourceClassId) REFERENCES OACC.OAC_ResourceClass (ResourceClassId)
+);
+
+CREATE TABLE OACC.OAC_Resource (
+   ResourceId      BIGINT NOT NULL,
+   ResourceClassId BIGINT NOT NULL,
+   DomainId        BIGINT NOT NULL,
+   CONSTRAINT OAC_Resource_PK PRIMARY KEY (ResourceId),
+   CONSTRAINT OAC_Resource_ResourceClassId_FK FOREIGN KEY (ResourceClassId) REFERENCES OACC.OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Resource_DomainId_FK FOREIGN KEY (DomainId) REFERENCES OACC.OAC_Domain (DomainId)
+);
+CREATE INDEX OAC_Resource_ResourceClassId_DomainId ON OACC.OAC_Resource (ResourceClassId, DomainId);
+CREATE INDEX OAC_Resource_DomainId ON OACC.OAC_Resource (DomainId);
+
+CREATE TABLE OACC.OAC_ResourcePassword (
+   ResourceId BIGINT       NOT NULL,
+   Password   VARCHAR(128) NOT NULL,
+   CONSTRAINT OAC_ResourcePassword_PK PRIMARY KEY (ResourceId),
+   CONSTRAINT OAC_ResourcePassword_ResourceId_FK FOREIGN KEY (ResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OACC.OAC_ResourceExternalID (
+   ResourceId BIGINT       NOT NULL,
+   ExternalId VARCHAR(255) NOT NULL,
+   CONSTRAINT OAC_ResourceExternalID_PK PRIMARY KEY (ResourceId),
+   CONSTRAINT OAC_ResourceExternalID_ExternalId UNIQUE (ExternalId),
+   CONSTRAINT OAC_ResourceExternalID_ResourceId_FK FOREIGN KEY (ResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OACC.OAC_Grant_DomPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedDomainId   BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_DomPerm_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, SysPermissionId),
+   CONSTRAINT OAC_Grant_DomPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_DomPerm_Sys_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OACC.OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_DomPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+CREATE INDEX OAC_Grant_DomPerm_Sys_Domain ON OACC.OAC_Grant_DomPerm_Sys (AccessedDomainId);
+
+CREATE TABLE OACC.OAC_Grant_DomCrPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_DomCrPerm_Sys_PK PRIMARY KEY (AccessorResourceId, SysPermissionId),
+   CONSTRAINT OAC_Grant_DomCrPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_DomCrPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OACC.OAC_Grant_DomCrPerm_PostCr_Sys (
+   AccessorResourceId        BIGINT   NOT NULL,
+   PostCreateSysPermissionId BIGINT   NOT NULL,
+   PostCreateIsWithGrant     SMALLINT NOT NULL,
+   IsWithGrant               SMALLINT NOT NULL,
+   GrantorResourceId         BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_DomCrPerm_PostCr_Sys_PK PRIMARY KEY (AccessorResourceId, PostCreateSysPermissionId, PostCreateIsWithGrant),
+   CONSTRAINT OAC_Grant_DomCrPerm_PostCr_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_DomCrPerm_PostCr_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OACC.OAC_Grant_ResCrPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedDomainId   BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, SysPermissionId),
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OACC.OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_ResourceClass_FK FOREIGN KEY (ResourceClassId) REFERENCES OACC.OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OACC.OAC_Grant_ResCrPerm_PostCr_Sys (
+   AccessorResourceId        BIGINT   NOT NULL,
+   AccessedDomainId          BIGINT   NOT NULL,
+   ResourceClassId           BIGINT   NOT NULL,
+   PostCreateSysPermissionId BIGINT   NOT NULL,
+   PostCreateIsWithGrant     SMALLINT NOT NULL,
+   IsWithGrant               SMALLINT NOT NULL,
+   GrantorResourceId         BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, PostCreateSysPermissionId, PostCreateIsWithGrant),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OACC.OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_ResourceClass_FK FOREIGN KEY (ResourceClassId) REFERENCES OACC.OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OACC.OAC_Grant_ResCrPerm_PostCr (
+   AccessorResourceId     BIGINT   NOT NULL,
+   AccessedDomainId       BIGINT   NOT NULL,
+   ResourceClassId        BIGINT   NOT NULL,
+   PostCreatePermissionId BIGINT   NOT NULL,
+   PostCreateIsWithGrant  SMALLINT NOT NULL,
+   IsWithGrant            SMALLINT NOT NULL,
+   GrantorResourceId      BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, PostCreatePermissionId, PostCreateIsWithGrant),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OACC.OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Permission_FK FOREIGN KEY (ResourceClassId, PostCreatePermissionId) REFERENCES OACC.OAC_ResourceClassPermission (ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OACC.OAC_Grant_ResPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedResourceId BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResPerm_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedResourceId, SysPermissionId),
+   CONSTRAINT OAC_Grant_ResPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResPerm_Sys_Accessed_FK FOREIGN KEY (AccessedResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResPerm_Sys_ResourceClass_FK FOREIGN KEY (ResourceClassId) REFERENCES OACC.OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Grant_ResPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+CREATE INDEX OAC_Grant_ResPerm_Sys_Accessed ON OACC.OAC_Grant_ResPerm_Sys (AccessedResourceId);
+
+CREATE TABLE OACC.OAC_Grant_ResPerm (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedResourceId BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   PermissionId       BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResPerm_PK PRIMARY KEY (AccessorResourceId, AccessedResourceId, ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_ResPerm_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResPerm_Accessed_FK FOREIGN KEY (AccessedResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResPerm_Permission_FK FOREIGN KEY (ResourceClassId, PermissionId) REFERENCES OACC.OAC_ResourceClassPermission (ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_ResPerm_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+CREATE INDEX OAC_Grant_ResPerm_Accessed ON OACC.OAC_Grant_ResPerm (AccessedResourceId);
+
+CREATE TABLE OACC.OAC_Grant_Global_ResPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedDomainId   BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, SysPermissionId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OACC.OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_ResourceClass_FK FOREIGN KEY (ResourceClassId) REFERENCES OACC.OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OACC.OAC_Grant_Global_ResPerm (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedDomainId   BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   PermissionId       BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_Global_ResPerm_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OACC.OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OACC.OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Permission_FK FOREIGN KEY (ResourceClassId, PermissionId) REFERENCES OACC.OAC_ResourceClassPermission (ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OACC.OAC_Resource (ResourceId)
+);
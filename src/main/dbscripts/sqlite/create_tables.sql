@@ -0,0 +1,190 @@
+-- OACC schema for SQLite; since SQLite has no sequences, the generated ids are INTEGER
+-- PRIMARY KEY columns instead. Create the tables, then the optional tables in
+-- create_optional_tables.sql if required, then run the SQLAccessControlSystemInitializer.
+
+CREATE TABLE OAC_Domain (
+   DomainId          INTEGER     NOT NULL PRIMARY KEY,
+   DomainName        VARCHAR(64) NOT NULL,
+   ParentDomainId    BIGINT,
+   CONSTRAINT OAC_Domain_DomainName UNIQUE (DomainName),
+   CONSTRAINT OAC_Domain_ParentDomainId_FK FOREIGN KEY (ParentDomainId) REFERENCES OAC_Domain (DomainId)
+);
+CREATE INDEX OAC_Domain_ParentDomainId ON OAC_Domain (ParentDomainId);
+
+CREATE TABLE OAC_ResourceClass (
+   ResourceClassId                INTEGER      NOT NULL PRIMARY KEY,
+   ResourceClassName              VARCHAR(128) NOT NULL,
+   IsAuthenticatable              SMALLINT     NOT NULL,
+   IsUnauthenticatedCreateAllowed SMALLINT     NOT NULL,
+   CONSTRAINT OAC_ResourceClass_ResourceClassName UNIQUE (ResourceClassName)
+);
+
+CREATE TABLE OAC_ResourceClassPermission (
+   ResourceClassId BIGINT      NOT NULL,
+   PermissionId    INTEGER     NOT NULL PRIMARY KEY,
+   PermissionName  VARCHAR(64) NOT NULL,
+   CONSTRAINT OAC_ResourceClassPermission_ResourceClassId_PermissionId UNIQUE (ResourceClassId, PermissionId),
+   CONSTRAINT OAC_ResourceClassPermission_PermissionName UNIQUE (ResourceClassId, PermissionName),
+   CONSTRAINT OAC_ResourceClassPermission_ResourceClassId_FK FOREIGN KEY (ResourceClassId) REFERENCES OAC_ResourceClass (ResourceClassId)
+);
+
+CREATE TABLE OAC_Resource (
+   ResourceId      INTEGER NOT NULL PRIMARY KEY,
+   ResourceClassId BIGINT  NOT NULL,
+   DomainId        BIGINT  NOT NULL,
+   CONSTRAINT OAC_Resource_ResourceClassId_FK FOREIGN KEY (ResourceClassId) REFERENCES OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Resource_DomainId_FK FOREIGN KEY (DomainId) REFERENCES OAC_Domain (DomainId)
+);
+CREATE INDEX OAC_Resource_ResourceClassId_DomainId ON OAC_Resource (ResourceClassId, DomainId);
+CREATE INDEX OAC_Resource_DomainId ON OAC_Resource (DomainId);
+
+CREATE TABLE OAC_ResourcePassword (
+   ResourceId BIGINT       NOT NULL,
+   Password   VARCHAR(128) NOT NULL,
+   CONSTRAINT OAC_ResourcePassword_PK PRIMARY KEY (ResourceId),
+   CONSTRAINT OAC_ResourcePassword_ResourceId_FK FOREIGN KEY (ResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OAC_ResourceExternalID (
+   ResourceId BIGINT       NOT NULL,
+   ExternalId VARCHAR(255) NOT NULL,
+   CONSTRAINT OAC_ResourceExternalID_PK PRIMARY KEY (ResourceId),
+   CONSTRAINT OAC_ResourceExternalID_ExternalId UNIQUE (ExternalId),
+   CONSTRAINT OAC_ResourceExternalID_ResourceId_FK FOREIGN KEY (ResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OAC_Grant_DomPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedDomainId   BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_DomPerm_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, SysPermissionId),
+   CONSTRAINT OAC_Grant_DomPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_DomPerm_Sys_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_DomPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+CREATE INDEX OAC_Grant_DomPerm_Sys_Domain ON OAC_Grant_DomPerm_Sys (AccessedDomainId);
+
+CREATE TABLE OAC_Grant_DomCrPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_DomCrPerm_Sys_PK PRIMARY KEY (AccessorResourceId, SysPermissionId),
+   CONSTRAINT OAC_Grant_DomCrPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_DomCrPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OAC_Grant_DomCrPerm_PostCr_Sys (
+   AccessorResourceId        BIGINT   NOT NULL,
+   PostCreateSysPermissionId BIGINT   NOT NULL,
+   PostCreateIsWithGrant     SMALLINT NOT NULL,
+   IsWithGrant               SMALLINT NOT NULL,
+   GrantorResourceId         BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_DomCrPerm_PostCr_Sys_PK PRIMARY KEY (AccessorResourceId, PostCreateSysPermissionId, PostCreateIsWithGrant),
+   CONSTRAINT OAC_Grant_DomCrPerm_PostCr_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_DomCrPerm_PostCr_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OAC_Grant_ResCrPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedDomainId   BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, SysPermissionId),
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_ResourceClass_FK FOREIGN KEY (ResourceClassId) REFERENCES OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Grant_ResCrPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OAC_Grant_ResCrPerm_PostCr_Sys (
+   AccessorResourceId        BIGINT   NOT NULL,
+   AccessedDomainId          BIGINT   NOT NULL,
+   ResourceClassId           BIGINT   NOT NULL,
+   PostCreateSysPermissionId BIGINT   NOT NULL,
+   PostCreateIsWithGrant     SMALLINT NOT NULL,
+   IsWithGrant               SMALLINT NOT NULL,
+   GrantorResourceId         BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, PostCreateSysPermissionId, PostCreateIsWithGrant),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_ResourceClass_FK FOREIGN KEY (ResourceClassId) REFERENCES OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OAC_Grant_ResCrPerm_PostCr (
+   AccessorResourceId     BIGINT   NOT NULL,
+   AccessedDomainId       BIGINT   NOT NULL,
+   ResourceClassId        BIGINT   NOT NULL,
+   PostCreatePermissionId BIGINT   NOT NULL,
+   PostCreateIsWithGrant  SMALLINT NOT NULL,
+   IsWithGrant            SMALLINT NOT NULL,
+   GrantorResourceId      BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, PostCreatePermissionId, PostCreateIsWithGrant),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Permission_FK FOREIGN KEY (ResourceClassId, PostCreatePermissionId) REFERENCES OAC_ResourceClassPermission (ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_ResCrPerm_PostCr_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OAC_Grant_ResPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedResourceId BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResPerm_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedResourceId, SysPermissionId),
+   CONSTRAINT OAC_Grant_ResPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResPerm_Sys_Accessed_FK FOREIGN KEY (AccessedResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResPerm_Sys_ResourceClass_FK FOREIGN KEY (ResourceClassId) REFERENCES OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Grant_ResPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+CREATE INDEX OAC_Grant_ResPerm_Sys_Accessed ON OAC_Grant_ResPerm_Sys (AccessedResourceId);
+
+CREATE TABLE OAC_Grant_ResPerm (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedResourceId BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   PermissionId       BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_ResPerm_PK PRIMARY KEY (AccessorResourceId, AccessedResourceId, ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_ResPerm_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResPerm_Accessed_FK FOREIGN KEY (AccessedResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_ResPerm_Permission_FK FOREIGN KEY (ResourceClassId, PermissionId) REFERENCES OAC_ResourceClassPermission (ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_ResPerm_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+CREATE INDEX OAC_Grant_ResPerm_Accessed ON OAC_Grant_ResPerm (AccessedResourceId);
+
+CREATE TABLE OAC_Grant_Global_ResPerm_Sys (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedDomainId   BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   SysPermissionId    BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, SysPermissionId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_ResourceClass_FK FOREIGN KEY (ResourceClassId) REFERENCES OAC_ResourceClass (ResourceClassId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Sys_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
+
+CREATE TABLE OAC_Grant_Global_ResPerm (
+   AccessorResourceId BIGINT   NOT NULL,
+   AccessedDomainId   BIGINT   NOT NULL,
+   ResourceClassId    BIGINT   NOT NULL,
+   PermissionId       BIGINT   NOT NULL,
+   IsWithGrant        SMALLINT NOT NULL,
+   GrantorResourceId  BIGINT   NOT NULL,
+   CONSTRAINT OAC_Grant_Global_ResPerm_PK PRIMARY KEY (AccessorResourceId, AccessedDomainId, ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Accessor_FK FOREIGN KEY (AccessorResourceId) REFERENCES OAC_Resource (ResourceId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Domain_FK FOREIGN KEY (AccessedDomainId) REFERENCES OAC_Domain (DomainId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Permission_FK FOREIGN KEY (ResourceClassId, PermissionId) REFERENCES OAC_ResourceClassPermission (ResourceClassId, PermissionId),
+   CONSTRAINT OAC_Grant_Global_ResPerm_Grantor_FK FOREIGN KEY (GrantorResourceId) REFERENCES OAC_Resource (ResourceId)
+);
@@ -17,6 +17,7 @@
  */
 package com.acciente.oacc;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -610,6 +611,58 @@ public interface AccessControlContext {
                                   ResourcePermission resourcePermission,
                                   ResourcePermission... resourcePermissions);
 
+   /**
+    * Returns the subset of the specified accessed resources to which the specified accessor resource
+    * has all of the specified resource permissions.
+    * This method takes into account direct, inherited and global permissions of accessor resource, as well
+    * as any super-user privileges, just like {@link #hasResourcePermissions(Resource, Resource, Set)}, but
+    * evaluates the permissions of all the accessed resources together, with a number of queries that does
+    * not grow with every accessed resource.
+    *
+    * @param accessorResource    the resource requesting the access
+    * @param accessedResources   the resources on which access is being requested
+    * @param resourcePermissions the permissions to be checked
+    * @return the set of the specified accessed resources on which the accessor resource has the specified
+    *         permissions, in the iteration order of accessedResources
+    * @throws java.lang.IllegalArgumentException if the accessorResource or any of the accessedResources does not exist, or
+    *                                            if any resourcePermission is invalid for the resource class of any
+    *                                            of the accessedResources
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   Set<Resource> filterResourcesByResourcePermissions(Resource accessorResource,
+                                                      Collection<Resource> accessedResources,
+                                                      Set<ResourcePermission> resourcePermissions);
+
+   /**
+    * Returns the subset of the specified accessed resources to which the specified accessor resource
+    * has all of the specified resource permissions.
+    * This method takes into account direct, inherited and global permissions of accessor resource, as well
+    * as any super-user privileges, just like {@link #hasResourcePermissions(Resource, Resource, Set)}, but
+    * evaluates the permissions of all the accessed resources together, with a number of queries that does
+    * not grow with every accessed resource.
+    *
+    * @param accessorResource    the resource requesting the access
+    * @param accessedResources   the resources on which access is being requested
+    * @param resourcePermission  the permission to be checked
+    * @param resourcePermissions the other (optional) permissions to be checked
+    * @return the set of the specified accessed resources on which the accessor resource has the specified
+    *         permissions, in the iteration order of accessedResources
+    * @throws java.lang.IllegalArgumentException if the accessorResource or any of the accessedResources does not exist, or
+    *                                            if any resourcePermission is invalid for the resource class of any
+    *                                            of the accessedResources
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   Set<Resource> filterResourcesByResourcePermissions(Resource accessorResource,
+                                                      Collection<Resource> accessedResources,
+                                                      ResourcePermission resourcePermission,
+                                                      ResourcePermission... resourcePermissions);
+
    /**
     * Checks if the specified accessor resource has the specified create permissions on an object of
     * the specified class in the specified domain.
@@ -938,6 +991,378 @@ public interface AccessControlContext {
                                                             ResourcePermission resourcePermission,
                                                             ResourcePermission... resourcePermissions);
 
+   /**
+    * Returns an iterator over the resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, regardless of domain,
+    * in ascending order of resource id.
+    * <p/>
+    * This method returns the same resources as
+    * {@link #getResourcesByResourcePermissions(Resource, String, Set)},
+    * but reads them from the database while iterating instead of loading them all into memory, so it is suited
+    * for accessors that can reach a very large number of resources, e.g. via SUPER-USER or global permissions.
+    * The iterator holds on to a database connection until it is exhausted or closed, so callers that stop
+    * iterating early must close it, preferably with a try-with-resources statement.
+    * <p/>
+    * On SQL profiles without recursive queries the resources are only read from a database cursor if the profile
+    * maintains the domain closure table (the <code>*_DOMAIN_CLOSURE</code> profiles) and the inheritance closure
+    * table is enabled. Otherwise all the resources are computed and sorted in memory before the first one is
+    * returned, which takes time and memory proportional to their total number.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param resourcePermissions the permissions to check
+    * @return a closeable iterator over the resources
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   CloseableIterator<Resource> streamResourcesByResourcePermissions(Resource accessorResource,
+                                                                    String resourceClassName,
+                                                                    Set<ResourcePermission> resourcePermissions);
+
+   /**
+    * Returns an iterator over the resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, regardless of domain,
+    * in ascending order of resource id.
+    * <p/>
+    * This method returns the same resources as
+    * {@link #getResourcesByResourcePermissions(Resource, String, ResourcePermission, ResourcePermission...)},
+    * but reads them from the database while iterating instead of loading them all into memory, so it is suited
+    * for accessors that can reach a very large number of resources, e.g. via SUPER-USER or global permissions.
+    * The iterator holds on to a database connection until it is exhausted or closed, so callers that stop
+    * iterating early must close it, preferably with a try-with-resources statement.
+    * <p/>
+    * On SQL profiles without recursive queries the resources are only read from a database cursor if the profile
+    * maintains the domain closure table (the <code>*_DOMAIN_CLOSURE</code> profiles) and the inheritance closure
+    * table is enabled. Otherwise all the resources are computed and sorted in memory before the first one is
+    * returned, which takes time and memory proportional to their total number.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param resourcePermission  the permission to check
+    * @param resourcePermissions the other (optional) permissions to check
+    * @return a closeable iterator over the resources
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   CloseableIterator<Resource> streamResourcesByResourcePermissions(Resource accessorResource,
+                                                                    String resourceClassName,
+                                                                    ResourcePermission resourcePermission,
+                                                                    ResourcePermission... resourcePermissions);
+
+   /**
+    * Returns an iterator over the resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, within the
+    * specified domain or within any descendant domains, in ascending order of resource id.
+    * <p/>
+    * This method returns the same resources as
+    * {@link #getResourcesByResourcePermissionsAndDomain(Resource, String, String, Set)},
+    * but reads them from the database while iterating instead of loading them all into memory, so it is suited
+    * for accessors that can reach a very large number of resources, e.g. via SUPER-USER or global permissions.
+    * The iterator holds on to a database connection until it is exhausted or closed, so callers that stop
+    * iterating early must close it, preferably with a try-with-resources statement.
+    * <p/>
+    * On SQL profiles without recursive queries the resources are only read from a database cursor if the profile
+    * maintains the domain closure table (the <code>*_DOMAIN_CLOSURE</code> profiles) and the inheritance closure
+    * table is enabled. Otherwise all the resources are computed and sorted in memory before the first one is
+    * returned, which takes time and memory proportional to their total number.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param domainName          a domain name
+    * @param resourcePermissions the permissions to check
+    * @return a closeable iterator over the resources
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if no domain of domainName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   CloseableIterator<Resource> streamResourcesByResourcePermissionsAndDomain(Resource accessorResource,
+                                                                             String resourceClassName,
+                                                                             String domainName,
+                                                                             Set<ResourcePermission> resourcePermissions);
+
+   /**
+    * Returns an iterator over the resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, within the
+    * specified domain or within any descendant domains, in ascending order of resource id.
+    * <p/>
+    * This method returns the same resources as
+    * {@link #getResourcesByResourcePermissionsAndDomain(Resource, String, String, ResourcePermission, ResourcePermission...)},
+    * but reads them from the database while iterating instead of loading them all into memory, so it is suited
+    * for accessors that can reach a very large number of resources, e.g. via SUPER-USER or global permissions.
+    * The iterator holds on to a database connection until it is exhausted or closed, so callers that stop
+    * iterating early must close it, preferably with a try-with-resources statement.
+    * <p/>
+    * On SQL profiles without recursive queries the resources are only read from a database cursor if the profile
+    * maintains the domain closure table (the <code>*_DOMAIN_CLOSURE</code> profiles) and the inheritance closure
+    * table is enabled. Otherwise all the resources are computed and sorted in memory before the first one is
+    * returned, which takes time and memory proportional to their total number.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param domainName          a domain name
+    * @param resourcePermission  the permission to check
+    * @param resourcePermissions the other (optional) permissions to check
+    * @return a closeable iterator over the resources
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if no domain of domainName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   CloseableIterator<Resource> streamResourcesByResourcePermissionsAndDomain(Resource accessorResource,
+                                                                             String resourceClassName,
+                                                                             String domainName,
+                                                                             ResourcePermission resourcePermission,
+                                                                             ResourcePermission... resourcePermissions);
+
+   /**
+    * Returns one page of the resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, regardless of domain.
+    * <p/>
+    * The resources are returned in ascending order of resource id, starting after the resource with the specified
+    * id, so that the next page is retrieved by passing the id of the last resource of the current page. Each page
+    * is computed by the database and only costs as much as its size, no matter how many resources the accessor can
+    * reach in total. Resources created or deleted between two calls may be included in or missing from later pages.
+    * <p/>
+    * On SQL profiles without recursive queries the page is only computed by the database if the profile maintains
+    * the domain closure table (the <code>*_DOMAIN_CLOSURE</code> profiles) and the inheritance closure table is
+    * enabled. Otherwise each page is cut out of all the resources, which are computed and sorted in memory, so that
+    * a page costs as much as all the resources the accessor can reach, and paging through them is not bounded by
+    * the page size.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param afterResourceId     the id of the last resource of the previous page, or <code>null</code> for the
+    *                            first page
+    * @param pageSize            the maximum number of resources to return, which must be positive
+    * @param resourcePermissions the permissions to check
+    * @return a list of at most pageSize resources, in ascending order of resource id
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if pageSize is not positive, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   List<Resource> getResourcesByResourcePermissionsPage(Resource accessorResource,
+                                                        String resourceClassName,
+                                                        Long afterResourceId,
+                                                        int pageSize,
+                                                        Set<ResourcePermission> resourcePermissions);
+
+   /**
+    * Returns one page of the resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, regardless of domain.
+    * <p/>
+    * The resources are returned in ascending order of resource id, starting after the resource with the specified
+    * id, so that the next page is retrieved by passing the id of the last resource of the current page. Each page
+    * is computed by the database and only costs as much as its size, no matter how many resources the accessor can
+    * reach in total. Resources created or deleted between two calls may be included in or missing from later pages.
+    * <p/>
+    * On SQL profiles without recursive queries the page is only computed by the database if the profile maintains
+    * the domain closure table (the <code>*_DOMAIN_CLOSURE</code> profiles) and the inheritance closure table is
+    * enabled. Otherwise each page is cut out of all the resources, which are computed and sorted in memory, so that
+    * a page costs as much as all the resources the accessor can reach, and paging through them is not bounded by
+    * the page size.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param afterResourceId     the id of the last resource of the previous page, or <code>null</code> for the
+    *                            first page
+    * @param pageSize            the maximum number of resources to return, which must be positive
+    * @param resourcePermission  the permission to check
+    * @param resourcePermissions the other (optional) permissions to check
+    * @return a list of at most pageSize resources, in ascending order of resource id
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if pageSize is not positive, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   List<Resource> getResourcesByResourcePermissionsPage(Resource accessorResource,
+                                                        String resourceClassName,
+                                                        Long afterResourceId,
+                                                        int pageSize,
+                                                        ResourcePermission resourcePermission,
+                                                        ResourcePermission... resourcePermissions);
+
+   /**
+    * Returns the number of resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, regardless of domain.
+    * <p/>
+    * This method counts the same resources that {@link #getResourcesByResourcePermissions(Resource, String, Set)}
+    * returns, but counts them in the database instead of loading them.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param resourcePermissions the permissions to check
+    * @return the number of resources
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   long countResourcesByResourcePermissions(Resource accessorResource,
+                                            String resourceClassName,
+                                            Set<ResourcePermission> resourcePermissions);
+
+   /**
+    * Returns the number of resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, regardless of domain.
+    * <p/>
+    * This method counts the same resources that {@link #getResourcesByResourcePermissions(Resource, String, Set)}
+    * returns, but counts them in the database instead of loading them.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param resourcePermission  the permission to check
+    * @param resourcePermissions the other (optional) permissions to check
+    * @return the number of resources
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   long countResourcesByResourcePermissions(Resource accessorResource,
+                                            String resourceClassName,
+                                            ResourcePermission resourcePermission,
+                                            ResourcePermission... resourcePermissions);
+
+   /**
+    * Returns the number of resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, within the
+    * specified domain or within any descendant domains.
+    * <p/>
+    * This method counts the same resources that
+    * {@link #getResourcesByResourcePermissionsAndDomain(Resource, String, String, Set)} returns, but counts them
+    * in the database instead of loading them.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param domainName          a domain name
+    * @param resourcePermissions the permissions to check
+    * @return the number of resources
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if no domain of domainName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   long countResourcesByResourcePermissionsAndDomain(Resource accessorResource,
+                                                     String resourceClassName,
+                                                     String domainName,
+                                                     Set<ResourcePermission> resourcePermissions);
+
+   /**
+    * Returns the number of resources (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, within the
+    * specified domain or within any descendant domains.
+    * <p/>
+    * This method counts the same resources that
+    * {@link #getResourcesByResourcePermissionsAndDomain(Resource, String, String, Set)} returns, but counts them
+    * in the database instead of loading them.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param domainName          a domain name
+    * @param resourcePermission  the permission to check
+    * @param resourcePermissions the other (optional) permissions to check
+    * @return the number of resources
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if no domain of domainName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   long countResourcesByResourcePermissionsAndDomain(Resource accessorResource,
+                                                     String resourceClassName,
+                                                     String domainName,
+                                                     ResourcePermission resourcePermission,
+                                                     ResourcePermission... resourcePermissions);
+
+   /**
+    * Checks if there is any resource (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, regardless of domain.
+    * <p/>
+    * This method is equivalent to checking whether {@link #getResourcesByResourcePermissions(Resource, String, Set)}
+    * returns a non-empty set, but stops looking at the first resource it finds instead of loading them all.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param resourcePermissions the permissions to check
+    * @return <strong>true</strong> if there is at least one such resource, <strong>false</strong> otherwise
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   boolean hasAnyResourceByResourcePermissions(Resource accessorResource,
+                                               String resourceClassName,
+                                               Set<ResourcePermission> resourcePermissions);
+
+   /**
+    * Checks if there is any resource (of the specified resource class) on which
+    * the specified accessor resource has the specified permissions, regardless of domain.
+    * <p/>
+    * This method is equivalent to checking whether {@link #getResourcesByResourcePermissions(Resource, String, Set)}
+    * returns a non-empty set, but stops looking at the first resource it finds instead of loading them all.
+    *
+    * @param accessorResource    the resource relative to which the accessible resources are computed
+    * @param resourceClassName   a string resource class name
+    * @param resourcePermission  the permission to check
+    * @param resourcePermissions the other (optional) permissions to check
+    * @return <strong>true</strong> if there is at least one such resource, <strong>false</strong> otherwise
+    * @throws java.lang.IllegalArgumentException if accessorResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessor resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessor resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   boolean hasAnyResourceByResourcePermissions(Resource accessorResource,
+                                               String resourceClassName,
+                                               ResourcePermission resourcePermission,
+                                               ResourcePermission... resourcePermissions);
+
    /**
     * Returns a set of resources that have the specified permissions to the specified accessed resource.
     * <p/>
@@ -988,6 +1413,68 @@ public interface AccessControlContext {
                                                            ResourcePermission resourcePermission,
                                                            ResourcePermission... resourcePermissions);
 
+   /**
+    * Returns one page of the resources that have the specified permissions to the specified accessed resource.
+    * <p/>
+    * Like {@link #getAccessorResourcesByResourcePermissions(Resource, String, Set)}, this method only takes into
+    * account direct permissions. The resources are returned in ascending order of resource id, starting after the
+    * resource with the specified id, so that the next page is retrieved by passing the id of the last resource of
+    * the current page. Each page is computed by the database and only costs as much as its size.
+    *
+    * @param accessedResource    the resource relative to which accessor resources are sought
+    * @param resourceClassName   a string resource class name
+    * @param afterResourceId     the id of the last resource of the previous page, or <code>null</code> for the
+    *                            first page
+    * @param pageSize            the maximum number of resources to return, which must be positive
+    * @param resourcePermissions the permissions to check
+    * @return a list of at most pageSize accessor resources, in ascending order of resource id
+    * @throws java.lang.IllegalArgumentException if accessedResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if pageSize is not positive, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessed resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessed resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   List<Resource> getAccessorResourcesByResourcePermissionsPage(Resource accessedResource,
+                                                                String resourceClassName,
+                                                                Long afterResourceId,
+                                                                int pageSize,
+                                                                Set<ResourcePermission> resourcePermissions);
+
+   /**
+    * Returns one page of the resources that have the specified permissions to the specified accessed resource.
+    * <p/>
+    * Like {@link #getAccessorResourcesByResourcePermissions(Resource, String, Set)}, this method only takes into
+    * account direct permissions. The resources are returned in ascending order of resource id, starting after the
+    * resource with the specified id, so that the next page is retrieved by passing the id of the last resource of
+    * the current page. Each page is computed by the database and only costs as much as its size.
+    *
+    * @param accessedResource    the resource relative to which accessor resources are sought
+    * @param resourceClassName   a string resource class name
+    * @param afterResourceId     the id of the last resource of the previous page, or <code>null</code> for the
+    *                            first page
+    * @param pageSize            the maximum number of resources to return, which must be positive
+    * @param resourcePermission  the permission to check
+    * @param resourcePermissions the other (optional) permissions to check
+    * @return a list of at most pageSize accessor resources, in ascending order of resource id
+    * @throws java.lang.IllegalArgumentException if accessedResource does not exist, or
+    *                                            if no resource class of resourceClassName exists, or
+    *                                            if pageSize is not positive, or
+    *                                            if any resourcePermission is invalid for the specified resource class
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not the accessed resource and
+    *                                                  the session resource does not have query authorization on
+    *                                                  the accessed resource (explicitly via QUERY or implicitly via
+    *                                                  IMPERSONATE permissions)
+    */
+   List<Resource> getAccessorResourcesByResourcePermissionsPage(Resource accessedResource,
+                                                                String resourceClassName,
+                                                                Long afterResourceId,
+                                                                int pageSize,
+                                                                ResourcePermission resourcePermission,
+                                                                ResourcePermission... resourcePermissions);
+
    /**
     * Returns the domain to which the specified resource belongs.
     *
@@ -1192,6 +1679,30 @@ public interface AccessControlContext {
     */
    Resource createResource(String resourceClassName, String domainName, String externalId, Credentials credentials);
 
+   /**
+    * Creates new resources of the specified resource class within the specified domain, one for each of the
+    * specified external ids.
+    * <p/>
+    * This method is equivalent to calling {@link #createResource(String, String, String)} for each external id,
+    * but reserves the new resource ids and writes the new resources, and their post-create permissions, in
+    * blocks, which makes it suitable for creating large numbers of resources.
+    * <p/>
+    * Note that a custom {@link AuthenticationProvider} implementation is required to support
+    * creation of authenticatable resources without providing explicit credentials
+    *
+    * @param resourceClassName a string resource class name
+    * @param domainName        a string domain name
+    * @param externalIds       a list of unique string identifiers, one for each new resource
+    * @return the resource references of the newly created resources, in the order of the specified external ids
+    * @throws java.lang.IllegalArgumentException if no resource class of resourceClassName exists, or
+    *                                            if no domain of domainName exists, or
+    *                                            if the list of external ids is empty or contains duplicates, or
+    *                                            if a resource with one of the external ids already exists
+    * @throws com.acciente.oacc.NotAuthorizedException if the session resource is not authorized to create a new resource
+    *                                                  of the specified resource class in the specified domain
+    */
+   List<Resource> createResources(String resourceClassName, String domainName, List<String> externalIds);
+
    /**
     * Sets the external id of the specified resource as an alternative resource identifier, if none was previously set.
     * <p/>
@@ -2384,4 +2895,26 @@ public interface AccessControlContext {
     *                                                  IMPERSONATE permissions)
     */
    Map<String, Map<String, Set<ResourcePermission>>> getEffectiveGlobalResourcePermissionsMap(Resource accessorResource);
-}
\ No newline at end of file
+
+   /**
+    * Executes the specified unit of work as a single transaction.
+    * <p/>
+    * All operations the unit of work performs on this access control context use one and the same database
+    * connection, with auto-commit disabled, which is committed once the unit of work completes normally, or
+    * rolled back if the unit of work throws an exception. This makes a sequence of operations, such as creating
+    * a domain, its resources and their permissions, atomic, and avoids acquiring a connection and committing
+    * for each individual operation.
+    * <p/>
+    * A unit of work executed from within another unit of work on the same access control context participates
+    * in the enclosing transaction. Note that the security session state of this context, such as the
+    * authenticated or impersonated resource, is not part of the transaction and is not rolled back.
+    *
+    * @param unitOfWork the unit of work to be executed
+    * @param <T>        the type of the result of the unit of work
+    * @return the result of the unit of work
+    * @throws java.lang.NullPointerException if unitOfWork is null
+    * @throws java.lang.RuntimeException     any exception thrown by the unit of work, after the transaction was
+    *                                        rolled back
+    */
+   <T> T executeInTransaction(UnitOfWork<T> unitOfWork);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+/**
+ * Thrown when an authentication attempt is refused without checking the credentials, because the resources reserved
+ * for checking credentials are exhausted. The attempt may succeed if retried later.
+ */
+public class AuthenticationRejectedException extends AuthenticationException {
+   private static final long serialVersionUID = 1L;
+
+   public AuthenticationRejectedException(String message) {
+      super(message);
+   }
+
+   public AuthenticationRejectedException(String message, Throwable cause) {
+      super(message, cause);
+   }
+
+   public AuthenticationRejectedException(Throwable cause) {
+      super(cause);
+   }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import java.util.Iterator;
+
+/**
+ * An iterator over results that are read from the database while iterating, and that holds on to database
+ * resources until it is closed.
+ * <p/>
+ * An iterator releases its database resources once it is exhausted, but callers that stop iterating early must
+ * close it, preferably with a try-with-resources statement. The iterator does not support {@link #remove()}.
+ *
+ * @param <T> the type of the elements returned by the iterator
+ */
+public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+   /**
+    * Releases the database resources held by this iterator. Closing an iterator more than once has no effect.
+    */
+   @Override
+   void close();
+}
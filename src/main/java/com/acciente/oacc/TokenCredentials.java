@@ -0,0 +1,69 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+/**
+ * This is a {@link Credentials} implementation that may be used by an {@link AuthenticationProvider}
+ * that provides token-based authentication, such as
+ * {@link com.acciente.oacc.token.HmacTokenAuthenticationProvider}. A token is an opaque string issued by the
+ * authentication provider after a resource successfully authenticated with other credentials.
+ */
+public abstract class TokenCredentials implements Credentials {
+   /**
+    * Returns the token contained in this credentials instance
+    *
+    * @return a token string
+    */
+   public abstract String getToken();
+
+   public static TokenCredentials newInstance(String token) {
+      return new Impl(token);
+   }
+
+   private static class Impl extends TokenCredentials {
+      private final String token;
+
+      private Impl(String token) {
+         this.token = token;
+      }
+
+      @Override
+      public String getToken() {
+         return token;
+      }
+
+      @Override
+      public boolean equals(Object other) {
+         if (this == other) {
+            return true;
+         }
+         if (other == null || getClass() != other.getClass()) {
+            return false;
+         }
+
+         Impl impl = (Impl) other;
+
+         return token != null ? token.equals(impl.token) : impl.token == null;
+      }
+
+      @Override
+      public int hashCode() {
+         return token != null ? token.hashCode() : 0;
+      }
+   }
+}
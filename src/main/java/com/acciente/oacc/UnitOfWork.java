@@ -0,0 +1,38 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+/**
+ * A unit of work that performs several operations on an {@link AccessControlContext} as a single transaction.
+ *
+ * @param <T> the type of the result of the unit of work
+ * @see AccessControlContext#executeInTransaction(UnitOfWork)
+ */
+public interface UnitOfWork<T> {
+   /**
+    * Performs the operations of this unit of work.
+    * <p/>
+    * Any exception thrown from this method rolls back all operations of the unit of work.
+    *
+    * @param accessControlContext the access control context on which the unit of work is executed, whose
+    *                             operations all participate in the same transaction
+    * @return the result of the unit of work, which is returned from
+    *         {@link AccessControlContext#executeInTransaction(UnitOfWork)}
+    */
+   T execute(AccessControlContext accessControlContext);
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.encryptor;
+
+/**
+ * A {@link PasswordEncryptor} whose password hashes all start with a marker that identifies the encryptor, such as
+ * <code>bcrypt:</code> or <code>jasypt:</code>. The marker allows the encryptor of a stored password hash to be
+ * determined without attempting to decode the hash, see {@link TransitioningPasswordEncryptor}.
+ */
+public interface MarkedPasswordEncryptor extends PasswordEncryptor {
+   /**
+    * Returns the marker at the start of every password hash created by this encryptor.
+    *
+    * @return the marker prefix of the password hashes
+    */
+   String getMarker();
+}
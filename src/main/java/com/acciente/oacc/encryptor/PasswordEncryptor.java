@@ -50,6 +50,8 @@ package com.acciente.oacc.encryptor;
  *    <ul>
  *    <li>{@link com.acciente.oacc.encryptor.bcrypt.BCryptPasswordEncryptor#newInstance(int)
  *      newInstance(int costFactor)}</li>
+ *    <li>{@link com.acciente.oacc.encryptor.bcrypt.BCryptPasswordEncryptor#newInstanceForTargetLatency(long, java.util.concurrent.TimeUnit)
+ *      newInstanceForTargetLatency(long targetLatency, TimeUnit timeUnit)}</li>
  *    </ul>
  * </li>
  * <li>{@link TransitioningPasswordEncryptor} - provides a means to transition from
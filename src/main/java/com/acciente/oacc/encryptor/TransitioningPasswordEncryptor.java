@@ -24,17 +24,33 @@ import java.io.Serializable;
  * The purpose of this password encryptor is to provide a means to transition from an existing (aka "old") password
  * encryptor to a new password encryptor in an environment where OACC is already deployed -- where existing passwords
  * in the tables are encrypted using the old password encryptor.
+ * <p>
+ * When the new password encryptor is a {@link MarkedPasswordEncryptor}, the encryptor of a stored password is
+ * determined from its marker, and the built-in authentication provider replaces a password stored by the old password
+ * encryptor with a hash by the new one whenever its resource authenticates. The progress of the transition is reported
+ * by the check and rehash counts of this encryptor, which are not serialized.
  */
 public class TransitioningPasswordEncryptor implements PasswordEncryptor, Serializable {
+   // the value computed by earlier versions, which did not declare one
+   private static final long serialVersionUID = 2158333552161651673L;
+
    private final PasswordEncryptor newPasswordEncryptor;
    private final PasswordEncryptor oldPasswordEncryptor;
 
+   // the statistics of the transition
+   private transient long newPasswordCheckCount;
+   private transient long oldPasswordCheckCount;
+   private transient long rehashCount;
+   private transient long rehashFailureCount;
+
    /**
     * Creates a password encryptor that delegates all password hash encryption to the password encryptor provided in the
     * <code>newPasswordEncryptor</code> parameter. For decryption/comparison of existing passwords this password
     * encryptor first delegates to the password encryptor provided in the <code>newPasswordEncryptor</code> parameter if
     * that attempts fails by throwing an {@link IllegalArgumentException}, this password encryptor retries by
-    * delegating to the password encryptor provided in the <code>oldPasswordEncryptor</code> parameter.
+    * delegating to the password encryptor provided in the <code>oldPasswordEncryptor</code> parameter. If the new
+    * password encryptor is a {@link MarkedPasswordEncryptor}, the existing password is instead delegated directly
+    * to the new or old password encryptor, depending on whether it starts with the marker of the new one.
     *
     * @param newPasswordEncryptor the new password encryptor to use for hashing all new passwords hashes for storage
     * @param oldPasswordEncryptor the password encryptor that was to hash the passwords already stored in the tables, in
@@ -61,14 +77,108 @@ public class TransitioningPasswordEncryptor implements PasswordEncryptor, Serial
 
    @Override
    public boolean checkPassword(char[] plainPassword, String encryptedPassword) {
+      if (encryptedPassword != null && newPasswordEncryptor instanceof MarkedPasswordEncryptor) {
+         // the marker tells which encryptor created the password, so there is no need to attempt a decode
+         if (isEncryptedByNewPasswordEncryptor(encryptedPassword)) {
+            recordNewPasswordCheck();
+            return newPasswordEncryptor.checkPassword(plainPassword, encryptedPassword);
+         }
+         recordOldPasswordCheck();
+         return oldPasswordEncryptor.checkPassword(plainPassword, encryptedPassword);
+      }
+
       try {
          // first try the new password encryptor, this will work if the password was created by new password encryptor
-         return newPasswordEncryptor.checkPassword(plainPassword, encryptedPassword);
+         final boolean isPasswordCorrect = newPasswordEncryptor.checkPassword(plainPassword, encryptedPassword);
+         recordNewPasswordCheck();
+         return isPasswordCorrect;
       }
       catch (IllegalArgumentException e) {
          // if the new password encryptor fails with a password format exception, it is likely an old password, so
          // use the old password encryptor to decrypt the password
+         recordOldPasswordCheck();
          return oldPasswordEncryptor.checkPassword(plainPassword, encryptedPassword);
       }
    }
+
+   /**
+    * Returns true if the specified existing password was created by the old password encryptor, and should be replaced
+    * with a hash by the new password encryptor. Always returns false when the new password encryptor is not a
+    * {@link MarkedPasswordEncryptor}, since the encryptor of a password cannot be told without decoding it.
+    *
+    * @param encryptedPassword an existing encrypted password
+    * @return true if the password should be re-encrypted with the new password encryptor, false otherwise
+    */
+   public boolean isRehashNeeded(String encryptedPassword) {
+      return encryptedPassword != null
+            && newPasswordEncryptor instanceof MarkedPasswordEncryptor
+            && !isEncryptedByNewPasswordEncryptor(encryptedPassword);
+   }
+
+   /**
+    * Records that a password created by the old password encryptor was replaced with a hash by the new password
+    * encryptor. Intended to be called by the authentication provider.
+    */
+   public synchronized void recordRehash() {
+      rehashCount++;
+   }
+
+   /**
+    * Records that a password created by the old password encryptor could not be replaced. Intended to be called by the
+    * authentication provider.
+    */
+   public synchronized void recordRehashFailure() {
+      rehashFailureCount++;
+   }
+
+   /**
+    * Returns the number of checks of passwords created by the new password encryptor.
+    *
+    * @return the number of checks of new passwords
+    */
+   public synchronized long getNewPasswordCheckCount() {
+      return newPasswordCheckCount;
+   }
+
+   /**
+    * Returns the number of checks of passwords created by the old password encryptor. A count that stops growing
+    * indicates that the resources that still authenticate have all been transitioned.
+    *
+    * @return the number of checks of old passwords
+    */
+   public synchronized long getOldPasswordCheckCount() {
+      return oldPasswordCheckCount;
+   }
+
+   /**
+    * Returns the number of passwords created by the old password encryptor that were replaced with a hash by the new
+    * password encryptor.
+    *
+    * @return the number of re-encrypted passwords
+    */
+   public synchronized long getRehashCount() {
+      return rehashCount;
+   }
+
+   /**
+    * Returns the number of passwords created by the old password encryptor that could not be replaced, for example
+    * because the database update failed. Such passwords are re-encrypted the next time their resource authenticates.
+    *
+    * @return the number of failed re-encryptions
+    */
+   public synchronized long getRehashFailureCount() {
+      return rehashFailureCount;
+   }
+
+   private boolean isEncryptedByNewPasswordEncryptor(String encryptedPassword) {
+      return encryptedPassword.startsWith(((MarkedPasswordEncryptor) newPasswordEncryptor).getMarker());
+   }
+
+   private synchronized void recordNewPasswordCheck() {
+      newPasswordCheckCount++;
+   }
+
+   private synchronized void recordOldPasswordCheck() {
+      oldPasswordCheckCount++;
+   }
 }
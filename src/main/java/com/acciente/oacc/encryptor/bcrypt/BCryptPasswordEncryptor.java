@@ -17,17 +17,18 @@
  */
 package com.acciente.oacc.encryptor.bcrypt;
 
-import com.acciente.oacc.encryptor.PasswordEncryptor;
+import com.acciente.oacc.encryptor.MarkedPasswordEncryptor;
 import com.acciente.oacc.normalizer.TextNormalizer;
 import org.bouncycastle.crypto.generators.OpenBSDBCrypt;
 
 import java.io.Serializable;
 import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Password encryptor implementation that uses the OpenBSD BCrypt algorithm for creating password hashes.
  */
-public class BCryptPasswordEncryptor implements PasswordEncryptor, Serializable {
+public class BCryptPasswordEncryptor implements MarkedPasswordEncryptor, Serializable {
    private static final long serialVersionUID = 1L;
 
    public static final String NAME = "bcrypt";
@@ -36,6 +37,9 @@ public class BCryptPasswordEncryptor implements PasswordEncryptor, Serializable
    private static final int BCRYPT_COST_FACTOR_MAX = 31;
    private static final int BCRYPT_SALT_SIZE       = 16;
 
+   // the password hashed while calibrating, its length does not affect the cost of a hash
+   private static final char[] CALIBRATION_PASSWORD = "calibration-password".toCharArray();
+
    private static final PasswordEncoderDecoder passwordEncoderDecoder = new PasswordEncoderDecoder();
    private static final SecureRandom           secureRandom           = new SecureRandom();
 
@@ -55,6 +59,63 @@ public class BCryptPasswordEncryptor implements PasswordEncryptor, Serializable
       return new BCryptPasswordEncryptor(costFactor);
    }
 
+   /**
+    * Returns a password encryptor that uses the BCrypt algorithm with the highest cost factor for which hashing a
+    * password on this host takes less than the specified target latency.
+    * <p>
+    * The cost factor is calibrated by hashing a password with increasing cost factors, starting at
+    * {@value BCRYPT_COST_FACTOR_MIN}, until a hash takes at least the target latency. Since each increment of the cost
+    * factor doubles the hashing time, calibration takes about twice the target latency. If even the minimum cost
+    * factor exceeds the target latency, the minimum cost factor is used.
+    * <p>
+    * The calibrated cost factor depends on the speed and load of the host, so it should be determined once at
+    * startup, and hosts that share the same password table should use similar targets.
+    *
+    * @param targetLatency the maximum time hashing a password should take
+    * @param timeUnit      the unit of the target latency
+    * @return a BCryptPasswordEncryptor instance configured as described above.
+    * @throws IllegalArgumentException if the target latency is not positive, or the time unit is null
+    */
+   public static BCryptPasswordEncryptor newInstanceForTargetLatency(long targetLatency, TimeUnit timeUnit) {
+      if (timeUnit == null) {
+         throw new IllegalArgumentException("Time unit required, none specified");
+      }
+      if (targetLatency <= 0) {
+         throw new IllegalArgumentException("The target latency must be positive");
+      }
+      return new BCryptPasswordEncryptor(calibrateCostFactor(timeUnit.toNanos(targetLatency)));
+   }
+
+   /**
+    * Returns the cost factor of the specified password hash, which must have been created by a BCrypt password
+    * encryptor. This allows the passwords stored with a lower cost factor than the current one to be identified.
+    *
+    * @param storedPassword a password hash created by a BCrypt password encryptor
+    * @return the cost factor used to create the password hash
+    * @throws IllegalArgumentException if the password hash was not created by a BCrypt password encryptor
+    */
+   public static int getCostFactorOfPasswordHash(String storedPassword) {
+      if (storedPassword == null) {
+         throw new IllegalArgumentException("Stored password required, none specified");
+      }
+      if (storedPassword.length() < PasswordEncoderDecoder.MARKER.length()) {
+         throw new IllegalArgumentException("Unexpected format for BCrypt password");
+      }
+      // the BCrypt string has the format $<version>$<two-digit cost factor>$<salt and hash>
+      final String bcryptString = passwordEncoderDecoder.decode(storedPassword);
+      final int costFactorStart = bcryptString.indexOf('$', 1) + 1;
+      final int costFactorEnd = bcryptString.indexOf('$', costFactorStart);
+      if (costFactorStart <= 0 || costFactorEnd < 0) {
+         throw new IllegalArgumentException("Unexpected format for BCrypt password");
+      }
+      try {
+         return Integer.parseInt(bcryptString.substring(costFactorStart, costFactorEnd));
+      }
+      catch (NumberFormatException e) {
+         throw new IllegalArgumentException("Unexpected cost factor in BCrypt password", e);
+      }
+   }
+
    private BCryptPasswordEncryptor(int costFactor) {
       this.costFactor = costFactor;
    }
@@ -86,6 +147,11 @@ public class BCryptPasswordEncryptor implements PasswordEncryptor, Serializable
       return OpenBSDBCrypt.checkPassword(bcryptString, normalizedChars);
    }
 
+   @Override
+   public String getMarker() {
+      return PasswordEncoderDecoder.MARKER;
+   }
+
    /**
     * Returns the cost factor in use by this instance.
     *
@@ -101,6 +167,22 @@ public class BCryptPasswordEncryptor implements PasswordEncryptor, Serializable
       return saltBytes;
    }
 
+   private static int calibrateCostFactor(long targetLatencyNanos) {
+      // warm up, so that the first measurement is not inflated by class loading and compilation
+      OpenBSDBCrypt.generate(CALIBRATION_PASSWORD, gensalt(), BCRYPT_COST_FACTOR_MIN);
+
+      int costFactor = BCRYPT_COST_FACTOR_MIN;
+      while (costFactor < BCRYPT_COST_FACTOR_MAX) {
+         final long startNanos = System.nanoTime();
+         OpenBSDBCrypt.generate(CALIBRATION_PASSWORD, gensalt(), costFactor + 1);
+         if (System.nanoTime() - startNanos >= targetLatencyNanos) {
+            break;
+         }
+         costFactor++;
+      }
+      return costFactor;
+   }
+
    private static void assertCostFactorValid(int computedCostFactorMin) {
       if (computedCostFactorMin < BCRYPT_COST_FACTOR_MIN || computedCostFactorMin > BCRYPT_COST_FACTOR_MAX) {
          throw new IllegalArgumentException("The cost factor must be between " + BCRYPT_COST_FACTOR_MIN + " and " +
@@ -21,7 +21,7 @@ package com.acciente.oacc.encryptor.bcrypt;
 import org.bouncycastle.crypto.generators.OpenBSDBCrypt;
 
 public class PasswordEncoderDecoder {
-   private static final String MARKER = BCryptPasswordEncryptor.NAME + ":";
+   static final String MARKER = BCryptPasswordEncryptor.NAME + ":";
 
    /**
     * Encodes the OACC password header into the BCrypt string (OpenBSD standard BCrypt hash implementation).
@@ -24,7 +24,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.regex.Pattern;
 
 class PasswordEncoderDecoder {
-   private static final String MARKER                 = JasyptPasswordEncryptor.NAME + ":";
+   static final String MARKER = JasyptPasswordEncryptor.NAME + ":";
+
    private static final String PARAM_DELIMITER        = "$";
    private static final String QUOTED_PARAM_DELIMITER = Pattern.quote(PARAM_DELIMITER);
 
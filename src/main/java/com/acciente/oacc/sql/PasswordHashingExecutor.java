@@ -0,0 +1,280 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.AuthenticationException;
+import com.acciente.oacc.AuthenticationRejectedException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of worker threads that performs the password hashing of the built-in authentication provider, so
+ * that a burst of authentications cannot occupy every processor of the process. The pool can be shared by all access
+ * control contexts configured with the same {@link SQLAccessControlContextOptions}.
+ * <p>
+ * At most the configured number of passwords are hashed at once, and at most the configured number of further
+ * hashing tasks wait in the queue. When the queue is full an authentication fails immediately with an
+ * {@link AuthenticationRejectedException}, instead of waiting. The calling thread blocks while its password is hashed.
+ * <p>
+ * The worker threads are daemon threads; call {@link #shutdown()} to stop them when the pool is no longer used.
+ * This class is thread-safe.
+ */
+public class PasswordHashingExecutor {
+   private static final AtomicInteger poolCount = new AtomicInteger();
+
+   private final ThreadPoolExecutor threadPoolExecutor;
+   private final int                queueCapacity;
+
+   private long rejectedCount;
+   private long completedCount;
+   private long totalHashNanos;
+   private long maxHashNanos;
+
+   /**
+    * Returns a new pool that hashes up to half as many passwords at once as there are available processors, but
+    * at least one.
+    *
+    * @param queueCapacity the maximum number of hashing tasks waiting for a worker thread
+    * @return a PasswordHashingExecutor instance
+    * @throws IllegalArgumentException if the specified queue capacity is negative
+    */
+   public static PasswordHashingExecutor newInstance(int queueCapacity) {
+      return newInstance(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), queueCapacity);
+   }
+
+   /**
+    * Returns a new pool that hashes up to the specified number of passwords at once.
+    *
+    * @param parallelism   the number of worker threads
+    * @param queueCapacity the maximum number of hashing tasks waiting for a worker thread, or zero to reject an
+    *                      authentication whenever all worker threads are busy
+    * @return a PasswordHashingExecutor instance
+    * @throws IllegalArgumentException if the specified parallelism is less than 1, or the queue capacity is negative
+    */
+   public static PasswordHashingExecutor newInstance(int parallelism, int queueCapacity) {
+      if (parallelism < 1) {
+         throw new IllegalArgumentException("Parallelism must be at least 1, got: " + parallelism);
+      }
+      if (queueCapacity < 0) {
+         throw new IllegalArgumentException("Queue capacity cannot be negative");
+      }
+      return new PasswordHashingExecutor(parallelism, queueCapacity);
+   }
+
+   private PasswordHashingExecutor(int parallelism, int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+
+      final BlockingQueue<Runnable> workQueue;
+      if (queueCapacity > 0) {
+         workQueue = new ArrayBlockingQueue<>(queueCapacity);
+      }
+      else {
+         workQueue = new SynchronousQueue<>();
+      }
+
+      final String threadNamePrefix = "oacc-password-hashing-" + poolCount.incrementAndGet() + "-";
+      threadPoolExecutor = new ThreadPoolExecutor(parallelism,
+                                                  parallelism,
+                                                  0L,
+                                                  TimeUnit.MILLISECONDS,
+                                                  workQueue,
+                                                  new ThreadFactory() {
+                                                     private final AtomicInteger threadCount = new AtomicInteger();
+
+                                                     @Override
+                                                     public Thread newThread(Runnable runnable) {
+                                                        final Thread thread
+                                                              = new Thread(runnable,
+                                                                           threadNamePrefix + threadCount.incrementAndGet());
+                                                        thread.setDaemon(true);
+                                                        return thread;
+                                                     }
+                                                  });
+   }
+
+   /**
+    * Performs the specified hashing task on a worker thread, and waits for its result. Intended to be called by the
+    * authentication provider.
+    *
+    * @param hashingTask the task that hashes or checks a password
+    * @param <T>         the type of the result of the task
+    * @return the result of the task
+    * @throws AuthenticationRejectedException if the queue is full, or the pool was shut down
+    * @throws AuthenticationException         if the calling thread is interrupted while it waits
+    */
+   public <T> T execute(final Callable<T> hashingTask) {
+      final Future<T> future;
+      try {
+         future = threadPoolExecutor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+               final long startNanos = System.nanoTime();
+               try {
+                  return hashingTask.call();
+               }
+               finally {
+                  recordHash(System.nanoTime() - startNanos);
+               }
+            }
+         });
+      }
+      catch (RejectedExecutionException e) {
+         if (threadPoolExecutor.isShutdown()) {
+            throw new AuthenticationRejectedException("Password hashing executor has been shut down", e);
+         }
+         recordRejection();
+         throw new AuthenticationRejectedException("Too many concurrent authentications, password hashing queue is full", e);
+      }
+
+      try {
+         return future.get();
+      }
+      catch (InterruptedException e) {
+         future.cancel(true);
+         Thread.currentThread().interrupt();
+         throw new AuthenticationException("Interrupted while waiting for password hashing", e);
+      }
+      catch (ExecutionException e) {
+         final Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         }
+         if (cause instanceof Error) {
+            throw (Error) cause;
+         }
+         throw new RuntimeException(cause);
+      }
+   }
+
+   /**
+    * Stops the worker threads once the hashing tasks already submitted are complete. Later authentications that
+    * use this pool are rejected.
+    */
+   public void shutdown() {
+      threadPoolExecutor.shutdown();
+   }
+
+   /**
+    * Returns the maximum number of passwords hashed at once.
+    *
+    * @return the number of worker threads
+    */
+   public int getParallelism() {
+      return threadPoolExecutor.getMaximumPoolSize();
+   }
+
+   /**
+    * Returns the maximum number of hashing tasks waiting for a worker thread.
+    *
+    * @return the queue capacity
+    */
+   public int getQueueCapacity() {
+      return queueCapacity;
+   }
+
+   /**
+    * Returns the number of hashing tasks currently waiting for a worker thread.
+    *
+    * @return the current queue depth
+    */
+   public int getQueueDepth() {
+      return threadPoolExecutor.getQueue().size();
+   }
+
+   /**
+    * Returns the number of hashing tasks that were rejected because the queue was full.
+    *
+    * @return the number of rejected tasks
+    */
+   public synchronized long getRejectedCount() {
+      return rejectedCount;
+   }
+
+   /**
+    * Returns the number of hashing tasks that completed, successfully or not.
+    *
+    * @return the number of completed tasks
+    */
+   public synchronized long getCompletedCount() {
+      return completedCount;
+   }
+
+   /**
+    * Returns the average time a worker thread spent on a hashing task, excluding the time the task waited in the
+    * queue.
+    *
+    * @return the average hash latency in milliseconds, or zero if no task completed yet
+    */
+   public synchronized double getAverageHashLatencyMillis() {
+      return completedCount == 0 ? 0.0 : (double) totalHashNanos / completedCount / 1000000.0;
+   }
+
+   /**
+    * Returns the longest time a worker thread spent on a hashing task.
+    *
+    * @return the maximum hash latency in milliseconds
+    */
+   public synchronized double getMaxHashLatencyMillis() {
+      return maxHashNanos / 1000000.0;
+   }
+
+   /**
+    * Resets the rejection, completion and latency statistics to zero.
+    */
+   public synchronized void resetStatistics() {
+      rejectedCount = 0;
+      completedCount = 0;
+      totalHashNanos = 0;
+      maxHashNanos = 0;
+   }
+
+   private synchronized void recordRejection() {
+      rejectedCount++;
+   }
+
+   private synchronized void recordHash(long hashNanos) {
+      completedCount++;
+      totalHashNanos += hashNanos;
+      if (hashNanos > maxHashNanos) {
+         maxHashNanos = hashNanos;
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "PasswordHashingExecutor{"
+            + "parallelism=" + getParallelism()
+            + ", queueDepth=" + getQueueDepth()
+            + ", queueCapacity=" + queueCapacity
+            + ", rejectedCount=" + getRejectedCount()
+            + ", completedCount=" + getCompletedCount()
+            + ", averageHashLatencyMillis=" + getAverageHashLatencyMillis()
+            + ", maxHashLatencyMillis=" + getMaxHashLatencyMillis()
+            + "}";
+   }
+}
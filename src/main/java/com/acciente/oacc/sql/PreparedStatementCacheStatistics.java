@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+/**
+ * Collects the hit and miss counts of the per-connection prepared statement caches of all access control contexts
+ * configured with the same {@link SQLAccessControlContextOptions}.
+ * <p>
+ * Each connection an access control context obtains keeps its own cache of prepared statements, keyed by their
+ * SQL, which lives only as long as that connection is held by the context: for the duration of a single API call,
+ * of a unit of work executed with {@link com.acciente.oacc.AccessControlContext#executeInTransaction}, or, for
+ * contexts created with a {@link java.sql.Connection} instead of a {@link javax.sql.DataSource}, for as long as
+ * that connection is used. This class aggregates the counts of all those caches.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @see SQLAccessControlContextOptions.Builder#preparedStatementCacheSize(int)
+ */
+public class PreparedStatementCacheStatistics {
+   private long hitCount;
+   private long missCount;
+   private long evictionCount;
+
+   /**
+    * Returns a new statistics collector with all counts at zero.
+    *
+    * @return a PreparedStatementCacheStatistics instance
+    */
+   public static PreparedStatementCacheStatistics newInstance() {
+      return new PreparedStatementCacheStatistics();
+   }
+
+   private PreparedStatementCacheStatistics() {
+   }
+
+   public synchronized void recordHit() {
+      hitCount++;
+   }
+
+   public synchronized void recordMiss() {
+      missCount++;
+   }
+
+   public synchronized void recordEviction() {
+      evictionCount++;
+   }
+
+   /**
+    * Returns the number of statements that were served from a cache instead of being prepared again.
+    *
+    * @return the number of cache hits since this collector was created
+    */
+   public synchronized long getHitCount() {
+      return hitCount;
+   }
+
+   /**
+    * Returns the number of statements that had to be prepared, because no idle cached statement with the same SQL
+    * was available.
+    *
+    * @return the number of cache misses since this collector was created
+    */
+   public synchronized long getMissCount() {
+      return missCount;
+   }
+
+   /**
+    * Returns the number of cached statements that were closed to make room for another statement.
+    *
+    * @return the number of evictions since this collector was created
+    */
+   public synchronized long getEvictionCount() {
+      return evictionCount;
+   }
+
+   /**
+    * Returns the fraction of statement requests that were served from a cache.
+    *
+    * @return the hit rate, between 0.0 and 1.0, or 0.0 if no statement was requested yet
+    */
+   public synchronized double getHitRate() {
+      final long requestCount = hitCount + missCount;
+      return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+   }
+
+   /**
+    * Resets all counts to zero.
+    */
+   public synchronized void reset() {
+      hitCount = 0;
+      missCount = 0;
+      evictionCount = 0;
+   }
+
+   @Override
+   public String toString() {
+      return "PreparedStatementCacheStatistics{"
+            + "hitCount=" + getHitCount()
+            + ", missCount=" + getMissCount()
+            + ", evictionCount=" + getEvictionCount()
+            + ", hitRate=" + getHitRate()
+            + "}";
+   }
+}
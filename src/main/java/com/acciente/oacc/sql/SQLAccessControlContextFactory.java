@@ -195,6 +195,189 @@ public class SQLAccessControlContextFactory {
                                                              authenticationProvider);
    }
 
+   /**
+    * Creates an {@link AccessControlContext} instance backed by the specified database connection, configured with the
+    * specified options. A set of valid OACC database tables are expected to reside in the specified schema. The
+    * dialect of SQL supported by the database server for which the connection is provided is specified using the
+    * SQLProfile parameter. The access control context returned by this method uses the built-in authentication
+    * provider for resource authentication, which delegates all password encryption and decryption to the
+    * {@link PasswordEncryptor} instance provided.
+    *
+    * @param connection        a database connection with access to the required OACC tables
+    * @param schemaName        the name of the schema in the database containing the OACC tables
+    * @param sqlProfile        the database provider and dialect of SQL supported for the database server associated
+    *                          with the connection provided
+    * @param passwordEncryptor a {@link PasswordEncryptor} instance to which the built-in authentication provider
+    *                          delegates all password encryption and decryption
+    * @param options           the options that configure optional behaviors of the access control context
+    * @return an {@link AccessControlContext} instance ready to receive API calls
+    */
+   public static AccessControlContext getAccessControlContext(Connection connection,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              PasswordEncryptor passwordEncryptor,
+                                                              SQLAccessControlContextOptions options) {
+      return SQLAccessControlContext.getAccessControlContext(connection,
+                                                             schemaName,
+                                                             sqlProfile,
+                                                             passwordEncryptor,
+                                                             options);
+   }
+
+   /**
+    * Creates an {@link AccessControlContext} instance backed by the specified database connection, configured with the
+    * specified options. A set of valid OACC database tables are expected to reside in the specified schema. The
+    * dialect of SQL supported by the database server for which the connection is provided is specified using the
+    * SQLProfile parameter. The access control context returned by this method delegates all resource
+    * authentication to the specified custom authentication provider.
+    *
+    * @param connection             a database connection with access to the required OACC tables
+    * @param schemaName             the name of the schema in the database containing the OACC tables
+    * @param sqlProfile             the database provider and dialect of SQL supported for the database server associated
+    *                               with the connection provided
+    * @param authenticationProvider an {@link AuthenticationProvider} instance to which all resource authentication is
+    *                               delegated
+    * @param options                the options that configure optional behaviors of the access control context
+    * @return an {@link AccessControlContext} instance ready to receive API calls
+    */
+   public static AccessControlContext getAccessControlContext(Connection connection,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              AuthenticationProvider authenticationProvider,
+                                                              SQLAccessControlContextOptions options) {
+      return SQLAccessControlContext.getAccessControlContext(connection,
+                                                             schemaName,
+                                                             sqlProfile,
+                                                             authenticationProvider,
+                                                             options);
+   }
+
+   /**
+    * Creates an {@link AccessControlContext} instance backed by the specified database data source, configured with the
+    * specified options. A set of valid OACC database tables are expected to reside in the specified schema. The
+    * dialect of SQL supported by the database server for which the data source is provided is specified using the
+    * SQLProfile parameter. The access control context returned by this method uses the built-in authentication
+    * provider for resource authentication, which delegates all password encryption and decryption to the
+    * {@link PasswordEncryptor} instance provided.
+    *
+    * @param dataSource        a database data source with access to the required OACC tables
+    * @param schemaName        the name of the schema in the database containing the OACC tables
+    * @param sqlProfile        the database provider and dialect of SQL supported for the database server associated
+    *                          with the data source provided
+    * @param passwordEncryptor a {@link PasswordEncryptor} instance to which the built-in authentication provider
+    *                          delegates all password encryption and decryption
+    * @param options           the options that configure optional behaviors of the access control context
+    * @return an {@link AccessControlContext} instance ready to receive API calls
+    */
+   public static AccessControlContext getAccessControlContext(DataSource dataSource,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              PasswordEncryptor passwordEncryptor,
+                                                              SQLAccessControlContextOptions options) {
+      return SQLAccessControlContext.getAccessControlContext(dataSource,
+                                                             schemaName,
+                                                             sqlProfile,
+                                                             passwordEncryptor,
+                                                             options);
+   }
+
+   /**
+    * Creates an {@link AccessControlContext} instance backed by the specified database data source, configured with the
+    * specified options. A set of valid OACC database tables are expected to reside in the specified schema. The
+    * dialect of SQL supported by the database server for which the data source is provided is specified using the
+    * SQLProfile parameter. The access control context returned by this method delegates all resource
+    * authentication to the specified custom authentication provider.
+    *
+    * @param dataSource             a database data source with access to the required OACC tables
+    * @param schemaName             the name of the schema in the database containing the OACC tables
+    * @param sqlProfile             the database provider and dialect of SQL supported for the database server associated
+    *                               with the data source provided
+    * @param authenticationProvider an {@link AuthenticationProvider} instance to which all resource authentication is
+    *                               delegated
+    * @param options                the options that configure optional behaviors of the access control context
+    * @return an {@link AccessControlContext} instance ready to receive API calls
+    */
+   public static AccessControlContext getAccessControlContext(DataSource dataSource,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              AuthenticationProvider authenticationProvider,
+                                                              SQLAccessControlContextOptions options) {
+      return SQLAccessControlContext.getAccessControlContext(dataSource,
+                                                             schemaName,
+                                                             sqlProfile,
+                                                             authenticationProvider,
+                                                             options);
+   }
+
+   /**
+    * Creates an {@link AccessControlContext} instance backed by a primary database data source and a read data source,
+    * typically a read replica of the primary, configured with the specified options. The access control context
+    * returned by this method sends all operations that change the OACC tables, all units of work and all resource
+    * authentication to the primary, and sends read-only operations, such as the <code>has*</code>,
+    * <code>assert*</code> and <code>get*</code> methods, to the read data source. The access control context uses
+    * the built-in authentication provider, which reads resource passwords from the primary.
+    * <p/>
+    * Because a read replica may lag behind its primary, a context can be configured to send its reads to the primary
+    * for a while after each of its own changes, see
+    * {@link SQLAccessControlContextOptions.Builder#readYourWritesWindowMillis(long)}. The read data source is not
+    * serialized with the access control context, so a deserialized context must be re-initialized with both data
+    * sources, see {@link #postDeserialize(AccessControlContext, DataSource, DataSource)}.
+    *
+    * @param dataSource        the primary database data source with access to the required OACC tables
+    * @param readDataSource    the database data source that serves read-only operations
+    * @param schemaName        the name of the schema in the database containing the OACC tables
+    * @param sqlProfile        the database provider and dialect of SQL supported for the database server associated
+    *                          with the data sources provided
+    * @param passwordEncryptor a {@link PasswordEncryptor} instance to which the built-in authentication provider
+    *                          delegates all password encryption and decryption
+    * @param options           the options that configure optional behaviors of the access control context
+    * @return an {@link AccessControlContext} instance ready to receive API calls
+    */
+   public static AccessControlContext getAccessControlContext(DataSource dataSource,
+                                                              DataSource readDataSource,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              PasswordEncryptor passwordEncryptor,
+                                                              SQLAccessControlContextOptions options) {
+      return SQLAccessControlContext.getAccessControlContext(dataSource,
+                                                             readDataSource,
+                                                             schemaName,
+                                                             sqlProfile,
+                                                             passwordEncryptor,
+                                                             options);
+   }
+
+   /**
+    * Creates an {@link AccessControlContext} instance backed by a primary database data source and a read data source,
+    * typically a read replica of the primary, configured with the specified options. The access control context
+    * returned by this method delegates all resource authentication to the specified custom authentication provider,
+    * and otherwise routes operations like
+    * {@link #getAccessControlContext(DataSource, DataSource, String, SQLProfile, PasswordEncryptor, SQLAccessControlContextOptions)}.
+    *
+    * @param dataSource             the primary database data source with access to the required OACC tables
+    * @param readDataSource         the database data source that serves read-only operations
+    * @param schemaName             the name of the schema in the database containing the OACC tables
+    * @param sqlProfile             the database provider and dialect of SQL supported for the database server associated
+    *                               with the data sources provided
+    * @param authenticationProvider an {@link AuthenticationProvider} instance to which all resource authentication is
+    *                               delegated
+    * @param options                the options that configure optional behaviors of the access control context
+    * @return an {@link AccessControlContext} instance ready to receive API calls
+    */
+   public static AccessControlContext getAccessControlContext(DataSource dataSource,
+                                                              DataSource readDataSource,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              AuthenticationProvider authenticationProvider,
+                                                              SQLAccessControlContextOptions options) {
+      return SQLAccessControlContext.getAccessControlContext(dataSource,
+                                                             readDataSource,
+                                                             schemaName,
+                                                             sqlProfile,
+                                                             authenticationProvider,
+                                                             options);
+   }
+
    /**
     * @deprecated As of v2.0.0-rc.6; no replacement method necessary because unserializable fields are now marked as transient
     */
@@ -217,6 +400,27 @@ public class SQLAccessControlContextFactory {
       SQLAccessControlContext.postDeserialize(accessControlContext, connection);
    }
 
+   /**
+    * Re-initializes the specified deserialized accessControlContext with the specified connection and password
+    * hashing pool.
+    * <p/>
+    * This method is only intended to be called after the specified accessControlContext was successfully
+    * deserialized, in order to reset a transient connection and a transient password hashing pool that were not
+    * serialized. An accessControlContext whose built-in authentication provider was created with a password hashing
+    * pool must be re-initialized with a pool, while the <code>postDeserialize</code> methods without one throw an
+    * IllegalStateException for it. The pool is only used by the built-in authentication provider.
+    *
+    * @param accessControlContext    the accessControlContext on which to reset the database connection
+    * @param connection              the database connection to be reset on the accessControlContext
+    * @param passwordHashingExecutor the pool that performs the password hashing, or null to hash passwords on the
+    *                                calling thread
+    */
+   public static void postDeserialize(AccessControlContext accessControlContext,
+                                      Connection connection,
+                                      PasswordHashingExecutor passwordHashingExecutor) {
+      SQLAccessControlContext.postDeserialize(accessControlContext, connection, passwordHashingExecutor);
+   }
+
    /**
     * Re-initializes the specified deserialized accessControlContext with the specified data source.
     * <p/>
@@ -231,4 +435,63 @@ public class SQLAccessControlContextFactory {
    public static void postDeserialize(AccessControlContext accessControlContext, DataSource dataSource) {
       SQLAccessControlContext.postDeserialize(accessControlContext, dataSource);
    }
+
+   /**
+    * Re-initializes the specified deserialized accessControlContext with the specified data source and password
+    * hashing pool.
+    * <p/>
+    * This method is only intended to be called after the specified accessControlContext was successfully
+    * deserialized, in order to reset a transient data source and a transient password hashing pool that were not
+    * serialized, see {@link #postDeserialize(AccessControlContext, Connection, PasswordHashingExecutor)}.
+    *
+    * @param accessControlContext    the accessControlContext on which to reset the database connection
+    * @param dataSource              the database dataSource to be reset on the accessControlContext
+    * @param passwordHashingExecutor the pool that performs the password hashing, or null to hash passwords on the
+    *                                calling thread
+    */
+   public static void postDeserialize(AccessControlContext accessControlContext,
+                                      DataSource dataSource,
+                                      PasswordHashingExecutor passwordHashingExecutor) {
+      SQLAccessControlContext.postDeserialize(accessControlContext, dataSource, passwordHashingExecutor);
+   }
+
+   /**
+    * Re-initializes the specified deserialized accessControlContext with the specified primary data source and
+    * read data source.
+    * <p/>
+    * This method is only intended to be called after the specified accessControlContext was successfully
+    * deserialized, in order to reset the transient data sources that were not serialized. An accessControlContext
+    * that was created with a read data source can only be re-initialized with this method, while the other
+    * <code>postDeserialize</code> methods throw an IllegalStateException for it. If the method is called when a
+    * data source or connection has already been initialized, the method may pass through an IllegalStateException
+    * from the accessControlContext.
+    *
+    * @param accessControlContext the accessControlContext on which to reset the database data sources
+    * @param dataSource           the primary database dataSource to be reset on the accessControlContext
+    * @param readDataSource       the database dataSource that serves read-only operations
+    */
+   public static void postDeserialize(AccessControlContext accessControlContext,
+                                      DataSource dataSource,
+                                      DataSource readDataSource) {
+      SQLAccessControlContext.postDeserialize(accessControlContext, dataSource, readDataSource);
+   }
+
+   /**
+    * Re-initializes the specified deserialized accessControlContext with the specified primary data source, read
+    * data source and password hashing pool, see
+    * {@link #postDeserialize(AccessControlContext, DataSource, DataSource)} and
+    * {@link #postDeserialize(AccessControlContext, Connection, PasswordHashingExecutor)}.
+    *
+    * @param accessControlContext    the accessControlContext on which to reset the database data sources
+    * @param dataSource              the primary database dataSource to be reset on the accessControlContext
+    * @param readDataSource          the database dataSource that serves read-only operations
+    * @param passwordHashingExecutor the pool that performs the password hashing, or null to hash passwords on the
+    *                                calling thread
+    */
+   public static void postDeserialize(AccessControlContext accessControlContext,
+                                      DataSource dataSource,
+                                      DataSource readDataSource,
+                                      PasswordHashingExecutor passwordHashingExecutor) {
+      SQLAccessControlContext.postDeserialize(accessControlContext, dataSource, readDataSource, passwordHashingExecutor);
+   }
 }
\ No newline at end of file
@@ -0,0 +1,513 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import java.io.Serializable;
+
+/**
+ * Optional settings that tune the behavior of the SQL-backed {@link com.acciente.oacc.AccessControlContext}
+ * returned by {@link SQLAccessControlContextFactory}.
+ * <p>
+ * Instances are immutable and are created using the {@link Builder}, for example:
+ * <pre>
+ *    SQLAccessControlContextOptions.builder()
+ *          .effectiveResourcePermissionCacheSize(256)
+ *          .sharedResourcePermissionCache(SharedResourcePermissionCache.newInstance(10000))
+ *          .build();
+ * </pre>
+ * The {@link #DEFAULT} options leave all optional behaviors disabled.
+ */
+public class SQLAccessControlContextOptions implements Serializable {
+   private static final long serialVersionUID = 1L;
+
+   public static final SQLAccessControlContextOptions DEFAULT = builder().build();
+
+   public static final int DEFAULT_RESOURCE_STREAM_FETCH_SIZE = 1000;
+
+   // attributes of the options
+   private final int     effectiveResourcePermissionCacheSize;
+   private final boolean permissionChangeCounterEnabled;
+   private final boolean domainChangeCounterEnabled;
+   private final boolean domainHierarchyIndexEnabled;
+   private final long    domainHierarchyIndexPollIntervalMillis;
+   private final boolean inheritanceClosureEnabled;
+   private final int     resourceStreamFetchSize;
+   private final int     preparedStatementCacheSize;
+   private final long    readYourWritesWindowMillis;
+
+   // the shared cache, statistics and hashing pool are runtime state that is deliberately not serialized
+   private final transient SharedResourcePermissionCache    sharedResourcePermissionCache;
+   private final transient PreparedStatementCacheStatistics preparedStatementCacheStatistics;
+   private final transient PasswordHashingExecutor          passwordHashingExecutor;
+
+   public static Builder builder() {
+      return new Builder();
+   }
+
+   private SQLAccessControlContextOptions(Builder builder) {
+      this.effectiveResourcePermissionCacheSize = builder.effectiveResourcePermissionCacheSize;
+      // a shared cache relies on the permission change counter to detect stale entries, and the domain hierarchy
+      // index relies on the domain change counter
+      this.permissionChangeCounterEnabled = builder.permissionChangeCounterEnabled
+            || builder.sharedResourcePermissionCache != null;
+      this.domainChangeCounterEnabled = builder.domainChangeCounterEnabled
+            || builder.domainHierarchyIndexEnabled;
+      this.domainHierarchyIndexEnabled = builder.domainHierarchyIndexEnabled;
+      this.domainHierarchyIndexPollIntervalMillis = builder.domainHierarchyIndexPollIntervalMillis;
+      this.inheritanceClosureEnabled = builder.inheritanceClosureEnabled;
+      this.resourceStreamFetchSize = builder.resourceStreamFetchSize;
+      this.preparedStatementCacheSize = builder.preparedStatementCacheSize;
+      this.readYourWritesWindowMillis = builder.readYourWritesWindowMillis;
+      this.sharedResourcePermissionCache = builder.sharedResourcePermissionCache;
+      this.preparedStatementCacheStatistics = builder.preparedStatementCacheStatistics;
+      this.passwordHashingExecutor = builder.passwordHashingExecutor;
+   }
+
+   /**
+    * Returns the maximum number of (accessor, accessed) resource pairs for which an access control context
+    * caches the effective resource permissions, or zero if the cache is disabled.
+    *
+    * @return the maximum number of cache entries per access control context, or zero if disabled
+    */
+   public int getEffectiveResourcePermissionCacheSize() {
+      return effectiveResourcePermissionCacheSize;
+   }
+
+   /**
+    * Returns true if an access control context increments the permission change counter whenever it changes
+    * permissions.
+    *
+    * @return true if the permission change counter is maintained, false otherwise
+    */
+   public boolean isPermissionChangeCounterEnabled() {
+      return permissionChangeCounterEnabled;
+   }
+
+   /**
+    * Returns true if an access control context increments the domain change counter whenever it creates or
+    * deletes a domain.
+    *
+    * @return true if the domain change counter is maintained, false otherwise
+    */
+   public boolean isDomainChangeCounterEnabled() {
+      return domainChangeCounterEnabled;
+   }
+
+   /**
+    * Returns true if an access control context that uses a non-recursive {@link SQLProfile} keeps an in-memory
+    * index of the domain hierarchy.
+    *
+    * @return true if the domain hierarchy index is enabled, false otherwise
+    */
+   public boolean isDomainHierarchyIndexEnabled() {
+      return domainHierarchyIndexEnabled;
+   }
+
+   /**
+    * Returns the minimum number of milliseconds between two polls of the domain change counter by the
+    * domain hierarchy index.
+    *
+    * @return the poll interval in milliseconds
+    */
+   public long getDomainHierarchyIndexPollIntervalMillis() {
+      return domainHierarchyIndexPollIntervalMillis;
+   }
+
+   /**
+    * Returns true if an access control context resolves the resources an accessor inherits from, by way of the
+    * INHERIT system permission, from the inheritance closure table.
+    *
+    * @return true if the inheritance closure table is used and maintained, false otherwise
+    */
+   public boolean isInheritanceClosureEnabled() {
+      return inheritanceClosureEnabled;
+   }
+
+   /**
+    * Returns the number of rows the iterators returned by the <code>streamResourcesByResourcePermissions</code>
+    * methods fetch from the database per round-trip, or zero to use the JDBC driver's default.
+    *
+    * @return the fetch size of resource streams, or zero for the driver default
+    */
+   public int getResourceStreamFetchSize() {
+      return resourceStreamFetchSize;
+   }
+
+   /**
+    * Returns the maximum number of prepared statements each connection caches, or zero if statements are not cached.
+    *
+    * @return the size of the per-connection prepared statement cache, or zero if disabled
+    */
+   public int getPreparedStatementCacheSize() {
+      return preparedStatementCacheSize;
+   }
+
+   /**
+    * Returns the number of milliseconds after a change during which an access control context with a read data source
+    * sends its read-only operations to the primary data source, or zero if reads are never pinned to the primary.
+    *
+    * @return the read-your-writes window in milliseconds, or zero if disabled
+    */
+   public long getReadYourWritesWindowMillis() {
+      return readYourWritesWindowMillis;
+   }
+
+   /**
+    * Returns the cache of effective resource permissions shared by all access control contexts configured with
+    * these options, or null if there is none.
+    *
+    * @return the shared cache, or null
+    */
+   public SharedResourcePermissionCache getSharedResourcePermissionCache() {
+      return sharedResourcePermissionCache;
+   }
+
+   /**
+    * Returns the collector of prepared statement cache hit and miss counts shared by all access control contexts
+    * configured with these options, or null if there is none.
+    *
+    * @return the statistics collector, or null
+    */
+   public PreparedStatementCacheStatistics getPreparedStatementCacheStatistics() {
+      return preparedStatementCacheStatistics;
+   }
+
+   /**
+    * Returns the pool on which the built-in authentication provider hashes passwords, or null if passwords are hashed
+    * on the calling thread.
+    *
+    * @return the password hashing pool, or null
+    */
+   public PasswordHashingExecutor getPasswordHashingExecutor() {
+      return passwordHashingExecutor;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) {
+         return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+         return false;
+      }
+
+      SQLAccessControlContextOptions that = (SQLAccessControlContextOptions) o;
+
+      if (effectiveResourcePermissionCacheSize != that.effectiveResourcePermissionCacheSize) {
+         return false;
+      }
+      if (permissionChangeCounterEnabled != that.permissionChangeCounterEnabled) {
+         return false;
+      }
+      if (domainChangeCounterEnabled != that.domainChangeCounterEnabled) {
+         return false;
+      }
+      if (domainHierarchyIndexEnabled != that.domainHierarchyIndexEnabled) {
+         return false;
+      }
+      if (domainHierarchyIndexPollIntervalMillis != that.domainHierarchyIndexPollIntervalMillis) {
+         return false;
+      }
+      if (inheritanceClosureEnabled != that.inheritanceClosureEnabled) {
+         return false;
+      }
+      if (resourceStreamFetchSize != that.resourceStreamFetchSize) {
+         return false;
+      }
+      if (preparedStatementCacheSize != that.preparedStatementCacheSize) {
+         return false;
+      }
+      if (readYourWritesWindowMillis != that.readYourWritesWindowMillis) {
+         return false;
+      }
+      if (preparedStatementCacheStatistics != that.preparedStatementCacheStatistics) {
+         return false;
+      }
+      if (passwordHashingExecutor != that.passwordHashingExecutor) {
+         return false;
+      }
+      return sharedResourcePermissionCache == that.sharedResourcePermissionCache;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = effectiveResourcePermissionCacheSize;
+      result = 31 * result + (permissionChangeCounterEnabled ? 1 : 0);
+      result = 31 * result + (domainChangeCounterEnabled ? 1 : 0);
+      result = 31 * result + (domainHierarchyIndexEnabled ? 1 : 0);
+      result = 31 * result + (int) (domainHierarchyIndexPollIntervalMillis ^ (domainHierarchyIndexPollIntervalMillis >>> 32));
+      result = 31 * result + (inheritanceClosureEnabled ? 1 : 0);
+      result = 31 * result + resourceStreamFetchSize;
+      result = 31 * result + preparedStatementCacheSize;
+      result = 31 * result + (int) (readYourWritesWindowMillis ^ (readYourWritesWindowMillis >>> 32));
+      result = 31 * result + (sharedResourcePermissionCache != null ? sharedResourcePermissionCache.hashCode() : 0);
+      result = 31 * result + (preparedStatementCacheStatistics != null ? preparedStatementCacheStatistics.hashCode() : 0);
+      result = 31 * result + (passwordHashingExecutor != null ? passwordHashingExecutor.hashCode() : 0);
+      return result;
+   }
+
+   public static class Builder {
+      private int                           effectiveResourcePermissionCacheSize;
+      private boolean                       permissionChangeCounterEnabled;
+      private boolean                       domainChangeCounterEnabled;
+      private boolean                       domainHierarchyIndexEnabled;
+      private long                          domainHierarchyIndexPollIntervalMillis;
+      private boolean                       inheritanceClosureEnabled;
+      private int                              resourceStreamFetchSize = DEFAULT_RESOURCE_STREAM_FETCH_SIZE;
+      private int                              preparedStatementCacheSize;
+      private long                             readYourWritesWindowMillis;
+      private SharedResourcePermissionCache    sharedResourcePermissionCache;
+      private PreparedStatementCacheStatistics preparedStatementCacheStatistics;
+      private PasswordHashingExecutor          passwordHashingExecutor;
+
+      private Builder() {
+      }
+
+      /**
+       * Enables a per-context cache of effective resource permissions. Each access control context keeps
+       * the effective permissions of up to the specified number of (accessor, accessed) resource pairs, evicting
+       * the least recently used pair when full. The cache is cleared by any call through the same context that
+       * grants, revokes or sets resource, global or domain permissions, deletes a resource or domain, creates
+       * a resource permission, or changes the authenticated or impersonated session resource.
+       * <p>
+       * Changes made through other access control contexts, or directly in the database, are not observed
+       * by the cache; only enable it for contexts whose lifetime is short, such as a single request.
+       *
+       * @param effectiveResourcePermissionCacheSize the maximum number of cached entries, or zero to disable the
+       *                                             cache (the default)
+       * @return this builder
+       * @throws IllegalArgumentException if the specified size is negative
+       */
+      public Builder effectiveResourcePermissionCacheSize(int effectiveResourcePermissionCacheSize) {
+         if (effectiveResourcePermissionCacheSize < 0) {
+            throw new IllegalArgumentException("Effective resource permission cache size cannot be negative");
+         }
+         this.effectiveResourcePermissionCacheSize = effectiveResourcePermissionCacheSize;
+         return this;
+      }
+
+      /**
+       * Enables maintenance of the permission change counter, a single-row table named
+       * <code>OAC_PermissionChangeCounter</code> with a <code>ChangeCount</code> column, which must exist
+       * in the OACC schema when this option is enabled. Every call that grants, revokes or sets resource, global or
+       * domain permissions, creates or deletes a domain, deletes a resource, or creates a resource permission increments
+       * the counter.
+       * <p>
+       * All access control contexts that modify the OACC tables must enable the counter when any context uses
+       * a {@link SharedResourcePermissionCache}.
+       *
+       * @param permissionChangeCounterEnabled true to maintain the counter, false (the default) otherwise
+       * @return this builder
+       */
+      public Builder permissionChangeCounterEnabled(boolean permissionChangeCounterEnabled) {
+         this.permissionChangeCounterEnabled = permissionChangeCounterEnabled;
+         return this;
+      }
+
+      /**
+       * Enables maintenance of the domain change counter, a single-row table named
+       * <code>OAC_DomainChangeCounter</code> with a <code>ChangeCount</code> column, which must exist in the OACC
+       * schema when this option is enabled. Only the calls that create or delete a domain increment the counter.
+       * <p>
+       * All access control contexts that create or delete domains must enable the counter when any context uses
+       * the domain hierarchy index, see {@link #domainHierarchyIndexEnabled(boolean)}.
+       *
+       * @param domainChangeCounterEnabled true to maintain the counter, false (the default) otherwise
+       * @return this builder
+       */
+      public Builder domainChangeCounterEnabled(boolean domainChangeCounterEnabled) {
+         this.domainChangeCounterEnabled = domainChangeCounterEnabled;
+         return this;
+      }
+
+      /**
+       * Configures a cache of effective resource permissions that is shared by every access control context
+       * created with the resulting options. Setting a shared cache also enables the permission change counter,
+       * which is used to detect stale cache entries.
+       * <p>
+       * The shared cache is not serialized with an access control context; a deserialized context does not
+       * use a shared cache.
+       *
+       * @param sharedResourcePermissionCache the cache to share, or null (the default) for none
+       * @return this builder
+       */
+      public Builder sharedResourcePermissionCache(SharedResourcePermissionCache sharedResourcePermissionCache) {
+         this.sharedResourcePermissionCache = sharedResourcePermissionCache;
+         return this;
+      }
+
+      /**
+       * Enables an in-memory index of the domain hierarchy for access control contexts that use a non-recursive
+       * {@link SQLProfile}, which otherwise issue one query per domain or domain level to resolve the ancestors
+       * and descendants of a domain. The option has no effect with profiles that support recursive queries.
+       * <p>
+       * Each access control context loads its index from the <code>OAC_Domain</code> table in a single query on
+       * first use. Domains the context creates or deletes are applied to the index directly; changes made by other
+       * contexts are detected by polling the domain change counter, which this option enables, and cause the
+       * index to be reloaded. Permission changes do not affect the counter, so they never cause a reload.
+       * <p>
+       * Domain changes that are rolled back after the context applied them to its index are not detected until the
+       * counter next changes, so only enable the index for contexts whose domain changes are committed.
+       *
+       * @param domainHierarchyIndexEnabled true to enable the index, false (the default) otherwise
+       * @return this builder
+       */
+      public Builder domainHierarchyIndexEnabled(boolean domainHierarchyIndexEnabled) {
+         this.domainHierarchyIndexEnabled = domainHierarchyIndexEnabled;
+         return this;
+      }
+
+      /**
+       * Sets the minimum number of milliseconds between two polls of the domain change counter by the domain
+       * hierarchy index. With the default of zero the counter is read before every use of the index, which still
+       * replaces the per-domain queries with a single one; a larger interval trades staleness for fewer queries.
+       *
+       * @param domainHierarchyIndexPollIntervalMillis the poll interval in milliseconds
+       * @return this builder
+       * @throws IllegalArgumentException if the specified interval is negative
+       */
+      public Builder domainHierarchyIndexPollIntervalMillis(long domainHierarchyIndexPollIntervalMillis) {
+         if (domainHierarchyIndexPollIntervalMillis < 0) {
+            throw new IllegalArgumentException("Domain hierarchy index poll interval cannot be negative");
+         }
+         this.domainHierarchyIndexPollIntervalMillis = domainHierarchyIndexPollIntervalMillis;
+         return this;
+      }
+
+      /**
+       * Enables the inheritance closure table, named <code>OAC_InheritanceClosure</code>, from which the resources an
+       * accessor inherits permissions from, by way of the INHERIT system permission, are then read in a single query,
+       * instead of following the INHERIT grants one level at a time. The table must exist in the OACC schema when this
+       * option is enabled.
+       * <p>
+       * The table has the columns <code>AccessorResourceId</code> and <code>InheritedResourceId</code>, and holds a
+       * row for every resource that an accessor directly or transitively inherits from, excluding the accessor itself.
+       * Access control contexts with this option enabled maintain the table when they grant or revoke INHERIT and
+       * when they delete resources, so all contexts that change the OACC tables must enable it, and the table must be
+       * populated from the existing INHERIT grants before the option is first enabled.
+       *
+       * @param inheritanceClosureEnabled true to use and maintain the inheritance closure table, false (the default)
+       *                                  otherwise
+       * @return this builder
+       */
+      public Builder inheritanceClosureEnabled(boolean inheritanceClosureEnabled) {
+         this.inheritanceClosureEnabled = inheritanceClosureEnabled;
+         return this;
+      }
+
+      /**
+       * Sets the number of rows the iterators returned by the <code>streamResourcesByResourcePermissions</code>
+       * methods fetch from the database per round-trip, which bounds the memory a stream holds on to. Defaults to
+       * {@value SQLAccessControlContextOptions#DEFAULT_RESOURCE_STREAM_FETCH_SIZE}.
+       * <p/>
+       * Some drivers only honor the fetch size under additional conditions; PostgreSQL's, for example, reads the
+       * complete result unless auto-commit is disabled, e.g. by streaming inside
+       * {@link com.acciente.oacc.AccessControlContext#executeInTransaction}. The MySQL and MariaDB drivers ignore the
+       * fetch size and read the complete result, unless the connection URL sets <code>useCursorFetch=true</code>.
+       *
+       * @param resourceStreamFetchSize the fetch size, or zero to use the JDBC driver's default
+       * @return this builder
+       * @throws IllegalArgumentException if the specified fetch size is negative
+       */
+      public Builder resourceStreamFetchSize(int resourceStreamFetchSize) {
+         if (resourceStreamFetchSize < 0) {
+            throw new IllegalArgumentException("Resource stream fetch size cannot be negative");
+         }
+         this.resourceStreamFetchSize = resourceStreamFetchSize;
+         return this;
+      }
+
+      /**
+       * Enables a cache of prepared statements, keyed by their SQL, on each connection the access control context
+       * obtains. A single API call often executes the same statement several times, and a unit of work executed
+       * with {@link com.acciente.oacc.AccessControlContext#executeInTransaction} or a context created with a
+       * {@link java.sql.Connection} usually does; with the cache those statements are prepared only once per
+       * connection. When the cache is full the least recently used idle statement is closed.
+       * <p>
+       * Cached statements are closed when their connection is returned to a {@link javax.sql.DataSource}. Caching
+       * is mostly worthwhile with connection pools that don't cache statements themselves, and with in-process
+       * databases such as SQLite or HSQLDB, where parsing accounts for much of the cost of a query.
+       *
+       * @param preparedStatementCacheSize the maximum number of statements cached per connection, or zero to
+       *                                   disable the cache (the default)
+       * @return this builder
+       * @throws IllegalArgumentException if the specified size is negative
+       */
+      public Builder preparedStatementCacheSize(int preparedStatementCacheSize) {
+         if (preparedStatementCacheSize < 0) {
+            throw new IllegalArgumentException("Prepared statement cache size cannot be negative");
+         }
+         this.preparedStatementCacheSize = preparedStatementCacheSize;
+         return this;
+      }
+
+      /**
+       * Configures a collector of the hit and miss counts of the prepared statement caches of every access control
+       * context created with the resulting options. The collector has no effect unless the cache is enabled with
+       * {@link #preparedStatementCacheSize(int)}, and is not serialized with an access control context.
+       *
+       * @param preparedStatementCacheStatistics the statistics collector, or null (the default) for none
+       * @return this builder
+       */
+      public Builder preparedStatementCacheStatistics(PreparedStatementCacheStatistics preparedStatementCacheStatistics) {
+         this.preparedStatementCacheStatistics = preparedStatementCacheStatistics;
+         return this;
+      }
+
+      /**
+       * Pins the read-only operations of an access control context created with separate primary and read data
+       * sources to the primary for the specified number of milliseconds after each change made through that
+       * context, so that the context observes its own changes while the read replica catches up. Only changes made
+       * through the same context are considered; the option has no effect on contexts without a read data source.
+       *
+       * @param readYourWritesWindowMillis the pinning window in milliseconds, or zero to always send reads to the read
+       *                                   data source (the default)
+       * @return this builder
+       * @throws IllegalArgumentException if the specified window is negative
+       */
+      public Builder readYourWritesWindowMillis(long readYourWritesWindowMillis) {
+         if (readYourWritesWindowMillis < 0) {
+            throw new IllegalArgumentException("Read-your-writes window cannot be negative");
+         }
+         this.readYourWritesWindowMillis = readYourWritesWindowMillis;
+         return this;
+      }
+
+      /**
+       * Configures a bounded pool on which the built-in authentication provider hashes and checks passwords, so that a
+       * burst of authentications cannot occupy every processor. When the pool's queue is full, authentication fails
+       * immediately with an {@link com.acciente.oacc.AuthenticationRejectedException}. The pool may be shared by
+       * many access control contexts, and has no effect on contexts that use a custom authentication provider.
+       * <p>
+       * The pool is not serialized with an access control context, so a deserialized context must be re-initialized
+       * with a pool, see
+       * {@link SQLAccessControlContextFactory#postDeserialize(com.acciente.oacc.AccessControlContext, javax.sql.DataSource, PasswordHashingExecutor)}.
+       *
+       * @param passwordHashingExecutor the pool, or null (the default) to hash passwords on the calling thread
+       * @return this builder
+       */
+      public Builder passwordHashingExecutor(PasswordHashingExecutor passwordHashingExecutor) {
+         this.passwordHashingExecutor = passwordHashingExecutor;
+         return this;
+      }
+
+      public SQLAccessControlContextOptions build() {
+         return new SQLAccessControlContextOptions(this);
+      }
+   }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.AccessControlContext;
+import com.acciente.oacc.AuthenticationProvider;
+import com.acciente.oacc.encryptor.PasswordEncryptor;
+import com.acciente.oacc.sql.internal.SQLAccessControlContext;
+
+import javax.sql.DataSource;
+
+/**
+ * A thread-safe access control engine backed by a database data source, intended to be created once per data source
+ * and shared by all threads of an application.
+ * <p/>
+ * The engine holds the state that does not depend on a session: the SQL and persisters, the resource class metadata,
+ * the optional domain hierarchy index, the shared caches and the authentication provider. The
+ * {@link AccessControlContext} instances it creates are lightweight per-session facades over that state: each one only
+ * holds its authenticated and session resources, and its own effective resource permission cache when enabled.
+ * <p/>
+ * The contexts returned by {@link #newAccessControlContext()} are not thread-safe themselves and should be confined to
+ * the session or request that uses them, whereas the engine may be used concurrently. When a custom
+ * {@link AuthenticationProvider} is used, it is shared by all contexts and must be thread-safe as well.
+ */
+public class SQLAccessControlEngine {
+   private final AccessControlContext templateContext;
+
+   private SQLAccessControlEngine(AccessControlContext templateContext) {
+      this.templateContext = templateContext;
+   }
+
+   /**
+    * Creates an engine backed by the specified database data source, that uses the built-in authentication provider
+    * for resource authentication. A set of valid OACC database tables are expected to reside in the specified schema.
+    *
+    * @param dataSource        a database data source with access to the required OACC tables
+    * @param schemaName        the name of the schema in the database containing the OACC tables
+    * @param sqlProfile        the database provider and dialect of SQL supported for the database server associated
+    *                          with the data source provided
+    * @param passwordEncryptor a {@link PasswordEncryptor} instance to which the built-in authentication provider
+    *                          delegates all password encryption and decryption
+    * @return a thread-safe engine ready to create access control contexts
+    */
+   public static SQLAccessControlEngine newInstance(DataSource dataSource,
+                                                    String schemaName,
+                                                    SQLProfile sqlProfile,
+                                                    PasswordEncryptor passwordEncryptor) {
+      return newInstance(dataSource, schemaName, sqlProfile, passwordEncryptor, SQLAccessControlContextOptions.DEFAULT);
+   }
+
+   /**
+    * Creates an engine backed by the specified database data source, that uses the built-in authentication provider
+    * for resource authentication, and the specified options. A set of valid OACC database tables are expected to
+    * reside in the specified schema.
+    *
+    * @param dataSource        a database data source with access to the required OACC tables
+    * @param schemaName        the name of the schema in the database containing the OACC tables
+    * @param sqlProfile        the database provider and dialect of SQL supported for the database server associated
+    *                          with the data source provided
+    * @param passwordEncryptor a {@link PasswordEncryptor} instance to which the built-in authentication provider
+    *                          delegates all password encryption and decryption
+    * @param options           the options applied to all access control contexts created by the engine
+    * @return a thread-safe engine ready to create access control contexts
+    */
+   public static SQLAccessControlEngine newInstance(DataSource dataSource,
+                                                    String schemaName,
+                                                    SQLProfile sqlProfile,
+                                                    PasswordEncryptor passwordEncryptor,
+                                                    SQLAccessControlContextOptions options) {
+      return new SQLAccessControlEngine(SQLAccessControlContext.getAccessControlContext(dataSource,
+                                                                                        schemaName,
+                                                                                        sqlProfile,
+                                                                                        passwordEncryptor,
+                                                                                        options));
+   }
+
+   /**
+    * Creates an engine backed by the specified database data source, that delegates resource authentication to the
+    * specified authentication provider. A set of valid OACC database tables are expected to reside in the specified
+    * schema.
+    *
+    * @param dataSource             a database data source with access to the required OACC tables
+    * @param schemaName             the name of the schema in the database containing the OACC tables
+    * @param sqlProfile             the database provider and dialect of SQL supported for the database server
+    *                               associated with the data source provided
+    * @param authenticationProvider a thread-safe {@link AuthenticationProvider} that handles resource authentication
+    * @return a thread-safe engine ready to create access control contexts
+    */
+   public static SQLAccessControlEngine newInstance(DataSource dataSource,
+                                                    String schemaName,
+                                                    SQLProfile sqlProfile,
+                                                    AuthenticationProvider authenticationProvider) {
+      return newInstance(dataSource,
+                         schemaName,
+                         sqlProfile,
+                         authenticationProvider,
+                         SQLAccessControlContextOptions.DEFAULT);
+   }
+
+   /**
+    * Creates an engine backed by the specified database data source, that delegates resource authentication to the
+    * specified authentication provider, and uses the specified options. A set of valid OACC database tables are
+    * expected to reside in the specified schema.
+    *
+    * @param dataSource             a database data source with access to the required OACC tables
+    * @param schemaName             the name of the schema in the database containing the OACC tables
+    * @param sqlProfile             the database provider and dialect of SQL supported for the database server
+    *                               associated with the data source provided
+    * @param authenticationProvider a thread-safe {@link AuthenticationProvider} that handles resource authentication
+    * @param options                the options applied to all access control contexts created by the engine
+    * @return a thread-safe engine ready to create access control contexts
+    */
+   public static SQLAccessControlEngine newInstance(DataSource dataSource,
+                                                    String schemaName,
+                                                    SQLProfile sqlProfile,
+                                                    AuthenticationProvider authenticationProvider,
+                                                    SQLAccessControlContextOptions options) {
+      return new SQLAccessControlEngine(SQLAccessControlContext.getAccessControlContext(dataSource,
+                                                                                        schemaName,
+                                                                                        sqlProfile,
+                                                                                        authenticationProvider,
+                                                                                        options));
+   }
+
+   /**
+    * Creates an engine backed by a primary database data source and a read data source, that uses the built-in
+    * authentication provider for resource authentication. The contexts created by the engine route their operations
+    * like the contexts returned by
+    * {@link SQLAccessControlContextFactory#getAccessControlContext(DataSource, DataSource, String, SQLProfile, PasswordEncryptor, SQLAccessControlContextOptions)}.
+    *
+    * @param dataSource        the primary database data source with access to the required OACC tables
+    * @param readDataSource    the database data source that serves read-only operations
+    * @param schemaName        the name of the schema in the database containing the OACC tables
+    * @param sqlProfile        the database provider and dialect of SQL supported for the database server associated
+    *                          with the data sources provided
+    * @param passwordEncryptor a {@link PasswordEncryptor} instance to which the built-in authentication provider
+    *                          delegates all password encryption and decryption
+    * @param options           the options applied to all access control contexts created by the engine
+    * @return a thread-safe engine ready to create access control contexts
+    */
+   public static SQLAccessControlEngine newInstance(DataSource dataSource,
+                                                    DataSource readDataSource,
+                                                    String schemaName,
+                                                    SQLProfile sqlProfile,
+                                                    PasswordEncryptor passwordEncryptor,
+                                                    SQLAccessControlContextOptions options) {
+      return new SQLAccessControlEngine(SQLAccessControlContext.getAccessControlContext(dataSource,
+                                                                                        readDataSource,
+                                                                                        schemaName,
+                                                                                        sqlProfile,
+                                                                                        passwordEncryptor,
+                                                                                        options));
+   }
+
+   /**
+    * Creates an engine backed by a primary database data source and a read data source, that delegates resource
+    * authentication to the specified authentication provider. The contexts created by the engine route their
+    * operations like the contexts returned by
+    * {@link SQLAccessControlContextFactory#getAccessControlContext(DataSource, DataSource, String, SQLProfile, AuthenticationProvider, SQLAccessControlContextOptions)}.
+    *
+    * @param dataSource             the primary database data source with access to the required OACC tables
+    * @param readDataSource         the database data source that serves read-only operations
+    * @param schemaName             the name of the schema in the database containing the OACC tables
+    * @param sqlProfile             the database provider and dialect of SQL supported for the database server
+    *                               associated with the data sources provided
+    * @param authenticationProvider a thread-safe {@link AuthenticationProvider} that handles resource authentication
+    * @param options                the options applied to all access control contexts created by the engine
+    * @return a thread-safe engine ready to create access control contexts
+    */
+   public static SQLAccessControlEngine newInstance(DataSource dataSource,
+                                                    DataSource readDataSource,
+                                                    String schemaName,
+                                                    SQLProfile sqlProfile,
+                                                    AuthenticationProvider authenticationProvider,
+                                                    SQLAccessControlContextOptions options) {
+      return new SQLAccessControlEngine(SQLAccessControlContext.getAccessControlContext(dataSource,
+                                                                                        readDataSource,
+                                                                                        schemaName,
+                                                                                        sqlProfile,
+                                                                                        authenticationProvider,
+                                                                                        options));
+   }
+
+   /**
+    * Creates a new, unauthenticated {@link AccessControlContext} for a single session or request. Creating a context
+    * is cheap, since it reuses the persisters, metadata and caches of this engine.
+    * <p/>
+    * A context that is serialized and deserialized no longer shares the state of this engine, and has to be
+    * re-initialized with {@link SQLAccessControlContextFactory#postDeserialize(AccessControlContext, DataSource)}.
+    *
+    * @return a new, unauthenticated access control context
+    */
+   public AccessControlContext newAccessControlContext() {
+      return SQLAccessControlContext.newSessionContext(templateContext);
+   }
+}
@@ -36,6 +36,13 @@ public class SQLProfile implements Serializable {
    public static final SQLProfile SQLite_3_8_NON_RECURSIVE;
    public static final SQLProfile MySQL_5_6_NON_RECURSIVE;
    public static final SQLProfile HSQLDB_2_3_NON_RECURSIVE;
+   public static final SQLProfile DB2_10_5_RECURSIVE_DOMAIN_CLOSURE;
+   public static final SQLProfile Oracle_11_2_RECURSIVE_DOMAIN_CLOSURE;
+   public static final SQLProfile PostgreSQL_9_3_RECURSIVE_DOMAIN_CLOSURE;
+   public static final SQLProfile SQLServer_12_0_RECURSIVE_DOMAIN_CLOSURE;
+   public static final SQLProfile SQLite_3_8_RECURSIVE_DOMAIN_CLOSURE;
+   public static final SQLProfile MySQL_5_6_NON_RECURSIVE_DOMAIN_CLOSURE;
+   public static final SQLProfile HSQLDB_2_3_NON_RECURSIVE_DOMAIN_CLOSURE;
 
    static {
       DB2_10_5_RECURSIVE = new Builder("DB2_10_5_RECURSIVE")
@@ -121,6 +128,63 @@ public class SQLProfile implements Serializable {
             .recursiveDeleteEnabled(false)
             .sequenceEnabled(true)
             .build();
+
+      // the domain closure profiles resolve domain ancestors and descendants from the OAC_DomainClosure table
+      DB2_10_5_RECURSIVE_DOMAIN_CLOSURE = new Builder("DB2_10_5_RECURSIVE_DOMAIN_CLOSURE")
+            .sqlDialect(SQLDialect.DB2_10_5)
+            .recursiveCTEEnabled(true)
+            .recursiveDeleteEnabled(false)
+            .sequenceEnabled(true)
+            .domainClosureEnabled(true)
+            .build();
+
+      Oracle_11_2_RECURSIVE_DOMAIN_CLOSURE = new Builder("Oracle_11_2_RECURSIVE_DOMAIN_CLOSURE")
+            .sqlDialect(SQLDialect.Oracle_11_2)
+            .recursiveCTEEnabled(true)
+            .recursiveDeleteEnabled(true)
+            .sequenceEnabled(true)
+            .domainClosureEnabled(true)
+            .build();
+
+      PostgreSQL_9_3_RECURSIVE_DOMAIN_CLOSURE = new Builder("PostgreSQL_9_3_RECURSIVE_DOMAIN_CLOSURE")
+            .sqlDialect(SQLDialect.PostgreSQL_9_3)
+            .recursiveCTEEnabled(true)
+            .recursiveDeleteEnabled(true)
+            .sequenceEnabled(true)
+            .domainClosureEnabled(true)
+            .build();
+
+      SQLServer_12_0_RECURSIVE_DOMAIN_CLOSURE = new Builder("SQLServer_12_0_RECURSIVE_DOMAIN_CLOSURE")
+            .sqlDialect(SQLDialect.SQLServer_12_0)
+            .recursiveCTEEnabled(true)
+            .recursiveDeleteEnabled(true)
+            .sequenceEnabled(true)
+            .domainClosureEnabled(true)
+            .build();
+
+      SQLite_3_8_RECURSIVE_DOMAIN_CLOSURE = new Builder("SQLite_3_8_RECURSIVE_DOMAIN_CLOSURE")
+            .sqlDialect(SQLDialect.SQLite_3_8)
+            .recursiveCTEEnabled(true)
+            .recursiveDeleteEnabled(true)
+            .sequenceEnabled(false)
+            .domainClosureEnabled(true)
+            .build();
+
+      MySQL_5_6_NON_RECURSIVE_DOMAIN_CLOSURE = new Builder("MySQL_5_6_NON_RECURSIVE_DOMAIN_CLOSURE")
+            .sqlDialect(SQLDialect.MySQL_5_6)
+            .recursiveCTEEnabled(false)
+            .recursiveDeleteEnabled(false)
+            .sequenceEnabled(false)
+            .domainClosureEnabled(true)
+            .build();
+
+      HSQLDB_2_3_NON_RECURSIVE_DOMAIN_CLOSURE = new Builder("HSQLDB_2_3_NON_RECURSIVE_DOMAIN_CLOSURE")
+            .sqlDialect(SQLDialect.HSQLDB_2_3)
+            .recursiveCTEEnabled(false)
+            .recursiveDeleteEnabled(false)
+            .sequenceEnabled(true)
+            .domainClosureEnabled(true)
+            .build();
    }
 
    public static String nameOf(SQLProfile sqlProfile) {
@@ -137,6 +201,7 @@ public class SQLProfile implements Serializable {
    private final boolean    recursiveCTEEnabled;
    private final boolean    recursiveDeleteEnabled;
    private final boolean    sequenceEnabled;
+   private final boolean    domainClosureEnabled;
 
    private SQLProfile(Builder builder) {
       this.name = builder.name;
@@ -144,6 +209,7 @@ public class SQLProfile implements Serializable {
       this.recursiveCTEEnabled = builder.recursiveCTEEnabled;
       this.recursiveDeleteEnabled = builder.recursiveDeleteEnabled;
       this.sequenceEnabled = builder.sequenceEnabled;
+      this.domainClosureEnabled = builder.domainClosureEnabled;
    }
 
    public SQLDialect getSqlDialect() {
@@ -162,6 +228,21 @@ public class SQLProfile implements Serializable {
       return sequenceEnabled;
    }
 
+   /**
+    * Returns true if the profile resolves the ancestors and descendants of domains from the
+    * <code>OAC_DomainClosure</code> table, instead of walking the <code>OAC_Domain</code> hierarchy.
+    * <p>
+    * The closure table has the columns <code>AncestorDomainId</code>, <code>DescendantDomainId</code> and
+    * <code>Depth</code>, and holds a row for every pair of a domain and one of its ancestors, including a row
+    * of depth zero that pairs every domain with itself. The table is maintained when domains are created or
+    * deleted, but must be populated for all existing domains before switching to a domain closure profile.
+    *
+    * @return true if the domain closure table is used, false otherwise
+    */
+   public boolean isDomainClosureEnabled() {
+      return domainClosureEnabled;
+   }
+
    @Override
    public boolean equals(Object o) {
       if (this == o) {
@@ -182,6 +263,9 @@ public class SQLProfile implements Serializable {
       if (sequenceEnabled != that.sequenceEnabled) {
          return false;
       }
+      if (domainClosureEnabled != that.domainClosureEnabled) {
+         return false;
+      }
       return sqlDialect == that.sqlDialect;
    }
 
@@ -191,6 +275,7 @@ public class SQLProfile implements Serializable {
       result = 31 * result + (recursiveCTEEnabled ? 1 : 0);
       result = 31 * result + (recursiveDeleteEnabled ? 1 : 0);
       result = 31 * result + (sequenceEnabled ? 1 : 0);
+      result = 31 * result + (domainClosureEnabled ? 1 : 0);
       return result;
    }
 
@@ -205,6 +290,7 @@ public class SQLProfile implements Serializable {
       private boolean    recursiveCTEEnabled;
       private boolean    recursiveDeleteEnabled;
       private boolean    sequenceEnabled;
+      private boolean    domainClosureEnabled;
 
       private static SQLProfile valueOf(String name) {
          return sqlProfilesByName.get(name);
@@ -234,6 +320,11 @@ public class SQLProfile implements Serializable {
          return this;
       }
 
+      private Builder domainClosureEnabled(boolean domainClosureEnabled) {
+         this.domainClosureEnabled = domainClosureEnabled;
+         return this;
+      }
+
       private SQLProfile build() {
          SQLProfile sqlProfile = new SQLProfile(this);
          sqlProfilesByName.put(name, sqlProfile);
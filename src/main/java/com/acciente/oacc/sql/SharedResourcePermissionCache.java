@@ -0,0 +1,207 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.ResourcePermission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A size-bounded, least-recently-used cache of effective resource permissions that can be shared by all access
+ * control contexts configured with the same {@link SQLAccessControlContextOptions}.
+ * <p>
+ * Each entry is stamped with the value of the permission change counter, stored in the
+ * <code>OAC_PermissionChangeCounter</code> table, at the time the entry was computed. Before an entry is used
+ * the access control context reads the current value of the counter, and an entry with a different stamp is
+ * treated as a miss and recomputed. The counter is incremented by every access control context that was
+ * configured with {@link SQLAccessControlContextOptions.Builder#permissionChangeCounterEnabled(boolean)}
+ * whenever it changes permissions, therefore <strong>all</strong> access control contexts that modify the
+ * OACC tables need to enable the counter when a shared cache is in use.
+ * <p>
+ * A cache instance must only be shared among contexts that access the same database and schema.
+ * This class is thread-safe.
+ */
+public class SharedResourcePermissionCache {
+   private final int                                           maxSize;
+   private final LinkedHashMap<Key, CachedResourcePermissions> entries;
+
+   private long hitCount;
+   private long missCount;
+
+   /**
+    * Returns a new, empty shared cache.
+    *
+    * @param maxSize the maximum number of (accessor, accessed) resource pairs to keep in the cache
+    * @return a SharedResourcePermissionCache instance
+    * @throws IllegalArgumentException if the specified size is less than 1
+    */
+   public static SharedResourcePermissionCache newInstance(int maxSize) {
+      if (maxSize < 1) {
+         throw new IllegalArgumentException("Cache size must be at least 1, got: " + maxSize);
+      }
+      return new SharedResourcePermissionCache(maxSize);
+   }
+
+   private SharedResourcePermissionCache(final int maxSize) {
+      this.maxSize = maxSize;
+      this.entries = new LinkedHashMap<Key, CachedResourcePermissions>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Key, CachedResourcePermissions> eldest) {
+            return size() > maxSize;
+         }
+      };
+   }
+
+   /**
+    * Returns the cached effective resource permissions, if they were computed when the permission change counter
+    * had the specified value. Intended to be called by the access control context.
+    *
+    * @param accessorResourceId the id of the accessor resource
+    * @param accessedResourceId the id of the accessed resource
+    * @param changeCount        the current value of the permission change counter
+    * @return an unmodifiable set of effective resource permissions, or null if none is cached or it is stale
+    */
+   public synchronized Set<ResourcePermission> get(long accessorResourceId,
+                                                   long accessedResourceId,
+                                                   long changeCount) {
+      final Key key = new Key(accessorResourceId, accessedResourceId);
+      final CachedResourcePermissions cachedResourcePermissions = entries.get(key);
+
+      if (cachedResourcePermissions == null) {
+         missCount++;
+         return null;
+      }
+
+      if (cachedResourcePermissions.changeCount != changeCount) {
+         entries.remove(key);
+         missCount++;
+         return null;
+      }
+
+      hitCount++;
+      return cachedResourcePermissions.resourcePermissions;
+   }
+
+   /**
+    * Caches the specified effective resource permissions, stamped with the specified value of the permission
+    * change counter. Intended to be called by the access control context.
+    *
+    * @param accessorResourceId  the id of the accessor resource
+    * @param accessedResourceId  the id of the accessed resource
+    * @param changeCount         the value of the permission change counter read before the permissions were computed
+    * @param resourcePermissions an unmodifiable set of effective resource permissions
+    */
+   public synchronized void put(long accessorResourceId,
+                                long accessedResourceId,
+                                long changeCount,
+                                Set<ResourcePermission> resourcePermissions) {
+      final Key key = new Key(accessorResourceId, accessedResourceId);
+      final CachedResourcePermissions cachedResourcePermissions = entries.get(key);
+
+      // never replace an entry with one that was computed from an older state of the tables
+      if (cachedResourcePermissions == null || cachedResourcePermissions.changeCount < changeCount) {
+         entries.put(key, new CachedResourcePermissions(changeCount, resourcePermissions));
+      }
+   }
+
+   /**
+    * Removes all entries from this cache. The hit and miss counts are not reset.
+    */
+   public synchronized void clear() {
+      entries.clear();
+   }
+
+   public int getMaxSize() {
+      return maxSize;
+   }
+
+   public synchronized int getSize() {
+      return entries.size();
+   }
+
+   /**
+    * Returns the number of lookups that found a current entry in this cache.
+    *
+    * @return the number of cache hits since this cache was created
+    */
+   public synchronized long getHitCount() {
+      return hitCount;
+   }
+
+   /**
+    * Returns the number of lookups that found no entry, or only a stale entry, in this cache.
+    *
+    * @return the number of cache misses since this cache was created
+    */
+   public synchronized long getMissCount() {
+      return missCount;
+   }
+
+   @Override
+   public String toString() {
+      return "SharedResourcePermissionCache{"
+            + "size=" + getSize()
+            + ", maxSize=" + maxSize
+            + ", hitCount=" + getHitCount()
+            + ", missCount=" + getMissCount()
+            + "}";
+   }
+
+   private static class CachedResourcePermissions {
+      private final long                    changeCount;
+      private final Set<ResourcePermission> resourcePermissions;
+
+      private CachedResourcePermissions(long changeCount, Set<ResourcePermission> resourcePermissions) {
+         this.changeCount = changeCount;
+         this.resourcePermissions = resourcePermissions;
+      }
+   }
+
+   private static class Key {
+      private final long accessorResourceId;
+      private final long accessedResourceId;
+
+      private Key(long accessorResourceId, long accessedResourceId) {
+         this.accessorResourceId = accessorResourceId;
+         this.accessedResourceId = accessedResourceId;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) {
+            return true;
+         }
+         if (o == null || getClass() != o.getClass()) {
+            return false;
+         }
+
+         Key key = (Key) o;
+
+         return accessorResourceId == key.accessorResourceId && accessedResourceId == key.accessedResourceId;
+      }
+
+      @Override
+      public int hashCode() {
+         int result = (int) (accessorResourceId ^ (accessorResourceId >>> 32));
+         result = 31 * result + (int) (accessedResourceId ^ (accessedResourceId >>> 32));
+         return result;
+      }
+   }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal;
+
+import com.acciente.oacc.ResourcePermission;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A size-bounded, least-recently-used cache of the effective resource permissions between pairs of resources,
+ * held by a single access control context.
+ * <p>
+ * The cached entries are never serialized, a deserialized cache starts out empty.
+ */
+class EffectiveResourcePermissionCache implements Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final int maxSize;
+
+   private transient Map<Key, Set<ResourcePermission>> entries;
+
+   EffectiveResourcePermissionCache(int maxSize) {
+      if (maxSize < 1) {
+         throw new IllegalArgumentException("Cache size must be at least 1, got: " + maxSize);
+      }
+      this.maxSize = maxSize;
+      this.entries = newEntries(maxSize);
+   }
+
+   int getMaxSize() {
+      return maxSize;
+   }
+
+   synchronized Set<ResourcePermission> get(long accessorResourceId, long accessedResourceId) {
+      return entries.get(new Key(accessorResourceId, accessedResourceId));
+   }
+
+   /**
+    * Caches the specified effective resource permissions, which must be an unmodifiable set.
+    */
+   synchronized void put(long accessorResourceId,
+                         long accessedResourceId,
+                         Set<ResourcePermission> resourcePermissions) {
+      entries.put(new Key(accessorResourceId, accessedResourceId), resourcePermissions);
+   }
+
+   synchronized void clear() {
+      entries.clear();
+   }
+
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      entries = newEntries(maxSize);
+   }
+
+   private static Map<Key, Set<ResourcePermission>> newEntries(final int maxSize) {
+      return new LinkedHashMap<Key, Set<ResourcePermission>>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Key, Set<ResourcePermission>> eldest) {
+            return size() > maxSize;
+         }
+      };
+   }
+
+   private static class Key {
+      private final long accessorResourceId;
+      private final long accessedResourceId;
+
+      private Key(long accessorResourceId, long accessedResourceId) {
+         this.accessorResourceId = accessorResourceId;
+         this.accessedResourceId = accessedResourceId;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) {
+            return true;
+         }
+         if (o == null || getClass() != o.getClass()) {
+            return false;
+         }
+
+         Key key = (Key) o;
+
+         return accessorResourceId == key.accessorResourceId && accessedResourceId == key.accessedResourceId;
+      }
+
+      @Override
+      public int hashCode() {
+         int result = (int) (accessorResourceId ^ (accessorResourceId >>> 32));
+         result = 31 * result + (int) (accessedResourceId ^ (accessedResourceId >>> 32));
+         return result;
+      }
+   }
+}
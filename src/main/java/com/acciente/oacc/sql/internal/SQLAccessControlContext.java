@@ -19,6 +19,7 @@ package com.acciente.oacc.sql.internal;
 
 import com.acciente.oacc.AccessControlContext;
 import com.acciente.oacc.AuthenticationProvider;
+import com.acciente.oacc.CloseableIterator;
 import com.acciente.oacc.Credentials;
 import com.acciente.oacc.DomainCreatePermission;
 import com.acciente.oacc.DomainCreatePermissions;
@@ -34,9 +35,19 @@ import com.acciente.oacc.ResourceCreatePermissions;
 import com.acciente.oacc.ResourcePermission;
 import com.acciente.oacc.ResourcePermissions;
 import com.acciente.oacc.Resources;
+import com.acciente.oacc.UnitOfWork;
 import com.acciente.oacc.encryptor.PasswordEncryptor;
+import com.acciente.oacc.sql.PasswordHashingExecutor;
+import com.acciente.oacc.sql.PreparedStatementCacheStatistics;
+import com.acciente.oacc.sql.SQLAccessControlContextOptions;
 import com.acciente.oacc.sql.SQLProfile;
+import com.acciente.oacc.sql.SharedResourcePermissionCache;
+import com.acciente.oacc.sql.internal.persister.AccessorResourcePagePersister;
+import com.acciente.oacc.sql.internal.persister.BatchEffectiveResourcePermissionPersister;
+import com.acciente.oacc.sql.internal.persister.DomainChangeCounterPersister;
+import com.acciente.oacc.sql.internal.persister.DomainHierarchyIndex;
 import com.acciente.oacc.sql.internal.persister.DomainPersister;
+import com.acciente.oacc.sql.internal.persister.EffectiveResourcePermissionPersister;
 import com.acciente.oacc.sql.internal.persister.GrantDomainCreatePermissionPostCreateSysPersister;
 import com.acciente.oacc.sql.internal.persister.GrantDomainCreatePermissionSysPersister;
 import com.acciente.oacc.sql.internal.persister.GrantDomainPermissionSysPersister;
@@ -47,6 +58,8 @@ import com.acciente.oacc.sql.internal.persister.GrantResourceCreatePermissionPos
 import com.acciente.oacc.sql.internal.persister.GrantResourceCreatePermissionSysPersister;
 import com.acciente.oacc.sql.internal.persister.GrantResourcePermissionPersister;
 import com.acciente.oacc.sql.internal.persister.GrantResourcePermissionSysPersister;
+import com.acciente.oacc.sql.internal.persister.NonRecursiveBatchEffectiveResourcePermissionPersister;
+import com.acciente.oacc.sql.internal.persister.NonRecursiveResourceCountPersister;
 import com.acciente.oacc.sql.internal.persister.NonRecursiveDomainPersister;
 import com.acciente.oacc.sql.internal.persister.NonRecursiveGrantDomainCreatePermissionPostCreateSysPersister;
 import com.acciente.oacc.sql.internal.persister.NonRecursiveGrantDomainCreatePermissionSysPersister;
@@ -59,23 +72,16 @@ import com.acciente.oacc.sql.internal.persister.NonRecursiveGrantResourceCreateP
 import com.acciente.oacc.sql.internal.persister.NonRecursiveGrantResourcePermissionPersister;
 import com.acciente.oacc.sql.internal.persister.NonRecursiveGrantResourcePermissionSysPersister;
 import com.acciente.oacc.sql.internal.persister.NonRecursiveResourcePersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveDomainPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantDomainCreatePermissionPostCreateSysPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantDomainCreatePermissionSysPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantDomainPermissionSysPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantGlobalResourcePermissionPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantGlobalResourcePermissionSysPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantResourceCreatePermissionPostCreatePersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantResourceCreatePermissionPostCreateSysPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantResourceCreatePermissionSysPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantResourcePermissionPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveGrantResourcePermissionSysPersister;
-import com.acciente.oacc.sql.internal.persister.RecursiveResourcePersister;
+import com.acciente.oacc.sql.internal.persister.PermissionChangeCounterPersister;
+import com.acciente.oacc.sql.internal.persister.ResourceClassMetadataRegistry;
 import com.acciente.oacc.sql.internal.persister.ResourceClassPermissionPersister;
 import com.acciente.oacc.sql.internal.persister.ResourceClassPersister;
+import com.acciente.oacc.sql.internal.persister.ResourceCountPersister;
 import com.acciente.oacc.sql.internal.persister.ResourcePersister;
 import com.acciente.oacc.sql.internal.persister.SQLConnection;
+import com.acciente.oacc.sql.internal.persister.SharedPersisters;
 import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import com.acciente.oacc.sql.internal.persister.StreamingResourcePermissionPersister;
 import com.acciente.oacc.sql.internal.persister.id.DomainId;
 import com.acciente.oacc.sql.internal.persister.id.Id;
 import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
@@ -83,24 +89,43 @@ import com.acciente.oacc.sql.internal.persister.id.ResourceId;
 import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
 
 import javax.sql.DataSource;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
 import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings({"UnusedAssignment", "ThrowFromFinallyBlock"})
 public class SQLAccessControlContext implements AccessControlContext, Serializable {
+   // never change: sessions serialized by earlier versions must still deserialize, see readObject()
    private static final long serialVersionUID = 1L;
 
    // services
    private transient DataSource dataSource;
    private transient Connection connection;
+   // the optional data source of a read replica, which serves the read-only operations
+   private transient DataSource readDataSource;
+   // whether this context routes reads to a read data source, which a deserialized context must be re-initialized
+   // with, see postDeserialize(AccessControlContext, DataSource, DataSource)
+   private boolean readDataSourceConfigured;
 
    // state
    private AuthenticationProvider authenticationProvider;
@@ -120,6 +145,9 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
    // resource ID constants
    private static final Long SYSTEM_RESOURCE_ID = Long.valueOf(0);
 
+   // the number of resources createResources() reserves ids for and writes at a time
+   private static final int RESOURCE_CREATION_BLOCK_SIZE = 1000;
+
    // domain permissions constants
    private static final DomainPermission DomainPermission_CREATE_CHILD_DOMAIN
          = DomainPermissions.getInstance(DomainPermissions.CREATE_CHILD_DOMAIN);
@@ -156,52 +184,203 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
    private static final ResourcePermission ResourcePermission_QUERY_GRANT
          = ResourcePermissions.getInstanceWithGrantOption(ResourcePermissions.QUERY);
 
-   // persisters
-   private final ResourceClassPersister                              resourceClassPersister;
-   private final ResourceClassPermissionPersister                    resourceClassPermissionPersister;
-   private final DomainPersister                                     domainPersister;
-   private final GrantDomainCreatePermissionSysPersister             grantDomainCreatePermissionSysPersister;
-   private final GrantDomainCreatePermissionPostCreateSysPersister   grantDomainCreatePermissionPostCreateSysPersister;
-   private final GrantDomainPermissionSysPersister                   grantDomainPermissionSysPersister;
-   private final ResourcePersister                                   resourcePersister;
-   private final GrantResourceCreatePermissionSysPersister           grantResourceCreatePermissionSysPersister;
-   private final GrantResourceCreatePermissionPostCreateSysPersister grantResourceCreatePermissionPostCreateSysPersister;
-   private final GrantResourceCreatePermissionPostCreatePersister    grantResourceCreatePermissionPostCreatePersister;
-   private final GrantResourcePermissionSysPersister                 grantResourcePermissionSysPersister;
-   private final GrantGlobalResourcePermissionSysPersister           grantGlobalResourcePermissionSysPersister;
-   private final GrantResourcePermissionPersister                    grantResourcePermissionPersister;
-   private final GrantGlobalResourcePermissionPersister              grantGlobalResourcePermissionPersister;
+   // the schema, profile and inheritance closure option that select the shared SQL strings and persisters
+   private final String     schemaName;
+   private final SQLProfile sqlProfile;
+   private final boolean    inheritanceClosureEnabled;
+   private final boolean    permissionChangeCounterEnabled;
+   private final boolean    domainChangeCounterEnabled;
+
+   // persisters, which are not serialized but looked up again when a serialized context is read
+   private transient ResourceClassPersister                              resourceClassPersister;
+   private transient ResourceClassPermissionPersister                    resourceClassPermissionPersister;
+   private transient DomainPersister                                     domainPersister;
+   private transient GrantDomainCreatePermissionSysPersister             grantDomainCreatePermissionSysPersister;
+   private transient GrantDomainCreatePermissionPostCreateSysPersister   grantDomainCreatePermissionPostCreateSysPersister;
+   private transient GrantDomainPermissionSysPersister                   grantDomainPermissionSysPersister;
+   private transient ResourcePersister                                   resourcePersister;
+   private transient GrantResourceCreatePermissionSysPersister           grantResourceCreatePermissionSysPersister;
+   private transient GrantResourceCreatePermissionPostCreateSysPersister grantResourceCreatePermissionPostCreateSysPersister;
+   private transient GrantResourceCreatePermissionPostCreatePersister    grantResourceCreatePermissionPostCreatePersister;
+   private transient GrantResourcePermissionSysPersister                 grantResourcePermissionSysPersister;
+   private transient GrantGlobalResourcePermissionSysPersister           grantGlobalResourcePermissionSysPersister;
+   private transient GrantResourcePermissionPersister                    grantResourcePermissionPersister;
+   private transient GrantGlobalResourcePermissionPersister              grantGlobalResourcePermissionPersister;
+   private transient PermissionChangeCounterPersister                    permissionChangeCounterPersister;
+   private transient DomainChangeCounterPersister                        domainChangeCounterPersister;
+   private transient EffectiveResourcePermissionPersister                effectiveResourcePermissionPersister;
+   private transient BatchEffectiveResourcePermissionPersister           batchEffectiveResourcePermissionPersister;
+   private transient StreamingResourcePermissionPersister                streamingResourcePermissionPersister;
+   private transient ResourceCountPersister                              resourceCountPersister;
+   private transient AccessorResourcePagePersister                       accessorResourcePagePersister;
+
+   // the number of rows resource streams fetch per round-trip (zero for the driver default)
+   private final int resourceStreamFetchSize;
+
+   // the maximum number of prepared statements cached per connection (zero when disabled)
+   private final     int                              preparedStatementCacheSize;
+   private transient PreparedStatementCacheStatistics preparedStatementCacheStatistics;
+
+   // caches (null when disabled)
+   private final     EffectiveResourcePermissionCache effectiveResourcePermissionCache;
+   private transient SharedResourcePermissionCache    sharedResourcePermissionCache;
+
+   // in-memory metadata shared by the persisters (the domain hierarchy index is null when disabled); the
+   // metadata registry is shared with the other contexts of the same data source, and looked up again when read
+   private transient ResourceClassMetadataRegistry resourceClassMetadataRegistry;
+   private final     DomainHierarchyIndex          domainHierarchyIndex;
+
+   // the connection pinned by the currently executing unit of work, if any
+   private transient SQLConnection transactionConnection;
+
+   // the session state read from a context serialized before the compact form, see readObject()
+   private transient SerializedForm legacySerializedForm;
+
+   // the wrapper of the connection this context was created with, which keeps its statement cache across calls
+   private transient SQLConnection pinnedConnection;
+
+   // the milliseconds after a change during which reads stay on the primary data source (zero when disabled)
+   private final     long    readYourWritesWindowMillis;
+   // the System.nanoTime() at which the last change through this context became visible on the primary
+   private transient boolean changeRecorded;
+   private transient long    lastChangeTimeNanos;
 
    public static AccessControlContext getAccessControlContext(Connection connection,
                                                               String schemaName,
                                                               SQLProfile sqlProfile,
                                                               PasswordEncryptor passwordEncryptor) {
+      return getAccessControlContext(connection,
+                                     schemaName,
+                                     sqlProfile,
+                                     passwordEncryptor,
+                                     SQLAccessControlContextOptions.DEFAULT);
+   }
+
+   public static AccessControlContext getAccessControlContext(Connection connection,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              PasswordEncryptor passwordEncryptor,
+                                                              SQLAccessControlContextOptions options) {
       __assertConnectionSpecified(connection);
-      return new SQLAccessControlContext(connection, schemaName, sqlProfile, passwordEncryptor);
+      __assertOptionsSpecified(options);
+      return new SQLAccessControlContext(connection, schemaName, sqlProfile, passwordEncryptor, options);
    }
 
    public static AccessControlContext getAccessControlContext(DataSource dataSource,
                                                               String schemaName,
                                                               SQLProfile sqlProfile,
                                                               PasswordEncryptor passwordEncryptor) {
+      return getAccessControlContext(dataSource,
+                                     schemaName,
+                                     sqlProfile,
+                                     passwordEncryptor,
+                                     SQLAccessControlContextOptions.DEFAULT);
+   }
+
+   public static AccessControlContext getAccessControlContext(DataSource dataSource,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              PasswordEncryptor passwordEncryptor,
+                                                              SQLAccessControlContextOptions options) {
       __assertDataSourceSpecified(dataSource);
-      return new SQLAccessControlContext(dataSource, schemaName, sqlProfile, passwordEncryptor);
+      __assertOptionsSpecified(options);
+      return new SQLAccessControlContext(dataSource, schemaName, sqlProfile, passwordEncryptor, options);
    }
 
    public static AccessControlContext getAccessControlContext(Connection connection,
                                                               String schemaName,
                                                               SQLProfile sqlProfile,
                                                               AuthenticationProvider authenticationProvider) {
+      return getAccessControlContext(connection,
+                                     schemaName,
+                                     sqlProfile,
+                                     authenticationProvider,
+                                     SQLAccessControlContextOptions.DEFAULT);
+   }
+
+   public static AccessControlContext getAccessControlContext(Connection connection,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              AuthenticationProvider authenticationProvider,
+                                                              SQLAccessControlContextOptions options) {
       __assertConnectionSpecified(connection);
-      return new SQLAccessControlContext(connection, schemaName, sqlProfile, authenticationProvider);
+      __assertOptionsSpecified(options);
+      return new SQLAccessControlContext(connection, schemaName, sqlProfile, authenticationProvider, options);
    }
 
    public static AccessControlContext getAccessControlContext(DataSource dataSource,
                                                               String schemaName,
                                                               SQLProfile sqlProfile,
                                                               AuthenticationProvider authenticationProvider) {
+      return getAccessControlContext(dataSource,
+                                     schemaName,
+                                     sqlProfile,
+                                     authenticationProvider,
+                                     SQLAccessControlContextOptions.DEFAULT);
+   }
+
+   public static AccessControlContext getAccessControlContext(DataSource dataSource,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              AuthenticationProvider authenticationProvider,
+                                                              SQLAccessControlContextOptions options) {
+      __assertDataSourceSpecified(dataSource);
+      __assertOptionsSpecified(options);
+      return new SQLAccessControlContext(dataSource, schemaName, sqlProfile, authenticationProvider, options);
+   }
+
+   public static AccessControlContext getAccessControlContext(DataSource dataSource,
+                                                              DataSource readDataSource,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              PasswordEncryptor passwordEncryptor,
+                                                              SQLAccessControlContextOptions options) {
+      __assertDataSourceSpecified(dataSource);
+      __assertDataSourceSpecified(readDataSource);
+      __assertOptionsSpecified(options);
+      final SQLAccessControlContext sqlAccessControlContext
+            = new SQLAccessControlContext(dataSource, schemaName, sqlProfile, passwordEncryptor, options);
+      sqlAccessControlContext.readDataSource = readDataSource;
+      sqlAccessControlContext.readDataSourceConfigured = true;
+      return sqlAccessControlContext;
+   }
+
+   public static AccessControlContext getAccessControlContext(DataSource dataSource,
+                                                              DataSource readDataSource,
+                                                              String schemaName,
+                                                              SQLProfile sqlProfile,
+                                                              AuthenticationProvider authenticationProvider,
+                                                              SQLAccessControlContextOptions options) {
       __assertDataSourceSpecified(dataSource);
-      return new SQLAccessControlContext(dataSource, schemaName, sqlProfile, authenticationProvider);
+      __assertDataSourceSpecified(readDataSource);
+      __assertOptionsSpecified(options);
+      final SQLAccessControlContext sqlAccessControlContext
+            = new SQLAccessControlContext(dataSource, schemaName, sqlProfile, authenticationProvider, options);
+      sqlAccessControlContext.readDataSource = readDataSource;
+      sqlAccessControlContext.readDataSourceConfigured = true;
+      return sqlAccessControlContext;
+   }
+
+   /**
+    * Returns a new, unauthenticated context that shares the persisters, in-memory metadata, caches and authentication
+    * provider of the specified context, which must have been obtained from a data source.
+    * <p/>
+    * Only the session state and the effective resource permission cache are owned by the returned context, which makes
+    * it cheap to create one per session or request. The specified context must not itself be used for API calls while
+    * it serves as the template for session contexts.
+    *
+    * @param templateContext the context whose shared state the new context reuses
+    * @return a new, unauthenticated session context
+    */
+   public static AccessControlContext newSessionContext(AccessControlContext templateContext) {
+      if (!(templateContext instanceof SQLAccessControlContext)) {
+         throw new IllegalArgumentException("Template context must be an SQLAccessControlContext");
+      }
+      final SQLAccessControlContext sqlTemplateContext = (SQLAccessControlContext) templateContext;
+      if (sqlTemplateContext.dataSource == null) {
+         throw new IllegalArgumentException("Template context must be backed by a data source");
+      }
+      return new SQLAccessControlContext(sqlTemplateContext);
    }
 
    /**
@@ -212,36 +391,70 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
    }
 
    public static void postDeserialize(AccessControlContext accessControlContext, Connection connection) {
+      postDeserialize(accessControlContext, connection, null);
+   }
+
+   public static void postDeserialize(AccessControlContext accessControlContext,
+                                      Connection connection,
+                                      PasswordHashingExecutor passwordHashingExecutor) {
       if (accessControlContext instanceof SQLAccessControlContext) {
          SQLAccessControlContext sqlAccessControlContext = (SQLAccessControlContext) accessControlContext;
-         sqlAccessControlContext.__postDeserialize(connection);
+         sqlAccessControlContext.__postDeserialize(connection, passwordHashingExecutor);
       }
    }
 
    public static void postDeserialize(AccessControlContext accessControlContext, DataSource dataSource) {
+      postDeserialize(accessControlContext, dataSource, (PasswordHashingExecutor) null);
+   }
+
+   public static void postDeserialize(AccessControlContext accessControlContext,
+                                      DataSource dataSource,
+                                      PasswordHashingExecutor passwordHashingExecutor) {
+      if (accessControlContext instanceof SQLAccessControlContext) {
+         SQLAccessControlContext sqlAccessControlContext = (SQLAccessControlContext) accessControlContext;
+         sqlAccessControlContext.__postDeserialize(dataSource, null, passwordHashingExecutor);
+      }
+   }
+
+   public static void postDeserialize(AccessControlContext accessControlContext,
+                                      DataSource dataSource,
+                                      DataSource readDataSource) {
+      postDeserialize(accessControlContext, dataSource, readDataSource, null);
+   }
+
+   public static void postDeserialize(AccessControlContext accessControlContext,
+                                      DataSource dataSource,
+                                      DataSource readDataSource,
+                                      PasswordHashingExecutor passwordHashingExecutor) {
+      __assertDataSourceSpecified(readDataSource);
       if (accessControlContext instanceof SQLAccessControlContext) {
          SQLAccessControlContext sqlAccessControlContext = (SQLAccessControlContext) accessControlContext;
-         sqlAccessControlContext.__postDeserialize(dataSource);
+         sqlAccessControlContext.__postDeserialize(dataSource, readDataSource, passwordHashingExecutor);
       }
    }
 
    private SQLAccessControlContext(Connection connection,
                                    String schemaName,
                                    SQLProfile sqlProfile,
-                                   PasswordEncryptor passwordEncryptor) {
-      this(schemaName, sqlProfile);
+                                   PasswordEncryptor passwordEncryptor,
+                                   SQLAccessControlContextOptions options) {
+      this((DataSource) null, schemaName, sqlProfile, options);
       this.connection = connection;
       // use the built-in authentication provider when no custom implementation is provided
       this.authenticationProvider
-            = new SQLPasswordAuthenticationProvider(connection, schemaName, passwordEncryptor);
+            = new SQLPasswordAuthenticationProvider(connection,
+                                                    schemaName,
+                                                    passwordEncryptor,
+                                                    options.getPasswordHashingExecutor());
       this.hasDefaultAuthenticationProvider = true;
    }
 
    private SQLAccessControlContext(Connection connection,
                                    String schemaName,
                                    SQLProfile sqlProfile,
-                                   AuthenticationProvider authenticationProvider) {
-      this(schemaName, sqlProfile);
+                                   AuthenticationProvider authenticationProvider,
+                                   SQLAccessControlContextOptions options) {
+      this((DataSource) null, schemaName, sqlProfile, options);
       this.connection = connection;
       this.authenticationProvider = authenticationProvider;
       this.hasDefaultAuthenticationProvider = false;
@@ -250,112 +463,456 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
    private SQLAccessControlContext(DataSource dataSource,
                                    String schemaName,
                                    SQLProfile sqlProfile,
-                                   PasswordEncryptor passwordEncryptor) {
-      this(schemaName, sqlProfile);
+                                   PasswordEncryptor passwordEncryptor,
+                                   SQLAccessControlContextOptions options) {
+      this(dataSource, schemaName, sqlProfile, options);
       this.dataSource = dataSource;
       // use the built-in authentication provider when no custom implementation is provided
       this.authenticationProvider
-            = new SQLPasswordAuthenticationProvider(dataSource, schemaName, passwordEncryptor);
+            = new SQLPasswordAuthenticationProvider(dataSource,
+                                                    schemaName,
+                                                    passwordEncryptor,
+                                                    options.getPasswordHashingExecutor());
       this.hasDefaultAuthenticationProvider = true;
    }
 
    private SQLAccessControlContext(DataSource dataSource,
                                    String schemaName,
                                    SQLProfile sqlProfile,
-                                   AuthenticationProvider authenticationProvider) {
-      this(schemaName, sqlProfile);
+                                   AuthenticationProvider authenticationProvider,
+                                   SQLAccessControlContextOptions options) {
+      this(dataSource, schemaName, sqlProfile, options);
       this.dataSource = dataSource;
       this.authenticationProvider = authenticationProvider;
       this.hasDefaultAuthenticationProvider = false;
    }
 
-   private SQLAccessControlContext(String schemaName,
-                                   SQLProfile sqlProfile) {
+   private SQLAccessControlContext(DataSource dataSource,
+                                   String schemaName,
+                                   SQLProfile sqlProfile,
+                                   SQLAccessControlContextOptions options) {
       SchemaNameValidator.assertValid(schemaName);
 
-      // generate all the SQLs the persisters need based on the database dialect
-      SQLStrings sqlStrings = SQLStrings.getSQLStrings(schemaName, sqlProfile);
+      this.schemaName = schemaName;
+      this.sqlProfile = sqlProfile;
+      this.inheritanceClosureEnabled = options.isInheritanceClosureEnabled();
+      // the permission change counter is only maintained when enabled, since it requires an additional table
+      this.permissionChangeCounterEnabled = options.isPermissionChangeCounterEnabled();
+      this.domainChangeCounterEnabled = options.isDomainChangeCounterEnabled();
+
+      // the non-recursive persisters share one optional in-memory index of the domain hierarchy
+      if (!sqlProfile.isRecursiveCTEEnabled() && options.isDomainHierarchyIndexEnabled()) {
+         final SharedPersisters sharedPersisters
+               = SharedPersisters.getInstance(schemaName, sqlProfile, inheritanceClosureEnabled);
+         domainHierarchyIndex = new DomainHierarchyIndex(sharedPersisters.sqlStrings,
+                                                         sharedPersisters.domainChangeCounterPersister,
+                                                         options.getDomainHierarchyIndexPollIntervalMillis());
+      }
+      else {
+         domainHierarchyIndex = null;
+      }
 
-      // setup persisters
-      resourceClassPersister
-            = new ResourceClassPersister(sqlProfile, sqlStrings);
-      resourceClassPermissionPersister
-            = new ResourceClassPermissionPersister(sqlProfile, sqlStrings);
+      __initializePersisters(dataSource);
 
-      if (sqlProfile.isRecursiveCTEEnabled()) {
-         grantDomainCreatePermissionSysPersister
-               = new RecursiveGrantDomainCreatePermissionSysPersister(sqlProfile, sqlStrings);
-         grantDomainCreatePermissionPostCreateSysPersister
-               = new RecursiveGrantDomainCreatePermissionPostCreateSysPersister(sqlProfile, sqlStrings);
-         grantDomainPermissionSysPersister
-               = new RecursiveGrantDomainPermissionSysPersister(sqlProfile, sqlStrings);
-         domainPersister
-               = new RecursiveDomainPersister(sqlProfile, sqlStrings);
-         resourcePersister
-               = new RecursiveResourcePersister(sqlProfile, sqlStrings);
-         grantResourceCreatePermissionSysPersister
-               = new RecursiveGrantResourceCreatePermissionSysPersister(sqlProfile, sqlStrings);
-         grantResourceCreatePermissionPostCreateSysPersister
-               = new RecursiveGrantResourceCreatePermissionPostCreateSysPersister(sqlProfile, sqlStrings);
-         grantResourceCreatePermissionPostCreatePersister
-               = new RecursiveGrantResourceCreatePermissionPostCreatePersister(sqlProfile, sqlStrings);
-         grantResourcePermissionSysPersister
-               = new RecursiveGrantResourcePermissionSysPersister(sqlProfile, sqlStrings);
-         grantGlobalResourcePermissionSysPersister
-               = new RecursiveGrantGlobalResourcePermissionSysPersister(sqlProfile, sqlStrings);
-         grantResourcePermissionPersister
-               = new RecursiveGrantResourcePermissionPersister(sqlProfile, sqlStrings);
-         grantGlobalResourcePermissionPersister
-               = new RecursiveGrantGlobalResourcePermissionPersister(sqlProfile, sqlStrings);
+      resourceStreamFetchSize = options.getResourceStreamFetchSize();
+      readYourWritesWindowMillis = options.getReadYourWritesWindowMillis();
+      preparedStatementCacheSize = options.getPreparedStatementCacheSize();
+      preparedStatementCacheStatistics = options.getPreparedStatementCacheStatistics();
+
+      // setup caches
+      sharedResourcePermissionCache = options.getSharedResourcePermissionCache();
+
+      if (options.getEffectiveResourcePermissionCacheSize() > 0) {
+         effectiveResourcePermissionCache
+               = new EffectiveResourcePermissionCache(options.getEffectiveResourcePermissionCacheSize());
+      }
+      else {
+         effectiveResourcePermissionCache = null;
+      }
+   }
+
+   private SQLAccessControlContext(SQLAccessControlContext templateContext) {
+      this.dataSource = templateContext.dataSource;
+      this.readDataSource = templateContext.readDataSource;
+      this.readDataSourceConfigured = templateContext.readDataSourceConfigured;
+      this.readYourWritesWindowMillis = templateContext.readYourWritesWindowMillis;
+      this.authenticationProvider = templateContext.authenticationProvider;
+      this.hasDefaultAuthenticationProvider = templateContext.hasDefaultAuthenticationProvider;
+
+      this.schemaName = templateContext.schemaName;
+      this.sqlProfile = templateContext.sqlProfile;
+      this.inheritanceClosureEnabled = templateContext.inheritanceClosureEnabled;
+      this.permissionChangeCounterEnabled = templateContext.permissionChangeCounterEnabled;
+      this.domainChangeCounterEnabled = templateContext.domainChangeCounterEnabled;
+
+      // the metadata registry and the domain hierarchy index are thread-safe, so the persisters that use them are
+      // shared along with them
+      this.resourceClassMetadataRegistry = templateContext.resourceClassMetadataRegistry;
+      this.domainHierarchyIndex = templateContext.domainHierarchyIndex;
+
+      this.resourceClassPersister = templateContext.resourceClassPersister;
+      this.resourceClassPermissionPersister = templateContext.resourceClassPermissionPersister;
+      this.domainPersister = templateContext.domainPersister;
+      this.grantDomainCreatePermissionSysPersister = templateContext.grantDomainCreatePermissionSysPersister;
+      this.grantDomainCreatePermissionPostCreateSysPersister = templateContext.grantDomainCreatePermissionPostCreateSysPersister;
+      this.grantDomainPermissionSysPersister = templateContext.grantDomainPermissionSysPersister;
+      this.resourcePersister = templateContext.resourcePersister;
+      this.grantResourceCreatePermissionSysPersister = templateContext.grantResourceCreatePermissionSysPersister;
+      this.grantResourceCreatePermissionPostCreateSysPersister = templateContext.grantResourceCreatePermissionPostCreateSysPersister;
+      this.grantResourceCreatePermissionPostCreatePersister = templateContext.grantResourceCreatePermissionPostCreatePersister;
+      this.grantResourcePermissionSysPersister = templateContext.grantResourcePermissionSysPersister;
+      this.grantGlobalResourcePermissionSysPersister = templateContext.grantGlobalResourcePermissionSysPersister;
+      this.grantResourcePermissionPersister = templateContext.grantResourcePermissionPersister;
+      this.grantGlobalResourcePermissionPersister = templateContext.grantGlobalResourcePermissionPersister;
+      this.permissionChangeCounterPersister = templateContext.permissionChangeCounterPersister;
+      this.domainChangeCounterPersister = templateContext.domainChangeCounterPersister;
+      this.effectiveResourcePermissionPersister = templateContext.effectiveResourcePermissionPersister;
+      this.batchEffectiveResourcePermissionPersister = templateContext.batchEffectiveResourcePermissionPersister;
+      this.streamingResourcePermissionPersister = templateContext.streamingResourcePermissionPersister;
+      this.resourceCountPersister = templateContext.resourceCountPersister;
+      this.accessorResourcePagePersister = templateContext.accessorResourcePagePersister;
+
+      this.resourceStreamFetchSize = templateContext.resourceStreamFetchSize;
+      this.preparedStatementCacheSize = templateContext.preparedStatementCacheSize;
+      this.preparedStatementCacheStatistics = templateContext.preparedStatementCacheStatistics;
+      this.sharedResourcePermissionCache = templateContext.sharedResourcePermissionCache;
+
+      // the effective resource permission cache is only cleared by the changes made through its own context, so each
+      // session context gets its own
+      if (templateContext.effectiveResourcePermissionCache != null) {
+         this.effectiveResourcePermissionCache
+               = new EffectiveResourcePermissionCache(templateContext.effectiveResourcePermissionCache.getMaxSize());
       }
       else {
+         this.effectiveResourcePermissionCache = null;
+      }
+   }
+
+   private void __initializePersisters(DataSource dataSource) {
+      // the SQL strings and stateless persisters are built once per schema and profile, and shared by all contexts
+      final SharedPersisters sharedPersisters
+            = SharedPersisters.getInstance(schemaName, sqlProfile, inheritanceClosureEnabled);
+      final SQLStrings sqlStrings = sharedPersisters.sqlStrings;
+
+      __initializeResourceClassPersisters(sharedPersisters, dataSource);
+
+      accessorResourcePagePersister = sharedPersisters.accessorResourcePagePersister;
+      permissionChangeCounterPersister
+            = permissionChangeCounterEnabled ? sharedPersisters.permissionChangeCounterPersister : null;
+      domainChangeCounterPersister
+            = domainChangeCounterEnabled ? sharedPersisters.domainChangeCounterPersister : null;
+
+      if (domainHierarchyIndex == null) {
+         grantDomainCreatePermissionSysPersister = sharedPersisters.grantDomainCreatePermissionSysPersister;
+         grantDomainCreatePermissionPostCreateSysPersister = sharedPersisters.grantDomainCreatePermissionPostCreateSysPersister;
+         grantDomainPermissionSysPersister = sharedPersisters.grantDomainPermissionSysPersister;
+         domainPersister = sharedPersisters.domainPersister;
+         resourcePersister = sharedPersisters.resourcePersister;
+         grantResourceCreatePermissionSysPersister = sharedPersisters.grantResourceCreatePermissionSysPersister;
+         grantResourceCreatePermissionPostCreateSysPersister = sharedPersisters.grantResourceCreatePermissionPostCreateSysPersister;
+         grantResourceCreatePermissionPostCreatePersister = sharedPersisters.grantResourceCreatePermissionPostCreatePersister;
+         grantResourcePermissionSysPersister = sharedPersisters.grantResourcePermissionSysPersister;
+         grantGlobalResourcePermissionSysPersister = sharedPersisters.grantGlobalResourcePermissionSysPersister;
+         grantResourcePermissionPersister = sharedPersisters.grantResourcePermissionPersister;
+         grantGlobalResourcePermissionPersister = sharedPersisters.grantGlobalResourcePermissionPersister;
+         batchEffectiveResourcePermissionPersister = sharedPersisters.batchEffectiveResourcePermissionPersister;
+         resourceCountPersister = sharedPersisters.resourceCountPersister;
+      }
+      else {
+         // the persisters that use this context's domain hierarchy index cannot be shared
          grantDomainCreatePermissionSysPersister
                = new NonRecursiveGrantDomainCreatePermissionSysPersister(sqlProfile, sqlStrings);
          grantDomainCreatePermissionPostCreateSysPersister
                = new NonRecursiveGrantDomainCreatePermissionPostCreateSysPersister(sqlProfile, sqlStrings);
          grantDomainPermissionSysPersister
-               = new NonRecursiveGrantDomainPermissionSysPersister(sqlProfile, sqlStrings);
+               = new NonRecursiveGrantDomainPermissionSysPersister(sqlProfile, sqlStrings, domainHierarchyIndex);
          domainPersister
-               = new NonRecursiveDomainPersister(sqlProfile, sqlStrings);
+               = new NonRecursiveDomainPersister(sqlProfile, sqlStrings, domainHierarchyIndex);
          resourcePersister
-               = new NonRecursiveResourcePersister(sqlProfile, sqlStrings);
+               = new NonRecursiveResourcePersister(sqlProfile, sqlStrings, domainHierarchyIndex);
          grantResourceCreatePermissionSysPersister
-               = new NonRecursiveGrantResourceCreatePermissionSysPersister(sqlProfile, sqlStrings);
+               = new NonRecursiveGrantResourceCreatePermissionSysPersister(sqlProfile, sqlStrings, domainHierarchyIndex);
          grantResourceCreatePermissionPostCreateSysPersister
-               = new NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister(sqlProfile, sqlStrings);
+               = new NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister(sqlProfile, sqlStrings, domainHierarchyIndex);
          grantResourceCreatePermissionPostCreatePersister
-               = new NonRecursiveGrantResourceCreatePermissionPostCreatePersister(sqlProfile, sqlStrings);
+               = new NonRecursiveGrantResourceCreatePermissionPostCreatePersister(sqlProfile, sqlStrings, domainHierarchyIndex);
          grantResourcePermissionSysPersister
-               = new NonRecursiveGrantResourcePermissionSysPersister(sqlProfile, sqlStrings);
+               = new NonRecursiveGrantResourcePermissionSysPersister(sqlProfile, sqlStrings, domainHierarchyIndex);
          grantGlobalResourcePermissionSysPersister
-               = new NonRecursiveGrantGlobalResourcePermissionSysPersister(sqlProfile, sqlStrings);
+               = new NonRecursiveGrantGlobalResourcePermissionSysPersister(sqlProfile, sqlStrings, domainHierarchyIndex);
          grantResourcePermissionPersister
-               = new NonRecursiveGrantResourcePermissionPersister(sqlProfile, sqlStrings);
+               = new NonRecursiveGrantResourcePermissionPersister(sqlProfile, sqlStrings, domainHierarchyIndex);
          grantGlobalResourcePermissionPersister
-               = new NonRecursiveGrantGlobalResourcePermissionPersister(sqlProfile, sqlStrings);
+               = new NonRecursiveGrantGlobalResourcePermissionPersister(sqlProfile, sqlStrings, domainHierarchyIndex);
+         batchEffectiveResourcePermissionPersister
+               = new NonRecursiveBatchEffectiveResourcePermissionPersister(sqlStrings, domainHierarchyIndex);
+         resourceCountPersister = new NonRecursiveResourceCountPersister(sqlStrings, domainHierarchyIndex);
       }
+
+      // both are null for non-recursive profiles, which lack the recursive queries they require
+      effectiveResourcePermissionPersister = sharedPersisters.effectiveResourcePermissionPersister;
+      streamingResourcePermissionPersister = sharedPersisters.streamingResourcePermissionPersister;
+   }
+
+   private void __initializeResourceClassPersisters(SharedPersisters sharedPersisters, DataSource dataSource) {
+      // the resource class persisters and their metadata registry are shared by all contexts of the same data source
+      final SharedPersisters.ResourceClassPersisters resourceClassPersisters
+            = sharedPersisters.getResourceClassPersisters(dataSource);
+
+      resourceClassMetadataRegistry = resourceClassPersisters.resourceClassMetadataRegistry;
+      resourceClassPersister = resourceClassPersisters.resourceClassPersister;
+      resourceClassPermissionPersister = resourceClassPersisters.resourceClassPermissionPersister;
+   }
+
+   private SQLAccessControlContext(SerializedForm serializedForm) {
+      // the data source is only known once the context is re-initialized, see __postDeserialize()
+      this((DataSource) null,
+           serializedForm.schemaName,
+           SQLProfile.valueOf(serializedForm.sqlProfileName),
+           serializedForm.getOptions());
+
+      this.authenticationProvider = serializedForm.authenticationProvider;
+      this.hasDefaultAuthenticationProvider = serializedForm.hasDefaultAuthenticationProvider;
+      this.readDataSourceConfigured = serializedForm.readDataSourceConfigured;
+
+      this.authenticatedResource = serializedForm.authenticatedResource;
+      this.authenticatedResourceDomainName = serializedForm.authenticatedResourceDomainName;
+      this.sessionResource = serializedForm.sessionResource;
+      this.sessionResourceDomainName = serializedForm.sessionResourceDomainName;
+   }
+
+   // serialization helpers
+
+   private Object writeReplace() {
+      // only the session state and the settings are serialized, the persisters and SQL are looked up when read
+      return new SerializedForm(this);
+   }
+
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      // contexts are always written in their compact form, so this only reads contexts serialized by earlier
+      // versions, which carry all their persisters; readResolve() replaces them with a context built from the
+      // session state
+      legacySerializedForm = SerializedForm.fromLegacyFields(in.readFields());
+   }
+
+   private Object readResolve() {
+      return legacySerializedForm != null ? legacySerializedForm.readResolve() : this;
    }
 
-   private void __postDeserialize(DataSource dataSource) {
+   /**
+    * The compact, versioned serialized form of a context. It carries the session state, the schema and profile
+    * names, the settings and the authentication provider, but none of the persisters and SQL strings, which are
+    * looked up again when the context is read. As before, a deserialized context must be re-initialized with
+    * one of the <code>postDeserialize</code> methods.
+    * <p>
+    * Every version of the format starts with the format version. Later versions may only append fields, and
+    * must continue to read all earlier versions.
+    */
+   static class SerializedForm implements Externalizable {
+      private static final long serialVersionUID = 1L;
+
+      private static final byte FORMAT_VERSION = 1;
+
+      private String                 schemaName;
+      private String                 sqlProfileName;
+      private boolean                permissionChangeCounterEnabled;
+      private boolean                domainChangeCounterEnabled;
+      private boolean                domainHierarchyIndexEnabled;
+      private long                   domainHierarchyIndexPollIntervalMillis;
+      private boolean                inheritanceClosureEnabled;
+      private int                    effectiveResourcePermissionCacheSize;
+      private int                    resourceStreamFetchSize;
+      private int                    preparedStatementCacheSize;
+      private boolean                readDataSourceConfigured;
+      private long                   readYourWritesWindowMillis;
+      private AuthenticationProvider authenticationProvider;
+      private boolean                hasDefaultAuthenticationProvider;
+      private Resource               authenticatedResource;
+      private String                 authenticatedResourceDomainName;
+      private Resource               sessionResource;
+      private String                 sessionResourceDomainName;
+
+      // required by Externalizable
+      public SerializedForm() {
+      }
+
+      private SerializedForm(SQLAccessControlContext context) {
+         schemaName = context.schemaName;
+         sqlProfileName = SQLProfile.nameOf(context.sqlProfile);
+         permissionChangeCounterEnabled = context.permissionChangeCounterEnabled;
+         domainChangeCounterEnabled = context.domainChangeCounterEnabled;
+         domainHierarchyIndexEnabled = context.domainHierarchyIndex != null;
+         domainHierarchyIndexPollIntervalMillis
+               = domainHierarchyIndexEnabled ? context.domainHierarchyIndex.getPollIntervalMillis() : 0;
+         inheritanceClosureEnabled = context.inheritanceClosureEnabled;
+         effectiveResourcePermissionCacheSize
+               = context.effectiveResourcePermissionCache != null ? context.effectiveResourcePermissionCache.getMaxSize() : 0;
+         resourceStreamFetchSize = context.resourceStreamFetchSize;
+         preparedStatementCacheSize = context.preparedStatementCacheSize;
+         readDataSourceConfigured = context.readDataSourceConfigured;
+         readYourWritesWindowMillis = context.readYourWritesWindowMillis;
+         authenticationProvider = context.authenticationProvider;
+         hasDefaultAuthenticationProvider = context.hasDefaultAuthenticationProvider;
+         authenticatedResource = context.authenticatedResource;
+         authenticatedResourceDomainName = context.authenticatedResourceDomainName;
+         sessionResource = context.sessionResource;
+         sessionResourceDomainName = context.sessionResourceDomainName;
+      }
+
+      private static SerializedForm fromLegacyFields(ObjectInputStream.GetField fields)
+            throws IOException, ClassNotFoundException {
+         // the resource class persister has been part of every earlier version, and refers to the SQL strings
+         final ResourceClassPersister legacyResourceClassPersister
+               = (ResourceClassPersister) fields.get("resourceClassPersister", null);
+         if (legacyResourceClassPersister == null) {
+            throw new InvalidObjectException("Serialized access control context has no resource class persister");
+         }
+
+         final SerializedForm serializedForm = new SerializedForm();
+         final SQLStrings legacySQLStrings = legacyResourceClassPersister.getSQLStrings();
+         serializedForm.schemaName = legacySQLStrings.getSchemaName();
+         serializedForm.sqlProfileName = SQLProfile.nameOf(legacySQLStrings.getSqlProfile());
+         serializedForm.resourceStreamFetchSize = SQLAccessControlContextOptions.DEFAULT_RESOURCE_STREAM_FETCH_SIZE;
+         serializedForm.authenticationProvider = (AuthenticationProvider) fields.get("authenticationProvider", null);
+         serializedForm.hasDefaultAuthenticationProvider = fields.get("hasDefaultAuthenticationProvider", false);
+         serializedForm.authenticatedResource = (Resource) fields.get("authenticatedResource", null);
+         serializedForm.authenticatedResourceDomainName = (String) fields.get("authenticatedResourceDomainName", null);
+         serializedForm.sessionResource = (Resource) fields.get("sessionResource", null);
+         serializedForm.sessionResourceDomainName = (String) fields.get("sessionResourceDomainName", null);
+         return serializedForm;
+      }
+
+      private SQLAccessControlContextOptions getOptions() {
+         return SQLAccessControlContextOptions.builder()
+               .permissionChangeCounterEnabled(permissionChangeCounterEnabled)
+               .domainChangeCounterEnabled(domainChangeCounterEnabled)
+               .domainHierarchyIndexEnabled(domainHierarchyIndexEnabled)
+               .domainHierarchyIndexPollIntervalMillis(domainHierarchyIndexPollIntervalMillis)
+               .inheritanceClosureEnabled(inheritanceClosureEnabled)
+               .effectiveResourcePermissionCacheSize(effectiveResourcePermissionCacheSize)
+               .resourceStreamFetchSize(resourceStreamFetchSize)
+               .preparedStatementCacheSize(preparedStatementCacheSize)
+               .readYourWritesWindowMillis(readYourWritesWindowMillis)
+               .build();
+      }
+
+      @Override
+      public void writeExternal(ObjectOutput out) throws IOException {
+         out.writeByte(FORMAT_VERSION);
+
+         out.writeObject(schemaName);
+         out.writeUTF(sqlProfileName);
+         out.writeBoolean(permissionChangeCounterEnabled);
+         out.writeBoolean(domainChangeCounterEnabled);
+         out.writeBoolean(domainHierarchyIndexEnabled);
+         out.writeLong(domainHierarchyIndexPollIntervalMillis);
+         out.writeBoolean(inheritanceClosureEnabled);
+         out.writeInt(effectiveResourcePermissionCacheSize);
+         out.writeInt(resourceStreamFetchSize);
+         out.writeInt(preparedStatementCacheSize);
+         out.writeBoolean(readDataSourceConfigured);
+         out.writeLong(readYourWritesWindowMillis);
+
+         out.writeBoolean(hasDefaultAuthenticationProvider);
+         out.writeObject(authenticationProvider);
+
+         writeResource(out, authenticatedResource);
+         out.writeObject(authenticatedResourceDomainName);
+         writeResource(out, sessionResource);
+         out.writeObject(sessionResourceDomainName);
+      }
+
+      @Override
+      public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+         final byte formatVersion = in.readByte();
+         if (formatVersion < 1 || formatVersion > FORMAT_VERSION) {
+            throw new InvalidObjectException("Unsupported serialized access control context format version: "
+                                                   + formatVersion);
+         }
+
+         schemaName = (String) in.readObject();
+         sqlProfileName = in.readUTF();
+         permissionChangeCounterEnabled = in.readBoolean();
+         domainChangeCounterEnabled = in.readBoolean();
+         domainHierarchyIndexEnabled = in.readBoolean();
+         domainHierarchyIndexPollIntervalMillis = in.readLong();
+         inheritanceClosureEnabled = in.readBoolean();
+         effectiveResourcePermissionCacheSize = in.readInt();
+         resourceStreamFetchSize = in.readInt();
+         preparedStatementCacheSize = in.readInt();
+         readDataSourceConfigured = in.readBoolean();
+         readYourWritesWindowMillis = in.readLong();
+
+         hasDefaultAuthenticationProvider = in.readBoolean();
+         authenticationProvider = (AuthenticationProvider) in.readObject();
+
+         authenticatedResource = readResource(in);
+         authenticatedResourceDomainName = (String) in.readObject();
+         sessionResource = readResource(in);
+         sessionResourceDomainName = (String) in.readObject();
+      }
+
+      private Object readResolve() {
+         return new SQLAccessControlContext(this);
+      }
+
+      private static void writeResource(ObjectOutput out, Resource resource) throws IOException {
+         // the session resources are always resolved, so they have an id, and only may have an external id
+         out.writeBoolean(resource != null);
+         if (resource != null) {
+            out.writeLong(resource.getId());
+            out.writeObject(resource.getExternalId());
+         }
+      }
+
+      private static Resource readResource(ObjectInput in) throws IOException, ClassNotFoundException {
+         if (!in.readBoolean()) {
+            return null;
+         }
+         final long resourceId = in.readLong();
+         final String externalId = (String) in.readObject();
+         return Resources.getInstance(resourceId, externalId);
+      }
+   }
+
+   private void __postDeserialize(DataSource dataSource,
+                                  DataSource readDataSource,
+                                  PasswordHashingExecutor passwordHashingExecutor) {
       if (this.dataSource != null || this.connection != null) {
          throw new IllegalStateException("Cannot re-initialize an already initialized SQLAccessControlContext");
       }
-      this.dataSource = dataSource;
-      this.connection = null;
+      if (readDataSourceConfigured && readDataSource == null) {
+         throw new IllegalStateException("Cannot re-initialize a SQLAccessControlContext that routes reads to a read "
+                                               + "data source without a read data source");
+      }
+      // re-initialize the built-in authentication provider first, which may reject a missing password hashing pool
       if (hasDefaultAuthenticationProvider) {
-         ((SQLPasswordAuthenticationProvider) authenticationProvider).postDeserialize(dataSource);
+         ((SQLPasswordAuthenticationProvider) authenticationProvider).postDeserialize(dataSource,
+                                                                                     passwordHashingExecutor);
       }
+      this.dataSource = dataSource;
+      this.connection = null;
+      this.readDataSource = readDataSource;
+      this.readDataSourceConfigured = readDataSource != null;
+      __initializeResourceClassPersisters(SharedPersisters.getInstance(schemaName, sqlProfile, inheritanceClosureEnabled),
+                                          dataSource);
    }
 
-   private void __postDeserialize(Connection connection) {
+   private void __postDeserialize(Connection connection, PasswordHashingExecutor passwordHashingExecutor) {
       if (this.dataSource != null || this.connection != null) {
          throw new IllegalStateException("Cannot re-initialize an already initialized SQLAccessControlContext");
       }
-      this.dataSource = null;
-      this.connection = connection;
+      if (readDataSourceConfigured) {
+         throw new IllegalStateException("Cannot re-initialize a SQLAccessControlContext that routes reads to a read "
+                                               + "data source with a connection");
+      }
+      // re-initialize the built-in authentication provider first, which may reject a missing password hashing pool
       if (hasDefaultAuthenticationProvider) {
-         ((SQLPasswordAuthenticationProvider) authenticationProvider).postDeserialize(connection);
+         ((SQLPasswordAuthenticationProvider) authenticationProvider).postDeserialize(connection,
+                                                                                     passwordHashingExecutor);
       }
+      this.dataSource = null;
+      this.connection = connection;
    }
 
    @Override
@@ -385,7 +942,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
 
       final String resourceDomainForResource;
       try {
-         connection = __getConnection();
+         connection = __getPrimaryConnection();
 
          // resolve the resource here - instead of outside this method - to avoid having
          // to keep the connection open across a potentially long call to a third-party authenticationProvider or
@@ -422,6 +979,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       sessionResource = authenticatedResource;
       defensiveCopyOfSessionResource = null;
       sessionResourceDomainName = authenticatedResourceDomainName;
+
+      __invalidateEffectiveResourcePermissionCache();
    }
 
    @Override
@@ -429,6 +988,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       sessionResource = authenticatedResource = null;
       defensiveCopyOfSessionResource = defensiveCopyOfAuthenticatedResource = null;
       sessionResourceDomainName = authenticatedResourceDomainName = null;
+
+      __invalidateEffectiveResourcePermissionCache();
    }
 
    @Override
@@ -439,7 +1000,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(resource);
 
       try {
-         connection = __getConnection();
+         connection = __getPrimaryConnection();
 
          resource = __resolveResource(connection, resource);
          __assertImpersonatePermission(connection, resource);
@@ -448,6 +1009,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
          sessionResource = resource;
          defensiveCopyOfSessionResource = null;
          sessionResourceDomainName = domainPersister.getResourceDomainNameByResourceId(connection, resource);
+
+         __invalidateEffectiveResourcePermissionCache();
       }
       finally {
          __closeConnection(connection);
@@ -509,6 +1072,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       sessionResource = authenticatedResource;
       defensiveCopyOfSessionResource = defensiveCopyOfAuthenticatedResource;
       sessionResourceDomainName = authenticatedResourceDomainName;
+
+      __invalidateEffectiveResourcePermissionCache();
    }
 
    @Override
@@ -663,6 +1228,9 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
          }
 
          resourceClassPermissionPersister.addResourceClassPermission(connection, resourceClassId, permissionName);
+
+         // super-users implicitly have the new permission, so any cached effective permissions are now incomplete
+         __recordPermissionChange(connection);
       }
       finally {
          __closeConnection(connection);
@@ -769,6 +1337,11 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                       newDomainPermissions,
                                       true);
       }
+
+      // the domain hierarchy changed, which caches and domain hierarchy indexes of other contexts detect through
+      // the change counters
+      __recordPermissionChange(connection);
+      __recordDomainChange(connection);
    }
 
    @Override
@@ -824,6 +1397,9 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       // remove the domain
       domainPersister.deleteDomain(connection, domainId);
 
+      __recordPermissionChange(connection);
+      __recordDomainChange(connection);
+
       return true;
    }
 
@@ -936,6 +1512,50 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       }
 
       // we first check the create permissions
+      final Set<ResourcePermission> newResourcePermissions = __getNewResourcePermissions(connection,
+                                                                                         resourceClassName,
+                                                                                         domainName,
+                                                                                         resourceClassInternalInfo);
+
+      // create the new resource
+      final Resource newResource = resourcePersister.createResource(connection,
+                                                                    Id.<ResourceClassId>from(resourceClassInternalInfo
+                                                                                                   .getResourceClassId()),
+                                                                    domainId,
+                                                                    externalId);
+
+      // set permissions on the new resource, if applicable
+      if (newResourcePermissions != null && newResourcePermissions.size() > 0) {
+         if (sessionResource != null) {
+            __setDirectResourcePermissions(connection,
+                                           sessionResource,
+                                           newResource,
+                                           newResourcePermissions,
+                                           sessionResource,
+                                           true);
+         }
+         else {
+            // if this session is unauthenticated the permissions are granted to the newly created resource
+            __setDirectResourcePermissions(connection,
+                                           newResource,
+                                           newResource,
+                                           newResourcePermissions,
+                                           newResource,
+                                           true);
+         }
+      }
+
+      if (credentials != null) {
+         authenticationProvider.setCredentials(newResource, credentials);
+      }
+
+      return newResource;
+   }
+
+   private Set<ResourcePermission> __getNewResourcePermissions(SQLConnection connection,
+                                                               String resourceClassName,
+                                                               String domainName,
+                                                               ResourceClassInternalInfo resourceClassInternalInfo) {
       final Set<ResourcePermission> newResourcePermissions;
 
       // the only way we can have come here with _sessionResource == null is
@@ -983,39 +1603,126 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
          }
       }
 
-      // create the new resource
-      final Resource newResource = resourcePersister.createResource(connection,
-                                                                    Id.<ResourceClassId>from(resourceClassInternalInfo
-                                                                                                   .getResourceClassId()),
-                                                                    domainId,
-                                                                    externalId);
+      return newResourcePermissions;
+   }
 
-      // set permissions on the new resource, if applicable
-      if (newResourcePermissions != null && newResourcePermissions.size() > 0) {
-         if (sessionResource != null) {
-            __setDirectResourcePermissions(connection,
-                                           sessionResource,
-                                           newResource,
-                                           newResourcePermissions,
-                                           sessionResource,
-                                           true);
-         }
-         else {
-            // if this session is unauthenticated the permissions are granted to the newly created resource
-            __setDirectResourcePermissions(connection,
-                                           newResource,
-                                           newResource,
-                                           newResourcePermissions,
-                                           newResource,
-                                           true);
+   @Override
+   public List<Resource> createResources(String resourceClassName, String domainName, List<String> externalIds) {
+      SQLConnection connection = null;
+
+      __assertExternalIdsSpecified(externalIds);
+
+      try {
+         connection = __getConnection();
+
+         return __createResources(connection, resourceClassName, domainName, externalIds);
+      }
+      finally {
+         __closeConnection(connection);
+      }
+   }
+
+   private List<Resource> __createResources(SQLConnection connection,
+                                            String resourceClassName,
+                                            String domainName,
+                                            List<String> externalIds) {
+      __assertResourceClassSpecified(resourceClassName);
+      __assertDomainSpecified(domainName);
+
+      // validate the resource class
+      resourceClassName = resourceClassName.trim();
+      final ResourceClassInternalInfo resourceClassInternalInfo = __getResourceClassInternalInfo(connection,
+                                                                                                 resourceClassName);
+
+      if (!resourceClassInternalInfo.isUnauthenticatedCreateAllowed()) {
+         __assertAuthenticated();
+      }
+
+      if (resourceClassInternalInfo.isAuthenticatable()) {
+         // if this resource class is authenticatable, then validate the (absent) credentials
+         authenticationProvider.validateCredentials(resourceClassName, domainName, null);
+      }
+
+      // validate the domain
+      final Id<DomainId> domainId = domainPersister.getResourceDomainId(connection, domainName);
+
+      if (domainId == null) {
+         throw new IllegalArgumentException("Could not find domain: " + domainName);
+      }
+
+      // check to ensure that none of the specified external ids already exist
+      final Set<String> existingExternalIds = resourcePersister.getExistingExternalIds(connection, externalIds);
+      if (!existingExternalIds.isEmpty()) {
+         throw new IllegalArgumentException("External id is not unique: " + existingExternalIds.iterator().next());
+      }
+
+      // we first check the create permissions, which are the same for all the new resources
+      final Set<ResourcePermission> newResourcePermissions = __getNewResourcePermissions(connection,
+                                                                                         resourceClassName,
+                                                                                         domainName,
+                                                                                         resourceClassInternalInfo);
+      final boolean hasNewResourcePermissions = newResourcePermissions != null && newResourcePermissions.size() > 0;
+
+      if (hasNewResourcePermissions) {
+         __assertUniqueResourcePermissionsNamesForResourceClass(connection,
+                                                                newResourcePermissions,
+                                                                resourceClassInternalInfo);
+      }
+
+      final Id<ResourceClassId> resourceClassId = Id.from(resourceClassInternalInfo.getResourceClassId());
+      final List<Resource> newResources = new ArrayList<>(externalIds.size());
+
+      // create the new resources, and set their permissions, a block at a time
+      for (int blockStart = 0; blockStart < externalIds.size(); blockStart += RESOURCE_CREATION_BLOCK_SIZE) {
+         final List<String> blockExternalIds
+               = externalIds.subList(blockStart, Math.min(blockStart + RESOURCE_CREATION_BLOCK_SIZE, externalIds.size()));
+         final List<Resource> blockResources = resourcePersister.createResources(connection,
+                                                                                 resourceClassId,
+                                                                                 domainId,
+                                                                                 blockExternalIds);
+
+         if (hasNewResourcePermissions) {
+            if (sessionResource != null) {
+               grantResourcePermissionSysPersister.addResourceSysPermissions(connection,
+                                                                             sessionResource,
+                                                                             blockResources,
+                                                                             resourceClassId,
+                                                                             newResourcePermissions,
+                                                                             sessionResource);
+               grantResourcePermissionPersister.addResourcePermissions(connection,
+                                                                       sessionResource,
+                                                                       blockResources,
+                                                                       resourceClassId,
+                                                                       newResourcePermissions,
+                                                                       sessionResource);
+            }
+            else {
+               // if this session is unauthenticated the permissions are granted to each newly created resource
+               for (Resource newResource : blockResources) {
+                  grantResourcePermissionSysPersister.addResourceSysPermissions(connection,
+                                                                                newResource,
+                                                                                newResource,
+                                                                                resourceClassId,
+                                                                                newResourcePermissions,
+                                                                                newResource);
+                  grantResourcePermissionPersister.addResourcePermissions(connection,
+                                                                          newResource,
+                                                                          newResource,
+                                                                          resourceClassId,
+                                                                          newResourcePermissions,
+                                                                          newResource);
+               }
+            }
          }
+
+         newResources.addAll(blockResources);
       }
 
-      if (credentials != null) {
-         authenticationProvider.setCredentials(newResource, credentials);
+      if (hasNewResourcePermissions) {
+         __recordPermissionChange(connection);
       }
 
-      return newResource;
+      return newResources;
    }
 
    @Override
@@ -1157,6 +1864,9 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
 
       // remove the resource
       resourcePersister.deleteResource(connection, obsoleteResource);
+      resourceClassPersister.discardRegisteredResourceClassInfo(connection, obsoleteResource);
+
+      __recordPermissionChange(connection);
 
       // handle special case where deleted resource is the session or authenticated resource
       if (authenticatedResource.equals(obsoleteResource)) {
@@ -1266,6 +1976,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                 sessionResource,
                                                                 domainId,
                                                                 requestedDomainPermissions);
+
+      __recordPermissionChange(connection);
    }
 
    private Set<DomainPermission> __getDirectDomainPermissions(SQLConnection connection,
@@ -1424,6 +2136,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                 sessionResource,
                                                                 domainId,
                                                                 addPermissions);
+
+      __recordPermissionChange(connection);
    }
 
    private void __assertUniqueDomainPermissionsNames(Set<DomainPermission> domainPermissions) {
@@ -1550,6 +2264,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                    accessorResource,
                                                                    domainId,
                                                                    removePermissions);
+
+      __recordPermissionChange(connection);
    }
 
    @Override
@@ -1562,7 +2278,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertDomainSpecified(domainName);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -1587,7 +2303,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessorResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -1610,7 +2326,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertDomainSpecified(domainName);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -1674,7 +2390,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessorResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -2187,7 +2903,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessorResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -2206,7 +2922,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessorResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -2411,8 +3127,14 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
    private void __assertUniquePostCreatePermissionsNamesForResourceClass(SQLConnection connection,
                                                                          Set<ResourceCreatePermission> resourceCreatePermissions,
                                                                          ResourceClassInternalInfo resourceClassInternalInfo) {
+      final Set<ResourcePermission> postCreateResourcePermissions = new HashSet<>(resourceCreatePermissions.size());
+      for (final ResourceCreatePermission resourceCreatePermission : resourceCreatePermissions) {
+         if (!resourceCreatePermission.isSystemPermission()) {
+            postCreateResourcePermissions.add(resourceCreatePermission.getPostCreateResourcePermission());
+         }
+      }
       final List<String> validPermissionNames =
-            __getApplicableResourcePermissionNames(connection, resourceClassInternalInfo);
+            __getApplicableResourcePermissionNames(connection, resourceClassInternalInfo, postCreateResourcePermissions);
       final Set<String> uniqueSystemPermissionNames = new HashSet<>(resourceCreatePermissions.size());
       final Set<String> uniquePostCreatePermissionNames = new HashSet<>(resourceCreatePermissions.size());
 
@@ -2943,7 +3665,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertDomainSpecified(domainName);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -2992,7 +3714,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessorResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -3040,7 +3762,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertDomainSpecified(domainName);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -3175,7 +3897,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessorResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -3436,13 +4158,15 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                                              .getResourceClassId()),
                                                               requestedResourcePermissions,
                                                               grantorResource);
+
+      __recordPermissionChange(connection);
    }
 
    private void __assertUniqueResourcePermissionsNamesForResourceClass(SQLConnection connection,
                                                                        Set<ResourcePermission> resourcePermissions,
                                                                        ResourceClassInternalInfo resourceClassInternalInfo) {
       final List<String> validPermissionNames
-            = __getApplicableResourcePermissionNames(connection, resourceClassInternalInfo);
+            = __getApplicableResourcePermissionNames(connection, resourceClassInternalInfo, resourcePermissions);
       final Set<String> uniquePermissionNames = new HashSet<>(resourcePermissions.size());
 
       for (final ResourcePermission resourcePermission : resourcePermissions) {
@@ -3656,6 +4380,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                               Id.<ResourceClassId>from(accessedResourceClassInternalInfo.getResourceClassId()),
                                                               addPermissions,
                                                               sessionResource);
+
+      __recordPermissionChange(connection);
    }
 
    @Override
@@ -3774,6 +4500,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                        accessedResourceClassInternalInfo
                                                                              .getResourceClassId()),
                                                                  removePermissions);
+
+      __recordPermissionChange(connection);
    }
 
    @Override
@@ -3786,7 +4514,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessedResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          accessedResource = __resolveResource(connection, accessedResource);
          __assertQueryAuthorization(connection, accessorResource);
@@ -3825,12 +4553,13 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessedResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          accessedResource = __resolveResource(connection, accessedResource);
          __assertQueryAuthorization(connection, accessorResource);
 
-         return __getEffectiveResourcePermissions(connection, accessorResource, accessedResource);
+         // return a copy, since the effective permissions may be held in the cache
+         return new HashSet<>(__getEffectiveResourcePermissions(connection, accessorResource, accessedResource));
       }
       finally {
          __closeConnection(connection);
@@ -3840,9 +4569,83 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
    private Set<ResourcePermission> __getEffectiveResourcePermissions(SQLConnection connection,
                                                                      Resource accessorResource,
                                                                      Resource accessedResource) {
-      Set<ResourcePermission> resourcePermissions = new HashSet<>();
+      if ((effectiveResourcePermissionCache == null && sharedResourcePermissionCache == null)
+            || accessorResource.getId() == null
+            || accessedResource.getId() == null) {
+         return __computeEffectiveResourcePermissions(connection, accessorResource, accessedResource);
+      }
 
-      final Id<DomainId> accessedDomainId = resourcePersister.getDomainIdByResource(connection, accessedResource);
+      final long accessorResourceId = accessorResource.getId();
+      final long accessedResourceId = accessedResource.getId();
+
+      // first check the cache held by this context
+      if (effectiveResourcePermissionCache != null) {
+         final Set<ResourcePermission> cachedResourcePermissions
+               = effectiveResourcePermissionCache.get(accessorResourceId, accessedResourceId);
+
+         if (cachedResourcePermissions != null) {
+            return cachedResourcePermissions;
+         }
+      }
+
+      Set<ResourcePermission> resourcePermissions;
+
+      // next check the shared cache, whose entries are only valid for the current value of the change counter
+      if (sharedResourcePermissionCache != null) {
+         // the counter has to be read before the permissions are computed, so that a concurrent change
+         // results in an entry that is already stale, instead of a current entry with outdated permissions
+         final long changeCount = permissionChangeCounterPersister.getChangeCount(connection);
+
+         resourcePermissions = sharedResourcePermissionCache.get(accessorResourceId, accessedResourceId, changeCount);
+
+         if (resourcePermissions == null) {
+            resourcePermissions
+                  = Collections.unmodifiableSet(__computeEffectiveResourcePermissions(connection,
+                                                                                      accessorResource,
+                                                                                      accessedResource));
+            // permissions computed within a unit of work may reflect uncommitted changes, which other contexts
+            // must not see, in particular since the change count they are valid for could be rolled back
+            if (transactionConnection == null) {
+               sharedResourcePermissionCache.put(accessorResourceId, accessedResourceId, changeCount, resourcePermissions);
+            }
+         }
+      }
+      else {
+         resourcePermissions
+               = Collections.unmodifiableSet(__computeEffectiveResourcePermissions(connection,
+                                                                                   accessorResource,
+                                                                                   accessedResource));
+      }
+
+      if (effectiveResourcePermissionCache != null) {
+         effectiveResourcePermissionCache.put(accessorResourceId, accessedResourceId, resourcePermissions);
+      }
+
+      return resourcePermissions;
+   }
+
+   private Set<ResourcePermission> __computeEffectiveResourcePermissions(SQLConnection connection,
+                                                                         Resource accessorResource,
+                                                                         Resource accessedResource) {
+      if (effectiveResourcePermissionPersister != null) {
+         // compute the permissions, or detect super-user privileges, in a single round trip
+         final Set<ResourcePermission> resourcePermissions
+               = effectiveResourcePermissionPersister.getEffectiveResourcePermissionsIgnoringSuperUser(connection,
+                                                                                                      accessorResource,
+                                                                                                      accessedResource);
+         if (resourcePermissions != null) {
+            return __collapseResourcePermissions(resourcePermissions);
+         }
+
+         return __getApplicableResourcePermissions(connection,
+                                                   resourceClassPersister.getResourceClassInfoByResourceId(connection,
+                                                                                                           accessedResource));
+      }
+
+      // otherwise fall back to querying the domain, the super-user privileges and each kind of permission separately
+      Set<ResourcePermission> resourcePermissions = new HashSet<>();
+
+      final Id<DomainId> accessedDomainId = resourcePersister.getDomainIdByResource(connection, accessedResource);
       final ResourceClassInternalInfo resourceClassInternalInfo
             = resourceClassPersister.getResourceClassInfoByResourceId(connection, accessedResource);
 
@@ -4046,6 +4849,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                           domainId,
                                                                           requestedResourcePermissions,
                                                                           sessionResource);
+
+      __recordPermissionChange(connection);
    }
 
    private Set<ResourcePermission> __getDirectGlobalResourcePermissions(SQLConnection connection,
@@ -4073,7 +4878,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                             Set<ResourcePermission> requestedResourcePermissions,
                                                                             ResourceClassInternalInfo resourceClassInternalInfo) {
       final List<String> validPermissionNames = __getApplicableResourcePermissionNames(connection,
-                                                                                       resourceClassInternalInfo);
+                                                                                       resourceClassInternalInfo,
+                                                                                       requestedResourcePermissions);
       final HashSet<String> uniquePermissionNames = new HashSet<>(requestedResourcePermissions.size());
 
       for (ResourcePermission resourcePermission : requestedResourcePermissions) {
@@ -4283,6 +5089,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                           domainId,
                                                                           addPermissions,
                                                                           sessionResource);
+
+      __recordPermissionChange(connection);
    }
 
    @Override
@@ -4421,6 +5229,8 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                              resourceClassId,
                                                                              domainId,
                                                                              removePermissions);
+
+      __recordPermissionChange(connection);
    }
 
    @Override
@@ -4435,7 +5245,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertDomainSpecified(domainName);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -4488,7 +5298,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertDomainSpecified(domainName);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -4635,7 +5445,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessorResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -4671,7 +5481,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(accessorResource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
 
@@ -4791,7 +5601,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(resource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          resource = __resolveResource(connection, resource);
 
          if (sessionResource.equals(resource)) {
@@ -4816,7 +5626,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertDomainSpecified(domainName);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          domainName = domainName.trim();
 
          return domainPersister.getResourceDomainNameDescendants(connection, domainName);
@@ -4834,7 +5644,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceClassSpecified(resourceClassName);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
 
          final ResourceClassInternalInfo resourceClassInternalInfo = __getResourceClassInternalInfo(connection,
                                                                                                     resourceClassName);
@@ -4856,7 +5666,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceSpecified(resource);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
 
          resource = __resolveResource(connection, resource);
          final ResourceClassInternalInfo resourceClassInternalInfo
@@ -4929,7 +5739,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       final Set<DomainPermission> normalizedDomainPermissions = __normalizeDomainPermissions(domainPermissions);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
 
          return __hasPostCreateDomainPermissions(connection, accessorResource, normalizedDomainPermissions);
@@ -4954,7 +5764,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
             = __normalizeDomainPermissions(__getSetWithoutNullsOrDuplicates(domainPermission, domainPermissions));
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
 
          return __hasPostCreateDomainPermissions(connection,
@@ -5055,7 +5865,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       final Set<DomainPermission> normalizedDomainPermissions = __normalizeDomainPermissions(domainPermissions);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
 
          return __hasDomainPermissions(connection, accessorResource, domainName, normalizedDomainPermissions);
@@ -5082,7 +5892,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
             = __normalizeDomainPermissions(__getSetWithoutNullsOrDuplicates(domainPermission, domainPermissions));
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
 
          return __hasDomainPermissions(connection, accessorResource, domainName, normalizedDomainPermissions);
@@ -5153,7 +5963,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
             = __normalizeDomainCreatePermissions(domainCreatePermissions);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
 
          return __hasDomainCreatePermissions(connection, accessorResource, normalizedDomainCreatePermissions);
@@ -5179,7 +5989,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                                   domainCreatePermissions));
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
 
          return __hasDomainCreatePermissions(connection, accessorResource, normalizedDomainCreatePermissions);
@@ -5269,7 +6079,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          resourceClassName = resourceClassName.trim();
          domainName = domainName.trim();
@@ -5304,7 +6114,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
             = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          resourceClassName = resourceClassName.trim();
          domainName = domainName.trim();
@@ -5446,7 +6256,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          resourceClassName = resourceClassName.trim();
          domainName = domainName.trim();
@@ -5481,7 +6291,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
             = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          resourceClassName = resourceClassName.trim();
          domainName = domainName.trim();
@@ -5564,7 +6374,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          accessedResource = __resolveResource(connection, accessedResource);
 
@@ -5592,7 +6402,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
             = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          accessedResource = __resolveResource(connection, accessedResource);
 
@@ -5641,6 +6451,145 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       return hasPermission;
    }
 
+   @Override
+   public Set<Resource> filterResourcesByResourcePermissions(Resource accessorResource,
+                                                             Collection<Resource> accessedResources,
+                                                             Set<ResourcePermission> resourcePermissions) {
+      SQLConnection connection = null;
+
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourcesSpecified(accessedResources);
+      __assertPermissionsSpecified(resourcePermissions);
+      __assertPermissionsSetNotEmpty(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
+
+      try {
+         connection = __getReadConnection();
+         accessorResource = __resolveResource(connection, accessorResource);
+
+         return __filterResourcesByResourcePermissions(connection,
+                                                       accessorResource,
+                                                       accessedResources,
+                                                       normalizedResourcePermissions);
+      }
+      finally {
+         __closeConnection(connection);
+      }
+   }
+
+   @Override
+   public Set<Resource> filterResourcesByResourcePermissions(Resource accessorResource,
+                                                             Collection<Resource> accessedResources,
+                                                             ResourcePermission resourcePermission,
+                                                             ResourcePermission... resourcePermissions) {
+      SQLConnection connection = null;
+
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourcesSpecified(accessedResources);
+      __assertPermissionSpecified(resourcePermission);
+      __assertVarargPermissionsSpecified(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions
+            = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
+
+      try {
+         connection = __getReadConnection();
+         accessorResource = __resolveResource(connection, accessorResource);
+
+         return __filterResourcesByResourcePermissions(connection,
+                                                       accessorResource,
+                                                       accessedResources,
+                                                       normalizedResourcePermissions);
+      }
+      finally {
+         __closeConnection(connection);
+      }
+   }
+
+   private Set<Resource> __filterResourcesByResourcePermissions(SQLConnection connection,
+                                                                Resource accessorResource,
+                                                                Collection<Resource> accessedResources,
+                                                                Set<ResourcePermission> requestedResourcePermissions) {
+      __assertQueryAuthorization(connection, accessorResource);
+
+      final Set<Resource> permittedResources = new LinkedHashSet<>();
+
+      if (accessedResources.isEmpty()) {
+         return permittedResources;
+      }
+
+      // resources that are only identified by their id are verified together with the lookup of their resource class
+      // below, while the (less common) resources identified by an external id have to be resolved individually
+      final List<Id<ResourceId>> accessedResourceIds = new ArrayList<>(accessedResources.size());
+      for (Resource accessedResource : accessedResources) {
+         if (accessedResource.getId() == null || accessedResource.getExternalId() != null) {
+            accessedResource = __resolveResource(connection, accessedResource);
+         }
+         accessedResourceIds.add(Id.<ResourceId>from(accessedResource.getId()));
+      }
+
+      final Map<Id<ResourceId>, String> resourceClassNamesByResourceId
+            = resourcePersister.getResourceClassNamesByResourceIds(connection, new HashSet<>(accessedResourceIds));
+
+      int index = 0;
+      for (Resource accessedResource : accessedResources) {
+         if (!resourceClassNamesByResourceId.containsKey(accessedResourceIds.get(index++))) {
+            throw new IllegalArgumentException("Resource " + accessedResource + " not found!");
+         }
+      }
+
+      for (String resourceClassName : new HashSet<>(resourceClassNamesByResourceId.values())) {
+         __assertPermissionsValid(connection, resourceClassName, requestedResourcePermissions);
+      }
+
+      // compute the effective permissions of all accessed resources at once
+      final Set<Id<ResourceId>> superUserAccessedResourceIds = new HashSet<>();
+      final Map<Id<ResourceId>, Set<ResourcePermission>> effectiveResourcePermissionsByResourceId
+            = batchEffectiveResourcePermissionPersister.getEffectiveResourcePermissions(connection,
+                                                                                        accessorResource,
+                                                                                        resourceClassNamesByResourceId.keySet(),
+                                                                                        superUserAccessedResourceIds);
+
+      index = 0;
+      for (Resource accessedResource : accessedResources) {
+         final Id<ResourceId> accessedResourceId = accessedResourceIds.get(index++);
+
+         // a super-user has all (valid) permissions to the resources in its domains
+         if (superUserAccessedResourceIds.contains(accessedResourceId)) {
+            permittedResources.add(accessedResource);
+            continue;
+         }
+
+         final Set<ResourcePermission> effectiveResourcePermissions
+               = effectiveResourcePermissionsByResourceId.get(accessedResourceId);
+
+         if (effectiveResourcePermissions == null) {
+            continue;
+         }
+
+         final Set<ResourcePermission> collapsedResourcePermissions
+               = __collapseResourcePermissions(effectiveResourcePermissions);
+
+         boolean hasPermission = true;
+
+         for (ResourcePermission requestedResourcePermission : requestedResourcePermissions) {
+            if (!__isPermissible(requestedResourcePermission, collapsedResourcePermissions)) {
+               hasPermission = false;
+               break;
+            }
+         }
+
+         if (hasPermission) {
+            permittedResources.add(accessedResource);
+         }
+      }
+
+      return permittedResources;
+   }
+
    @Override
    public void assertResourceCreatePermissions(Resource accessorResource,
                                                String resourceClassName,
@@ -5690,7 +6639,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
             = __normalizeResourceCreatePermission(resourceCreatePermissions);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          resourceClassName = resourceClassName.trim();
          domainName = domainName.trim();
@@ -5726,7 +6675,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
                                                                                    resourceCreatePermissions));
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          accessorResource = __resolveResource(connection, accessorResource);
          resourceClassName = resourceClassName.trim();
          domainName = domainName.trim();
@@ -5801,7 +6750,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
 
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
@@ -5835,7 +6784,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
             = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
 
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
@@ -5962,7 +6911,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
 
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
@@ -5999,7 +6948,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
             = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
 
          accessorResource = __resolveResource(connection, accessorResource);
          __assertQueryAuthorization(connection, accessorResource);
@@ -6123,116 +7072,744 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
    }
 
    @Override
-   public Set<Resource> getAccessorResourcesByResourcePermissions(Resource accessedResource,
-                                                                  String resourceClassName,
-                                                                  Set<ResourcePermission> resourcePermissions) {
-      SQLConnection connection = null;
-
+   public CloseableIterator<Resource> streamResourcesByResourcePermissions(Resource accessorResource,
+                                                                           String resourceClassName,
+                                                                           Set<ResourcePermission> resourcePermissions) {
       __assertAuthenticated();
-      __assertResourceSpecified(accessedResource);
+      __assertResourceSpecified(accessorResource);
       __assertResourceClassSpecified(resourceClassName);
       __assertPermissionsSpecified(resourcePermissions);
       __assertPermissionsSetNotEmpty(resourcePermissions);
 
       final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
 
-      try {
-         connection = __getConnection();
+      return __streamResourcesByPermissions(accessorResource,
+                                            resourceClassName,
+                                            null,
+                                            normalizedResourcePermissions);
+   }
 
-         accessedResource = __resolveResource(connection, accessedResource);
-         __assertQueryAuthorization(connection, accessedResource);
+   @Override
+   public CloseableIterator<Resource> streamResourcesByResourcePermissions(Resource accessorResource,
+                                                                           String resourceClassName,
+                                                                           ResourcePermission resourcePermission,
+                                                                           ResourcePermission... resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPermissionSpecified(resourcePermission);
+      __assertVarargPermissionsSpecified(resourcePermissions);
 
-         resourceClassName = resourceClassName.trim();
+      final Set<ResourcePermission> normalizedResourcePermissions
+            = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
 
-         return __getAccessorResourcesByResourcePermissions(connection,
-                                                            accessedResource,
-                                                            resourceClassName,
-                                                            normalizedResourcePermissions);
-      }
-      finally {
-         __closeConnection(connection);
-      }
+      return __streamResourcesByPermissions(accessorResource,
+                                            resourceClassName,
+                                            null,
+                                            normalizedResourcePermissions);
    }
 
    @Override
-   public Set<Resource> getAccessorResourcesByResourcePermissions(Resource accessedResource,
-                                                                  String resourceClassName,
-                                                                  ResourcePermission resourcePermission,
-                                                                  ResourcePermission... resourcePermissions) {
-      SQLConnection connection = null;
+   public CloseableIterator<Resource> streamResourcesByResourcePermissionsAndDomain(Resource accessorResource,
+                                                                                    String resourceClassName,
+                                                                                    String domainName,
+                                                                                    Set<ResourcePermission> resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertDomainSpecified(domainName);
+      __assertPermissionsSpecified(resourcePermissions);
+      __assertPermissionsSetNotEmpty(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
+
+      return __streamResourcesByPermissions(accessorResource,
+                                            resourceClassName,
+                                            domainName,
+                                            normalizedResourcePermissions);
+   }
 
+   @Override
+   public CloseableIterator<Resource> streamResourcesByResourcePermissionsAndDomain(Resource accessorResource,
+                                                                                    String resourceClassName,
+                                                                                    String domainName,
+                                                                                    ResourcePermission resourcePermission,
+                                                                                    ResourcePermission... resourcePermissions) {
       __assertAuthenticated();
-      __assertResourceSpecified(accessedResource);
+      __assertResourceSpecified(accessorResource);
       __assertResourceClassSpecified(resourceClassName);
+      __assertDomainSpecified(domainName);
       __assertPermissionSpecified(resourcePermission);
       __assertVarargPermissionsSpecified(resourcePermissions);
 
       final Set<ResourcePermission> normalizedResourcePermissions
             = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
 
+      return __streamResourcesByPermissions(accessorResource,
+                                            resourceClassName,
+                                            domainName,
+                                            normalizedResourcePermissions);
+   }
+
+   private CloseableIterator<Resource> __streamResourcesByPermissions(Resource accessorResource,
+                                                                      String resourceClassName,
+                                                                      String domainName,
+                                                                      Set<ResourcePermission> requestedResourcePermissions) {
+      SQLConnection connection = null;
+      CloseableIterator<Resource> resources = null;
+
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
 
-         accessedResource = __resolveResource(connection, accessedResource);
-         __assertQueryAuthorization(connection, accessedResource);
+         accessorResource = __resolveResource(connection, accessorResource);
+         __assertQueryAuthorization(connection, accessorResource);
 
          resourceClassName = resourceClassName.trim();
 
-         return __getAccessorResourcesByResourcePermissions(connection,
-                                                            accessedResource,
-                                                            resourceClassName,
-                                                            normalizedResourcePermissions);
-      }
-      finally {
-         __closeConnection(connection);
-      }
-   }
+         if (streamingResourcePermissionPersister == null) {
+            // without recursive queries or closure tables to join, the resources can only be computed in memory,
+            // at a cost proportional to their total number, as documented on the interface
+            final Set<Resource> resourceSet;
+            if (domainName == null) {
+               resourceSet = __getResourcesByPermissions(connection,
+                                                         accessorResource,
+                                                         resourceClassName,
+                                                         requestedResourcePermissions);
+            }
+            else {
+               resourceSet = __getResourcesByPermissionsAndDomain(connection,
+                                                                  accessorResource,
+                                                                  resourceClassName,
+                                                                  domainName,
+                                                                  requestedResourcePermissions);
+            }
+            return __getResourceIteratorInIdOrder(resourceSet);
+         }
 
-   private Set<Resource> __getAccessorResourcesByResourcePermissions(SQLConnection connection,
-                                                                     Resource accessedResource,
-                                                                     String resourceClassName,
-                                                                     Set<ResourcePermission> requestedResourcePermissions) {
-      // first verify that resource class is defined
-      Id<ResourceClassId> resourceClassId;
-      Id<ResourcePermissionId> permissionId;
+         // first verify that resource class and domain (if any) is defined
+         final Id<ResourceClassId> resourceClassId = resourceClassPersister.getResourceClassId(connection,
+                                                                                              resourceClassName);
 
-      resourceClassId = resourceClassPersister.getResourceClassId(connection, resourceClassName);
+         if (resourceClassId == null) {
+            throw new IllegalArgumentException("Could not find resource class: " + resourceClassName);
+         }
 
-      if (resourceClassId == null) {
-         throw new IllegalArgumentException("Could not find resource class: " + resourceClassName);
-      }
+         Id<DomainId> domainId = null;
 
-      // verify permissions are valid for the resource class
-      __assertPermissionsValid(connection, resourceClassName, requestedResourcePermissions);
+         if (domainName != null) {
+            domainId = domainPersister.getResourceDomainId(connection, domainName);
 
-      Set<Resource> resources = new HashSet<>();
+            if (domainId == null) {
+               throw new IllegalArgumentException("Could not find domain: " + domainName);
+            }
+         }
 
-      for (ResourcePermission resourcePermission : requestedResourcePermissions) {
-         Set<Resource> currentResources = new HashSet<>();
+         // verify permissions are valid for resource class
+         __assertPermissionsValid(connection, resourceClassName, requestedResourcePermissions);
+
+         final Map<Long, Boolean> sysPermissionIdsWithGrant = new HashMap<>();
+         final Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant = new HashMap<>();
+         __getPermissionIdsWithGrant(connection,
+                                     resourceClassId,
+                                     resourceClassName,
+                                     requestedResourcePermissions,
+                                     sysPermissionIdsWithGrant,
+                                     permissionIdsWithGrant);
+
+         resources = __getConnectionClosingIterator(connection,
+                                                    streamingResourcePermissionPersister
+                                                          .getResourcesByResourcePermissions(connection,
+                                                                                             accessorResource,
+                                                                                             resourceClassId,
+                                                                                             domainId,
+                                                                                             sysPermissionIdsWithGrant,
+                                                                                             permissionIdsWithGrant,
+                                                                                             resourceStreamFetchSize));
+         return resources;
+      }
+      finally {
+         // once the iterator is handed out, it closes the connection
+         if (resources == null) {
+            __closeConnection(connection);
+         }
+      }
+   }
 
+   // a permission requested both with and without the grant option only counts once, with the grant option
+   private void __getPermissionIdsWithGrant(SQLConnection connection,
+                                            Id<ResourceClassId> resourceClassId,
+                                            String resourceClassName,
+                                            Set<ResourcePermission> requestedResourcePermissions,
+                                            Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                            Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) {
+      for (ResourcePermission resourcePermission : requestedResourcePermissions) {
          if (resourcePermission.isSystemPermission()) {
-            // get the list of objects of the specified type that the session has access to via direct permissions
-            currentResources.addAll(grantResourcePermissionSysPersister
-                                          .getAccessorResourcesByResourceSysPermission(connection,
-                                                                                       accessedResource,
-                                                                                       resourceClassId,
-                                                                                       resourcePermission));
+            final Long sysPermissionId = resourcePermission.getSystemPermissionId();
+            final Boolean withGrant = sysPermissionIdsWithGrant.get(sysPermissionId);
+            sysPermissionIdsWithGrant.put(sysPermissionId,
+                                          resourcePermission.isWithGrantOption() || Boolean.TRUE.equals(withGrant));
          }
          else {
             // check if the non-system permission name is valid
-            permissionId = resourceClassPermissionPersister.getResourceClassPermissionId(connection,
-                                                                                         resourceClassId,
-                                                                                         resourcePermission
-                                                                                               .getPermissionName());
+            final Id<ResourcePermissionId> permissionId
+                  = resourceClassPermissionPersister.getResourceClassPermissionId(connection,
+                                                                                  resourceClassId,
+                                                                                  resourcePermission
+                                                                                        .getPermissionName());
 
             if (permissionId == null) {
                throw new IllegalArgumentException("Permission: " + resourcePermission + " is not defined for resource class: " + resourceClassName);
             }
 
-            // get the list of objects of the specified type that the session has access to via direct permissions
-            currentResources.addAll(grantResourcePermissionPersister
-                                          .getAccessorResourcesByResourcePermission(connection,
-                                                                                    accessedResource,
+            final Boolean withGrant = permissionIdsWithGrant.get(permissionId);
+            permissionIdsWithGrant.put(permissionId,
+                                       resourcePermission.isWithGrantOption() || Boolean.TRUE.equals(withGrant));
+         }
+      }
+   }
+
+   @Override
+   public List<Resource> getResourcesByResourcePermissionsPage(Resource accessorResource,
+                                                               String resourceClassName,
+                                                               Long afterResourceId,
+                                                               int pageSize,
+                                                               Set<ResourcePermission> resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPageSizeValid(pageSize);
+      __assertPermissionsSpecified(resourcePermissions);
+      __assertPermissionsSetNotEmpty(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
+
+      return __getResourcesByPermissionsPage(accessorResource,
+                                             resourceClassName,
+                                             afterResourceId,
+                                             pageSize,
+                                             normalizedResourcePermissions);
+   }
+
+   @Override
+   public List<Resource> getResourcesByResourcePermissionsPage(Resource accessorResource,
+                                                               String resourceClassName,
+                                                               Long afterResourceId,
+                                                               int pageSize,
+                                                               ResourcePermission resourcePermission,
+                                                               ResourcePermission... resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPageSizeValid(pageSize);
+      __assertPermissionSpecified(resourcePermission);
+      __assertVarargPermissionsSpecified(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions
+            = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
+
+      return __getResourcesByPermissionsPage(accessorResource,
+                                             resourceClassName,
+                                             afterResourceId,
+                                             pageSize,
+                                             normalizedResourcePermissions);
+   }
+
+   private List<Resource> __getResourcesByPermissionsPage(Resource accessorResource,
+                                                          String resourceClassName,
+                                                          Long afterResourceId,
+                                                          int pageSize,
+                                                          Set<ResourcePermission> requestedResourcePermissions) {
+      SQLConnection connection = null;
+
+      try {
+         connection = __getReadConnection();
+
+         accessorResource = __resolveResource(connection, accessorResource);
+         __assertQueryAuthorization(connection, accessorResource);
+
+         resourceClassName = resourceClassName.trim();
+
+         if (streamingResourcePermissionPersister == null) {
+            // without recursive queries or closure tables to join, each page can only be cut out of all the resources
+            // computed in memory, at a cost proportional to their total number, as documented on the interface
+            return __getResourcePage(__getResourcesByPermissions(connection,
+                                                                 accessorResource,
+                                                                 resourceClassName,
+                                                                 requestedResourcePermissions),
+                                     afterResourceId,
+                                     pageSize);
+         }
+
+         // first verify that resource class is defined
+         final Id<ResourceClassId> resourceClassId = resourceClassPersister.getResourceClassId(connection,
+                                                                                              resourceClassName);
+
+         if (resourceClassId == null) {
+            throw new IllegalArgumentException("Could not find resource class: " + resourceClassName);
+         }
+
+         // verify permissions are valid for resource class
+         __assertPermissionsValid(connection, resourceClassName, requestedResourcePermissions);
+
+         final Map<Long, Boolean> sysPermissionIdsWithGrant = new HashMap<>();
+         final Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant = new HashMap<>();
+         __getPermissionIdsWithGrant(connection,
+                                     resourceClassId,
+                                     resourceClassName,
+                                     requestedResourcePermissions,
+                                     sysPermissionIdsWithGrant,
+                                     permissionIdsWithGrant);
+
+         return streamingResourcePermissionPersister.getResourcePageByResourcePermissions(connection,
+                                                                                         accessorResource,
+                                                                                         resourceClassId,
+                                                                                         null,
+                                                                                         sysPermissionIdsWithGrant,
+                                                                                         permissionIdsWithGrant,
+                                                                                         afterResourceId,
+                                                                                         pageSize);
+      }
+      finally {
+         __closeConnection(connection);
+      }
+   }
+
+   private static List<Resource> __getResourcePage(Set<Resource> resources, Long afterResourceId, int pageSize) {
+      final List<Resource> page = new ArrayList<>();
+      final Iterator<Resource> sortedResources = __getResourceIteratorInIdOrder(resources);
+
+      while (sortedResources.hasNext() && page.size() < pageSize) {
+         final Resource resource = sortedResources.next();
+         if (afterResourceId == null || resource.getId() > afterResourceId) {
+            page.add(resource);
+         }
+      }
+
+      return page;
+   }
+
+   @Override
+   public long countResourcesByResourcePermissions(Resource accessorResource,
+                                                   String resourceClassName,
+                                                   Set<ResourcePermission> resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPermissionsSpecified(resourcePermissions);
+      __assertPermissionsSetNotEmpty(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
+
+      return __countResourcesByPermissions(accessorResource,
+                                           resourceClassName,
+                                           null,
+                                           normalizedResourcePermissions,
+                                           false);
+   }
+
+   @Override
+   public long countResourcesByResourcePermissions(Resource accessorResource,
+                                                   String resourceClassName,
+                                                   ResourcePermission resourcePermission,
+                                                   ResourcePermission... resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPermissionSpecified(resourcePermission);
+      __assertVarargPermissionsSpecified(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions
+            = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
+
+      return __countResourcesByPermissions(accessorResource,
+                                           resourceClassName,
+                                           null,
+                                           normalizedResourcePermissions,
+                                           false);
+   }
+
+   @Override
+   public long countResourcesByResourcePermissionsAndDomain(Resource accessorResource,
+                                                            String resourceClassName,
+                                                            String domainName,
+                                                            Set<ResourcePermission> resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertDomainSpecified(domainName);
+      __assertPermissionsSpecified(resourcePermissions);
+      __assertPermissionsSetNotEmpty(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
+
+      return __countResourcesByPermissions(accessorResource,
+                                           resourceClassName,
+                                           domainName,
+                                           normalizedResourcePermissions,
+                                           false);
+   }
+
+   @Override
+   public long countResourcesByResourcePermissionsAndDomain(Resource accessorResource,
+                                                            String resourceClassName,
+                                                            String domainName,
+                                                            ResourcePermission resourcePermission,
+                                                            ResourcePermission... resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertDomainSpecified(domainName);
+      __assertPermissionSpecified(resourcePermission);
+      __assertVarargPermissionsSpecified(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions
+            = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
+
+      return __countResourcesByPermissions(accessorResource,
+                                           resourceClassName,
+                                           domainName,
+                                           normalizedResourcePermissions,
+                                           false);
+   }
+
+   @Override
+   public boolean hasAnyResourceByResourcePermissions(Resource accessorResource,
+                                                      String resourceClassName,
+                                                      Set<ResourcePermission> resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPermissionsSpecified(resourcePermissions);
+      __assertPermissionsSetNotEmpty(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
+
+      return __countResourcesByPermissions(accessorResource,
+                                           resourceClassName,
+                                           null,
+                                           normalizedResourcePermissions,
+                                           true) > 0;
+   }
+
+   @Override
+   public boolean hasAnyResourceByResourcePermissions(Resource accessorResource,
+                                                      String resourceClassName,
+                                                      ResourcePermission resourcePermission,
+                                                      ResourcePermission... resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessorResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPermissionSpecified(resourcePermission);
+      __assertVarargPermissionsSpecified(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions
+            = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
+
+      return __countResourcesByPermissions(accessorResource,
+                                           resourceClassName,
+                                           null,
+                                           normalizedResourcePermissions,
+                                           true) > 0;
+   }
+
+   // returns the number of resources, or when stopping at the first resource, one if there is any and zero otherwise
+   private long __countResourcesByPermissions(Resource accessorResource,
+                                              String resourceClassName,
+                                              String domainName,
+                                              Set<ResourcePermission> requestedResourcePermissions,
+                                              boolean stopAtFirst) {
+      SQLConnection connection = null;
+
+      try {
+         connection = __getReadConnection();
+
+         accessorResource = __resolveResource(connection, accessorResource);
+         __assertQueryAuthorization(connection, accessorResource);
+
+         resourceClassName = resourceClassName.trim();
+
+         // first verify that resource class and domain (if any) is defined
+         final Id<ResourceClassId> resourceClassId = resourceClassPersister.getResourceClassId(connection,
+                                                                                              resourceClassName);
+
+         if (resourceClassId == null) {
+            throw new IllegalArgumentException("Could not find resource class: " + resourceClassName);
+         }
+
+         Id<DomainId> domainId = null;
+
+         if (domainName != null) {
+            domainId = domainPersister.getResourceDomainId(connection, domainName);
+
+            if (domainId == null) {
+               throw new IllegalArgumentException("Could not find domain: " + domainName);
+            }
+         }
+
+         // verify permissions are valid for resource class
+         __assertPermissionsValid(connection, resourceClassName, requestedResourcePermissions);
+
+         final Map<Long, Boolean> sysPermissionIdsWithGrant = new HashMap<>();
+         final Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant = new HashMap<>();
+         __getPermissionIdsWithGrant(connection,
+                                     resourceClassId,
+                                     resourceClassName,
+                                     requestedResourcePermissions,
+                                     sysPermissionIdsWithGrant,
+                                     permissionIdsWithGrant);
+
+         if (stopAtFirst) {
+            final Boolean hasAny = resourceCountPersister.hasAnyResourceByResourcePermissions(connection,
+                                                                                              accessorResource,
+                                                                                              resourceClassId,
+                                                                                              domainId,
+                                                                                              sysPermissionIdsWithGrant,
+                                                                                              permissionIdsWithGrant);
+            if (hasAny != null) {
+               return hasAny ? 1 : 0;
+            }
+         }
+         else {
+            final Long count = resourceCountPersister.getResourceCountByResourcePermissions(connection,
+                                                                                            accessorResource,
+                                                                                            resourceClassId,
+                                                                                            domainId,
+                                                                                            sysPermissionIdsWithGrant,
+                                                                                            permissionIdsWithGrant);
+            if (count != null) {
+               return count;
+            }
+         }
+
+         // the accessor inherits from or reaches too many resources or domains to compute the count in one query
+         if (domainName == null) {
+            return __getResourcesByPermissions(connection,
+                                               accessorResource,
+                                               resourceClassName,
+                                               requestedResourcePermissions).size();
+         }
+         else {
+            return __getResourcesByPermissionsAndDomain(connection,
+                                                        accessorResource,
+                                                        resourceClassName,
+                                                        domainName,
+                                                        requestedResourcePermissions).size();
+         }
+      }
+      finally {
+         __closeConnection(connection);
+      }
+   }
+
+   private CloseableIterator<Resource> __getConnectionClosingIterator(final SQLConnection connection,
+                                                                      final CloseableIterator<Resource> resources) {
+      return new CloseableIterator<Resource>() {
+         private boolean closed;
+
+         @Override
+         public boolean hasNext() {
+            if (closed) {
+               return false;
+            }
+
+            final boolean hasNext;
+            try {
+               hasNext = resources.hasNext();
+            }
+            catch (RuntimeException e) {
+               close();
+               throw e;
+            }
+
+            // release the connection as soon as the iterator is exhausted
+            if (!hasNext) {
+               close();
+            }
+            return hasNext;
+         }
+
+         @Override
+         public Resource next() {
+            if (!hasNext()) {
+               throw new NoSuchElementException();
+            }
+            return resources.next();
+         }
+
+         @Override
+         public void remove() {
+            resources.remove();
+         }
+
+         @Override
+         public void close() {
+            if (closed) {
+               return;
+            }
+            closed = true;
+
+            try {
+               resources.close();
+            }
+            finally {
+               __closeConnection(connection);
+            }
+         }
+      };
+   }
+
+   private static CloseableIterator<Resource> __getResourceIteratorInIdOrder(Set<Resource> resources) {
+      final List<Resource> sortedResources = new ArrayList<>(resources);
+
+      Collections.sort(sortedResources, new Comparator<Resource>() {
+         @Override
+         public int compare(Resource resource1, Resource resource2) {
+            return resource1.getId().compareTo(resource2.getId());
+         }
+      });
+
+      final Iterator<Resource> iterator = sortedResources.iterator();
+
+      return new CloseableIterator<Resource>() {
+         private boolean closed;
+
+         @Override
+         public boolean hasNext() {
+            return !closed && iterator.hasNext();
+         }
+
+         @Override
+         public Resource next() {
+            if (!hasNext()) {
+               throw new NoSuchElementException();
+            }
+            return iterator.next();
+         }
+
+         @Override
+         public void remove() {
+            throw new UnsupportedOperationException("Removing resources through an iterator is not supported");
+         }
+
+         @Override
+         public void close() {
+            // nothing to release, the resources are already in memory, but a closed stream ends like any other
+            closed = true;
+         }
+      };
+   }
+
+   @Override
+   public Set<Resource> getAccessorResourcesByResourcePermissions(Resource accessedResource,
+                                                                  String resourceClassName,
+                                                                  Set<ResourcePermission> resourcePermissions) {
+      SQLConnection connection = null;
+
+      __assertAuthenticated();
+      __assertResourceSpecified(accessedResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPermissionsSpecified(resourcePermissions);
+      __assertPermissionsSetNotEmpty(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
+
+      try {
+         connection = __getReadConnection();
+
+         accessedResource = __resolveResource(connection, accessedResource);
+         __assertQueryAuthorization(connection, accessedResource);
+
+         resourceClassName = resourceClassName.trim();
+
+         return __getAccessorResourcesByResourcePermissions(connection,
+                                                            accessedResource,
+                                                            resourceClassName,
+                                                            normalizedResourcePermissions);
+      }
+      finally {
+         __closeConnection(connection);
+      }
+   }
+
+   @Override
+   public Set<Resource> getAccessorResourcesByResourcePermissions(Resource accessedResource,
+                                                                  String resourceClassName,
+                                                                  ResourcePermission resourcePermission,
+                                                                  ResourcePermission... resourcePermissions) {
+      SQLConnection connection = null;
+
+      __assertAuthenticated();
+      __assertResourceSpecified(accessedResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPermissionSpecified(resourcePermission);
+      __assertVarargPermissionsSpecified(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions
+            = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
+
+      try {
+         connection = __getReadConnection();
+
+         accessedResource = __resolveResource(connection, accessedResource);
+         __assertQueryAuthorization(connection, accessedResource);
+
+         resourceClassName = resourceClassName.trim();
+
+         return __getAccessorResourcesByResourcePermissions(connection,
+                                                            accessedResource,
+                                                            resourceClassName,
+                                                            normalizedResourcePermissions);
+      }
+      finally {
+         __closeConnection(connection);
+      }
+   }
+
+   private Set<Resource> __getAccessorResourcesByResourcePermissions(SQLConnection connection,
+                                                                     Resource accessedResource,
+                                                                     String resourceClassName,
+                                                                     Set<ResourcePermission> requestedResourcePermissions) {
+      // first verify that resource class is defined
+      Id<ResourceClassId> resourceClassId;
+      Id<ResourcePermissionId> permissionId;
+
+      resourceClassId = resourceClassPersister.getResourceClassId(connection, resourceClassName);
+
+      if (resourceClassId == null) {
+         throw new IllegalArgumentException("Could not find resource class: " + resourceClassName);
+      }
+
+      // verify permissions are valid for the resource class
+      __assertPermissionsValid(connection, resourceClassName, requestedResourcePermissions);
+
+      Set<Resource> resources = new HashSet<>();
+
+      for (ResourcePermission resourcePermission : requestedResourcePermissions) {
+         Set<Resource> currentResources = new HashSet<>();
+
+         if (resourcePermission.isSystemPermission()) {
+            // get the list of objects of the specified type that the session has access to via direct permissions
+            currentResources.addAll(grantResourcePermissionSysPersister
+                                          .getAccessorResourcesByResourceSysPermission(connection,
+                                                                                       accessedResource,
+                                                                                       resourceClassId,
+                                                                                       resourcePermission));
+         }
+         else {
+            // check if the non-system permission name is valid
+            permissionId = resourceClassPermissionPersister.getResourceClassPermissionId(connection,
+                                                                                         resourceClassId,
+                                                                                         resourcePermission
+                                                                                               .getPermissionName());
+
+            if (permissionId == null) {
+               throw new IllegalArgumentException("Permission: " + resourcePermission + " is not defined for resource class: " + resourceClassName);
+            }
+
+            // get the list of objects of the specified type that the session has access to via direct permissions
+            currentResources.addAll(grantResourcePermissionPersister
+                                          .getAccessorResourcesByResourcePermission(connection,
+                                                                                    accessedResource,
                                                                                     resourceClassId,
                                                                                     resourcePermission,
                                                                                     permissionId));
@@ -6261,6 +7838,100 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       return resources;
    }
 
+   @Override
+   public List<Resource> getAccessorResourcesByResourcePermissionsPage(Resource accessedResource,
+                                                                       String resourceClassName,
+                                                                       Long afterResourceId,
+                                                                       int pageSize,
+                                                                       Set<ResourcePermission> resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessedResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPageSizeValid(pageSize);
+      __assertPermissionsSpecified(resourcePermissions);
+      __assertPermissionsSetNotEmpty(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions = __normalizeResourcePermission(resourcePermissions);
+
+      return __getAccessorResourcesByPermissionsPage(accessedResource,
+                                                     resourceClassName,
+                                                     afterResourceId,
+                                                     pageSize,
+                                                     normalizedResourcePermissions);
+   }
+
+   @Override
+   public List<Resource> getAccessorResourcesByResourcePermissionsPage(Resource accessedResource,
+                                                                       String resourceClassName,
+                                                                       Long afterResourceId,
+                                                                       int pageSize,
+                                                                       ResourcePermission resourcePermission,
+                                                                       ResourcePermission... resourcePermissions) {
+      __assertAuthenticated();
+      __assertResourceSpecified(accessedResource);
+      __assertResourceClassSpecified(resourceClassName);
+      __assertPageSizeValid(pageSize);
+      __assertPermissionSpecified(resourcePermission);
+      __assertVarargPermissionsSpecified(resourcePermissions);
+
+      final Set<ResourcePermission> normalizedResourcePermissions
+            = __normalizeResourcePermission(__getSetWithoutNullsOrDuplicates(resourcePermission, resourcePermissions));
+
+      return __getAccessorResourcesByPermissionsPage(accessedResource,
+                                                     resourceClassName,
+                                                     afterResourceId,
+                                                     pageSize,
+                                                     normalizedResourcePermissions);
+   }
+
+   private List<Resource> __getAccessorResourcesByPermissionsPage(Resource accessedResource,
+                                                                  String resourceClassName,
+                                                                  Long afterResourceId,
+                                                                  int pageSize,
+                                                                  Set<ResourcePermission> requestedResourcePermissions) {
+      SQLConnection connection = null;
+
+      try {
+         connection = __getReadConnection();
+
+         accessedResource = __resolveResource(connection, accessedResource);
+         __assertQueryAuthorization(connection, accessedResource);
+
+         resourceClassName = resourceClassName.trim();
+
+         // first verify that resource class is defined
+         final Id<ResourceClassId> resourceClassId = resourceClassPersister.getResourceClassId(connection,
+                                                                                              resourceClassName);
+
+         if (resourceClassId == null) {
+            throw new IllegalArgumentException("Could not find resource class: " + resourceClassName);
+         }
+
+         // verify permissions are valid for the resource class
+         __assertPermissionsValid(connection, resourceClassName, requestedResourcePermissions);
+
+         final Map<Long, Boolean> sysPermissionIdsWithGrant = new HashMap<>();
+         final Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant = new HashMap<>();
+         __getPermissionIdsWithGrant(connection,
+                                     resourceClassId,
+                                     resourceClassName,
+                                     requestedResourcePermissions,
+                                     sysPermissionIdsWithGrant,
+                                     permissionIdsWithGrant);
+
+         return accessorResourcePagePersister.getAccessorResourcePageByResourcePermissions(connection,
+                                                                                          accessedResource,
+                                                                                          resourceClassId,
+                                                                                          sysPermissionIdsWithGrant,
+                                                                                          permissionIdsWithGrant,
+                                                                                          afterResourceId,
+                                                                                          pageSize);
+      }
+      finally {
+         __closeConnection(connection);
+      }
+   }
+
    @Override
    public List<String> getResourceClassNames() {
       SQLConnection connection = null;
@@ -6268,7 +7939,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertAuthenticated();
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
 
          return resourceClassPersister.getResourceClassNames(connection);
       }
@@ -6285,7 +7956,7 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       __assertResourceClassSpecified(resourceClassName);
 
       try {
-         connection = __getConnection();
+         connection = __getReadConnection();
          resourceClassName = resourceClassName.trim();
 
          return __getApplicableResourcePermissionNames(connection, resourceClassName);
@@ -6295,6 +7966,77 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       }
    }
 
+   @Override
+   public <T> T executeInTransaction(UnitOfWork<T> unitOfWork) {
+      __assertUnitOfWorkSpecified(unitOfWork);
+
+      // a nested unit of work simply participates in the transaction of the enclosing one
+      if (transactionConnection != null) {
+         return unitOfWork.execute(this);
+      }
+
+      final SQLConnection connection = __getConnection();
+      boolean autoCommit = true;
+      boolean committed = false;
+      // the exception in flight, if any, which a failure to clean up must not mask
+      Throwable failure = null;
+
+      try {
+         autoCommit = connection.getAutoCommit();
+         connection.setAutoCommit(false);
+         transactionConnection = connection;
+         // resource class metadata must not be shared with other sessions until the transaction commits
+         connection.setPendingResourceClassMetadataRegistry(new ResourceClassMetadataRegistry());
+
+         final T result = unitOfWork.execute(this);
+
+         connection.commit();
+         committed = true;
+         resourceClassMetadataRegistry.publish(connection.getPendingResourceClassMetadataRegistry());
+
+         return result;
+      }
+      catch (SQLException e) {
+         final RuntimeException wrappedException = new RuntimeException(e);
+         failure = wrappedException;
+         throw wrappedException;
+      }
+      catch (RuntimeException | Error e) {
+         failure = e;
+         throw e;
+      }
+      finally {
+         transactionConnection = null;
+         connection.setPendingResourceClassMetadataRegistry(null);
+
+         try {
+            if (!committed) {
+               // rolled back changes must not keep reads on the primary
+               connection.clearChanged();
+               try {
+                  connection.rollback();
+               }
+               finally {
+                  // the in-memory caches may have picked up changes that were just rolled back
+                  __invalidateInMemoryMetadata();
+               }
+            }
+            connection.setAutoCommit(autoCommit);
+         }
+         catch (SQLException e) {
+            if (failure != null) {
+               failure.addSuppressed(e);
+            }
+            else {
+               throw new RuntimeException(e);
+            }
+         }
+         finally {
+            __closeConnection(connection);
+         }
+      }
+   }
+
    // private shared helper methods
 
    private static Set<DomainPermission> __normalizeDomainPermissions(Set<DomainPermission> domainPermissions) {
@@ -6412,9 +8154,33 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
 
    private List<String> __getApplicableResourcePermissionNames(SQLConnection connection,
                                                                ResourceClassInternalInfo resourceClassInternalInfo) {
-      final List<String> permissionNames
-            = resourceClassPermissionPersister.getPermissionNames(connection,
-                                                                  resourceClassInternalInfo.getResourceClassName());
+      return __addApplicableSystemPermissionNames(resourceClassPermissionPersister
+                                                        .getPermissionNames(connection,
+                                                                            resourceClassInternalInfo.getResourceClassName()),
+                                                  resourceClassInternalInfo);
+   }
+
+   // returns the applicable permission names for validating the specified permissions, which may lack
+   // permissions added through other access control contexts, unless one of those is specified
+   private List<String> __getApplicableResourcePermissionNames(SQLConnection connection,
+                                                               ResourceClassInternalInfo resourceClassInternalInfo,
+                                                               Set<ResourcePermission> resourcePermissions) {
+      final Set<String> requiredPermissionNames = new HashSet<>(resourcePermissions.size());
+      for (ResourcePermission resourcePermission : resourcePermissions) {
+         if (!resourcePermission.isSystemPermission()) {
+            requiredPermissionNames.add(resourcePermission.getPermissionName());
+         }
+      }
+
+      return __addApplicableSystemPermissionNames(resourceClassPermissionPersister
+                                                        .getPermissionNames(connection,
+                                                                            resourceClassInternalInfo.getResourceClassName(),
+                                                                            requiredPermissionNames),
+                                                  resourceClassInternalInfo);
+   }
+
+   private List<String> __addApplicableSystemPermissionNames(List<String> permissionNames,
+                                                             ResourceClassInternalInfo resourceClassInternalInfo) {
       permissionNames.add(ResourcePermissions.INHERIT);
       permissionNames.add(ResourcePermissions.DELETE);
       permissionNames.add(ResourcePermissions.QUERY);
@@ -6504,12 +8270,34 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       }
    }
 
+   private static void __assertOptionsSpecified(SQLAccessControlContextOptions options) {
+      if (options == null) {
+         throw new IllegalArgumentException("Options required, none specified");
+      }
+   }
+
    private void __assertResourceSpecified(Resource resource) {
       if (resource == null) {
          throw new NullPointerException("Resource required, none specified");
       }
    }
 
+   private void __assertUnitOfWorkSpecified(UnitOfWork<?> unitOfWork) {
+      if (unitOfWork == null) {
+         throw new NullPointerException("Unit of work required, none specified");
+      }
+   }
+
+   private void __assertResourcesSpecified(Collection<Resource> resources) {
+      if (resources == null) {
+         throw new NullPointerException("Collection of resources required, none specified");
+      }
+
+      if (resources.contains(null)) {
+         throw new NullPointerException("Collection of resources contains null element");
+      }
+   }
+
    private void __assertCredentialsSpecified(Credentials credentials) {
       if (credentials == null) {
          throw new NullPointerException("Credentials required, none specified");
@@ -6522,6 +8310,30 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       }
    }
 
+   private void __assertPageSizeValid(int pageSize) {
+      if (pageSize < 1) {
+         throw new IllegalArgumentException("Page size must be positive, but was: " + pageSize);
+      }
+   }
+
+   private void __assertExternalIdsSpecified(List<String> externalIds) {
+      if (externalIds == null) {
+         throw new NullPointerException("List of external ids required, none specified");
+      }
+      if (externalIds.isEmpty()) {
+         throw new IllegalArgumentException("List of external ids required, none specified");
+      }
+
+      final Set<String> uniqueExternalIds = new HashSet<>(externalIds.size());
+      for (String externalId : externalIds) {
+         __assertExternalIdSpecified(externalId);
+
+         if (!uniqueExternalIds.add(externalId)) {
+            throw new IllegalArgumentException("Duplicate external id: " + externalId);
+         }
+      }
+   }
+
    private void __assertExternalIdSpecified(String externalId) {
       if (externalId == null) {
          throw new NullPointerException("External id required, none specified");
@@ -6660,7 +8472,10 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
    private void __assertPermissionsValid(SQLConnection connection,
                                          String resourceClassName,
                                          Set<ResourcePermission> resourcePermissions) {
-      final List<String> permissionNames = __getApplicableResourcePermissionNames(connection, resourceClassName);
+      final ResourceClassInternalInfo resourceClassInternalInfo
+            = __getResourceClassInternalInfo(connection, resourceClassName);
+      final List<String> permissionNames
+            = __getApplicableResourcePermissionNames(connection, resourceClassInternalInfo, resourcePermissions);
 
       for (ResourcePermission resourcePermission : resourcePermissions) {
          if (!permissionNames.contains(resourcePermission.getPermissionName())) {
@@ -6725,26 +8540,105 @@ public class SQLAccessControlContext implements AccessControlContext, Serializab
       return resultSet;
    }
 
+   // private cache management helper methods
+
+   private void __recordPermissionChange(SQLConnection connection) {
+      if (permissionChangeCounterPersister != null) {
+         permissionChangeCounterPersister.incrementChangeCount(connection);
+      }
+      __invalidateEffectiveResourcePermissionCache();
+   }
+
+   private void __recordDomainChange(SQLConnection connection) {
+      if (domainChangeCounterPersister != null) {
+         domainChangeCounterPersister.incrementChangeCount(connection);
+      }
+   }
+
+   private void __invalidateEffectiveResourcePermissionCache() {
+      if (effectiveResourcePermissionCache != null) {
+         effectiveResourcePermissionCache.clear();
+      }
+   }
+
+   private void __invalidateInMemoryMetadata() {
+      // the resource class metadata registry needs no invalidation, since it never sees uncommitted metadata
+      __invalidateEffectiveResourcePermissionCache();
+      if (domainHierarchyIndex != null) {
+         domainHierarchyIndex.invalidate();
+      }
+   }
+
    // private connection management helper methods
 
    private SQLConnection __getConnection() {
-      if (dataSource != null) {
-         try {
-            return new SQLConnection(dataSource.getConnection());
-         }
-         catch (SQLException e) {
-            throw new RuntimeException(e);
+      return __getPrimaryConnection();
+   }
+
+   private SQLConnection __getReadConnection() {
+      // a unit of work reads its own changes, and recent changes may not have reached the read replica yet
+      if (transactionConnection != null
+            || readDataSource == null
+            || (changeRecorded
+                  && System.nanoTime() - lastChangeTimeNanos < TimeUnit.MILLISECONDS.toNanos(readYourWritesWindowMillis))) {
+         return __getPrimaryConnection();
+      }
+      return __newSQLConnection(readDataSource);
+   }
+
+   // called once the changes made through the connection are committed, which is on close in auto-commit mode
+   // and for a unit of work, since its connection is only closed after the commit (and cleared on a rollback)
+   private void __recordCommittedChanges(SQLConnection connection) {
+      if (connection.isChanged()) {
+         connection.clearChanged();
+         if (readDataSource != null && readYourWritesWindowMillis > 0) {
+            lastChangeTimeNanos = System.nanoTime();
+            changeRecorded = true;
          }
       }
+   }
+
+   private SQLConnection __getPrimaryConnection() {
+      if (transactionConnection != null) {
+         return transactionConnection;
+      }
+      else if (dataSource != null) {
+         return __newSQLConnection(dataSource);
+      }
       else if (connection != null) {
-         return new SQLConnection(connection);
+         if (pinnedConnection == null) {
+            pinnedConnection = new SQLConnection(connection,
+                                                 preparedStatementCacheSize,
+                                                 preparedStatementCacheStatistics);
+         }
+         return pinnedConnection;
       }
       else {
          throw new IllegalStateException("Not initialized! No data source or connection, perhaps missing call to postDeserialize()?");
       }
    }
 
+   private SQLConnection __newSQLConnection(DataSource dataSource) {
+      try {
+         return new SQLConnection(dataSource.getConnection(),
+                                  preparedStatementCacheSize,
+                                  preparedStatementCacheStatistics);
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+   }
+
    private void __closeConnection(SQLConnection connection) {
+      // the connection of a unit of work is only closed once the whole unit of work completes
+      if (connection != null && connection == transactionConnection) {
+         return;
+      }
+
+      if (connection != null) {
+         __recordCommittedChanges(connection);
+      }
+
       // only close the connection if we got it from a pool, otherwise just leave the connection open
       if (dataSource != null) {
          if (connection != null) {
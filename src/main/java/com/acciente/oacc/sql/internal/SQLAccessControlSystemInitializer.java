@@ -27,6 +27,7 @@ import com.acciente.oacc.Resources;
 import com.acciente.oacc.encryptor.PasswordEncryptor;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -92,6 +93,13 @@ public class SQLAccessControlSystemInitializer {
          statement.executeUpdate();
          statement.close();
 
+         // the system domain is its own ancestor, if the optional domain closure table was created
+         if (tableExists(connection, dbSchema, "OAC_DomainClosure")) {
+            statement = connection.prepareStatement("INSERT INTO " + schemaNameAndTablePrefix + "DomainClosure( AncestorDomainId, DescendantDomainId, Depth ) VALUES ( 0, 0, 0 )");
+            statement.executeUpdate();
+            statement.close();
+         }
+
          // create a resource type for the system user
          statement = connection.prepareStatement("INSERT INTO " + schemaNameAndTablePrefix + "ResourceClass( ResourceClassId, ResourceClassName, IsAuthenticatable, IsUnauthenticatedCreateAllowed ) VALUES ( 0, ?, 1, 0 )");
          statement.setString(1, AccessControlContext.SYSTEM_RESOURCE_CLASS);
@@ -135,4 +143,18 @@ public class SQLAccessControlSystemInitializer {
          }
       }
    }
+
+   public static boolean tableExists(Connection connection, String dbSchema, String tableName) throws SQLException {
+      final DatabaseMetaData metaData = connection.getMetaData();
+      // unquoted identifiers are stored as written, in upper case or in lower case, depending on the database
+      return tableExists(metaData, dbSchema, tableName)
+            || tableExists(metaData, dbSchema == null ? null : dbSchema.toUpperCase(), tableName.toUpperCase())
+            || tableExists(metaData, dbSchema == null ? null : dbSchema.toLowerCase(), tableName.toLowerCase());
+   }
+
+   private static boolean tableExists(DatabaseMetaData metaData, String dbSchema, String tableName) throws SQLException {
+      try (ResultSet resultSet = metaData.getTables(null, dbSchema, tableName, null)) {
+         return resultSet.next();
+      }
+   }
 }
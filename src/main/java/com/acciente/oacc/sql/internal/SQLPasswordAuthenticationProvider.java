@@ -25,14 +25,17 @@ import com.acciente.oacc.PasswordCredentials;
 import com.acciente.oacc.Resource;
 import com.acciente.oacc.UnsupportedCredentialsException;
 import com.acciente.oacc.encryptor.PasswordEncryptor;
+import com.acciente.oacc.encryptor.TransitioningPasswordEncryptor;
+import com.acciente.oacc.sql.PasswordHashingExecutor;
 import com.acciente.oacc.sql.internal.persister.ResourcePasswordPersister;
 import com.acciente.oacc.sql.internal.persister.SQLConnection;
-import com.acciente.oacc.sql.internal.persister.SQLPasswordStrings;
+import com.acciente.oacc.sql.internal.persister.SharedPersisters;
 
 import javax.sql.DataSource;
 import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.Callable;
 
 public class SQLPasswordAuthenticationProvider implements AuthenticationProvider, Serializable {
    private static final long serialVersionUID = 2L;
@@ -47,6 +50,50 @@ public class SQLPasswordAuthenticationProvider implements AuthenticationProvider
    // persisters
    private final ResourcePasswordPersister resourcePasswordPersister;
 
+   // the optional pool that performs the password hashing, which is not serialized, so only whether there was
+   // one is, and a deserialized provider that had one must be re-initialized with one
+   private transient PasswordHashingExecutor passwordHashingExecutor;
+   private boolean                           passwordHashingExecutorConfigured;
+
+   /**
+    * Returns the built-in password authentication provider for the specified data source, for use as the delegate
+    * of another authentication provider, such as {@link com.acciente.oacc.token.HmacTokenAuthenticationProvider}.
+    *
+    * @param dataSource        a database data source with access to the required OACC tables
+    * @param schemaName        the name of the schema in the database containing the OACC tables
+    * @param passwordEncryptor the {@link PasswordEncryptor} to which all password encryption and decryption is
+    *                          delegated
+    * @return a password authentication provider backed by the specified data source
+    */
+   public static SQLPasswordAuthenticationProvider newInstance(DataSource dataSource,
+                                                               String schemaName,
+                                                               PasswordEncryptor passwordEncryptor) {
+      return newInstance(dataSource, schemaName, passwordEncryptor, null);
+   }
+
+   /**
+    * Returns the built-in password authentication provider for the specified data source, which hashes passwords
+    * on the specified pool, for use as the delegate of another authentication provider.
+    *
+    * @param dataSource              a database data source with access to the required OACC tables
+    * @param schemaName              the name of the schema in the database containing the OACC tables
+    * @param passwordEncryptor       the {@link PasswordEncryptor} to which all password encryption and decryption is
+    *                                delegated
+    * @param passwordHashingExecutor the pool that performs the password hashing, or null to hash passwords on the
+    *                                calling thread
+    * @return a password authentication provider backed by the specified data source
+    */
+   public static SQLPasswordAuthenticationProvider newInstance(DataSource dataSource,
+                                                               String schemaName,
+                                                               PasswordEncryptor passwordEncryptor,
+                                                               PasswordHashingExecutor passwordHashingExecutor) {
+      if (dataSource == null) {
+         throw new IllegalArgumentException("DataSource required, none specified");
+      }
+      SchemaNameValidator.assertValid(schemaName);
+      return new SQLPasswordAuthenticationProvider(dataSource, schemaName, passwordEncryptor, passwordHashingExecutor);
+   }
+
    // protected constructors/methods
    protected SQLPasswordAuthenticationProvider(Connection connection,
                                                String schemaName,
@@ -62,15 +109,30 @@ public class SQLPasswordAuthenticationProvider implements AuthenticationProvider
       this.dataSource = dataSource;
    }
 
+   protected SQLPasswordAuthenticationProvider(Connection connection,
+                                               String schemaName,
+                                               PasswordEncryptor passwordEncryptor,
+                                               PasswordHashingExecutor passwordHashingExecutor) {
+      this(connection, schemaName, passwordEncryptor);
+      this.passwordHashingExecutor = passwordHashingExecutor;
+      this.passwordHashingExecutorConfigured = passwordHashingExecutor != null;
+   }
+
+   protected SQLPasswordAuthenticationProvider(DataSource dataSource,
+                                               String schemaName,
+                                               PasswordEncryptor passwordEncryptor,
+                                               PasswordHashingExecutor passwordHashingExecutor) {
+      this(dataSource, schemaName, passwordEncryptor);
+      this.passwordHashingExecutor = passwordHashingExecutor;
+      this.passwordHashingExecutorConfigured = passwordHashingExecutor != null;
+   }
+
    private SQLPasswordAuthenticationProvider(String schemaName,
                                              PasswordEncryptor passwordEncryptor) {
       this.passwordEncryptor = passwordEncryptor;
 
-      // generate all the SQLs the persisters need based on the database dialect
-      SQLPasswordStrings sqlPasswordStrings = SQLPasswordStrings.getSQLPasswordStrings(schemaName);
-
-      // setup persisters
-      resourcePasswordPersister = new ResourcePasswordPersister(sqlPasswordStrings);
+      // the persister and the SQLs it needs are built once per schema, and shared
+      resourcePasswordPersister = SharedPersisters.getResourcePasswordPersister(schemaName);
    }
 
    /**
@@ -91,11 +153,27 @@ public class SQLPasswordAuthenticationProvider implements AuthenticationProvider
     * @throws IllegalStateException if a dataSource or connection is already set
     */
    protected void postDeserialize(DataSource dataSource) {
-      if (this.dataSource != null || this.connection != null) {
-         throw new IllegalStateException("Cannot re-initialize an already initialized SQLPasswordAuthenticationProvider");
-      }
+      postDeserialize(dataSource, null);
+   }
+
+   /**
+    * Re-initializes the transient data source and password hashing pool after deserialization.
+    * <p/>
+    * This method is only intended to be called after successful deserialization, in order to reset
+    * a transient data source to a database and a transient password hashing pool that were not serialized.
+    *
+    * @param dataSource              the database dataSource to be reset
+    * @param passwordHashingExecutor the pool that performs the password hashing, or null to hash passwords on the
+    *                                calling thread
+    * @throws IllegalStateException if a dataSource or connection is already set, or if the provider was created
+    *                               with a password hashing pool and none is specified
+    */
+   protected void postDeserialize(DataSource dataSource, PasswordHashingExecutor passwordHashingExecutor) {
+      assertPostDeserializeAllowed(passwordHashingExecutor);
       this.dataSource = dataSource;
       this.connection = null;
+      this.passwordHashingExecutor = passwordHashingExecutor;
+      this.passwordHashingExecutorConfigured = passwordHashingExecutor != null;
    }
 
    /**
@@ -109,11 +187,38 @@ public class SQLPasswordAuthenticationProvider implements AuthenticationProvider
     * @throws IllegalStateException if a dataSource or connection is already set
     */
    protected void postDeserialize(Connection connection) {
+      postDeserialize(connection, null);
+   }
+
+   /**
+    * Re-initializes the transient connection and password hashing pool after deserialization.
+    * <p/>
+    * This method is only intended to be called after successful deserialization, in order to reset
+    * a transient connection to a database and a transient password hashing pool that were not serialized.
+    *
+    * @param connection              the database connection to be reset
+    * @param passwordHashingExecutor the pool that performs the password hashing, or null to hash passwords on the
+    *                                calling thread
+    * @throws IllegalStateException if a dataSource or connection is already set, or if the provider was created
+    *                               with a password hashing pool and none is specified
+    */
+   protected void postDeserialize(Connection connection, PasswordHashingExecutor passwordHashingExecutor) {
+      assertPostDeserializeAllowed(passwordHashingExecutor);
+      this.dataSource = null;
+      this.connection = connection;
+      this.passwordHashingExecutor = passwordHashingExecutor;
+      this.passwordHashingExecutorConfigured = passwordHashingExecutor != null;
+   }
+
+   private void assertPostDeserializeAllowed(PasswordHashingExecutor passwordHashingExecutor) {
       if (this.dataSource != null || this.connection != null) {
          throw new IllegalStateException("Cannot re-initialize an already initialized SQLPasswordAuthenticationProvider");
       }
-      this.dataSource = null;
-      this.connection = connection;
+      if (passwordHashingExecutorConfigured && passwordHashingExecutor == null) {
+         // hashing on the calling threads again would silently remove the bound the pool puts on login storms
+         throw new IllegalStateException("Cannot re-initialize a SQLPasswordAuthenticationProvider that hashes "
+                                               + "passwords on a pool without a password hashing executor");
+      }
    }
 
    @Override
@@ -127,15 +232,19 @@ public class SQLPasswordAuthenticationProvider implements AuthenticationProvider
          throw new InvalidCredentialsException("Password required, none specified");
       }
 
+      // the connection is closed before the password is checked, so that it is not held during the slow hash
+      final String encryptedBoundPassword;
       SQLConnection connection = null;
       try {
          connection = getConnection();
 
-         __authenticate(connection, resource, passwordCredentials.getPassword());
+         encryptedBoundPassword = resourcePasswordPersister.getEncryptedBoundPasswordByResourceId(connection, resource);
       }
       finally {
          closeConnection(connection);
       }
+
+      __authenticate(resource, passwordCredentials.getPassword(), encryptedBoundPassword);
    }
 
    @Override
@@ -143,17 +252,67 @@ public class SQLPasswordAuthenticationProvider implements AuthenticationProvider
       throw new UnsupportedOperationException("The built-in password authentication provider does not support authentication without credentials");
    }
 
-   private void __authenticate(SQLConnection connection, Resource resource, char[] password) {
-      // first locate the resource
-      final String encryptedBoundPassword = resourcePasswordPersister.getEncryptedBoundPasswordByResourceId(connection, resource);
+   private void __authenticate(final Resource resource, final char[] password, final String encryptedBoundPassword) {
+      final boolean isPasswordCorrect;
+      if (passwordHashingExecutor == null) {
+         isPasswordCorrect = __checkPassword(resource, password, encryptedBoundPassword);
+      }
+      else {
+         isPasswordCorrect = passwordHashingExecutor.execute(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+               return __checkPassword(resource, password, encryptedBoundPassword);
+            }
+         });
+      }
+
+      if (!isPasswordCorrect) {
+         throw new IncorrectCredentialsException("Invalid password for resource " + resource);
+      }
+
+      if (passwordEncryptor instanceof TransitioningPasswordEncryptor) {
+         final TransitioningPasswordEncryptor transitioningPasswordEncryptor
+               = (TransitioningPasswordEncryptor) passwordEncryptor;
+         if (transitioningPasswordEncryptor.isRehashNeeded(encryptedBoundPassword)) {
+            __rehashPassword(transitioningPasswordEncryptor, resource, password, encryptedBoundPassword);
+         }
+      }
+   }
+
+   private void __rehashPassword(TransitioningPasswordEncryptor transitioningPasswordEncryptor,
+                                 Resource resource,
+                                 char[] password,
+                                 String oldEncryptedBoundPassword) {
+      SQLConnection connection = null;
+      try {
+         final String newEncryptedBoundPassword = __encryptPassword(resource, password);
+
+         connection = getConnection();
+
+         // a password changed since it was checked is left alone, it was already encrypted with the new encryptor
+         if (resourcePasswordPersister.replaceEncryptedBoundPasswordByResourceId(connection,
+                                                                                resource,
+                                                                                oldEncryptedBoundPassword,
+                                                                                newEncryptedBoundPassword)) {
+            transitioningPasswordEncryptor.recordRehash();
+         }
+      }
+      catch (RuntimeException e) {
+         // the resource did authenticate, so failing to upgrade its password must not fail the authentication; the
+         // upgrade is attempted again at its next authentication
+         transitioningPasswordEncryptor.recordRehashFailure();
+      }
+      finally {
+         closeConnection(connection);
+      }
+   }
 
+   private boolean __checkPassword(Resource resource, char[] password, String encryptedBoundPassword) {
       char[] plainBoundPassword = null;
       try {
          plainBoundPassword = PasswordUtils.computeBoundPassword(resource, password);
 
-         if (!passwordEncryptor.checkPassword(plainBoundPassword, encryptedBoundPassword)) {
-            throw new IncorrectCredentialsException("Invalid password for resource " + resource);
-         }
+         return passwordEncryptor.checkPassword(plainBoundPassword, encryptedBoundPassword);
       }
       finally {
          PasswordUtils.cleanPassword(plainBoundPassword);
@@ -193,13 +352,16 @@ public class SQLPasswordAuthenticationProvider implements AuthenticationProvider
 
       final PasswordCredentials passwordCredentials = ((PasswordCredentials) credentials);
 
+      // the password is hashed before a connection is obtained, so that it is not held during the slow hash
+      final String newEncryptedBoundPassword = __encryptPassword(resource, passwordCredentials.getPassword());
+
       SQLConnection connection = null;
       try {
          connection = getConnection();
 
-         __setResourcePassword(connection,
-                               resource,
-                               passwordCredentials.getPassword());
+         resourcePasswordPersister.setEncryptedBoundPasswordByResourceId(connection,
+                                                                         resource,
+                                                                         newEncryptedBoundPassword);
       }
       finally {
          closeConnection(connection);
@@ -219,14 +381,23 @@ public class SQLPasswordAuthenticationProvider implements AuthenticationProvider
       }
    }
 
-   private void __setResourcePassword(SQLConnection connection, Resource resource, char[] newPassword) {
+   private String __encryptPassword(final Resource resource, final char[] newPassword) {
+      if (passwordHashingExecutor == null) {
+         return __computeEncryptedBoundPassword(resource, newPassword);
+      }
+      return passwordHashingExecutor.execute(new Callable<String>() {
+         @Override
+         public String call() {
+            return __computeEncryptedBoundPassword(resource, newPassword);
+         }
+      });
+   }
+
+   private String __computeEncryptedBoundPassword(Resource resource, char[] newPassword) {
       char[] newBoundPassword = null;
       try {
          newBoundPassword = PasswordUtils.computeBoundPassword(resource, newPassword);
-         final String newEncryptedBoundPassword = passwordEncryptor.encryptPassword(newBoundPassword);
-         resourcePasswordPersister.setEncryptedBoundPasswordByResourceId(connection,
-                                                                         resource,
-                                                                         newEncryptedBoundPassword);
+         return passwordEncryptor.encryptPassword(newBoundPassword);
       }
       finally {
          PasswordUtils.cleanPassword(newBoundPassword);
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
+import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pages through the resources that have a set of direct permissions to an accessed resource, intersecting the
+ * requested permissions in a single query. Since only direct permissions are considered, this works the same for
+ * all SQL profiles.
+ */
+public class AccessorResourcePagePersister extends Persister implements Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final SQLStrings sqlStrings;
+
+   public AccessorResourcePagePersister(SQLStrings sqlStrings) {
+      this.sqlStrings = sqlStrings;
+   }
+
+   /**
+    * Returns one page of the resources that have all the specified permissions directly on the accessed resource,
+    * i.e. at most <code>pageSize</code> of them, in ascending order of resource id, whose ids are greater than
+    * <code>afterResourceId</code>.
+    *
+    * @param resourceClassId           the resource class of the accessed resource
+    * @param sysPermissionIdsWithGrant the requested system permission ids, each mapped to whether the grant option
+    *                                  is required
+    * @param permissionIdsWithGrant    the requested non-system permission ids, each mapped to whether the grant
+    *                                  option is required
+    * @param afterResourceId           the id of the last resource of the previous page, or <code>null</code> for
+    *                                  the first page
+    * @param pageSize                  the maximum number of resources to return
+    * @return the accessor resources in ascending order of resource id
+    */
+   public List<Resource> getAccessorResourcePageByResourcePermissions(SQLConnection connection,
+                                                                      Resource accessedResource,
+                                                                      Id<ResourceClassId> resourceClassId,
+                                                                      Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                                                      Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant,
+                                                                      Long afterResourceId,
+                                                                      int pageSize) {
+      SQLStatement statement = null;
+      try {
+         statement = connection.prepareStatement(
+               sqlStrings.getPageAccessorResourcesByPermissionsSQL(sysPermissionIdsWithGrant.size(),
+                                                                   permissionIdsWithGrant.size(),
+                                                                   pageSize));
+         int parameterIndex = 1;
+
+         if (!sysPermissionIdsWithGrant.isEmpty()) {
+            statement.setResourceId(parameterIndex++, accessedResource);
+            statement.setResourceClassId(parameterIndex++, resourceClassId);
+            for (Map.Entry<Long, Boolean> sysPermissionIdWithGrant : sysPermissionIdsWithGrant.entrySet()) {
+               statement.setResourceSystemPermissionId(parameterIndex++, sysPermissionIdWithGrant.getKey());
+               statement.setBoolean(parameterIndex++, sysPermissionIdWithGrant.getValue());
+            }
+         }
+         if (!permissionIdsWithGrant.isEmpty()) {
+            statement.setResourceId(parameterIndex++, accessedResource);
+            statement.setResourceClassId(parameterIndex++, resourceClassId);
+            for (Map.Entry<Id<ResourcePermissionId>, Boolean> permissionIdWithGrant : permissionIdsWithGrant.entrySet()) {
+               statement.setResourcePermissionId(parameterIndex++, permissionIdWithGrant.getKey());
+               statement.setBoolean(parameterIndex++, permissionIdWithGrant.getValue());
+            }
+         }
+         statement.setResourceId(parameterIndex, getPageStartResourceId(afterResourceId));
+
+         return getResourcePage(statement.executeQuery(), pageSize);
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+}
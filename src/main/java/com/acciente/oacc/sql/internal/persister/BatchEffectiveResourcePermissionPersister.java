@@ -0,0 +1,50 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.ResourcePermission;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceId;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the effective permissions of an accessor to many accessed resources at once, with a number of
+ * queries that does not depend on the number of accessed resources, but only on how many fit into an IN list.
+ */
+public interface BatchEffectiveResourcePermissionPersister {
+   /**
+    * Returns the direct and global resource permissions, including inherited ones, that the accessor has to
+    * each of the accessed resources.
+    *
+    * @param connection                   the connection
+    * @param accessorResource             the accessor resource
+    * @param accessedResourceIds          the ids of the (existing) accessed resources
+    * @param superUserAccessedResourceIds a set to which the ids of the accessed resources are added that lie in
+    *                                     a domain of which the accessor is a super-user
+    * @return the (uncollapsed) resource permissions by accessed resource id, which only contains the accessed
+    *         resources to which the accessor has any direct or global permissions
+    */
+   Map<Id<ResourceId>, Set<ResourcePermission>> getEffectiveResourcePermissions(SQLConnection connection,
+                                                                               Resource accessorResource,
+                                                                               Collection<Id<ResourceId>> accessedResourceIds,
+                                                                               Set<Id<ResourceId>> superUserAccessedResourceIds);
+}
@@ -24,6 +24,7 @@ import com.acciente.oacc.sql.internal.persister.id.Id;
 
 import java.io.Serializable;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Set;
 
 public abstract class CommonDomainPersister extends Persister implements DomainPersister, Serializable {
@@ -112,6 +113,10 @@ public abstract class CommonDomainPersister extends Persister implements DomainP
          statement = connection.prepareStatement(sqlStrings.SQL_createInDomain_WITH_ResourceDomainName);
          statement.setString(1, resourceDomainName);
          assertOneRowInserted(statement.executeUpdate());
+
+         if (sqlProfile.isDomainClosureEnabled()) {
+            addDomainClosure(connection, resourceDomainName, null);
+         }
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -133,6 +138,10 @@ public abstract class CommonDomainPersister extends Persister implements DomainP
          statement.setString(1, resourceDomainName);
          statement.setResourceDomainId(2, parentResourceDomainId);
          assertOneRowInserted(statement.executeUpdate());
+
+         if (sqlProfile.isDomainClosureEnabled()) {
+            addDomainClosure(connection, resourceDomainName, parentResourceDomainId);
+         }
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -144,4 +153,68 @@ public abstract class CommonDomainPersister extends Persister implements DomainP
 
    @Override
    public abstract void deleteDomain(SQLConnection connection, Id<DomainId> domainId);
+
+   // domain closure helper methods
+
+   private void addDomainClosure(SQLConnection connection,
+                                 String resourceDomainName,
+                                 Id<DomainId> parentResourceDomainId) {
+      SQLStatement statement = null;
+
+      try {
+         final Id<DomainId> resourceDomainId = getResourceDomainId(connection, resourceDomainName);
+
+         // every domain is its own ancestor at depth zero
+         statement = connection.prepareStatement(sqlStrings.SQL_createInDomainClosure_WITH_DomainID);
+         statement.setResourceDomainId(1, resourceDomainId);
+         statement.setResourceDomainId(2, resourceDomainId);
+         assertOneRowInserted(statement.executeUpdate());
+
+         if (parentResourceDomainId != null) {
+            closeStatement(statement);
+
+            // the ancestors of a child domain are its parent and the parent's ancestors, one level further away
+            statement = connection.prepareStatement(sqlStrings.SQL_createInDomainClosure_WITH_DomainID_ParentDomainID);
+            statement.setResourceDomainId(1, resourceDomainId);
+            statement.setResourceDomainId(2, parentResourceDomainId);
+
+            final int rowCount = statement.executeUpdate();
+
+            if (rowCount < 1) {
+               throw new IllegalStateException("Security table data update, 1 or more rows expected, got: " + rowCount);
+            }
+         }
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   protected void removeDomainClosure(SQLConnection connection,
+                                      List<Id<DomainId>> domainIds) {
+      SQLStatement statement = null;
+
+      try {
+         statement = connection.prepareStatement(sqlStrings.SQL_removeInDomainClosure_BY_DescendantDomainID);
+
+         for (Id<DomainId> domainId : domainIds) {
+            statement.setResourceDomainId(1, domainId);
+
+            final int rowCount = statement.executeUpdate();
+
+            if (rowCount < 1) {
+               throw new IllegalStateException("Security table data update, 1 or more rows expected, got: " + rowCount);
+            }
+         }
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
 }
@@ -124,9 +124,10 @@ public abstract class CommonGrantDomainCreatePermissionPostCreateSysPersister ex
                statement.setResourceId(1, accessorResource);
                statement.setDomainSystemPermissionId(2, domainCreatePermission.getPostCreateDomainPermission().getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -154,9 +155,10 @@ public abstract class CommonGrantDomainCreatePermissionPostCreateSysPersister ex
                statement.setBoolean(4, domainCreatePermission.getPostCreateDomainPermission().isWithGrantOption());
                statement.setDomainSystemPermissionId(5, domainCreatePermission.getPostCreateDomainPermission().getSystemPermissionId());
 
-               assertOneRowInserted(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -184,9 +186,10 @@ public abstract class CommonGrantDomainCreatePermissionPostCreateSysPersister ex
                statement.setResourceId(4, accessorResource);
                statement.setDomainSystemPermissionId(5, domainCreatePermission.getPostCreateDomainPermission().getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
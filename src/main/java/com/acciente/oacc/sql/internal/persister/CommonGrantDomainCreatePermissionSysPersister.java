@@ -98,9 +98,10 @@ public abstract class CommonGrantDomainCreatePermissionSysPersister extends Pers
                statement.setBoolean(3, domainCreatePermission.isWithGrantOption());
                statement.setDomainCreateSystemPermissionId(4, domainCreatePermission.getSystemPermissionId());
 
-               assertOneRowInserted(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -126,9 +127,10 @@ public abstract class CommonGrantDomainCreatePermissionSysPersister extends Pers
                statement.setResourceId(3, accessorResource);
                statement.setDomainCreateSystemPermissionId(4, domainCreatePermission.getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -169,9 +171,10 @@ public abstract class CommonGrantDomainCreatePermissionSysPersister extends Pers
                statement.setResourceId(1, accessorResource);
                statement.setDomainCreateSystemPermissionId(2, domainCreatePermission.getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -164,8 +164,9 @@ public abstract class CommonGrantDomainPermissionSysPersister extends Persister
             statement.setBoolean(4, domainPermission.isWithGrantOption());
             statement.setDomainSystemPermissionId(5, domainPermission.getSystemPermissionId());
 
-            assertOneRowInserted(statement.executeUpdate());
+            statement.addBatch();
          }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -193,8 +194,9 @@ public abstract class CommonGrantDomainPermissionSysPersister extends Persister
             statement.setResourceDomainId(4, resourceDomainId);
             statement.setDomainSystemPermissionId(5, domainPermission.getSystemPermissionId());
 
-            assertOneRowUpdated(statement.executeUpdate());
+            statement.addBatch();
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -259,8 +261,9 @@ public abstract class CommonGrantDomainPermissionSysPersister extends Persister
             statement.setResourceDomainId(2, resourceDomainId);
             statement.setDomainSystemPermissionId(3, domainPermission.getSystemPermissionId());
 
-            assertOneRowUpdated(statement.executeUpdate());
+            statement.addBatch();
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
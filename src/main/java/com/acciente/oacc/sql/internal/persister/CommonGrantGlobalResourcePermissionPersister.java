@@ -179,9 +179,10 @@ public abstract class CommonGrantGlobalResourcePermissionPersister extends Persi
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setString(6, resourcePermission.getPermissionName());
 
-               assertOneRowInserted(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -211,9 +212,10 @@ public abstract class CommonGrantGlobalResourcePermissionPersister extends Persi
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setString(6, resourcePermission.getPermissionName());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -286,9 +288,10 @@ public abstract class CommonGrantGlobalResourcePermissionPersister extends Persi
                statement.setResourceClassId(3, accessedResourceClassId);
                statement.setString(4, resourcePermission.getPermissionName());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -176,9 +176,10 @@ public abstract class CommonGrantGlobalResourcePermissionSysPersister extends Pe
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setResourceSystemPermissionId(6, resourcePermission.getSystemPermissionId());
 
-               assertOneRowInserted(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -208,9 +209,10 @@ public abstract class CommonGrantGlobalResourcePermissionSysPersister extends Pe
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setResourceSystemPermissionId(6, resourcePermission.getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -283,9 +285,10 @@ public abstract class CommonGrantGlobalResourcePermissionSysPersister extends Pe
                statement.setResourceClassId(3, accessedResourceClassId);
                statement.setResourceSystemPermissionId(4, resourcePermission.getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -177,9 +177,10 @@ public abstract class CommonGrantResourceCreatePermissionPostCreatePersister ext
                statement.setResourceClassId(6, accessedResourceClassId);
                statement.setString(7, resourceCreatePermission.getPostCreateResourcePermission().getPermissionName());
 
-               assertOneRowInserted(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -211,9 +212,10 @@ public abstract class CommonGrantResourceCreatePermissionPostCreatePersister ext
                statement.setResourceClassId(6, accessedResourceClassId);
                statement.setString(7, resourceCreatePermission.getPostCreateResourcePermission().getPermissionName());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -285,9 +287,10 @@ public abstract class CommonGrantResourceCreatePermissionPostCreatePersister ext
                statement.setResourceClassId(3, accessedResourceClassId);
                statement.setString(4, resourceCreatePermission.getPostCreateResourcePermission().getPermissionName());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
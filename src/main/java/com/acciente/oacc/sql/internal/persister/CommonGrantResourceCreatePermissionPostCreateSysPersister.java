@@ -177,9 +177,10 @@ public abstract class CommonGrantResourceCreatePermissionPostCreateSysPersister
                statement.setResourceClassId(6, accessedResourceClassId);
                statement.setResourceSystemPermissionId(7, resourceCreatePermission.getPostCreateResourcePermission().getSystemPermissionId());
 
-               assertOneRowInserted(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -211,9 +212,10 @@ public abstract class CommonGrantResourceCreatePermissionPostCreateSysPersister
                statement.setResourceClassId(6, accessedResourceClassId);
                statement.setResourceSystemPermissionId(7, resourceCreatePermission.getPostCreateResourcePermission().getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -285,9 +287,10 @@ public abstract class CommonGrantResourceCreatePermissionPostCreateSysPersister
                statement.setResourceClassId(3, accessedResourceClassId);
                statement.setResourceSystemPermissionId(4, resourceCreatePermission.getPostCreateResourcePermission().getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -164,9 +164,10 @@ public abstract class CommonGrantResourceCreatePermissionSysPersister extends Pe
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setResourceCreateSystemPermissionId(6, resourceCreatePermission.getSystemPermissionId());
 
-               assertOneRowInserted(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -196,9 +197,10 @@ public abstract class CommonGrantResourceCreatePermissionSysPersister extends Pe
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setResourceCreateSystemPermissionId(6, resourceCreatePermission.getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -269,9 +271,10 @@ public abstract class CommonGrantResourceCreatePermissionSysPersister extends Pe
                statement.setResourceClassId(3, accessedResourceClassId);
                statement.setResourceCreateSystemPermissionId(4, resourceCreatePermission.getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
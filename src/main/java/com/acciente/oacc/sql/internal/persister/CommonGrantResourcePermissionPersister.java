@@ -29,6 +29,7 @@ import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
 import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public abstract class CommonGrantResourcePermissionPersister extends Persister implements GrantResourcePermissionPersister, Serializable {
@@ -160,9 +161,45 @@ public abstract class CommonGrantResourcePermissionPersister extends Persister i
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setString(6, resourcePermission.getPermissionName());
 
-               assertOneRowInserted(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowInserted(statement.executeBatch());
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   @Override
+   public void addResourcePermissions(SQLConnection connection,
+                                      Resource accessorResource,
+                                      List<Resource> accessedResources,
+                                      Id<ResourceClassId> accessedResourceClassId,
+                                      Set<ResourcePermission> requestedResourcePermissions,
+                                      Resource grantorResource) {
+      SQLStatement statement = null;
+      try {
+         // add the new non-system permissions to all the accessed resources in a single batch
+         statement = connection.prepareStatement(sqlStrings.SQL_createInGrantResourcePermission_WITH_AccessorID_GrantorID_AccessedID_IsWithGrant_ResourceClassID_PermissionName);
+         for (Resource accessedResource : accessedResources) {
+            for (ResourcePermission resourcePermission : requestedResourcePermissions) {
+               if (!resourcePermission.isSystemPermission()) {
+                  statement.setResourceId(1, accessorResource);
+                  statement.setResourceId(2, grantorResource);
+                  statement.setResourceId(3, accessedResource);
+                  statement.setBoolean(4, resourcePermission.isWithGrantOption());
+                  statement.setResourceClassId(5, accessedResourceClassId);
+                  statement.setString(6, resourcePermission.getPermissionName());
+
+                  statement.addBatch();
+               }
+            }
+         }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -191,9 +228,10 @@ public abstract class CommonGrantResourcePermissionPersister extends Persister i
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setString(6, resourcePermission.getPermissionName());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -256,9 +294,10 @@ public abstract class CommonGrantResourcePermissionPersister extends Persister i
                statement.setResourceClassId(3, accessedResourceClassId);
                statement.setString(4, resourcePermission.getPermissionName());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -24,10 +24,13 @@ import com.acciente.oacc.sql.SQLProfile;
 import com.acciente.oacc.sql.internal.persister.id.DomainId;
 import com.acciente.oacc.sql.internal.persister.id.Id;
 import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
+import com.acciente.oacc.sql.internal.persister.id.ResourceId;
 
 import java.io.Serializable;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public abstract class CommonGrantResourcePermissionSysPersister extends Persister implements GrantResourcePermissionSysPersister, Serializable {
@@ -158,9 +161,10 @@ public abstract class CommonGrantResourcePermissionSysPersister extends Persiste
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setResourceSystemPermissionId(6, resourcePermission.getSystemPermissionId());
 
-               assertOneRowInserted(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowInserted(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -168,6 +172,49 @@ public abstract class CommonGrantResourcePermissionSysPersister extends Persiste
       finally {
          closeStatement(statement);
       }
+
+      if (sqlStrings.isInheritanceClosureEnabled() && containsInheritPermission(requestedResourcePermissions)) {
+         addInheritanceClosure(connection, accessorResource, accessedResource);
+      }
+   }
+
+   @Override
+   public void addResourceSysPermissions(SQLConnection connection,
+                                         Resource accessorResource,
+                                         List<Resource> accessedResources,
+                                         Id<ResourceClassId> accessedResourceClassId,
+                                         Set<ResourcePermission> requestedResourcePermissions,
+                                         Resource grantorResource) {
+      SQLStatement statement = null;
+      try {
+         // add the new system permissions to all the accessed resources in a single batch
+         statement = connection.prepareStatement(sqlStrings.SQL_createInGrantResourcePermissionSys_WITH_AccessorID_GrantorID_AccessedID_IsWithGrant_ResourceClassID_SysPermissionID);
+         for (Resource accessedResource : accessedResources) {
+            for (ResourcePermission resourcePermission : requestedResourcePermissions) {
+               if (resourcePermission.isSystemPermission()) {
+                  statement.setResourceId(1, accessorResource);
+                  statement.setResourceId(2, grantorResource);
+                  statement.setResourceId(3, accessedResource);
+                  statement.setBoolean(4, resourcePermission.isWithGrantOption());
+                  statement.setResourceClassId(5, accessedResourceClassId);
+                  statement.setResourceSystemPermissionId(6, resourcePermission.getSystemPermissionId());
+
+                  statement.addBatch();
+               }
+            }
+         }
+         assertOneRowInserted(statement.executeBatch());
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+
+      if (sqlStrings.isInheritanceClosureEnabled() && containsInheritPermission(requestedResourcePermissions)) {
+         addInheritanceClosure(connection, accessorResource, accessedResources);
+      }
    }
 
    @Override
@@ -190,9 +237,10 @@ public abstract class CommonGrantResourcePermissionSysPersister extends Persiste
                statement.setResourceClassId(5, accessedResourceClassId);
                statement.setResourceSystemPermissionId(6, resourcePermission.getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
             }
          }
+         assertOneRowUpdated(statement.executeBatch());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -218,12 +266,20 @@ public abstract class CommonGrantResourcePermissionSysPersister extends Persiste
       finally {
          closeStatement(statement);
       }
+
+      if (sqlStrings.isInheritanceClosureEnabled()) {
+         removeInheritanceClosure(connection, resource);
+      }
    }
 
    @Override
    public void removeResourceSysPermissions(SQLConnection connection,
                                             Resource accessorResource,
                                             Resource accessedResource) {
+      // a direct INHERIT grant implies that the accessor inherits from the accessed resource
+      final boolean isInheritanceAffected
+            = sqlStrings.isInheritanceClosureEnabled() && isInheritingFrom(connection, accessorResource, accessedResource);
+
       SQLStatement statement = null;
       try {
          statement = connection.prepareStatement(sqlStrings.SQL_removeInGrantResourcePermissionSys_BY_AccessorID_AccessedID);
@@ -237,6 +293,10 @@ public abstract class CommonGrantResourcePermissionSysPersister extends Persiste
       finally {
          closeStatement(statement);
       }
+
+      if (isInheritanceAffected) {
+         rebuildInheritanceClosureOfInheritors(connection, accessorResource);
+      }
    }
 
    @Override
@@ -255,9 +315,166 @@ public abstract class CommonGrantResourcePermissionSysPersister extends Persiste
                statement.setResourceClassId(3, accessedResourceClassId);
                statement.setResourceSystemPermissionId(4, resourcePermission.getSystemPermissionId());
 
-               assertOneRowUpdated(statement.executeUpdate());
+               statement.addBatch();
+            }
+         }
+         assertOneRowUpdated(statement.executeBatch());
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+
+      if (sqlStrings.isInheritanceClosureEnabled() && containsInheritPermission(requestedResourcePermissions)) {
+         rebuildInheritanceClosureOfInheritors(connection, accessorResource);
+      }
+   }
+
+   // inheritance closure helper methods
+
+   private static boolean containsInheritPermission(Set<ResourcePermission> resourcePermissions) {
+      for (ResourcePermission resourcePermission : resourcePermissions) {
+         if (resourcePermission.isSystemPermission()
+               && ResourcePermissions.INHERIT.equals(resourcePermission.getPermissionName())) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private boolean isInheritingFrom(SQLConnection connection,
+                                    Resource accessorResource,
+                                    Resource accessedResource) {
+      return NonRecursivePersisterHelper
+            .findResourceIdsInInheritanceClosure(connection,
+                                                 sqlStrings.SQL_findInInheritanceClosure_InheritedResourceID_BY_AccessorID,
+                                                 Id.<ResourceId>from(accessorResource.getId()))
+            .contains(Id.<ResourceId>from(accessedResource.getId()));
+   }
+
+   private void addInheritanceClosure(SQLConnection connection,
+                                      Resource accessorResource,
+                                      Resource accessedResource) {
+      addInheritanceClosure(connection, accessorResource, Collections.singletonList(accessedResource));
+   }
+
+   private void addInheritanceClosure(SQLConnection connection,
+                                      Resource accessorResource,
+                                      List<Resource> accessedResources) {
+      SQLStatement statement = null;
+      try {
+         // the accessor and every resource that inherits from it now also inherit from each accessed resource,
+         // and from every resource that accessed resource inherits from
+         statement = connection.prepareStatement(sqlStrings.SQL_createInInheritanceClosure_WITH_AccessorID_AccessedID);
+         for (Resource accessedResource : accessedResources) {
+            statement.setResourceId(1, accessorResource);
+            statement.setResourceId(2, accessorResource);
+            statement.setResourceId(3, accessedResource);
+            statement.setResourceId(4, accessedResource);
+
+            statement.addBatch();
+         }
+         statement.executeBatch();
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   private void removeInheritanceClosure(SQLConnection connection,
+                                         Resource resource) {
+      final Id<ResourceId> resourceId = Id.from(resource.getId());
+
+      // the resources that inherited from the removed resource may still inherit some of the same resources
+      // through other paths, so their closure is recomputed rather than patched
+      final List<Id<ResourceId>> inheritorResourceIds
+            = NonRecursivePersisterHelper.findResourceIdsInInheritanceClosure(connection,
+                                                                              sqlStrings.SQL_findInInheritanceClosure_AccessorID_BY_InheritedResourceID,
+                                                                              resourceId);
+
+      SQLStatement statement = null;
+      try {
+         statement = connection.prepareStatement(sqlStrings.SQL_removeInInheritanceClosure_BY_AccessorID);
+         statement.setResourceId(1, resourceId);
+         statement.executeUpdate();
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+
+      rebuildInheritanceClosure(connection, inheritorResourceIds);
+   }
+
+   private void rebuildInheritanceClosureOfInheritors(SQLConnection connection,
+                                                      Resource accessorResource) {
+      final Id<ResourceId> accessorResourceId = Id.from(accessorResource.getId());
+
+      // revoking INHERIT from the accessor affects the accessor and every resource that inherits from it
+      final List<Id<ResourceId>> inheritorResourceIds
+            = NonRecursivePersisterHelper.findResourceIdsInInheritanceClosure(connection,
+                                                                              sqlStrings.SQL_findInInheritanceClosure_AccessorID_BY_InheritedResourceID,
+                                                                              accessorResourceId);
+      inheritorResourceIds.add(accessorResourceId);
+
+      rebuildInheritanceClosure(connection, inheritorResourceIds);
+   }
+
+   private void rebuildInheritanceClosure(SQLConnection connection,
+                                          List<Id<ResourceId>> accessorResourceIds) {
+      if (accessorResourceIds.isEmpty()) {
+         return;
+      }
+
+      // the closure of the accessors is discarded, and then derived again from their INHERIT grants and the
+      // closure of the resources they inherit from, one level per round for all of them at once; the closure of
+      // any other resource is unaffected, so the number of statements depends on the depth of the inheritance
+      // graph rather than on the number of accessors
+      final List<List<Id<ResourceId>>> partitionedAccessorResourceIds
+            = partition(accessorResourceIds, sqlStrings.getMaxInListSize());
+
+      executeUpdateForEachPartition(connection,
+                                    sqlStrings.SQL_removeInInheritanceClosure_BY_AccessorID_IN,
+                                    partitionedAccessorResourceIds);
+      executeUpdateForEachPartition(connection,
+                                    sqlStrings.SQL_createInInheritanceClosure_directInheritance_BY_AccessorID_IN,
+                                    partitionedAccessorResourceIds);
+
+      int insertedRowCount;
+      do {
+         insertedRowCount
+               = executeUpdateForEachPartition(connection,
+                                               sqlStrings.SQL_createInInheritanceClosure_transitiveInheritance_BY_AccessorID_IN,
+                                               partitionedAccessorResourceIds);
+      } while (insertedRowCount > 0);
+   }
+
+   private int executeUpdateForEachPartition(SQLConnection connection,
+                                             String sqlPrefix,
+                                             List<List<Id<ResourceId>>> partitionedResourceIds) {
+      SQLStatement statement = null;
+      try {
+         int rowCount = 0;
+
+         for (List<Id<ResourceId>> resourceIds : partitionedResourceIds) {
+            final int parameterCount = getInListParameterCount(sqlStrings, resourceIds.size());
+            statement = connection.prepareStatement(sqlStrings.getInListSQL(sqlPrefix, parameterCount));
+            for (int i = 0; i < parameterCount; i++) {
+               statement.setResourceId(i + 1, getPaddedElement(resourceIds, i));
             }
+            rowCount += statement.executeUpdate();
+            statement.close();
+            statement = null;
          }
+
+         return rowCount;
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -19,6 +19,7 @@ package com.acciente.oacc.sql.internal.persister;
 
 import com.acciente.oacc.Resource;
 import com.acciente.oacc.Resources;
+import com.acciente.oacc.sql.SQLDialect;
 import com.acciente.oacc.sql.SQLProfile;
 import com.acciente.oacc.sql.internal.persister.id.DomainId;
 import com.acciente.oacc.sql.internal.persister.id.Id;
@@ -27,6 +28,13 @@ import com.acciente.oacc.sql.internal.persister.id.ResourceId;
 
 import java.io.Serializable;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public abstract class CommonResourcePersister extends Persister implements ResourcePersister, Serializable {
    private static final long serialVersionUID = 1L;
@@ -136,6 +144,116 @@ public abstract class CommonResourcePersister extends Persister implements Resou
       }
    }
 
+   @Override
+   public List<Resource> createResources(SQLConnection connection,
+                                         Id<ResourceClassId> resourceClassId,
+                                         Id<DomainId> resourceDomainId,
+                                         List<String> externalIds) {
+      SQLStatement statement = null;
+
+      try {
+         final List<Id<ResourceId>> newResourceIds;
+
+         // pick the resource creation strategy based on if the database supports sequence generators
+         if (sqlProfile.isSequenceEnabled()) {
+            newResourceIds = getNextResourceIds(connection, externalIds.size());
+
+            statement = connection.prepareStatement(sqlStrings.SQL_createInResource_WITH_ResourceID_ResourceClassID_DomainID);
+            for (Id<ResourceId> newResourceId : newResourceIds) {
+               statement.setResourceId(1, newResourceId);
+               statement.setResourceClassId(2, resourceClassId);
+               statement.setResourceDomainId(3, resourceDomainId);
+
+               statement.addBatch();
+            }
+            assertOneRowInserted(statement.executeBatch());
+            statement.close();
+            statement = null;
+         }
+         else {
+            newResourceIds = new ArrayList<>(externalIds.size());
+
+            // each row of the multi-row insert takes two parameters
+            for (List<String> partitionedExternalIds : partition(externalIds, sqlStrings.getMaxInListSize() / 2)) {
+               final int rowCount = partitionedExternalIds.size();
+               statement = connection.prepareStatement(
+                     sqlStrings.getMultiRowValuesSQL(sqlStrings.SQL_createInResource_WITH_ResourceClassID_DomainID_VALUES,
+                                                     rowCount,
+                                                     2),
+                     GENERATED_KEY_COLUMNS);
+               for (int i = 0; i < rowCount; i++) {
+                  statement.setResourceClassId(2 * i + 1, resourceClassId);
+                  statement.setResourceDomainId(2 * i + 2, resourceDomainId);
+               }
+
+               final int rowsInserted = statement.executeUpdate();
+               if (rowsInserted != rowCount) {
+                  throw new IllegalStateException("Security table data insert, "
+                                                        + rowCount + " rows expected, got: " + rowsInserted);
+               }
+
+               newResourceIds.addAll(getGeneratedResourceIds(statement, rowCount));
+               statement.close();
+               statement = null;
+            }
+         }
+
+         // save the new resources' external ids and return the new resources
+         final List<Resource> newResources = new ArrayList<>(newResourceIds.size());
+
+         statement = connection.prepareStatement(sqlStrings.SQL_createInResourceExternalId_WITH_ResourceID_ExternalID);
+         for (int i = 0; i < newResourceIds.size(); i++) {
+            final Id<ResourceId> newResourceId = newResourceIds.get(i);
+            final String externalId = externalIds.get(i);
+
+            statement.setResourceId(1, newResourceId);
+            statement.setString(2, externalId);
+            statement.addBatch();
+
+            newResources.add(Resources.getInstance(newResourceId.getValue(), externalId));
+         }
+         assertOneRowInserted(statement.executeBatch());
+
+         return newResources;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   private List<Id<ResourceId>> getGeneratedResourceIds(SQLStatement statement,
+                                                        int rowCount) throws SQLException {
+      final List<Id<ResourceId>> generatedResourceIds = new ArrayList<>(rowCount);
+      final SQLResult generatedKeys = statement.getGeneratedKeys();
+
+      while (generatedKeys.next()) {
+         generatedResourceIds.add(generatedKeys.getNextResourceId(1));
+      }
+      generatedKeys.close();
+
+      if (generatedResourceIds.size() == 1 && rowCount > 1 && sqlProfile.getSqlDialect() == SQLDialect.SQLite_3_8) {
+         // SQLite's driver only reports the last row id of a multi-row insert, which ends a contiguous range of
+         // keys, since SQLite assigns the keys of a single statement in sequence; other drivers that report a
+         // single key may report the first one instead (e.g. MySQL's), so they are rejected below
+         final long lastResourceId = generatedResourceIds.get(0).getValue();
+
+         generatedResourceIds.clear();
+         for (long resourceId = lastResourceId - rowCount + 1; resourceId <= lastResourceId; resourceId++) {
+            generatedResourceIds.add(Id.<ResourceId>from(resourceId));
+         }
+      }
+
+      if (generatedResourceIds.size() != rowCount) {
+         throw new IllegalStateException("could not retrieve auto-generated ResourceIds, "
+                                               + rowCount + " expected, got: " + generatedResourceIds.size());
+      }
+
+      return generatedResourceIds;
+   }
+
    @Override
    public Resource setExternalId(SQLConnection connection,
                                  Id<ResourceId> resourceId,
@@ -216,6 +334,42 @@ public abstract class CommonResourcePersister extends Persister implements Resou
       }
    }
 
+   @Override
+   public Map<Id<ResourceId>, String> getResourceClassNamesByResourceIds(SQLConnection connection,
+                                                                         Collection<Id<ResourceId>> resourceIds) {
+      SQLStatement statement = null;
+
+      try {
+         Map<Id<ResourceId>, String> resourceClassNames = new HashMap<>(resourceIds.size());
+
+         for (List<Id<ResourceId>> partitionedResourceIds : partition(resourceIds, sqlStrings.getMaxInListSize())) {
+            final int parameterCount = getInListParameterCount(sqlStrings, partitionedResourceIds.size());
+            statement = connection.prepareStatement(
+                  sqlStrings.getInListSQL(sqlStrings.SQL_findInResource_ResourceID_ResourceClassName_BY_ResourceID_IN,
+                                          parameterCount));
+            for (int i = 0; i < parameterCount; i++) {
+               statement.setResourceId(i + 1, getPaddedElement(partitionedResourceIds, i));
+            }
+            SQLResult resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+               resourceClassNames.put(resultSet.getResourceId("ResourceId"), resultSet.getString("ResourceClassName"));
+            }
+            resultSet.close();
+            statement.close();
+            statement = null;
+         }
+
+         return resourceClassNames;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
    @Override
    public Id<ResourceId> getNextResourceId(SQLConnection connection) {
       SQLStatement statement = null;
@@ -243,6 +397,74 @@ public abstract class CommonResourcePersister extends Persister implements Resou
       }
    }
 
+   @Override
+   public List<Id<ResourceId>> getNextResourceIds(SQLConnection connection, int count) {
+      final List<Id<ResourceId>> newResourceIds = new ArrayList<>(count);
+      SQLStatement statement = null;
+
+      try {
+         SQLResult resultSet;
+
+         statement = connection.prepareStatement(sqlStrings.SQL_nextResourceIDs_BY_Count);
+         statement.setInt(1, count);
+         resultSet = statement.executeQuery();
+
+         while (resultSet.next()) {
+            newResourceIds.add(resultSet.getNextResourceId(1));
+         }
+         resultSet.close();
+
+         if (newResourceIds.size() != count) {
+            throw new IllegalStateException("could not retrieve next ResourceIds from sequence, "
+                                                  + count + " expected, got: " + newResourceIds.size());
+         }
+
+         return newResourceIds;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   @Override
+   public Set<String> getExistingExternalIds(SQLConnection connection,
+                                             Collection<String> externalIds) {
+      SQLStatement statement = null;
+
+      try {
+         Set<String> existingExternalIds = new HashSet<>();
+
+         for (List<String> partitionedExternalIds : partition(externalIds, sqlStrings.getMaxInListSize())) {
+            final int parameterCount = getInListParameterCount(sqlStrings, partitionedExternalIds.size());
+            statement = connection.prepareStatement(
+                  sqlStrings.getInListSQL(sqlStrings.SQL_findInResourceExternalId_ExternalId_BY_ExternalID_IN,
+                                          parameterCount));
+            for (int i = 0; i < parameterCount; i++) {
+               statement.setString(i + 1, getPaddedElement(partitionedExternalIds, i));
+            }
+            SQLResult resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+               existingExternalIds.add(resultSet.getString("ExternalId"));
+            }
+            resultSet.close();
+            statement.close();
+            statement = null;
+         }
+
+         return existingExternalIds;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
    @Override
    public abstract boolean isDomainEmpty(SQLConnection connection, Id<DomainId> resourceDomainId);
 
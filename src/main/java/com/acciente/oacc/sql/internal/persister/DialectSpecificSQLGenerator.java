@@ -26,14 +26,20 @@ class DialectSpecificSQLGenerator {
    private final String nextSeqValueStatementSuffix;
    private final String nextSeqValueFragmentPrefix;
    private final String nextSeqValueFragmentSuffix;
+   private final String nextSeqValuesStatementPrefix;
+   private final String nextSeqValuesStatementSuffix;
+   private final String pageStatementPrefix;
+   private final String pageStatementInfix;
+   private final String pageStatementSuffix;
+   private final int    maxInListSize;
 
-   private static final DialectSpecificSQLGenerator DB2_10_5       = new DialectSpecificSQLGenerator("WITH", "UNION ALL", "VALUES ( NEXT VALUE FOR ", " )", "NEXT VALUE FOR ", "");
-   private static final DialectSpecificSQLGenerator Oracle_11_2    = new DialectSpecificSQLGenerator("WITH", "UNION ALL", "SELECT ", ".NEXTVAL FROM DUAL", "", ".NEXTVAL");
-   private static final DialectSpecificSQLGenerator PostgreSQL_9_3 = new DialectSpecificSQLGenerator("WITH RECURSIVE", "UNION ALL", "SELECT nextval('", "')", "nextval('", "')");
-   private static final DialectSpecificSQLGenerator SQLServer_12_0 = new DialectSpecificSQLGenerator("WITH", "UNION ALL", "SELECT NEXT VALUE FOR ", "", "NEXT VALUE FOR ", "");
-   private static final DialectSpecificSQLGenerator SQLite_3_8     = new DialectSpecificSQLGenerator("WITH RECURSIVE", "UNION ALL", null, null, null, null);
-   private static final DialectSpecificSQLGenerator MySQL_5_6      = new DialectSpecificSQLGenerator(null, null, null, null, null, null);
-   private static final DialectSpecificSQLGenerator HSQLDB_2_3     = new DialectSpecificSQLGenerator(null, null, "VALUES NEXT VALUE FOR ", "", "NEXT VALUE FOR ", "");
+   private static final DialectSpecificSQLGenerator DB2_10_5       = new DialectSpecificSQLGenerator("WITH", "UNION ALL", "VALUES ( NEXT VALUE FOR ", " )", "NEXT VALUE FOR ", "", "WITH N ( I ) AS ( VALUES ( 1 ) UNION ALL SELECT I + 1 FROM N WHERE I < CAST( ? AS INTEGER ) ) SELECT NEXT VALUE FOR ", " FROM N", "", " FETCH FIRST ", " ROWS ONLY", 1000);
+   private static final DialectSpecificSQLGenerator Oracle_11_2    = new DialectSpecificSQLGenerator("WITH", "UNION ALL", "SELECT ", ".NEXTVAL FROM DUAL", "", ".NEXTVAL", "SELECT ", ".NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?", "SELECT * FROM ( ", " ) WHERE ROWNUM <= ", "", 1000);
+   private static final DialectSpecificSQLGenerator PostgreSQL_9_3 = new DialectSpecificSQLGenerator("WITH RECURSIVE", "UNION ALL", "SELECT nextval('", "')", "nextval('", "')", "SELECT nextval('", "') FROM generate_series( 1, ? )", "", " LIMIT ", "", 1000);
+   private static final DialectSpecificSQLGenerator SQLServer_12_0 = new DialectSpecificSQLGenerator("WITH", "UNION ALL", "SELECT NEXT VALUE FOR ", "", "NEXT VALUE FOR ", "", "SET NOCOUNT ON; DECLARE @RangeSize BIGINT = ?, @FirstValue SQL_VARIANT, @Increment SQL_VARIANT; EXEC sys.sp_sequence_get_range @sequence_name = N'", "', @range_size = @RangeSize, @range_first_value = @FirstValue OUTPUT, @sequence_increment = @Increment OUTPUT; WITH N ( I, Value ) AS ( SELECT CAST( 1 AS BIGINT ), CAST( @FirstValue AS BIGINT ) UNION ALL SELECT I + 1, Value + CAST( @Increment AS BIGINT ) FROM N WHERE I < @RangeSize ) SELECT Value FROM N OPTION ( MAXRECURSION 0 )", "", " OFFSET 0 ROWS FETCH NEXT ", " ROWS ONLY", 2000);
+   private static final DialectSpecificSQLGenerator SQLite_3_8     = new DialectSpecificSQLGenerator("WITH RECURSIVE", "UNION ALL", null, null, null, null, null, null, "", " LIMIT ", "", 999);
+   private static final DialectSpecificSQLGenerator MySQL_5_6      = new DialectSpecificSQLGenerator(null, null, null, null, null, null, null, null, "", " LIMIT ", "", 1000);
+   private static final DialectSpecificSQLGenerator HSQLDB_2_3     = new DialectSpecificSQLGenerator(null, null, "VALUES NEXT VALUE FOR ", "", "NEXT VALUE FOR ", "", "SELECT NEXT VALUE FOR ", " FROM UNNEST( SEQUENCE_ARRAY( 1, CAST( ? AS INTEGER ), 1 ) )", "", " LIMIT ", "", 1000);
 
    static DialectSpecificSQLGenerator getInstance(SQLDialect sqlDialect) {
       switch (sqlDialect) {
@@ -72,18 +78,52 @@ class DialectSpecificSQLGenerator {
       return nextSeqValueFragmentPrefix + qualifiedSequenceName + nextSeqValueFragmentSuffix;
    }
 
+   // a statement that draws the number of sequence values given by its single parameter in one round-trip, or null
+   // if the dialect has no sequences: DB2 and HSQLDB select the next value once per generated row, while SQL Server
+   // reserves the whole range with sp_sequence_get_range and then enumerates it
+   String nextSequenceValuesStatement(String qualifiedSequenceName) {
+      if (nextSeqValuesStatementPrefix == null) {
+         return null;
+      }
+      return nextSeqValuesStatementPrefix + qualifiedSequenceName + nextSeqValuesStatementSuffix;
+   }
+
+   // limits an ordered query to its first rows, with the row count inlined since DB2 does not accept a parameter
+   // marker in its FETCH FIRST clause; Oracle 11g has no row limiting clause, so the query is filtered by ROWNUM
+   String pageStatement(String orderedStatement, int pageSize) {
+      return pageStatementPrefix + orderedStatement + pageStatementInfix + pageSize + pageStatementSuffix;
+   }
+
+   // the maximum number of parameters in a single IN list: Oracle rejects lists of more than 1000 expressions,
+   // SQL Server caps a statement at 2100 parameters and SQLite defaults to at most 999 host parameters
+   int getMaxInListSize() {
+      return maxInListSize;
+   }
+
    // private constructor to force use of constants
    private DialectSpecificSQLGenerator(String withClause,
                       String unionClause,
                       String nextSeqValueStatementPrefix,
                       String nextSeqValueStatementSuffix,
                       String nextSeqValueFragmentPrefix,
-                      String nextSeqValueFragmentSuffix) {
+                      String nextSeqValueFragmentSuffix,
+                      String nextSeqValuesStatementPrefix,
+                      String nextSeqValuesStatementSuffix,
+                      String pageStatementPrefix,
+                      String pageStatementInfix,
+                      String pageStatementSuffix,
+                      int maxInListSize) {
       this.withClause = withClause;
       this.unionClause = unionClause;
       this.nextSeqValueStatementPrefix = nextSeqValueStatementPrefix;
       this.nextSeqValueStatementSuffix = nextSeqValueStatementSuffix;
       this.nextSeqValueFragmentPrefix = nextSeqValueFragmentPrefix;
       this.nextSeqValueFragmentSuffix = nextSeqValueFragmentSuffix;
+      this.nextSeqValuesStatementPrefix = nextSeqValuesStatementPrefix;
+      this.nextSeqValuesStatementSuffix = nextSeqValuesStatementSuffix;
+      this.pageStatementPrefix = pageStatementPrefix;
+      this.pageStatementInfix = pageStatementInfix;
+      this.pageStatementSuffix = pageStatementSuffix;
+      this.maxInListSize = maxInListSize;
    }
 }
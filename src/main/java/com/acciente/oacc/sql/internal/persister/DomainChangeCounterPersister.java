@@ -0,0 +1,75 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+
+/**
+ * Maintains the single-row, monotonically increasing counter of domain creations and deletions, which allows
+ * the in-memory domain hierarchy indexes of other access control contexts to detect that they may be stale.
+ */
+public class DomainChangeCounterPersister extends Persister implements Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final SQLStrings sqlStrings;
+
+   public DomainChangeCounterPersister(SQLStrings sqlStrings) {
+      this.sqlStrings = sqlStrings;
+   }
+
+   public long getChangeCount(SQLConnection connection) {
+      SQLStatement statement = null;
+
+      try {
+         statement = connection.prepareStatement(sqlStrings.SQL_findInDomainChangeCounter_ChangeCount);
+         SQLResult resultSet = statement.executeQuery();
+
+         if (!resultSet.next()) {
+            throw new IllegalStateException("Domain change counter not initialized, 1 row expected, got: 0");
+         }
+
+         final long changeCount = resultSet.getLong("ChangeCount");
+         resultSet.close();
+
+         return changeCount;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   public void incrementChangeCount(SQLConnection connection) {
+      SQLStatement statement = null;
+
+      try {
+         statement = connection.prepareStatement(sqlStrings.SQL_updateInDomainChangeCounter_increment_ChangeCount);
+
+         assertOneRowUpdated(statement.executeUpdate());
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+}
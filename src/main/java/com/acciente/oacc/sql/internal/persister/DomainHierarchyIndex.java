@@ -0,0 +1,253 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.sql.internal.persister.id.DomainId;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory index of the domain hierarchy in the <code>OAC_Domain</code> table, which allows the non-recursive
+ * persisters to answer ancestor and descendant domain queries without issuing one query per domain or level.
+ * <p>
+ * The index is loaded in a single query on first use, and reloaded when the domain change counter differs
+ * from its value at the last load; the counter is polled at most once per poll interval. Domains created or
+ * deleted through the persisters that share this index are applied to it incrementally, so that they are
+ * visible immediately.
+ * <p>
+ * The lookup methods return null for a domain that is not in the index, in which case the caller should fall
+ * back to querying the database. The index is not serialized; a deserialized index is reloaded on first use.
+ */
+public class DomainHierarchyIndex implements Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final SQLStrings                   sqlStrings;
+   private final DomainChangeCounterPersister domainChangeCounterPersister;
+   private final long                         pollIntervalMillis;
+
+   // the loaded hierarchy, null when the index has not been loaded yet
+   private transient Map<Id<DomainId>, Node> nodesById;
+   private transient Map<String, Node>       nodesByName;
+   private transient long                    loadedChangeCount;
+   private transient long                    lastPollTimeMillis;
+
+   public DomainHierarchyIndex(SQLStrings sqlStrings,
+                               DomainChangeCounterPersister domainChangeCounterPersister,
+                               long pollIntervalMillis) {
+      this.sqlStrings = sqlStrings;
+      this.domainChangeCounterPersister = domainChangeCounterPersister;
+      this.pollIntervalMillis = pollIntervalMillis;
+   }
+
+   public long getPollIntervalMillis() {
+      return pollIntervalMillis;
+   }
+
+   public synchronized Set<Id<DomainId>> getAncestorDomainIds(SQLConnection connection,
+                                                              Id<DomainId> domainId) {
+      refreshIfStale(connection);
+
+      Node node = nodesById.get(domainId);
+      if (node == null) {
+         return null;
+      }
+
+      Set<Id<DomainId>> ancestorDomainIds = new HashSet<>();
+      while (node != null) {
+         ancestorDomainIds.add(node.domainId);
+         node = node.parent;
+      }
+      return ancestorDomainIds;
+   }
+
+   public synchronized Set<Id<DomainId>> getDescendantDomainIdsOrderedByAscendingLevel(SQLConnection connection,
+                                                                                       Id<DomainId> parentDomainId) {
+      refreshIfStale(connection);
+
+      final Node parentNode = nodesById.get(parentDomainId);
+      if (parentNode == null) {
+         return null;
+      }
+
+      Set<Id<DomainId>> descendantDomainIds = new LinkedHashSet<>();
+      for (Node node : getDescendantNodesOrderedByAscendingLevel(parentNode)) {
+         descendantDomainIds.add(node.domainId);
+      }
+      return descendantDomainIds;
+   }
+
+   public synchronized Set<String> getDescendantDomainNames(SQLConnection connection,
+                                                            String parentDomainName) {
+      refreshIfStale(connection);
+
+      final Node parentNode = nodesByName.get(parentDomainName);
+      if (parentNode == null) {
+         return null;
+      }
+
+      Set<String> descendantDomainNames = new HashSet<>();
+      for (Node node : getDescendantNodesOrderedByAscendingLevel(parentNode)) {
+         descendantDomainNames.add(node.domainName);
+      }
+      return descendantDomainNames;
+   }
+
+   public synchronized void addDomain(Id<DomainId> domainId,
+                                      String domainName,
+                                      Id<DomainId> parentDomainId) {
+      if (nodesById == null || nodesById.containsKey(domainId)) {
+         // the next load will include the new domain, or a reload already did
+         return;
+      }
+
+      final Node parentNode;
+      if (parentDomainId == null) {
+         parentNode = null;
+      }
+      else {
+         parentNode = nodesById.get(parentDomainId);
+         if (parentNode == null) {
+            // the index does not know the parent, so it is out of date
+            invalidate();
+            return;
+         }
+      }
+
+      addNode(new Node(domainId, domainName), parentNode);
+   }
+
+   public synchronized void removeDomain(Id<DomainId> domainId) {
+      if (nodesById == null) {
+         return;
+      }
+
+      final Node node = nodesById.get(domainId);
+      if (node == null) {
+         return;
+      }
+
+      if (node.parent != null) {
+         node.parent.children.remove(node);
+      }
+      for (Node removedNode : getDescendantNodesOrderedByAscendingLevel(node)) {
+         nodesById.remove(removedNode.domainId);
+         nodesByName.remove(removedNode.domainName);
+      }
+   }
+
+   public synchronized void invalidate() {
+      nodesById = null;
+      nodesByName = null;
+   }
+
+   private void refreshIfStale(SQLConnection connection) {
+      final long currentTimeMillis = System.currentTimeMillis();
+
+      if (nodesById != null && currentTimeMillis - lastPollTimeMillis < pollIntervalMillis) {
+         return;
+      }
+
+      // read the counter before loading, so that a concurrent change causes another reload at the next poll
+      final long changeCount = domainChangeCounterPersister.getChangeCount(connection);
+      lastPollTimeMillis = currentTimeMillis;
+
+      if (nodesById == null || changeCount != loadedChangeCount) {
+         load(connection);
+         loadedChangeCount = changeCount;
+      }
+   }
+
+   private void load(SQLConnection connection) {
+      SQLStatement statement = null;
+
+      try {
+         Map<Id<DomainId>, Node> loadedNodesById = new HashMap<>();
+         Map<Id<DomainId>, Id<DomainId>> parentDomainIdsById = new HashMap<>();
+
+         statement = connection.prepareStatement(sqlStrings.SQL_findInDomain_DomainID_ResourceDomainName_ParentDomainID);
+         SQLResult resultSet = statement.executeQuery();
+
+         while (resultSet.next()) {
+            final Id<DomainId> domainId = resultSet.getResourceDomainId("DomainId");
+            final Id<DomainId> parentDomainId = resultSet.getNullableResourceDomainId("ParentDomainId");
+
+            loadedNodesById.put(domainId, new Node(domainId, resultSet.getString("DomainName")));
+            if (parentDomainId != null) {
+               parentDomainIdsById.put(domainId, parentDomainId);
+            }
+         }
+         resultSet.close();
+
+         nodesById = new HashMap<>(loadedNodesById.size());
+         nodesByName = new HashMap<>(loadedNodesById.size());
+
+         for (Node node : loadedNodesById.values()) {
+            final Id<DomainId> parentDomainId = parentDomainIdsById.get(node.domainId);
+            addNode(node, parentDomainId == null ? null : loadedNodesById.get(parentDomainId));
+         }
+      }
+      catch (SQLException e) {
+         invalidate();
+         throw new RuntimeException(e);
+      }
+      finally {
+         Persister.closeStatement(statement);
+      }
+   }
+
+   private void addNode(Node node, Node parentNode) {
+      node.parent = parentNode;
+      if (parentNode != null) {
+         parentNode.children.add(node);
+      }
+      nodesById.put(node.domainId, node);
+      nodesByName.put(node.domainName, node);
+   }
+
+   private static List<Node> getDescendantNodesOrderedByAscendingLevel(Node parentNode) {
+      List<Node> descendantNodes = new ArrayList<>();
+      descendantNodes.add(parentNode);
+
+      // the list doubles as the queue of a breadth-first traversal, which yields the nodes level by level
+      for (int i = 0; i < descendantNodes.size(); i++) {
+         descendantNodes.addAll(descendantNodes.get(i).children);
+      }
+      return descendantNodes;
+   }
+
+   private static class Node {
+      private final Id<DomainId> domainId;
+      private final String       domainName;
+      private final List<Node>   children = new ArrayList<>();
+      private Node parent;
+
+      private Node(Id<DomainId> domainId, String domainName) {
+         this.domainId = domainId;
+         this.domainName = domainName;
+      }
+   }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.ResourcePermission;
+import com.acciente.oacc.ResourcePermissions;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Computes the effective permissions of an accessor to a resource with a single statement, instead of
+ * the separate lookups of the accessed resource's domain and class, the super-user check and the direct
+ * and global permission queries. Only supported by profiles with recursive common table expressions.
+ */
+public class EffectiveResourcePermissionPersister extends Persister implements Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final SQLStrings sqlStrings;
+
+   public EffectiveResourcePermissionPersister(SQLStrings sqlStrings) {
+      if (sqlStrings.SQL_findInGrantResourcePermission_EffectivePermissions_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID == null) {
+         throw new IllegalArgumentException("Effective resource permission query is not supported by SQL profile: "
+                                                  + sqlStrings.getSqlProfile());
+      }
+      this.sqlStrings = sqlStrings;
+   }
+
+   /**
+    * Returns the direct and global resource permissions, including inherited ones, that the accessor has
+    * to the accessed resource.
+    *
+    * @return the (uncollapsed) resource permissions, or <code>null</code> if the accessor is a super-user
+    *         of the accessed resource's domain, in which case the applicable permissions of the accessed
+    *         resource's class apply instead
+    */
+   public Set<ResourcePermission> getEffectiveResourcePermissionsIgnoringSuperUser(SQLConnection connection,
+                                                                                  Resource accessorResource,
+                                                                                  Resource accessedResource) {
+      SQLStatement statement = null;
+      try {
+         Set<ResourcePermission> resourcePermissions = new HashSet<>();
+
+         statement = connection.prepareStatement(sqlStrings.SQL_findInGrantResourcePermission_EffectivePermissions_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID);
+         statement.setResourceId(1, accessorResource);
+         statement.setResourceId(2, accessedResource);
+         SQLResult resultSet = statement.executeQuery();
+
+         while (resultSet.next()) {
+            final String permissionKind = resultSet.getString("PermissionKind");
+
+            if (SQLStrings.EffectivePermissionKind_SUPER_USER.equals(permissionKind)) {
+               resultSet.close();
+               return null;
+            }
+
+            final String permissionName;
+            if (SQLStrings.EffectivePermissionKind_SYS.equals(permissionKind)) {
+               permissionName = resultSet.getResourceSysPermissionName("SysPermissionId");
+            }
+            else {
+               permissionName = resultSet.getString("PermissionName");
+            }
+
+            if (resultSet.getBoolean("IsWithGrant")) {
+               resourcePermissions.add(ResourcePermissions.getInstanceWithGrantOption(permissionName));
+            }
+            else {
+               resourcePermissions.add(ResourcePermissions.getInstance(permissionName));
+            }
+         }
+         resultSet.close();
+
+         return resourcePermissions;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+}
@@ -24,6 +24,7 @@ import com.acciente.oacc.sql.internal.persister.id.Id;
 import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
 import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
 
+import java.util.List;
 import java.util.Set;
 
 public interface GrantResourcePermissionPersister {
@@ -61,6 +62,13 @@ public interface GrantResourcePermissionPersister {
                                Set<ResourcePermission> requestedResourcePermissions,
                                Resource grantorResource);
 
+   void addResourcePermissions(SQLConnection connection,
+                               Resource accessorResource,
+                               List<Resource> accessedResources,
+                               Id<ResourceClassId> accessedResourceClassId,
+                               Set<ResourcePermission> requestedResourcePermissions,
+                               Resource grantorResource);
+
    void updateResourcePermissions(SQLConnection connection,
                                   Resource accessorResource,
                                   Resource accessedResource,
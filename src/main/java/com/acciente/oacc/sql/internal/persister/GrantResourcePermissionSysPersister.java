@@ -23,6 +23,7 @@ import com.acciente.oacc.sql.internal.persister.id.DomainId;
 import com.acciente.oacc.sql.internal.persister.id.Id;
 import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
 
+import java.util.List;
 import java.util.Set;
 
 public interface GrantResourcePermissionSysPersister {
@@ -57,6 +58,13 @@ public interface GrantResourcePermissionSysPersister {
                                   Set<ResourcePermission> requestedResourcePermissions,
                                   Resource grantorResource);
 
+   void addResourceSysPermissions(SQLConnection connection,
+                                  Resource accessorResource,
+                                  List<Resource> accessedResources,
+                                  Id<ResourceClassId> accessedResourceClassId,
+                                  Set<ResourcePermission> requestedResourcePermissions,
+                                  Resource grantorResource);
+
    void updateResourceSysPermissions(SQLConnection connection,
                                      Resource accessorResource,
                                      Resource accessedResource,
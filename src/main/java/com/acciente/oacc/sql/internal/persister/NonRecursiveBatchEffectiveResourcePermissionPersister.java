@@ -0,0 +1,344 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.ResourcePermission;
+import com.acciente.oacc.ResourcePermissions;
+import com.acciente.oacc.sql.internal.persister.id.DomainId;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
+import com.acciente.oacc.sql.internal.persister.id.ResourceId;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class NonRecursiveBatchEffectiveResourcePermissionPersister extends Persister
+      implements BatchEffectiveResourcePermissionPersister, Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final SQLStrings           sqlStrings;
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
+   public NonRecursiveBatchEffectiveResourcePermissionPersister(SQLStrings sqlStrings) {
+      this(sqlStrings, null);
+   }
+
+   public NonRecursiveBatchEffectiveResourcePermissionPersister(SQLStrings sqlStrings,
+                                                                DomainHierarchyIndex domainHierarchyIndex) {
+      this.sqlStrings = sqlStrings;
+      this.domainHierarchyIndex = domainHierarchyIndex;
+   }
+
+   @Override
+   public Map<Id<ResourceId>, Set<ResourcePermission>> getEffectiveResourcePermissions(SQLConnection connection,
+                                                                                      Resource accessorResource,
+                                                                                      Collection<Id<ResourceId>> accessedResourceIds,
+                                                                                      Set<Id<ResourceId>> superUserAccessedResourceIds) {
+      Map<Id<ResourceId>, Set<ResourcePermission>> resourcePermissionsByResourceId = new HashMap<>();
+
+      // first collect everything that only depends on the accessor: the resources it inherits from, the
+      // domains it is a super-user of, and its global permissions by domain and resource class
+      final Set<Id<ResourceId>> accessorResourceIds
+            = NonRecursivePersisterHelper.getInheritedAccessorResourceIds(sqlStrings, connection, accessorResource);
+      final Set<Id<DomainId>> superUserDomainIds = getSuperUserDomainIds(connection, accessorResourceIds);
+      final Map<Id<DomainId>, Map<Id<ResourceClassId>, Set<ResourcePermission>>> globalResourcePermissions
+            = getGlobalResourcePermissions(connection, accessorResourceIds);
+
+      // the ancestors of each domain are only computed once for all accessed resources in that domain
+      Map<Id<DomainId>, Set<Id<DomainId>>> ancestorDomainIdsByDomainId = new HashMap<>();
+
+      for (List<Id<ResourceId>> partitionedResourceIds : partition(accessedResourceIds, sqlStrings.getMaxInListSize())) {
+         // next apply the super-user and global permissions to the accessed resources based on their domain and class
+         final Map<Id<ResourceId>, Id<DomainId>> domainIdsByResourceId = new HashMap<>(partitionedResourceIds.size());
+         final Map<Id<ResourceId>, Id<ResourceClassId>> resourceClassIdsByResourceId
+               = new HashMap<>(partitionedResourceIds.size());
+         findDomainIdsAndResourceClassIds(connection,
+                                          partitionedResourceIds,
+                                          domainIdsByResourceId,
+                                          resourceClassIdsByResourceId);
+
+         for (Map.Entry<Id<ResourceId>, Id<DomainId>> entry : domainIdsByResourceId.entrySet()) {
+            final Id<ResourceId> accessedResourceId = entry.getKey();
+
+            Set<Id<DomainId>> ancestorDomainIds = ancestorDomainIdsByDomainId.get(entry.getValue());
+            if (ancestorDomainIds == null) {
+               ancestorDomainIds = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings,
+                                                                                    domainHierarchyIndex,
+                                                                                    connection,
+                                                                                    entry.getValue());
+               ancestorDomainIdsByDomainId.put(entry.getValue(), ancestorDomainIds);
+            }
+
+            for (Id<DomainId> ancestorDomainId : ancestorDomainIds) {
+               if (superUserDomainIds.contains(ancestorDomainId)) {
+                  superUserAccessedResourceIds.add(accessedResourceId);
+               }
+
+               final Map<Id<ResourceClassId>, Set<ResourcePermission>> globalResourcePermissionsByResourceClassId
+                     = globalResourcePermissions.get(ancestorDomainId);
+
+               if (globalResourcePermissionsByResourceClassId != null) {
+                  final Set<ResourcePermission> globalResourcePermissionsOfResourceClass
+                        = globalResourcePermissionsByResourceClassId.get(resourceClassIdsByResourceId.get(accessedResourceId));
+
+                  if (globalResourcePermissionsOfResourceClass != null) {
+                     getOrCreateResourcePermissions(resourcePermissionsByResourceId, accessedResourceId)
+                           .addAll(globalResourcePermissionsOfResourceClass);
+                  }
+               }
+            }
+         }
+
+         // finally collect the direct permissions of the accessor and the resources it inherits from
+         addDirectResourcePermissions(connection,
+                                      sqlStrings.SQL_findInGrantResourcePermissionSys_withoutInheritance_AccessedID_SysPermissionID_IsWithGrant_BY_AccessorID_IN_AccessedID_IN,
+                                      sqlStrings.SQL_findInGrantResourcePermissionSys_withoutInheritance_AccessedID_SysPermissionID_IsWithGrant_BY_AccessorID_IN_AccessedID_IN_SUFFIX,
+                                      true,
+                                      partitionedResourceIds,
+                                      accessorResourceIds,
+                                      resourcePermissionsByResourceId);
+         addDirectResourcePermissions(connection,
+                                      sqlStrings.SQL_findInGrantResourcePermission_withoutInheritance_AccessedID_PermissionName_IsWithGrant_BY_AccessorID_IN_AccessedID_IN,
+                                      sqlStrings.SQL_findInGrantResourcePermission_withoutInheritance_AccessedID_PermissionName_IsWithGrant_BY_AccessorID_IN_AccessedID_IN_SUFFIX,
+                                      false,
+                                      partitionedResourceIds,
+                                      accessorResourceIds,
+                                      resourcePermissionsByResourceId);
+      }
+
+      return resourcePermissionsByResourceId;
+   }
+
+   private Set<Id<DomainId>> getSuperUserDomainIds(SQLConnection connection,
+                                                   Set<Id<ResourceId>> accessorResourceIds) {
+      SQLStatement statement = null;
+
+      try {
+         Set<Id<DomainId>> superUserDomainIds = new HashSet<>();
+
+         for (List<Id<ResourceId>> partitionedResourceIds : partition(accessorResourceIds, sqlStrings.getMaxInListSize())) {
+            final int parameterCount = getInListParameterCount(sqlStrings, partitionedResourceIds.size());
+            statement = connection.prepareStatement(
+                  sqlStrings.getInListSQL(sqlStrings.SQL_findInGrantDomainPermissionSys_withoutInheritance_superUser_ResourceDomainID_BY_AccessorID_IN,
+                                          parameterCount));
+            for (int i = 0; i < parameterCount; i++) {
+               statement.setResourceId(i + 1, getPaddedElement(partitionedResourceIds, i));
+            }
+            SQLResult resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+               superUserDomainIds.add(resultSet.getResourceDomainId("DomainId"));
+            }
+            resultSet.close();
+            statement.close();
+            statement = null;
+         }
+
+         return superUserDomainIds;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   private Map<Id<DomainId>, Map<Id<ResourceClassId>, Set<ResourcePermission>>> getGlobalResourcePermissions(SQLConnection connection,
+                                                                                                            Set<Id<ResourceId>> accessorResourceIds) {
+      Map<Id<DomainId>, Map<Id<ResourceClassId>, Set<ResourcePermission>>> globalResourcePermissions = new HashMap<>();
+
+      addGlobalResourcePermissions(connection,
+                                   sqlStrings.SQL_findInGrantGlobalResourcePermissionSys_withoutInheritance_ResourceDomainID_ResourceClassID_SysPermissionID_IsWithGrant_BY_AccessorID_IN,
+                                   true,
+                                   accessorResourceIds,
+                                   globalResourcePermissions);
+      addGlobalResourcePermissions(connection,
+                                   sqlStrings.SQL_findInGrantGlobalResourcePermission_withoutInheritance_ResourceDomainID_ResourceClassID_PermissionName_IsWithGrant_BY_AccessorID_IN,
+                                   false,
+                                   accessorResourceIds,
+                                   globalResourcePermissions);
+
+      return globalResourcePermissions;
+   }
+
+   private void addGlobalResourcePermissions(SQLConnection connection,
+                                             String sqlPrefix,
+                                             boolean isSystemPermission,
+                                             Set<Id<ResourceId>> accessorResourceIds,
+                                             Map<Id<DomainId>, Map<Id<ResourceClassId>, Set<ResourcePermission>>> globalResourcePermissions) {
+      SQLStatement statement = null;
+
+      try {
+         for (List<Id<ResourceId>> partitionedResourceIds : partition(accessorResourceIds, sqlStrings.getMaxInListSize())) {
+            final int parameterCount = getInListParameterCount(sqlStrings, partitionedResourceIds.size());
+            statement = connection.prepareStatement(sqlStrings.getInListSQL(sqlPrefix, parameterCount));
+            for (int i = 0; i < parameterCount; i++) {
+               statement.setResourceId(i + 1, getPaddedElement(partitionedResourceIds, i));
+            }
+            SQLResult resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+               final Id<DomainId> domainId = resultSet.getResourceDomainId("DomainId");
+               final Id<ResourceClassId> resourceClassId = resultSet.getResourceClassId("ResourceClassId");
+
+               Map<Id<ResourceClassId>, Set<ResourcePermission>> globalResourcePermissionsByResourceClassId
+                     = globalResourcePermissions.get(domainId);
+               if (globalResourcePermissionsByResourceClassId == null) {
+                  globalResourcePermissionsByResourceClassId = new HashMap<>();
+                  globalResourcePermissions.put(domainId, globalResourcePermissionsByResourceClassId);
+               }
+
+               Set<ResourcePermission> resourcePermissions = globalResourcePermissionsByResourceClassId.get(resourceClassId);
+               if (resourcePermissions == null) {
+                  resourcePermissions = new HashSet<>();
+                  globalResourcePermissionsByResourceClassId.put(resourceClassId, resourcePermissions);
+               }
+
+               resourcePermissions.add(getResourcePermission(resultSet, isSystemPermission));
+            }
+            resultSet.close();
+            statement.close();
+            statement = null;
+         }
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   private void findDomainIdsAndResourceClassIds(SQLConnection connection,
+                                                 List<Id<ResourceId>> resourceIds,
+                                                 Map<Id<ResourceId>, Id<DomainId>> domainIdsByResourceId,
+                                                 Map<Id<ResourceId>, Id<ResourceClassId>> resourceClassIdsByResourceId) {
+      SQLStatement statement = null;
+
+      try {
+         final int parameterCount = getInListParameterCount(sqlStrings, resourceIds.size());
+         statement = connection.prepareStatement(
+               sqlStrings.getInListSQL(sqlStrings.SQL_findInResource_ResourceID_DomainID_ResourceClassID_BY_ResourceID_IN,
+                                       parameterCount));
+         for (int i = 0; i < parameterCount; i++) {
+            statement.setResourceId(i + 1, getPaddedElement(resourceIds, i));
+         }
+         SQLResult resultSet = statement.executeQuery();
+
+         while (resultSet.next()) {
+            final Id<ResourceId> resourceId = resultSet.getResourceId("ResourceId");
+            domainIdsByResourceId.put(resourceId, resultSet.getResourceDomainId("DomainId"));
+            resourceClassIdsByResourceId.put(resourceId, resultSet.getResourceClassId("ResourceClassId"));
+         }
+         resultSet.close();
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   private void addDirectResourcePermissions(SQLConnection connection,
+                                             String sqlPrefix,
+                                             String sqlInfix,
+                                             boolean isSystemPermission,
+                                             List<Id<ResourceId>> accessedResourceIds,
+                                             Set<Id<ResourceId>> accessorResourceIds,
+                                             Map<Id<ResourceId>, Set<ResourcePermission>> resourcePermissionsByResourceId) {
+      SQLStatement statement = null;
+
+      try {
+         // both IN lists share the dialect's parameter limit, so the accessors take at most half of it, and the
+         // accessed resources the rest; usually the accessor and its inherited resources fit into a single list
+         final int maxAccessorCount = sqlStrings.getMaxInListSize() / 2;
+         for (List<Id<ResourceId>> partitionedAccessorIds : partition(accessorResourceIds, maxAccessorCount)) {
+            final int accessorCount = Math.min(getInListParameterCount(sqlStrings, partitionedAccessorIds.size()),
+                                               maxAccessorCount);
+            final int maxAccessedCount = sqlStrings.getMaxInListSize() - accessorCount;
+
+            for (List<Id<ResourceId>> partitionedAccessedIds : partition(accessedResourceIds, maxAccessedCount)) {
+               final int accessedCount = Math.min(getInListParameterCount(sqlStrings, partitionedAccessedIds.size()),
+                                                  maxAccessedCount);
+               statement = connection.prepareStatement(
+                     sqlStrings.getInListSQL(sqlStrings.getInListSQL(sqlPrefix, accessorCount, sqlInfix), accessedCount));
+               int parameterIndex = 1;
+               for (int i = 0; i < accessorCount; i++) {
+                  statement.setResourceId(parameterIndex++, getPaddedElement(partitionedAccessorIds, i));
+               }
+               for (int i = 0; i < accessedCount; i++) {
+                  statement.setResourceId(parameterIndex++, getPaddedElement(partitionedAccessedIds, i));
+               }
+               SQLResult resultSet = statement.executeQuery();
+
+               while (resultSet.next()) {
+                  getOrCreateResourcePermissions(resourcePermissionsByResourceId,
+                                                 resultSet.getResourceId("AccessedResourceId"))
+                        .add(getResourcePermission(resultSet, isSystemPermission));
+               }
+               resultSet.close();
+               statement.close();
+               statement = null;
+            }
+         }
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   private static Set<ResourcePermission> getOrCreateResourcePermissions(Map<Id<ResourceId>, Set<ResourcePermission>> resourcePermissionsByResourceId,
+                                                                         Id<ResourceId> resourceId) {
+      Set<ResourcePermission> resourcePermissions = resourcePermissionsByResourceId.get(resourceId);
+      if (resourcePermissions == null) {
+         resourcePermissions = new HashSet<>();
+         resourcePermissionsByResourceId.put(resourceId, resourcePermissions);
+      }
+      return resourcePermissions;
+   }
+
+   private static ResourcePermission getResourcePermission(SQLResult resultSet,
+                                                           boolean isSystemPermission) throws SQLException {
+      final String permissionName;
+      if (isSystemPermission) {
+         permissionName = resultSet.getResourceSysPermissionName("SysPermissionId");
+      }
+      else {
+         permissionName = resultSet.getString("PermissionName");
+      }
+
+      if (resultSet.getBoolean("IsWithGrant")) {
+         return ResourcePermissions.getInstanceWithGrantOption(permissionName);
+      }
+      else {
+         return ResourcePermissions.getInstance(permissionName);
+      }
+   }
+}
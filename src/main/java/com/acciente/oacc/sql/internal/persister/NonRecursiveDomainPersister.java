@@ -25,76 +25,65 @@ import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 public class NonRecursiveDomainPersister extends CommonDomainPersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveDomainPersister(SQLProfile sqlProfile,
                                       SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveDomainPersister(SQLProfile sqlProfile,
+                                      SQLStrings sqlStrings,
+                                      DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
    public Set<String> getResourceDomainNameDescendants(SQLConnection connection,
                                                        String resourceDomainName) {
-      SQLStatement statement = null;
-
-      try {
-         // verify the domain
-         if (getResourceDomainId(connection, resourceDomainName) == null) {
-            return Collections.emptySet();
+      if (domainHierarchyIndex != null) {
+         final Set<String> descendantDomainNames
+               = domainHierarchyIndex.getDescendantDomainNames(connection, resourceDomainName);
+         if (descendantDomainNames != null) {
+            return descendantDomainNames;
          }
+      }
 
-         Set<String> allDescendantDomainNames = new HashSet<>();
-         Set<Id<DomainId>> previousDescendantDomainIds = new HashSet<>();
-
-         allDescendantDomainNames.add(resourceDomainName);
+      // verify the domain
+      if (getResourceDomainId(connection, resourceDomainName) == null) {
+         return Collections.emptySet();
+      }
 
-         // find first-level descendants (excluding the requested root domain)
-         statement = connection
-               .prepareStatement(sqlStrings.SQL_findInDomain_DirectDescendantResourceDomainName_BY_ResourceDomainName);
-         statement.setString(1, resourceDomainName);
-         SQLResult resultSet = statement.executeQuery();
+      return NonRecursivePersisterHelper.getDescendantDomainNames(sqlStrings, connection, resourceDomainName);
+   }
 
-         while (resultSet.next()) {
-            allDescendantDomainNames.add(resultSet.getString("DomainName"));
-            previousDescendantDomainIds.add(resultSet.getResourceDomainId("DomainId"));
-         }
-         statement.close();
-
-         // find second-level and higher descendants, if necessary
-         if (allDescendantDomainNames.size() > 1) {
-            Set<Id<DomainId>> newestDescendantDomainIds = new HashSet<>();
-            int prevTotalOfDescendantDomains = 1;
-            while (allDescendantDomainNames.size() > prevTotalOfDescendantDomains) {
-               prevTotalOfDescendantDomains = allDescendantDomainNames.size();
-
-               for (Id<DomainId> descendantDomainId : previousDescendantDomainIds) {
-                  statement = connection
-                        .prepareStatement(sqlStrings.SQL_findInDomain_DirectDescendantResourceDomainName_BY_DomainID);
-                  statement.setResourceDomainId(1, descendantDomainId);
-                  resultSet = statement.executeQuery();
-
-                  while (resultSet.next()) {
-                     allDescendantDomainNames.add(resultSet.getString("DomainName"));
-                     newestDescendantDomainIds.add(resultSet.getResourceDomainId("DomainId"));
-                  }
-                  statement.close();
-               }
-               previousDescendantDomainIds = newestDescendantDomainIds;
-            }
-         }
+   @Override
+   public void addResourceDomain(SQLConnection connection,
+                                 String resourceDomainName) {
+      super.addResourceDomain(connection, resourceDomainName);
 
-         return allDescendantDomainNames;
-      }
-      catch (SQLException e) {
-         throw new RuntimeException(e);
+      if (domainHierarchyIndex != null) {
+         domainHierarchyIndex.addDomain(getResourceDomainId(connection, resourceDomainName), resourceDomainName, null);
       }
-      finally {
-         closeStatement(statement);
+   }
+
+   @Override
+   public void addResourceDomain(SQLConnection connection,
+                                 String resourceDomainName,
+                                 Id<DomainId> parentResourceDomainId) {
+      super.addResourceDomain(connection, resourceDomainName, parentResourceDomainId);
+
+      if (domainHierarchyIndex != null) {
+         domainHierarchyIndex.addDomain(getResourceDomainId(connection, resourceDomainName),
+                                        resourceDomainName,
+                                        parentResourceDomainId);
       }
    }
 
@@ -107,9 +96,14 @@ public class NonRecursiveDomainPersister extends CommonDomainPersister implement
          // get descendant domain Ids
          List<Id<DomainId>> descendantDomainIds
                = new ArrayList<>(NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                           domainHierarchyIndex,
                                                                                                            connection,
                                                                                                            domainId));
 
+         if (sqlProfile.isDomainClosureEnabled()) {
+            removeDomainClosure(connection, descendantDomainIds);
+         }
+
          // delete descendant domains one at a time, in reverse order of domainLevel, to preserve FK constraints
          statement = connection.prepareStatement(sqlStrings.SQL_removeInDomain_BY_DomainID);
 
@@ -117,6 +111,10 @@ public class NonRecursiveDomainPersister extends CommonDomainPersister implement
             statement.setResourceDomainId(1, descendantDomainIds.get(i));
             assertOneRowUpdated(statement.executeUpdate());
          }
+
+         if (domainHierarchyIndex != null) {
+            domainHierarchyIndex.removeDomain(domainId);
+         }
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
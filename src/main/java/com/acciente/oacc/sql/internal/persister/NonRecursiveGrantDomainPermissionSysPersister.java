@@ -37,9 +37,18 @@ import java.util.Set;
 public class NonRecursiveGrantDomainPermissionSysPersister extends CommonGrantDomainPermissionSysPersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveGrantDomainPermissionSysPersister(SQLProfile sqlProfile,
                                                         SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveGrantDomainPermissionSysPersister(SQLProfile sqlProfile,
+                                                        SQLStrings sqlStrings,
+                                                        DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
@@ -75,6 +84,7 @@ public class NonRecursiveGrantDomainPermissionSysPersister extends CommonGrantDo
          for (Id<DomainId> directDomainId : directDomainIds) {
             accessibleDomainIds
                   .addAll(NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                    domainHierarchyIndex,
                                                                                                     connection,
                                                                                                     directDomainId));
          }
@@ -138,6 +148,7 @@ public class NonRecursiveGrantDomainPermissionSysPersister extends CommonGrantDo
          for (Id<DomainId> directDomainId : directDomainIds) {
             accessibleDomainIds
                   .addAll(NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                    domainHierarchyIndex,
                                                                                                     connection,
                                                                                                     directDomainId));
          }
@@ -145,6 +156,7 @@ public class NonRecursiveGrantDomainPermissionSysPersister extends CommonGrantDo
          // also get the descendents of the specified domain
          final Set<Id<DomainId>> descendantDomainIds
                = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                           domainHierarchyIndex,
                                                                                            connection,
                                                                                            resourceDomainId);
 
@@ -189,6 +201,7 @@ public class NonRecursiveGrantDomainPermissionSysPersister extends CommonGrantDo
 
          // get the ancestors of the specified domain, to which the accessors could also have permissions
          final Set<Id<DomainId>> ancestorDomainIds = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings,
+                                                                                                      domainHierarchyIndex,
                                                                                                       connection,
                                                                                                       resourceDomainId);
 
@@ -263,6 +276,7 @@ public class NonRecursiveGrantDomainPermissionSysPersister extends CommonGrantDo
          Set<String> directDomainNames = new HashSet<>(domainPermissionsMap.keySet());
          for (String directDomainName : directDomainNames) {
             Set<String> descendentDomains = NonRecursivePersisterHelper.getDescendantDomainNames(sqlStrings,
+                                                                                                 domainHierarchyIndex,
                                                                                                  connection,
                                                                                                  directDomainName);
 
@@ -298,6 +312,7 @@ public class NonRecursiveGrantDomainPermissionSysPersister extends CommonGrantDo
          // get descendant domain Ids
          List<Id<DomainId>> descendantDomainIds
                = new ArrayList<>(NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                           domainHierarchyIndex,
                                                                                                            connection,
                                                                                                            domainId));
 
@@ -306,8 +321,9 @@ public class NonRecursiveGrantDomainPermissionSysPersister extends CommonGrantDo
 
          for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
             statement.setResourceDomainId(1, descendantDomainIds.get(i));
-            statement.executeUpdate();
+            statement.addBatch();
          }
+         statement.executeBatch();
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
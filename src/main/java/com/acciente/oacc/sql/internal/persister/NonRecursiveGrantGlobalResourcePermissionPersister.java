@@ -39,9 +39,18 @@ import java.util.Set;
 public class NonRecursiveGrantGlobalResourcePermissionPersister extends CommonGrantGlobalResourcePermissionPersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveGrantGlobalResourcePermissionPersister(SQLProfile sqlProfile,
                                                              SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveGrantGlobalResourcePermissionPersister(SQLProfile sqlProfile,
+                                                             SQLStrings sqlStrings,
+                                                             DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
@@ -86,6 +95,7 @@ public class NonRecursiveGrantGlobalResourcePermissionPersister extends CommonGr
          for (Id<DomainId> directDomainId: directGlobalDomains) {
             Set<Id<DomainId>> descendentDomainIds
                   = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                              domainHierarchyIndex,
                                                                                               connection,
                                                                                               directDomainId);
             for (Id<DomainId> descendentDomainId : descendentDomainIds) {
@@ -147,9 +157,10 @@ public class NonRecursiveGrantGlobalResourcePermissionPersister extends CommonGr
          closeStatement(statement);
 
          Set<Id<DomainId>> requestedAncestorDomainIds
-               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, connection, resourceDomainId);
+               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, domainHierarchyIndex, connection, resourceDomainId);
          Set<Id<DomainId>> requestedDescendentDomainIds
                = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                           domainHierarchyIndex,
                                                                                            connection,
                                                                                            resourceDomainId);
          Set<Id<DomainId>> effectiveDomainIds = Collections.emptySet();
@@ -171,6 +182,7 @@ public class NonRecursiveGrantGlobalResourcePermissionPersister extends CommonGr
                if (directGlobalDomains.contains(requestedDescendentDomainId)) {
                   effectiveDomainIds
                         = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                    domainHierarchyIndex,
                                                                                                     connection,
                                                                                                     requestedDescendentDomainId);
                   break;
@@ -215,7 +227,7 @@ public class NonRecursiveGrantGlobalResourcePermissionPersister extends CommonGr
 
          // get the ancestors of the specified domain, to which the accessors could also have permissions
          final Set<Id<DomainId>> ancestorDomainIds
-               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, connection, resourceDomainId);
+               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, domainHierarchyIndex, connection, resourceDomainId);
 
          // now collect the global permissions any accessor resource has to the specified domain or its ancestors
          SQLResult resultSet;
@@ -295,6 +307,7 @@ public class NonRecursiveGrantGlobalResourcePermissionPersister extends CommonGr
          Set<String> directDomainNames = new HashSet<>(globalPermissionsMap.keySet());
          for (String directDomainName : directDomainNames) {
             Set<String> descendentDomains = NonRecursivePersisterHelper.getDescendantDomainNames(sqlStrings,
+                                                                                                 domainHierarchyIndex,
                                                                                                  connection,
                                                                                                  directDomainName);
 
@@ -342,6 +355,7 @@ public class NonRecursiveGrantGlobalResourcePermissionPersister extends CommonGr
          // get descendant domain Ids
          List<Id<DomainId>> descendantDomainIds
                = new ArrayList<>(NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                           domainHierarchyIndex,
                                                                                                            connection,
                                                                                                            accessedDomainId));
 
@@ -350,8 +364,9 @@ public class NonRecursiveGrantGlobalResourcePermissionPersister extends CommonGr
 
          for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
             statement.setResourceDomainId(1, descendantDomainIds.get(i));
-            statement.executeUpdate();
+            statement.addBatch();
          }
+         statement.executeBatch();
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -38,9 +38,18 @@ import java.util.Set;
 public class NonRecursiveGrantGlobalResourcePermissionSysPersister extends CommonGrantGlobalResourcePermissionSysPersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveGrantGlobalResourcePermissionSysPersister(SQLProfile sqlProfile,
                                                                 SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveGrantGlobalResourcePermissionSysPersister(SQLProfile sqlProfile,
+                                                                SQLStrings sqlStrings,
+                                                                DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
@@ -84,6 +93,7 @@ public class NonRecursiveGrantGlobalResourcePermissionSysPersister extends Commo
          for (Id<DomainId> directDomainId: directGlobalDomains) {
             Set<Id<DomainId>> descendentDomainIds
                   = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                              domainHierarchyIndex,
                                                                                               connection,
                                                                                               directDomainId);
             for (Id<DomainId> descendentDomainId : descendentDomainIds) {
@@ -144,9 +154,10 @@ public class NonRecursiveGrantGlobalResourcePermissionSysPersister extends Commo
          closeStatement(statement);
 
          Set<Id<DomainId>> requestedAncestorDomainIds
-               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, connection, resourceDomainId);
+               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, domainHierarchyIndex, connection, resourceDomainId);
          Set<Id<DomainId>> requestedDescendentDomainIds
                = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                           domainHierarchyIndex,
                                                                                            connection,
                                                                                            resourceDomainId);
          Set<Id<DomainId>> effectiveDomainIds = Collections.emptySet();
@@ -168,6 +179,7 @@ public class NonRecursiveGrantGlobalResourcePermissionSysPersister extends Commo
                if (directGlobalDomains.contains(requestedDescendentDomainId)) {
                   effectiveDomainIds
                         = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                    domainHierarchyIndex,
                                                                                                     connection,
                                                                                                     requestedDescendentDomainId);
                   break;
@@ -212,7 +224,7 @@ public class NonRecursiveGrantGlobalResourcePermissionSysPersister extends Commo
 
          // get the ancestors of the specified domain, to which the accessors could also have permissions
          final Set<Id<DomainId>> ancestorDomainIds
-               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, connection, resourceDomainId);
+               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, domainHierarchyIndex, connection, resourceDomainId);
 
          // now collect the sys-permissions any accessor resource has to the specified domain or its ancestors
          SQLResult resultSet;
@@ -291,6 +303,7 @@ public class NonRecursiveGrantGlobalResourcePermissionSysPersister extends Commo
          Set<String> directDomainNames = new HashSet<>(globalSysPermissionsMap.keySet());
          for (String directDomainName : directDomainNames) {
             Set<String> descendentDomains = NonRecursivePersisterHelper.getDescendantDomainNames(sqlStrings,
+                                                                                                 domainHierarchyIndex,
                                                                                                  connection,
                                                                                                  directDomainName);
 
@@ -338,6 +351,7 @@ public class NonRecursiveGrantGlobalResourcePermissionSysPersister extends Commo
          // get descendant domain Ids
          List<Id<DomainId>> descendantDomainIds
                = new ArrayList<>(NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                           domainHierarchyIndex,
                                                                                                            connection,
                                                                                                            accessedDomainId));
 
@@ -346,8 +360,9 @@ public class NonRecursiveGrantGlobalResourcePermissionSysPersister extends Commo
 
          for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
             statement.setResourceDomainId(1, descendantDomainIds.get(i));
-            statement.executeUpdate();
+            statement.addBatch();
          }
+         statement.executeBatch();
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
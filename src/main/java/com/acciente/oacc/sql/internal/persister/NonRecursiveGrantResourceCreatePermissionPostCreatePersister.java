@@ -37,9 +37,18 @@ import java.util.Set;
 public class NonRecursiveGrantResourceCreatePermissionPostCreatePersister extends CommonGrantResourceCreatePermissionPostCreatePersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveGrantResourceCreatePermissionPostCreatePersister(SQLProfile sqlProfile,
                                                                        SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveGrantResourceCreatePermissionPostCreatePersister(SQLProfile sqlProfile,
+                                                                       SQLStrings sqlStrings,
+                                                                       DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
@@ -56,7 +65,7 @@ public class NonRecursiveGrantResourceCreatePermissionPostCreatePersister extend
 
          // get the ancestors of the specified domain, to which the accessors could also have permissions
          final Set<Id<DomainId>> ancestorDomainIds
-               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, connection, resourceDomainId);
+               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, domainHierarchyIndex, connection, resourceDomainId);
 
          // now collect the sys-permissions any accessor resource has to the specified domain or its ancestors
          SQLResult resultSet;
@@ -138,6 +147,7 @@ public class NonRecursiveGrantResourceCreatePermissionPostCreatePersister extend
          Set<String> directDomainNames = new HashSet<>(createPermissionsMap.keySet());
          for (String directDomainName : directDomainNames) {
             Set<String> descendentDomains = NonRecursivePersisterHelper.getDescendantDomainNames(sqlStrings,
+                                                                                                 domainHierarchyIndex,
                                                                                                  connection,
                                                                                                  directDomainName);
 
@@ -185,6 +195,7 @@ public class NonRecursiveGrantResourceCreatePermissionPostCreatePersister extend
          // get descendant domain Ids
          List<Id<DomainId>> descendantDomainIds
                = new ArrayList<>(NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                           domainHierarchyIndex,
                                                                                                            connection,
                                                                                                            accessedDomainId));
 
@@ -193,8 +204,9 @@ public class NonRecursiveGrantResourceCreatePermissionPostCreatePersister extend
 
          for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
             statement.setResourceDomainId(1, descendantDomainIds.get(i));
-            statement.executeUpdate();
+            statement.addBatch();
          }
+         statement.executeBatch();
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -37,9 +37,18 @@ import java.util.Set;
 public class NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister extends CommonGrantResourceCreatePermissionPostCreateSysPersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister(SQLProfile sqlProfile,
                                                                           SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister(SQLProfile sqlProfile,
+                                                                          SQLStrings sqlStrings,
+                                                                          DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
@@ -55,7 +64,7 @@ public class NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister ext
 
          // get the ancestors of the specified domain, to which the accessors could also have permissions
          final Set<Id<DomainId>> ancestorDomainIds
-               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, connection, resourceDomainId);
+               = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings, domainHierarchyIndex, connection, resourceDomainId);
 
          // now collect the sys-permissions any accessor resource has to the specified domain or its ancestors
          SQLResult resultSet;
@@ -136,6 +145,7 @@ public class NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister ext
          Set<String> directDomainNames = new HashSet<>(createSysPermissionsMap.keySet());
          for (String directDomainName : directDomainNames) {
             Set<String> descendentDomains = NonRecursivePersisterHelper.getDescendantDomainNames(sqlStrings,
+                                                                                                 domainHierarchyIndex,
                                                                                                  connection,
                                                                                                  directDomainName);
 
@@ -183,6 +193,7 @@ public class NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister ext
          // get descendant domain Ids
          List<Id<DomainId>> descendantDomainIds
                = new ArrayList<>(NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                           domainHierarchyIndex,
                                                                                                            connection,
                                                                                                            accessedDomainId));
 
@@ -191,8 +202,9 @@ public class NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister ext
 
          for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
             statement.setResourceDomainId(1, descendantDomainIds.get(i));
-            statement.executeUpdate();
+            statement.addBatch();
          }
+         statement.executeBatch();
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -37,9 +37,18 @@ import java.util.Set;
 public class NonRecursiveGrantResourceCreatePermissionSysPersister extends CommonGrantResourceCreatePermissionSysPersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveGrantResourceCreatePermissionSysPersister(SQLProfile sqlProfile,
                                                                 SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveGrantResourceCreatePermissionSysPersister(SQLProfile sqlProfile,
+                                                                SQLStrings sqlStrings,
+                                                                DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
@@ -56,6 +65,7 @@ public class NonRecursiveGrantResourceCreatePermissionSysPersister extends Commo
 
          // get the ancestors of the specified domain, to which the accessors could also have permissions
          final Set<Id<DomainId>> ancestorDomainIds = NonRecursivePersisterHelper.getAncestorDomainIds(sqlStrings,
+                                                                                                      domainHierarchyIndex,
                                                                                                       connection,
                                                                                                       resourceDomainId);
 
@@ -137,6 +147,7 @@ public class NonRecursiveGrantResourceCreatePermissionSysPersister extends Commo
          Set<String> directDomainNames = new HashSet<>(createSysPermissionsMap.keySet());
          for (String directDomainName : directDomainNames) {
             Set<String> descendentDomains = NonRecursivePersisterHelper.getDescendantDomainNames(sqlStrings,
+                                                                                                 domainHierarchyIndex,
                                                                                                  connection,
                                                                                                  directDomainName);
 
@@ -184,6 +195,7 @@ public class NonRecursiveGrantResourceCreatePermissionSysPersister extends Commo
          // get descendant domain Ids
          List<Id<DomainId>> descendantDomainIds
                = new ArrayList<>(NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                           domainHierarchyIndex,
                                                                                                            connection,
                                                                                                            accessedDomainId));
          // delete domains' accessors (in reverse order of domainLevel, to preserve FK constraints)
@@ -191,8 +203,9 @@ public class NonRecursiveGrantResourceCreatePermissionSysPersister extends Commo
 
          for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
             statement.setResourceDomainId(1, descendantDomainIds.get(i));
-            statement.executeUpdate();
+            statement.addBatch();
          }
+         statement.executeBatch();
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
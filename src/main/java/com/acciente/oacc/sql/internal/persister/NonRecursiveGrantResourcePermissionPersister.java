@@ -34,9 +34,18 @@ import java.util.Set;
 public class NonRecursiveGrantResourcePermissionPersister extends CommonGrantResourcePermissionPersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveGrantResourcePermissionPersister(SQLProfile sqlProfile,
                                                        SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveGrantResourcePermissionPersister(SQLProfile sqlProfile,
+                                                       SQLStrings sqlStrings,
+                                                       DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
@@ -102,6 +111,7 @@ public class NonRecursiveGrantResourcePermissionPersister extends CommonGrantRes
          // then get all the descendants of the specified domain
          final Set<Id<DomainId>> descendantDomainIds
                = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                           domainHierarchyIndex,
                                                                                            connection,
                                                                                            resourceDomainId);
 
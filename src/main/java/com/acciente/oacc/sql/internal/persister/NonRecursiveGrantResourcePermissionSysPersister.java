@@ -33,9 +33,18 @@ import java.util.Set;
 public class NonRecursiveGrantResourcePermissionSysPersister extends CommonGrantResourcePermissionSysPersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveGrantResourcePermissionSysPersister(SQLProfile sqlProfile,
                                                           SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveGrantResourcePermissionSysPersister(SQLProfile sqlProfile,
+                                                          SQLStrings sqlStrings,
+                                                          DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
@@ -100,6 +109,7 @@ public class NonRecursiveGrantResourcePermissionSysPersister extends CommonGrant
          // then get all the descendants of the specified domain
          final Set<Id<DomainId>> descendantDomainIds
                = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                           domainHierarchyIndex,
                                                                                            connection,
                                                                                            resourceDomainId);
 
@@ -23,34 +23,64 @@ import com.acciente.oacc.sql.internal.persister.id.Id;
 import com.acciente.oacc.sql.internal.persister.id.ResourceId;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 public class NonRecursivePersisterHelper {
    protected static Set<Id<ResourceId>> getInheritedAccessorResourceIds(SQLStrings sqlStrings,
                                                                         SQLConnection connection,
                                                                         Resource accessorResource) {
+      final Id<ResourceId> accessorResourceId = Id.from(accessorResource.getId());
+
+      if (sqlStrings.isInheritanceClosureEnabled()) {
+         Set<Id<ResourceId>> allAccessorResourceIds = new HashSet<>();
+         allAccessorResourceIds.add(accessorResourceId);
+         allAccessorResourceIds.addAll(findResourceIdsInInheritanceClosure(connection,
+                                                                           sqlStrings.SQL_findInInheritanceClosure_InheritedResourceID_BY_AccessorID,
+                                                                           accessorResourceId));
+         return allAccessorResourceIds;
+      }
+
+      return getInheritedAccessorResourceIdsFromGrants(sqlStrings, connection, accessorResourceId);
+   }
+
+   protected static Set<Id<ResourceId>> getInheritedAccessorResourceIdsFromGrants(SQLStrings sqlStrings,
+                                                                                  SQLConnection connection,
+                                                                                  Id<ResourceId> accessorResourceId) {
       SQLStatement statement = null;
       Set<Id<ResourceId>> allAccessorResourceIds = new HashSet<>();
-      allAccessorResourceIds.add(Id.<ResourceId>from(accessorResource.getId()));
+      allAccessorResourceIds.add(accessorResourceId);
       Set<Id<ResourceId>> previousAccessorResourceIds = new HashSet<>(allAccessorResourceIds);
 
       try {
-         statement = connection.prepareStatement(sqlStrings.SQL_findInGrantResourcePermissionSys_directInheritance_ResourceID_BY_AccessorID);
-
+         // query the accessors of an entire level at once, so that the number of queries depends on the depth
+         // of the inheritance graph rather than its size
          while (!previousAccessorResourceIds.isEmpty()) {
             Set<Id<ResourceId>> newestAccessorResourceIds = new HashSet<>();
 
-            for (Id<ResourceId> accessorResourceId : previousAccessorResourceIds) {
-               statement.setResourceId(1, accessorResourceId);
+            for (List<Id<ResourceId>> accessorResourceIds : Persister.partition(previousAccessorResourceIds,
+                                                                      sqlStrings.getMaxInListSize())) {
+               final int parameterCount = Persister.getInListParameterCount(sqlStrings, accessorResourceIds.size());
+               statement = connection.prepareStatement(
+                     sqlStrings.getInListSQL(sqlStrings.SQL_findInGrantResourcePermissionSys_directInheritance_ResourceID_BY_AccessorID_IN,
+                                             parameterCount));
+               for (int i = 0; i < parameterCount; i++) {
+                  statement.setResourceId(i + 1, Persister.getPaddedElement(accessorResourceIds, i));
+               }
                SQLResult resultSet = statement.executeQuery();
 
                while (resultSet.next()) {
                   newestAccessorResourceIds.add(resultSet.getResourceId("ResourceId"));
                }
                resultSet.close();
+               statement.close();
+               statement = null;
             }
+            // only visit accessors once, even when several paths of the inheritance graph lead to them
+            newestAccessorResourceIds.removeAll(allAccessorResourceIds);
             allAccessorResourceIds.addAll(newestAccessorResourceIds);
             previousAccessorResourceIds = newestAccessorResourceIds;
          }
@@ -65,28 +95,60 @@ public class NonRecursivePersisterHelper {
       return allAccessorResourceIds;
    }
 
+   protected static Set<Id<DomainId>> getDescendantDomainIdsOrderedByAscendingLevel(SQLStrings sqlStrings,
+                                                                                    DomainHierarchyIndex domainHierarchyIndex,
+                                                                                    SQLConnection connection,
+                                                                                    Id<DomainId> parentDomainId) {
+      if (domainHierarchyIndex != null) {
+         final Set<Id<DomainId>> descendantDomainIds
+               = domainHierarchyIndex.getDescendantDomainIdsOrderedByAscendingLevel(connection, parentDomainId);
+         if (descendantDomainIds != null) {
+            return descendantDomainIds;
+         }
+      }
+      // fall back to querying the database, when the index is disabled or does not (yet) know the domain
+      return getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings, connection, parentDomainId);
+   }
+
    protected static Set<Id<DomainId>> getDescendantDomainIdsOrderedByAscendingLevel(SQLStrings sqlStrings,
                                                                                     SQLConnection connection,
                                                                                     Id<DomainId> parentDomainId) {
+      if (sqlStrings.getSqlProfile().isDomainClosureEnabled()) {
+         final Set<Id<DomainId>> descendantDomainIds = new LinkedHashSet<>();
+         descendantDomainIds.add(parentDomainId);
+         descendantDomainIds.addAll(findDomainIdsInDomainClosure(connection,
+                                                                 sqlStrings.SQL_findInDomainClosure_DescendantDomainID_BY_DomainID_ORDERBY_Depth,
+                                                                 parentDomainId));
+         return descendantDomainIds;
+      }
+
       SQLStatement statement = null;
       Set<Id<DomainId>> allDomainIds = new LinkedHashSet<>();
       allDomainIds.add(parentDomainId);
       Set<Id<DomainId>> previousDomainIds = new HashSet<>(allDomainIds);
 
       try {
-         statement = connection.prepareStatement(sqlStrings.SQL_findInDomain_DirectDescendantResourceDomainName_BY_DomainID);
-
+         // query the children of an entire level at once, so that the number of queries depends on the depth
+         // of the domain hierarchy rather than its size
          while (!previousDomainIds.isEmpty()) {
             Set<Id<DomainId>> newestDomainIds = new HashSet<>();
 
-            for (Id<DomainId> domainId : previousDomainIds) {
-               statement.setResourceDomainId(1, domainId);
+            for (List<Id<DomainId>> domainIds : Persister.partition(previousDomainIds, sqlStrings.getMaxInListSize())) {
+               final int parameterCount = Persister.getInListParameterCount(sqlStrings, domainIds.size());
+               statement = connection.prepareStatement(
+                     sqlStrings.getInListSQL(sqlStrings.SQL_findInDomain_DirectDescendantResourceDomainName_BY_DomainID_IN,
+                                             parameterCount));
+               for (int i = 0; i < parameterCount; i++) {
+                  statement.setResourceDomainId(i + 1, Persister.getPaddedElement(domainIds, i));
+               }
                SQLResult resultSet = statement.executeQuery();
 
                while (resultSet.next()) {
                   newestDomainIds.add(resultSet.getResourceDomainId("DomainId"));
                }
                resultSet.close();
+               statement.close();
+               statement = null;
             }
             allDomainIds.addAll(newestDomainIds);
             previousDomainIds = newestDomainIds;
@@ -102,28 +164,55 @@ public class NonRecursivePersisterHelper {
       return allDomainIds;
    }
 
+   protected static Set<String> getDescendantDomainNames(SQLStrings sqlStrings,
+                                                         DomainHierarchyIndex domainHierarchyIndex,
+                                                         SQLConnection connection,
+                                                         String parentDomainName) {
+      if (domainHierarchyIndex != null) {
+         final Set<String> descendantDomainNames
+               = domainHierarchyIndex.getDescendantDomainNames(connection, parentDomainName);
+         if (descendantDomainNames != null) {
+            return descendantDomainNames;
+         }
+      }
+      // fall back to querying the database, when the index is disabled or does not (yet) know the domain
+      return getDescendantDomainNames(sqlStrings, connection, parentDomainName);
+   }
+
    protected static Set<String> getDescendantDomainNames(SQLStrings sqlStrings,
                                                          SQLConnection connection,
                                                          String parentDomainName) {
+      if (sqlStrings.getSqlProfile().isDomainClosureEnabled()) {
+         return findDescendantDomainNamesInDomainClosure(sqlStrings, connection, parentDomainName);
+      }
+
       SQLStatement statement = null;
       Set<String> allDomainNames = new HashSet<>();
       allDomainNames.add(parentDomainName);
       Set<String> previousDomainNames = new HashSet<>(allDomainNames);
 
       try {
-         statement = connection.prepareStatement(sqlStrings.SQL_findInDomain_DirectDescendantResourceDomainName_BY_ResourceDomainName);
-
+         // query the children of an entire level at once, so that the number of queries depends on the depth
+         // of the domain hierarchy rather than its size
          while (!previousDomainNames.isEmpty()) {
             Set<String> newestDomainNames = new HashSet<>();
 
-            for (String domainName : previousDomainNames) {
-               statement.setString(1, domainName);
+            for (List<String> domainNames : Persister.partition(previousDomainNames, sqlStrings.getMaxInListSize())) {
+               final int parameterCount = Persister.getInListParameterCount(sqlStrings, domainNames.size());
+               statement = connection.prepareStatement(
+                     sqlStrings.getInListSQL(sqlStrings.SQL_findInDomain_DirectDescendantResourceDomainName_BY_ResourceDomainName_IN,
+                                             parameterCount));
+               for (int i = 0; i < parameterCount; i++) {
+                  statement.setString(i + 1, Persister.getPaddedElement(domainNames, i));
+               }
                SQLResult resultSet = statement.executeQuery();
 
                while (resultSet.next()) {
                   newestDomainNames.add(resultSet.getString("DomainName"));
                }
                resultSet.close();
+               statement.close();
+               statement = null;
             }
             allDomainNames.addAll(newestDomainNames);
             previousDomainNames = newestDomainNames;
@@ -139,9 +228,33 @@ public class NonRecursivePersisterHelper {
       return allDomainNames;
    }
 
+   protected static Set<Id<DomainId>> getAncestorDomainIds(SQLStrings sqlStrings,
+                                                           DomainHierarchyIndex domainHierarchyIndex,
+                                                           SQLConnection connection,
+                                                           Id<DomainId> domainId) {
+      if (domainHierarchyIndex != null) {
+         final Set<Id<DomainId>> ancestorDomainIds
+               = domainHierarchyIndex.getAncestorDomainIds(connection, domainId);
+         if (ancestorDomainIds != null) {
+            return ancestorDomainIds;
+         }
+      }
+      // fall back to querying the database, when the index is disabled or does not (yet) know the domain
+      return getAncestorDomainIds(sqlStrings, connection, domainId);
+   }
+
    protected static Set<Id<DomainId>> getAncestorDomainIds(SQLStrings sqlStrings,
                                                            SQLConnection connection,
                                                            Id<DomainId> domainId) {
+      if (sqlStrings.getSqlProfile().isDomainClosureEnabled()) {
+         final Set<Id<DomainId>> ancestorDomainIds = new HashSet<>();
+         ancestorDomainIds.add(domainId);
+         ancestorDomainIds.addAll(findDomainIdsInDomainClosure(connection,
+                                                               sqlStrings.SQL_findInDomainClosure_AncestorDomainID_BY_DomainID,
+                                                               domainId));
+         return ancestorDomainIds;
+      }
+
       SQLStatement statement = null;
       Set<Id<DomainId>> ancestorDomainIds = new HashSet<>();
       ancestorDomainIds.add(domainId);
@@ -172,4 +285,85 @@ public class NonRecursivePersisterHelper {
 
       return ancestorDomainIds;
    }
+
+   // closure table helper methods
+
+   protected static List<Id<ResourceId>> findResourceIdsInInheritanceClosure(SQLConnection connection,
+                                                                             String sql,
+                                                                             Id<ResourceId> resourceId) {
+      SQLStatement statement = null;
+      List<Id<ResourceId>> resourceIds = new ArrayList<>();
+
+      try {
+         statement = connection.prepareStatement(sql);
+         statement.setResourceId(1, resourceId);
+         SQLResult resultSet = statement.executeQuery();
+
+         while (resultSet.next()) {
+            resourceIds.add(resultSet.getResourceId("ResourceId"));
+         }
+         resultSet.close();
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         Persister.closeStatement(statement);
+      }
+
+      return resourceIds;
+   }
+
+   private static List<Id<DomainId>> findDomainIdsInDomainClosure(SQLConnection connection,
+                                                                  String sql,
+                                                                  Id<DomainId> domainId) {
+      SQLStatement statement = null;
+      List<Id<DomainId>> domainIds = new ArrayList<>();
+
+      try {
+         statement = connection.prepareStatement(sql);
+         statement.setResourceDomainId(1, domainId);
+         SQLResult resultSet = statement.executeQuery();
+
+         while (resultSet.next()) {
+            domainIds.add(resultSet.getResourceDomainId("DomainId"));
+         }
+         resultSet.close();
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         Persister.closeStatement(statement);
+      }
+
+      return domainIds;
+   }
+
+   private static Set<String> findDescendantDomainNamesInDomainClosure(SQLStrings sqlStrings,
+                                                                       SQLConnection connection,
+                                                                       String parentDomainName) {
+      SQLStatement statement = null;
+      Set<String> allDomainNames = new HashSet<>();
+      allDomainNames.add(parentDomainName);
+
+      try {
+         statement = connection.prepareStatement(sqlStrings.SQL_findInDomainClosure_DescendantResourceDomainName_BY_ResourceDomainName);
+         statement.setString(1, parentDomainName);
+         SQLResult resultSet = statement.executeQuery();
+
+         while (resultSet.next()) {
+            allDomainNames.add(resultSet.getString("DomainName"));
+         }
+         resultSet.close();
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         Persister.closeStatement(statement);
+      }
+
+      return allDomainNames;
+   }
 }
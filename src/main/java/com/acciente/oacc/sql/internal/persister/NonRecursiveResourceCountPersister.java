@@ -0,0 +1,406 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.sql.internal.persister.id.DomainId;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
+import com.acciente.oacc.sql.internal.persister.id.ResourceId;
+import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class NonRecursiveResourceCountPersister extends Persister implements ResourceCountPersister, Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final SQLStrings           sqlStrings;
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
+   public NonRecursiveResourceCountPersister(SQLStrings sqlStrings) {
+      this(sqlStrings, null);
+   }
+
+   public NonRecursiveResourceCountPersister(SQLStrings sqlStrings,
+                                             DomainHierarchyIndex domainHierarchyIndex) {
+      this.sqlStrings = sqlStrings;
+      this.domainHierarchyIndex = domainHierarchyIndex;
+   }
+
+   @Override
+   public Long getResourceCountByResourcePermissions(SQLConnection connection,
+                                                     Resource accessorResource,
+                                                     Id<ResourceClassId> resourceClassId,
+                                                     Id<DomainId> resourceDomainId,
+                                                     Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                                     Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) {
+      SQLStatement statement = prepareStatement(connection,
+                                                true,
+                                                accessorResource,
+                                                resourceClassId,
+                                                resourceDomainId,
+                                                sysPermissionIdsWithGrant,
+                                                permissionIdsWithGrant);
+      if (statement == null) {
+         return null;
+      }
+
+      try {
+         SQLResult resultSet = statement.executeQuery();
+
+         resultSet.next();
+         final long count = resultSet.getLong("COUNTResourceID");
+         resultSet.close();
+
+         return count;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   @Override
+   public Boolean hasAnyResourceByResourcePermissions(SQLConnection connection,
+                                                      Resource accessorResource,
+                                                      Id<ResourceClassId> resourceClassId,
+                                                      Id<DomainId> resourceDomainId,
+                                                      Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                                      Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) {
+      SQLStatement statement = prepareStatement(connection,
+                                                false,
+                                                accessorResource,
+                                                resourceClassId,
+                                                resourceDomainId,
+                                                sysPermissionIdsWithGrant,
+                                                permissionIdsWithGrant);
+      if (statement == null) {
+         return null;
+      }
+
+      try {
+         SQLResult resultSet = statement.executeQuery();
+
+         final boolean hasAny = resultSet.next();
+         resultSet.close();
+
+         return hasAny;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   // computes what the recursive queries would compute in the database, i.e. the resources the accessor inherits
+   // from and the domains that global and super-user permissions extend to, and binds them as IN lists into a single
+   // query, or returns null if they do not fit into a single statement
+   private SQLStatement prepareStatement(SQLConnection connection,
+                                         boolean countOnly,
+                                         Resource accessorResource,
+                                         Id<ResourceClassId> resourceClassId,
+                                         Id<DomainId> resourceDomainId,
+                                         Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                         Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) {
+      final List<Id<ResourceId>> accessorResourceIds
+            = new ArrayList<>(NonRecursivePersisterHelper.getInheritedAccessorResourceIds(sqlStrings,
+                                                                                          connection,
+                                                                                          accessorResource));
+      final Set<Id<DomainId>> restrictDomainIds;
+      if (resourceDomainId != null) {
+         restrictDomainIds = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                      domainHierarchyIndex,
+                                                                                                      connection,
+                                                                                                      resourceDomainId);
+      }
+      else {
+         restrictDomainIds = null;
+      }
+
+      // the descendants of each domain are only computed once for all global and super-user permissions
+      final Map<Id<DomainId>, Set<Id<DomainId>>> descendantDomainIdsByDomainId = new HashMap<>();
+
+      final List<Id<DomainId>> superUserDomainIds
+            = getDescendantDomainIds(connection,
+                                     findSuperUserDomainIds(connection, accessorResourceIds),
+                                     restrictDomainIds,
+                                     descendantDomainIdsByDomainId);
+
+      final Map<Long, List<Id<DomainId>>> globalDomainIdsByPermissionKey = new LinkedHashMap<>();
+      final Map<Long, Set<Id<DomainId>>> sysGlobalDomainIds
+            = findGlobalDomainIdsByPermissionKey(connection,
+                                                 sqlStrings.SQL_findInGrantGlobalResourcePermissionSys_withoutInheritance_ResourceDomainID_SysPermissionID_IsWithGrant_BY_ResourceClassID_AccessorID_IN,
+                                                 "SysPermissionId",
+                                                 resourceClassId,
+                                                 accessorResourceIds,
+                                                 sysPermissionIdsWithGrant);
+      final Map<Long, Boolean> permissionKeysWithGrant = new HashMap<>(permissionIdsWithGrant.size());
+      for (Map.Entry<Id<ResourcePermissionId>, Boolean> permissionIdWithGrant : permissionIdsWithGrant.entrySet()) {
+         permissionKeysWithGrant.put(permissionIdWithGrant.getKey().getValue(), permissionIdWithGrant.getValue());
+      }
+      final Map<Long, Set<Id<DomainId>>> globalDomainIds
+            = findGlobalDomainIdsByPermissionKey(connection,
+                                                 sqlStrings.SQL_findInGrantGlobalResourcePermission_withoutInheritance_ResourceDomainID_PermissionID_IsWithGrant_BY_ResourceClassID_AccessorID_IN,
+                                                 "PermissionId",
+                                                 resourceClassId,
+                                                 accessorResourceIds,
+                                                 permissionKeysWithGrant);
+      for (Map.Entry<Long, Set<Id<DomainId>>> entry : sysGlobalDomainIds.entrySet()) {
+         final List<Id<DomainId>> domainIds
+               = getDescendantDomainIds(connection, entry.getValue(), restrictDomainIds, descendantDomainIdsByDomainId);
+         if (!domainIds.isEmpty()) {
+            globalDomainIdsByPermissionKey.put(entry.getKey(), domainIds);
+         }
+      }
+      for (Map.Entry<Long, Set<Id<DomainId>>> entry : globalDomainIds.entrySet()) {
+         final List<Id<DomainId>> domainIds
+               = getDescendantDomainIds(connection, entry.getValue(), restrictDomainIds, descendantDomainIdsByDomainId);
+         if (!domainIds.isEmpty()) {
+            globalDomainIdsByPermissionKey.put(entry.getKey(), domainIds);
+         }
+      }
+
+      // pad each IN list like the other IN list queries do, to bound the number of distinct statements
+      final List<Id<DomainId>> restrictDomainIdList
+            = restrictDomainIds == null ? new ArrayList<Id<DomainId>>() : new ArrayList<>(restrictDomainIds);
+      final int restrictDomainCount = getPaddedInListParameterCount(restrictDomainIdList);
+      final int accessorCount = getPaddedInListParameterCount(accessorResourceIds);
+      final int superUserDomainCount = getPaddedInListParameterCount(superUserDomainIds);
+      final Map<Long, Integer> globalDomainCountsByPermissionKey = new LinkedHashMap<>();
+      for (Map.Entry<Long, List<Id<DomainId>>> entry : globalDomainIdsByPermissionKey.entrySet()) {
+         globalDomainCountsByPermissionKey.put(entry.getKey(), getPaddedInListParameterCount(entry.getValue()));
+      }
+
+      int parameterCount = 1 + restrictDomainCount + superUserDomainCount;
+      if (!sysPermissionIdsWithGrant.isEmpty()) {
+         parameterCount += accessorCount + 1 + 2 * sysPermissionIdsWithGrant.size();
+      }
+      if (!permissionIdsWithGrant.isEmpty()) {
+         parameterCount += accessorCount + 1 + 2 * permissionIdsWithGrant.size();
+      }
+      for (Integer globalDomainCount : globalDomainCountsByPermissionKey.values()) {
+         parameterCount += 1 + globalDomainCount;
+      }
+      // a single statement with more parameters than an IN list may hold would exceed the limits of some dialects
+      if (parameterCount > sqlStrings.getMaxInListSize()) {
+         return null;
+      }
+
+      SQLStatement statement = null;
+      try {
+         statement = connection.prepareStatement(
+               sqlStrings.getResourcesByPermissionsWithoutRecursionSQL(countOnly,
+                                                                       restrictDomainCount,
+                                                                       accessorCount,
+                                                                       sysPermissionIdsWithGrant.size(),
+                                                                       permissionIdsWithGrant.size(),
+                                                                       globalDomainCountsByPermissionKey,
+                                                                       superUserDomainCount));
+         int parameterIndex = 1;
+
+         statement.setResourceClassId(parameterIndex++, resourceClassId);
+         for (int i = 0; i < restrictDomainCount; i++) {
+            statement.setResourceDomainId(parameterIndex++, getPaddedElement(restrictDomainIdList, i));
+         }
+
+         // direct permissions
+         if (!sysPermissionIdsWithGrant.isEmpty()) {
+            for (int i = 0; i < accessorCount; i++) {
+               statement.setResourceId(parameterIndex++, getPaddedElement(accessorResourceIds, i));
+            }
+            statement.setResourceClassId(parameterIndex++, resourceClassId);
+            for (Map.Entry<Long, Boolean> sysPermissionIdWithGrant : sysPermissionIdsWithGrant.entrySet()) {
+               statement.setResourceSystemPermissionId(parameterIndex++, sysPermissionIdWithGrant.getKey());
+               statement.setBoolean(parameterIndex++, sysPermissionIdWithGrant.getValue());
+            }
+         }
+         if (!permissionIdsWithGrant.isEmpty()) {
+            for (int i = 0; i < accessorCount; i++) {
+               statement.setResourceId(parameterIndex++, getPaddedElement(accessorResourceIds, i));
+            }
+            statement.setResourceClassId(parameterIndex++, resourceClassId);
+            for (Map.Entry<Id<ResourcePermissionId>, Boolean> permissionIdWithGrant : permissionIdsWithGrant.entrySet()) {
+               statement.setResourcePermissionId(parameterIndex++, permissionIdWithGrant.getKey());
+               statement.setBoolean(parameterIndex++, permissionIdWithGrant.getValue());
+            }
+         }
+
+         // global permissions
+         for (Map.Entry<Long, List<Id<DomainId>>> entry : globalDomainIdsByPermissionKey.entrySet()) {
+            statement.setResourceClassId(parameterIndex++, resourceClassId);
+            final int domainCount = globalDomainCountsByPermissionKey.get(entry.getKey());
+            for (int i = 0; i < domainCount; i++) {
+               statement.setResourceDomainId(parameterIndex++, getPaddedElement(entry.getValue(), i));
+            }
+         }
+
+         // super-user permissions
+         for (int i = 0; i < superUserDomainCount; i++) {
+            statement.setResourceDomainId(parameterIndex++, getPaddedElement(superUserDomainIds, i));
+         }
+
+         final SQLStatement preparedStatement = statement;
+         statement = null;
+         return preparedStatement;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   private int getPaddedInListParameterCount(List<?> elements) {
+      if (elements.isEmpty()) {
+         return 0;
+      }
+      // lists longer than the dialect's limit are left unpadded, so that they are caught by the caller's check
+      if (elements.size() > sqlStrings.getMaxInListSize()) {
+         return elements.size();
+      }
+      return getInListParameterCount(sqlStrings, elements.size());
+   }
+
+   private List<Id<DomainId>> getDescendantDomainIds(SQLConnection connection,
+                                                     Set<Id<DomainId>> domainIds,
+                                                     Set<Id<DomainId>> restrictDomainIds,
+                                                     Map<Id<DomainId>, Set<Id<DomainId>>> descendantDomainIdsByDomainId) {
+      final Set<Id<DomainId>> allDomainIds = new HashSet<>();
+
+      for (Id<DomainId> domainId : domainIds) {
+         Set<Id<DomainId>> descendantDomainIds = descendantDomainIdsByDomainId.get(domainId);
+         if (descendantDomainIds == null) {
+            descendantDomainIds = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                                           domainHierarchyIndex,
+                                                                                                           connection,
+                                                                                                           domainId);
+            descendantDomainIdsByDomainId.put(domainId, descendantDomainIds);
+         }
+         allDomainIds.addAll(descendantDomainIds);
+      }
+
+      // domains outside of the requested domain would not match any resource anyway
+      if (restrictDomainIds != null) {
+         allDomainIds.retainAll(restrictDomainIds);
+      }
+
+      return new ArrayList<>(allDomainIds);
+   }
+
+   private Set<Id<DomainId>> findSuperUserDomainIds(SQLConnection connection,
+                                                    List<Id<ResourceId>> accessorResourceIds) {
+      SQLStatement statement = null;
+
+      try {
+         Set<Id<DomainId>> superUserDomainIds = new HashSet<>();
+
+         for (List<Id<ResourceId>> partitionedResourceIds : partition(accessorResourceIds, sqlStrings.getMaxInListSize())) {
+            final int parameterCount = getInListParameterCount(sqlStrings, partitionedResourceIds.size());
+            statement = connection.prepareStatement(
+                  sqlStrings.getInListSQL(sqlStrings.SQL_findInGrantDomainPermissionSys_withoutInheritance_superUser_ResourceDomainID_BY_AccessorID_IN,
+                                          parameterCount));
+            for (int i = 0; i < parameterCount; i++) {
+               statement.setResourceId(i + 1, getPaddedElement(partitionedResourceIds, i));
+            }
+            SQLResult resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+               superUserDomainIds.add(resultSet.getResourceDomainId("DomainId"));
+            }
+            resultSet.close();
+            statement.close();
+            statement = null;
+         }
+
+         return superUserDomainIds;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   private Map<Long, Set<Id<DomainId>>> findGlobalDomainIdsByPermissionKey(SQLConnection connection,
+                                                                           String sqlPrefix,
+                                                                           String permissionIdColumnLabel,
+                                                                           Id<ResourceClassId> resourceClassId,
+                                                                           List<Id<ResourceId>> accessorResourceIds,
+                                                                           Map<Long, Boolean> permissionKeysWithGrant) {
+      Map<Long, Set<Id<DomainId>>> domainIdsByPermissionKey = new LinkedHashMap<>();
+
+      if (permissionKeysWithGrant.isEmpty()) {
+         return domainIdsByPermissionKey;
+      }
+
+      SQLStatement statement = null;
+
+      try {
+         // the resource class takes one of the parameters of the statement
+         for (List<Id<ResourceId>> partitionedResourceIds : partition(accessorResourceIds, sqlStrings.getMaxInListSize() - 1)) {
+            final int parameterCount = Math.min(getInListParameterCount(sqlStrings, partitionedResourceIds.size()),
+                                                sqlStrings.getMaxInListSize() - 1);
+            statement = connection.prepareStatement(sqlStrings.getInListSQL(sqlPrefix, parameterCount));
+            statement.setResourceClassId(1, resourceClassId);
+            for (int i = 0; i < parameterCount; i++) {
+               statement.setResourceId(i + 2, getPaddedElement(partitionedResourceIds, i));
+            }
+            SQLResult resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+               final long permissionKey = resultSet.getLong(permissionIdColumnLabel);
+               final Boolean withGrantRequired = permissionKeysWithGrant.get(permissionKey);
+
+               if (withGrantRequired != null && (!withGrantRequired || resultSet.getBoolean("IsWithGrant"))) {
+                  Set<Id<DomainId>> domainIds = domainIdsByPermissionKey.get(permissionKey);
+                  if (domainIds == null) {
+                     domainIds = new HashSet<>();
+                     domainIdsByPermissionKey.put(permissionKey, domainIds);
+                  }
+                  domainIds.add(resultSet.getResourceDomainId("DomainId"));
+               }
+            }
+            resultSet.close();
+            statement.close();
+            statement = null;
+         }
+
+         return domainIdsByPermissionKey;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+}
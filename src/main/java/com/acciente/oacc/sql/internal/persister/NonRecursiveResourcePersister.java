@@ -28,9 +28,18 @@ import java.util.Set;
 public class NonRecursiveResourcePersister extends CommonResourcePersister implements Serializable {
    private static final long serialVersionUID = 1L;
 
+   private final DomainHierarchyIndex domainHierarchyIndex;
+
    public NonRecursiveResourcePersister(SQLProfile sqlProfile,
                                         SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, null);
+   }
+
+   public NonRecursiveResourcePersister(SQLProfile sqlProfile,
+                                        SQLStrings sqlStrings,
+                                        DomainHierarchyIndex domainHierarchyIndex) {
       super(sqlProfile, sqlStrings);
+      this.domainHierarchyIndex = domainHierarchyIndex;
    }
 
    @Override
@@ -43,6 +52,7 @@ public class NonRecursiveResourcePersister extends CommonResourcePersister imple
 
          final Set<Id<DomainId>> descendantDomainIds
                = NonRecursivePersisterHelper.getDescendantDomainIdsOrderedByAscendingLevel(sqlStrings,
+                                                                                           domainHierarchyIndex,
                                                                                            connection,
                                                                                            domainId);
 
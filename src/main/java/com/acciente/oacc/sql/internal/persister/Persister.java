@@ -17,8 +17,16 @@
  */
 package com.acciente.oacc.sql.internal.persister;
 
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceId;
+
 import java.io.Serializable;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Base class for persisters
@@ -50,4 +58,68 @@ public abstract class Persister implements Serializable {
          throw new IllegalStateException("Security table data update, 1 row expected, got: " + rowCount);
       }
    }
+
+   protected void assertOneRowInserted(int[] rowCounts) {
+      for (int rowCount : rowCounts) {
+         // drivers may report success of a batched statement without its row count
+         if (rowCount != Statement.SUCCESS_NO_INFO) {
+            assertOneRowInserted(rowCount);
+         }
+      }
+   }
+
+   protected void assertOneRowUpdated(int[] rowCounts) {
+      for (int rowCount : rowCounts) {
+         if (rowCount != Statement.SUCCESS_NO_INFO) {
+            assertOneRowUpdated(rowCount);
+         }
+      }
+   }
+
+   // IN list helper methods
+
+   protected static <T> List<List<T>> partition(Collection<T> elements, int maxPartitionSize) {
+      List<List<T>> partitions = new ArrayList<>((elements.size() + maxPartitionSize - 1) / maxPartitionSize);
+      List<T> partition = null;
+
+      for (T element : elements) {
+         if (partition == null || partition.size() == maxPartitionSize) {
+            partition = new ArrayList<>(Math.min(maxPartitionSize, elements.size()));
+            partitions.add(partition);
+         }
+         partition.add(element);
+      }
+      return partitions;
+   }
+
+   // rounds the number of IN list parameters up to the next power of two (within the dialect's limit), which bounds
+   // the number of distinct statements prepared for each IN list query to a handful
+   protected static int getInListParameterCount(SQLStrings sqlStrings, int elementCount) {
+      final int highestOneBit = Integer.highestOneBit(elementCount);
+      final int parameterCount = highestOneBit == elementCount ? elementCount : highestOneBit << 1;
+      return Math.min(parameterCount, sqlStrings.getMaxInListSize());
+   }
+
+   // pads the list by repeating its last element, which does not change the result of an IN list condition
+   protected static <T> T getPaddedElement(List<T> elements, int index) {
+      return elements.get(Math.min(index, elements.size() - 1));
+   }
+
+   // keyset pagination helper methods
+
+   // resource ids are never negative, so the first page starts after -1
+   protected static Id<ResourceId> getPageStartResourceId(Long afterResourceId) {
+      return Id.from(afterResourceId == null ? -1L : afterResourceId);
+   }
+
+   protected static List<Resource> getResourcePage(SQLResult resultSet, int pageSize) throws SQLException {
+      final List<Resource> resources = new ArrayList<>(pageSize);
+
+      while (resultSet.next()) {
+         resources.add(resultSet.getResource("ResourceId", "ExternalId"));
+      }
+      resultSet.close();
+
+      return resources;
+   }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.ResourcePermission;
+import com.acciente.oacc.ResourcePermissions;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceId;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class RecursiveBatchEffectiveResourcePermissionPersister extends Persister
+      implements BatchEffectiveResourcePermissionPersister, Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final SQLStrings sqlStrings;
+
+   public RecursiveBatchEffectiveResourcePermissionPersister(SQLStrings sqlStrings) {
+      this.sqlStrings = sqlStrings;
+   }
+
+   @Override
+   public Map<Id<ResourceId>, Set<ResourcePermission>> getEffectiveResourcePermissions(SQLConnection connection,
+                                                                                      Resource accessorResource,
+                                                                                      Collection<Id<ResourceId>> accessedResourceIds,
+                                                                                      Set<Id<ResourceId>> superUserAccessedResourceIds) {
+      SQLStatement statement = null;
+
+      try {
+         Map<Id<ResourceId>, Set<ResourcePermission>> resourcePermissionsByResourceId = new HashMap<>();
+
+         // each batch of accessed resources is evaluated by a single query over all grant tables; the batches
+         // are kept to half the dialect's IN list limit, so that the accessor parameter and any padding still fit
+         for (List<Id<ResourceId>> partitionedResourceIds : partition(accessedResourceIds, sqlStrings.getMaxInListSize() / 2)) {
+            final int parameterCount = getInListParameterCount(sqlStrings, partitionedResourceIds.size());
+            statement = connection.prepareStatement(
+                  sqlStrings.getInListSQL(sqlStrings.SQL_findInGrantResourcePermission_EffectivePermissions_AccessedID_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID_IN,
+                                          parameterCount,
+                                          sqlStrings.SQL_findInGrantResourcePermission_EffectivePermissions_AccessedID_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID_IN_SUFFIX));
+            statement.setResourceId(1, accessorResource);
+            for (int i = 0; i < parameterCount; i++) {
+               statement.setResourceId(i + 2, getPaddedElement(partitionedResourceIds, i));
+            }
+            SQLResult resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+               final Id<ResourceId> accessedResourceId = resultSet.getResourceId("AccessedResourceId");
+               final String permissionKind = resultSet.getString("PermissionKind");
+
+               if (SQLStrings.EffectivePermissionKind_SUPER_USER.equals(permissionKind)) {
+                  superUserAccessedResourceIds.add(accessedResourceId);
+                  continue;
+               }
+
+               final String permissionName;
+               if (SQLStrings.EffectivePermissionKind_SYS.equals(permissionKind)) {
+                  permissionName = resultSet.getResourceSysPermissionName("SysPermissionId");
+               }
+               else {
+                  permissionName = resultSet.getString("PermissionName");
+               }
+
+               Set<ResourcePermission> resourcePermissions = resourcePermissionsByResourceId.get(accessedResourceId);
+               if (resourcePermissions == null) {
+                  resourcePermissions = new HashSet<>();
+                  resourcePermissionsByResourceId.put(accessedResourceId, resourcePermissions);
+               }
+
+               if (resultSet.getBoolean("IsWithGrant")) {
+                  resourcePermissions.add(ResourcePermissions.getInstanceWithGrantOption(permissionName));
+               }
+               else {
+                  resourcePermissions.add(ResourcePermissions.getInstance(permissionName));
+               }
+            }
+            resultSet.close();
+            statement.close();
+            statement = null;
+         }
+
+         return resourcePermissionsByResourceId;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+}
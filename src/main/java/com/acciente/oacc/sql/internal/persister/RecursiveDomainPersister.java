@@ -70,8 +70,9 @@ public class RecursiveDomainPersister extends CommonDomainPersister implements S
       SQLStatement statement = null;
 
       try {
-         // chose strategy to perform recursive delete based on sql profile
-         if (sqlProfile.isRecursiveDeleteEnabled()) {
+         // chose strategy to perform recursive delete based on sql profile, the domain closure rows have to be
+         // deleted before the domains they reference, but are needed to determine the descendant domains
+         if (sqlProfile.isRecursiveDeleteEnabled() && !sqlProfile.isDomainClosureEnabled()) {
             // prepare the standard recursive delete statement of domain and its children
             statement = connection.prepareStatement(sqlStrings.SQL_removeInDomain_withDescendants_BY_DomainID);
             statement.setResourceDomainId(1, domainId);
@@ -83,7 +84,7 @@ public class RecursiveDomainPersister extends CommonDomainPersister implements S
             }
          }
          else {
-            // DBMS doesn't support recursive deletion, so we have to remove domain's children first
+            // DBMS doesn't support recursive deletion (or the closure needs cleanup), so we have to remove domain's children first
 
             // get descendant domain Ids
             statement = connection.prepareStatement(sqlStrings.SQL_findInDomain_DescendantResourceDomainID_BY_DomainID_ORDERBY_DomainLevel);
@@ -97,6 +98,10 @@ public class RecursiveDomainPersister extends CommonDomainPersister implements S
             }
             closeStatement(statement);
 
+            if (sqlProfile.isDomainClosureEnabled()) {
+               removeDomainClosure(connection, descendantDomainIds);
+            }
+
             // delete descendant domains one at a time, in reverse order of domainLevel, to preserve FK constraints
             statement = connection.prepareStatement(sqlStrings.SQL_removeInDomain_BY_DomainID);
 
@@ -208,8 +208,9 @@ public class RecursiveGrantDomainPermissionSysPersister extends CommonGrantDomai
 
             for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
                statement.setResourceDomainId(1, descendantDomainIds.get(i));
-               statement.executeUpdate();
+               statement.addBatch();
             }
+            statement.executeBatch();
          }
       }
       catch (SQLException e) {
@@ -235,8 +235,9 @@ public class RecursiveGrantGlobalResourcePermissionPersister extends CommonGrant
 
             for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
                statement.setResourceDomainId(1, descendantDomainIds.get(i));
-               statement.executeUpdate();
+               statement.addBatch();
             }
+            statement.executeBatch();
          }
       }
       catch (SQLException e) {
@@ -232,8 +232,9 @@ public class RecursiveGrantGlobalResourcePermissionSysPersister extends CommonGr
 
             for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
                statement.setResourceDomainId(1, descendantDomainIds.get(i));
-               statement.executeUpdate();
+               statement.addBatch();
             }
+            statement.executeBatch();
          }
       }
       catch (SQLException e) {
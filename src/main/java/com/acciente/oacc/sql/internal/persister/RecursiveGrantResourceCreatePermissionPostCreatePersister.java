@@ -156,8 +156,9 @@ public class RecursiveGrantResourceCreatePermissionPostCreatePersister extends C
 
             for (int i=descendantDomainIds.size()-1; i >= 0; i--) {
                statement.setResourceDomainId(1, descendantDomainIds.get(i));
-               statement.executeUpdate();
+               statement.addBatch();
             }
+            statement.executeBatch();
          }
       }
       catch (SQLException e) {
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.sql.internal.persister.id.DomainId;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
+import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.Map;
+
+public class RecursiveResourceCountPersister extends Persister implements ResourceCountPersister, Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final SQLStrings sqlStrings;
+
+   public RecursiveResourceCountPersister(SQLStrings sqlStrings) {
+      this.sqlStrings = sqlStrings;
+   }
+
+   @Override
+   public Long getResourceCountByResourcePermissions(SQLConnection connection,
+                                                     Resource accessorResource,
+                                                     Id<ResourceClassId> resourceClassId,
+                                                     Id<DomainId> resourceDomainId,
+                                                     Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                                     Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) {
+      SQLStatement statement = null;
+      try {
+         statement = connection.prepareStatement(
+               sqlStrings.getCountResourcesByPermissionsSQL(sysPermissionIdsWithGrant.size(),
+                                                            permissionIdsWithGrant.size(),
+                                                            resourceDomainId != null));
+         StreamingResourcePermissionPersister.setResourcesByPermissionsParameters(statement,
+                                                                                  accessorResource,
+                                                                                  resourceClassId,
+                                                                                  resourceDomainId,
+                                                                                  sysPermissionIdsWithGrant,
+                                                                                  permissionIdsWithGrant);
+         SQLResult resultSet = statement.executeQuery();
+
+         resultSet.next();
+         final long count = resultSet.getLong("COUNTResourceID");
+         resultSet.close();
+
+         return count;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   @Override
+   public Boolean hasAnyResourceByResourcePermissions(SQLConnection connection,
+                                                      Resource accessorResource,
+                                                      Id<ResourceClassId> resourceClassId,
+                                                      Id<DomainId> resourceDomainId,
+                                                      Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                                      Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) {
+      SQLStatement statement = null;
+      try {
+         // the first page of a single resource
+         statement = connection.prepareStatement(
+               sqlStrings.getPageResourcesByPermissionsSQL(sysPermissionIdsWithGrant.size(),
+                                                           permissionIdsWithGrant.size(),
+                                                           resourceDomainId != null,
+                                                           1));
+         final int parameterIndex
+               = StreamingResourcePermissionPersister.setResourcesByPermissionsParameters(statement,
+                                                                                          accessorResource,
+                                                                                          resourceClassId,
+                                                                                          resourceDomainId,
+                                                                                          sysPermissionIdsWithGrant,
+                                                                                          permissionIdsWithGrant);
+         statement.setResourceId(parameterIndex, getPageStartResourceId(null));
+         SQLResult resultSet = statement.executeQuery();
+
+         final boolean hasAny = resultSet.next();
+         resultSet.close();
+
+         return hasAny;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.sql.internal.ResourceClassInternalInfo;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
+import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An in-memory registry of resource class metadata, shared by the {@link ResourceClassPersister} and the
+ * {@link ResourceClassPermissionPersister}.
+ * <p>
+ * Resource classes and their permissions can only be added, and never changed or removed, so once a resource
+ * class or permission was found in the database it remains valid. The registry therefore only ever records what
+ * was found; lookups that miss (including those for names that do not exist) always go to the database.
+ * The only exception is the list of permission names of a resource class, which grows when a permission is
+ * added. It is discarded whenever this registry sees a permission added to that resource class, but permissions
+ * added through other access control contexts go unnoticed, so a registered list may be incomplete and is only
+ * used where a missing name can be detected (see {@link ResourceClassPermissionPersister}).
+ * <p>
+ * The registry also records the resource class of resources that were looked up by id, when resource ids are
+ * generated by a sequence and therefore never reused. At most {@link #MAX_RESOURCE_COUNT} resources are recorded,
+ * after which the recorded resources are discarded and recording starts over.
+ * <p>
+ * Metadata read or created within a transaction may still be rolled back, so it must not become visible to other
+ * sessions before the transaction commits. Such metadata is instead recorded in a separate pending registry carried
+ * by the {@link SQLConnection} of the transaction, and only {@link #publish published} to the shared registry once
+ * the transaction commits; a rollback simply drops the pending registry.
+ * <p>
+ * The registry contents are not serialized, a deserialized registry starts out empty.
+ * This class is thread-safe.
+ */
+public class ResourceClassMetadataRegistry implements Serializable {
+   private static final long serialVersionUID = 1L;
+
+   static final int MAX_RESOURCE_COUNT = 10000;
+
+   private transient ConcurrentMap<String, ResourceClassInternalInfo>                     resourceClassInfoByName;
+   private transient ConcurrentMap<Long, ConcurrentMap<String, Id<ResourcePermissionId>>> permissionIdsByResourceClassId;
+   private transient ConcurrentMap<Long, List<String>>                                    permissionNamesByResourceClassId;
+   private transient ConcurrentMap<Long, ResourceClassInternalInfo>                       resourceClassInfoByResourceId;
+
+   public ResourceClassMetadataRegistry() {
+      initialize();
+   }
+
+   ResourceClassInternalInfo getResourceClassInfo(SQLConnection connection, String resourceClassName) {
+      final ResourceClassInternalInfo resourceClassInternalInfo = resourceClassInfoByName.get(resourceClassName);
+      final ResourceClassMetadataRegistry pendingRegistry = connection.getPendingResourceClassMetadataRegistry();
+
+      if (resourceClassInternalInfo == null && pendingRegistry != null) {
+         return pendingRegistry.resourceClassInfoByName.get(resourceClassName);
+      }
+      return resourceClassInternalInfo;
+   }
+
+   void registerResourceClassInfo(SQLConnection connection,
+                                  String resourceClassName,
+                                  ResourceClassInternalInfo resourceClassInternalInfo) {
+      final ConcurrentMap<String, ResourceClassInternalInfo> targetResourceClassInfoByName
+            = getTargetRegistry(connection).resourceClassInfoByName;
+
+      targetResourceClassInfoByName.putIfAbsent(resourceClassName, resourceClassInternalInfo);
+      // also register under the name as stored, since the name used for the lookup may differ by case or whitespace
+      targetResourceClassInfoByName.putIfAbsent(resourceClassInternalInfo.getResourceClassName(),
+                                                resourceClassInternalInfo);
+   }
+
+   ResourceClassInternalInfo getResourceClassInfoByResourceId(SQLConnection connection, long resourceId) {
+      final ResourceClassInternalInfo resourceClassInternalInfo = resourceClassInfoByResourceId.get(resourceId);
+      final ResourceClassMetadataRegistry pendingRegistry = connection.getPendingResourceClassMetadataRegistry();
+
+      if (resourceClassInternalInfo == null && pendingRegistry != null) {
+         return pendingRegistry.resourceClassInfoByResourceId.get(resourceId);
+      }
+      return resourceClassInternalInfo;
+   }
+
+   void registerResourceClassInfoByResourceId(SQLConnection connection,
+                                              long resourceId,
+                                              ResourceClassInternalInfo resourceClassInternalInfo) {
+      getTargetRegistry(connection).registerResourceClassInfoByResourceId(resourceId, resourceClassInternalInfo);
+   }
+
+   void unregisterResourceClassInfoByResourceId(SQLConnection connection, long resourceId) {
+      resourceClassInfoByResourceId.remove(resourceId);
+
+      final ResourceClassMetadataRegistry pendingRegistry = connection.getPendingResourceClassMetadataRegistry();
+      if (pendingRegistry != null) {
+         pendingRegistry.resourceClassInfoByResourceId.remove(resourceId);
+      }
+   }
+
+   Id<ResourcePermissionId> getPermissionId(SQLConnection connection,
+                                            Id<ResourceClassId> resourceClassId,
+                                            String permissionName) {
+      final Id<ResourcePermissionId> permissionId = getPermissionId(resourceClassId, permissionName);
+      final ResourceClassMetadataRegistry pendingRegistry = connection.getPendingResourceClassMetadataRegistry();
+
+      if (permissionId == null && pendingRegistry != null) {
+         return pendingRegistry.getPermissionId(resourceClassId, permissionName);
+      }
+      return permissionId;
+   }
+
+   void registerPermissionId(SQLConnection connection,
+                             Id<ResourceClassId> resourceClassId,
+                             String permissionName,
+                             Id<ResourcePermissionId> permissionId) {
+      getTargetRegistry(connection).registerPermissionId(resourceClassId, permissionName, permissionId);
+   }
+
+   List<String> getPermissionNames(SQLConnection connection, long resourceClassId) {
+      // within a transaction only the names read by that transaction are complete, since it may have added some
+      return getTargetRegistry(connection).permissionNamesByResourceClassId.get(resourceClassId);
+   }
+
+   void registerPermissionNames(SQLConnection connection, long resourceClassId, List<String> permissionNames) {
+      getTargetRegistry(connection).permissionNamesByResourceClassId.put(resourceClassId,
+                                                                          Collections.unmodifiableList(permissionNames));
+   }
+
+   void unregisterPermissionNames(SQLConnection connection, long resourceClassId) {
+      permissionNamesByResourceClassId.remove(resourceClassId);
+
+      final ResourceClassMetadataRegistry pendingRegistry = connection.getPendingResourceClassMetadataRegistry();
+      if (pendingRegistry != null) {
+         pendingRegistry.permissionNamesByResourceClassId.remove(resourceClassId);
+      }
+   }
+
+   /**
+    * Registers the resource classes and permissions of the specified pending registry in this registry, once the
+    * transaction that recorded them has committed.
+    * <p>
+    * The pending permission name lists are not published, since other sessions may have added permissions since
+    * they were read.
+    *
+    * @param pendingRegistry the pending registry of a committed transaction
+    */
+   public void publish(ResourceClassMetadataRegistry pendingRegistry) {
+      for (Map.Entry<String, ResourceClassInternalInfo> entry : pendingRegistry.resourceClassInfoByName.entrySet()) {
+         resourceClassInfoByName.putIfAbsent(entry.getKey(), entry.getValue());
+      }
+      for (Map.Entry<Long, ConcurrentMap<String, Id<ResourcePermissionId>>> resourceClassEntry
+            : pendingRegistry.permissionIdsByResourceClassId.entrySet()) {
+         final Id<ResourceClassId> resourceClassId = Id.<ResourceClassId>from(resourceClassEntry.getKey());
+         for (Map.Entry<String, Id<ResourcePermissionId>> permissionEntry : resourceClassEntry.getValue().entrySet()) {
+            registerPermissionId(resourceClassId, permissionEntry.getKey(), permissionEntry.getValue());
+         }
+      }
+      for (Map.Entry<Long, ResourceClassInternalInfo> entry : pendingRegistry.resourceClassInfoByResourceId.entrySet()) {
+         registerResourceClassInfoByResourceId(entry.getKey(), entry.getValue());
+      }
+   }
+
+   // metadata found or created within a transaction is only registered in the pending registry of that transaction
+   private ResourceClassMetadataRegistry getTargetRegistry(SQLConnection connection) {
+      final ResourceClassMetadataRegistry pendingRegistry = connection.getPendingResourceClassMetadataRegistry();
+      return pendingRegistry != null ? pendingRegistry : this;
+   }
+
+   private Id<ResourcePermissionId> getPermissionId(Id<ResourceClassId> resourceClassId, String permissionName) {
+      final ConcurrentMap<String, Id<ResourcePermissionId>> permissionIds
+            = permissionIdsByResourceClassId.get(resourceClassId.getValue());
+
+      return permissionIds == null ? null : permissionIds.get(permissionName);
+   }
+
+   private void registerPermissionId(Id<ResourceClassId> resourceClassId,
+                                     String permissionName,
+                                     Id<ResourcePermissionId> permissionId) {
+      ConcurrentMap<String, Id<ResourcePermissionId>> permissionIds
+            = permissionIdsByResourceClassId.get(resourceClassId.getValue());
+
+      if (permissionIds == null) {
+         permissionIdsByResourceClassId.putIfAbsent(resourceClassId.getValue(),
+                                                    new ConcurrentHashMap<String, Id<ResourcePermissionId>>());
+         permissionIds = permissionIdsByResourceClassId.get(resourceClassId.getValue());
+      }
+      permissionIds.putIfAbsent(permissionName, permissionId);
+
+      // discard the registered permission names if they predate this permission
+      final List<String> permissionNames = permissionNamesByResourceClassId.get(resourceClassId.getValue());
+      if (permissionNames != null && !permissionNames.contains(permissionName)) {
+         permissionNamesByResourceClassId.remove(resourceClassId.getValue(), permissionNames);
+      }
+   }
+
+   private void registerResourceClassInfoByResourceId(long resourceId,
+                                                      ResourceClassInternalInfo resourceClassInternalInfo) {
+      if (resourceClassInfoByResourceId.size() >= MAX_RESOURCE_COUNT) {
+         resourceClassInfoByResourceId.clear();
+      }
+      resourceClassInfoByResourceId.putIfAbsent(resourceId, resourceClassInternalInfo);
+   }
+
+   private void initialize() {
+      resourceClassInfoByName = new ConcurrentHashMap<>();
+      permissionIdsByResourceClassId = new ConcurrentHashMap<>();
+      permissionNamesByResourceClassId = new ConcurrentHashMap<>();
+      resourceClassInfoByResourceId = new ConcurrentHashMap<>();
+   }
+
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      initialize();
+   }
+}
@@ -18,30 +18,48 @@
 package com.acciente.oacc.sql.internal.persister;
 
 import com.acciente.oacc.sql.SQLProfile;
+import com.acciente.oacc.sql.internal.ResourceClassInternalInfo;
 import com.acciente.oacc.sql.internal.persister.id.Id;
 import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
 import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
 
 import java.io.Serializable;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
 public class ResourceClassPermissionPersister extends Persister implements Serializable {
    private static final long serialVersionUID = 1L;
 
-   protected final SQLProfile sqlProfile;
-   private final   SQLStrings sqlStrings;
+   protected final SQLProfile                    sqlProfile;
+   private final   SQLStrings                    sqlStrings;
+   private final   ResourceClassMetadataRegistry resourceClassMetadataRegistry;
 
    public ResourceClassPermissionPersister(SQLProfile sqlProfile,
                                            SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, new ResourceClassMetadataRegistry());
+   }
+
+   public ResourceClassPermissionPersister(SQLProfile sqlProfile,
+                                           SQLStrings sqlStrings,
+                                           ResourceClassMetadataRegistry resourceClassMetadataRegistry) {
       this.sqlProfile = sqlProfile;
       this.sqlStrings = sqlStrings;
+      this.resourceClassMetadataRegistry = resourceClassMetadataRegistry;
    }
 
    public Id<ResourcePermissionId> getResourceClassPermissionId(SQLConnection connection,
                                                                 Id<ResourceClassId> resourceClassId,
                                                                 String permissionName) {
+      // permissions are never changed or removed, so a registered permission id is always current
+      final Id<ResourcePermissionId> registeredPermissionId
+            = resourceClassMetadataRegistry.getPermissionId(connection, resourceClassId, permissionName);
+
+      if (registeredPermissionId != null) {
+         return registeredPermissionId;
+      }
+
       SQLStatement statement = null;
       try {
          Id<ResourcePermissionId> permissionId = null;
@@ -54,6 +72,7 @@ public class ResourceClassPermissionPersister extends Persister implements Seria
 
          if (resultSet.next()) {
             permissionId = resultSet.getResourcePermissionId("PermissionId");
+            resourceClassMetadataRegistry.registerPermissionId(connection, resourceClassId, permissionName, permissionId);
          }
          resultSet.close();
 
@@ -67,6 +86,9 @@ public class ResourceClassPermissionPersister extends Persister implements Seria
       }
    }
 
+   /**
+    * Returns the names of all permissions of the specified resource class, as currently defined in the database.
+    */
    public List<String> getPermissionNames(SQLConnection connection, String resourceClassName) {
       SQLStatement statement = null;
 
@@ -81,6 +103,16 @@ public class ResourceClassPermissionPersister extends Persister implements Seria
             resourceClassNames.add(resultSet.getString("PermissionName"));
          }
 
+         // the permission names can only be registered by resource class id, which is only known for registered classes
+         final ResourceClassInternalInfo resourceClassInternalInfo
+               = resourceClassMetadataRegistry.getResourceClassInfo(connection, resourceClassName);
+
+         if (resourceClassInternalInfo != null) {
+            resourceClassMetadataRegistry.registerPermissionNames(connection,
+                                                                  resourceClassInternalInfo.getResourceClassId(),
+                                                                  new LinkedList<>(resourceClassNames));
+         }
+
          return resourceClassNames;
       }
       catch (SQLException e) {
@@ -91,6 +123,33 @@ public class ResourceClassPermissionPersister extends Persister implements Seria
       }
    }
 
+   /**
+    * Returns the names of the permissions of the specified resource class, for validating the specified
+    * permission names against them.
+    * <p>
+    * The registered permission names are returned if they include all the specified names. Otherwise they are
+    * read from the database, since another access control context may have added permissions since they were
+    * registered. The returned names are therefore complete only with respect to the specified names.
+    */
+   public List<String> getPermissionNames(SQLConnection connection,
+                                          String resourceClassName,
+                                          Collection<String> requiredPermissionNames) {
+      final ResourceClassInternalInfo resourceClassInternalInfo
+            = resourceClassMetadataRegistry.getResourceClassInfo(connection, resourceClassName);
+
+      if (resourceClassInternalInfo != null) {
+         final List<String> registeredPermissionNames
+               = resourceClassMetadataRegistry.getPermissionNames(connection, resourceClassInternalInfo.getResourceClassId());
+
+         if (registeredPermissionNames != null && registeredPermissionNames.containsAll(requiredPermissionNames)) {
+            // callers are free to modify the returned list
+            return new LinkedList<>(registeredPermissionNames);
+         }
+      }
+
+      return getPermissionNames(connection, resourceClassName);
+   }
+
    public void addResourceClassPermission(SQLConnection connection,
                                           Id<ResourceClassId> resourceClassId,
                                           String permissionName) {
@@ -102,6 +161,9 @@ public class ResourceClassPermissionPersister extends Persister implements Seria
          statement.setResourceClassId(1, resourceClassId);
          statement.setString(2, permissionName);
          assertOneRowInserted(statement.executeUpdate());
+
+         // the registered permission names of this resource class are now incomplete
+         resourceClassMetadataRegistry.unregisterPermissionNames(connection, resourceClassId.getValue());
       }
       catch (SQLException e) {
          throw new RuntimeException(e);
@@ -31,53 +31,63 @@ import java.util.List;
 public class ResourceClassPersister extends Persister implements Serializable {
    private static final long serialVersionUID = 1L;
 
-   protected final SQLProfile sqlProfile;
-   private final   SQLStrings sqlStrings;
+   protected final SQLProfile                    sqlProfile;
+   private final   SQLStrings                    sqlStrings;
+   private final   ResourceClassMetadataRegistry resourceClassMetadataRegistry;
 
    public ResourceClassPersister(SQLProfile sqlProfile,
                                  SQLStrings sqlStrings) {
+      this(sqlProfile, sqlStrings, new ResourceClassMetadataRegistry());
+   }
+
+   public ResourceClassPersister(SQLProfile sqlProfile,
+                                 SQLStrings sqlStrings,
+                                 ResourceClassMetadataRegistry resourceClassMetadataRegistry) {
       this.sqlProfile = sqlProfile;
       this.sqlStrings = sqlStrings;
+      this.resourceClassMetadataRegistry = resourceClassMetadataRegistry;
+   }
+
+   public SQLStrings getSQLStrings() {
+      return sqlStrings;
    }
 
    public Id<ResourceClassId> getResourceClassId(SQLConnection connection,
                                                  String resourceClassName) {
-      SQLStatement statement = null;
-
-      try {
-         Id<ResourceClassId> resourceClassId = null;
-
-         statement = connection.prepareStatement(sqlStrings.SQL_findInResourceClass_ResourceClassID_BY_ResourceClassName);
-         statement.setString(1, resourceClassName);
-         SQLResult resultSet = statement.executeQuery();
+      final ResourceClassInternalInfo resourceClassInternalInfo
+            = __getResourceClassInfo(connection, resourceClassName);
 
-         if (resultSet.next()) {
-            resourceClassId = resultSet.getResourceClassId("ResourceClassId");
-         }
-
-         return resourceClassId;
-      }
-      catch (SQLException e) {
-         throw new RuntimeException(e);
-      }
-      finally {
-         closeStatement(statement);
-      }
+      return resourceClassInternalInfo == null
+             ? null
+             : Id.<ResourceClassId>from(resourceClassInternalInfo.getResourceClassId());
    }
 
    public ResourceClassInternalInfo getResourceClassInfo(SQLConnection connection,
                                                          String resourceClassName) {
-      SQLStatement statement = null;
-
       if (resourceClassName == null) {
          throw new IllegalArgumentException("Resource class name cannot be null");
       }
 
+      return __getResourceClassInfo(connection, resourceClassName.trim());
+   }
+
+   private ResourceClassInternalInfo __getResourceClassInfo(SQLConnection connection,
+                                                            String resourceClassName) {
+      // resource classes are never changed or removed, so a registered resource class is always current
+      final ResourceClassInternalInfo registeredResourceClassInternalInfo
+            = resourceClassMetadataRegistry.getResourceClassInfo(connection, resourceClassName);
+
+      if (registeredResourceClassInternalInfo != null) {
+         return registeredResourceClassInternalInfo;
+      }
+
+      SQLStatement statement = null;
+
       try {
          ResourceClassInternalInfo resourceClassInternalInfo = null;
 
          statement = connection.prepareStatement(sqlStrings.SQL_findInResourceClass_ResourceClassID_ResourceClassName_IsAuthenticatable_IsUnauthenticatedCreateAllowed_BY_ResourceClassName);
-         statement.setString(1, resourceClassName.trim());
+         statement.setString(1, resourceClassName);
          SQLResult resultSet = statement.executeQuery();
 
          if (resultSet.next()) {
@@ -85,6 +95,7 @@ public class ResourceClassPersister extends Persister implements Serializable {
                                                                       resultSet.getString("ResourceClassName"),
                                                                       resultSet.getBoolean("IsAuthenticatable"),
                                                                       resultSet.getBoolean("IsUnauthenticatedCreateAllowed"));
+            resourceClassMetadataRegistry.registerResourceClassInfo(connection, resourceClassName, resourceClassInternalInfo);
          }
 
          return resourceClassInternalInfo;
@@ -99,6 +110,15 @@ public class ResourceClassPersister extends Persister implements Serializable {
 
    public ResourceClassInternalInfo getResourceClassInfoByResourceId(SQLConnection connection,
                                                                      Resource resource) {
+      if (isResourceClassInfoRegistrable(resource)) {
+         final ResourceClassInternalInfo registeredResourceClassInternalInfo
+               = resourceClassMetadataRegistry.getResourceClassInfoByResourceId(connection, resource.getId());
+
+         if (registeredResourceClassInternalInfo != null) {
+            return registeredResourceClassInternalInfo;
+         }
+      }
+
       SQLStatement statement = null;
 
       try {
@@ -119,6 +139,16 @@ public class ResourceClassPersister extends Persister implements Serializable {
             throw new IllegalArgumentException("Could not determine resource class for resource: " + resource);
          }
 
+         // the resource itself may be deleted, but its resource class remains valid
+         resourceClassMetadataRegistry.registerResourceClassInfo(connection,
+                                                                 resourceClassInternalInfo.getResourceClassName(),
+                                                                 resourceClassInternalInfo);
+         if (isResourceClassInfoRegistrable(resource)) {
+            resourceClassMetadataRegistry.registerResourceClassInfoByResourceId(connection,
+                                                                                resource.getId(),
+                                                                                resourceClassInternalInfo);
+         }
+
          return resourceClassInternalInfo;
       }
       catch (SQLException e) {
@@ -129,6 +159,20 @@ public class ResourceClassPersister extends Persister implements Serializable {
       }
    }
 
+   /**
+    * Discards the resource class registered for the specified resource, once the resource has been deleted.
+    */
+   public void discardRegisteredResourceClassInfo(SQLConnection connection, Resource resource) {
+      if (resource.getId() != null) {
+         resourceClassMetadataRegistry.unregisterResourceClassInfoByResourceId(connection, resource.getId());
+      }
+   }
+
+   private boolean isResourceClassInfoRegistrable(Resource resource) {
+      // the ids of deleted resources may be reused when they are not generated by a sequence
+      return sqlProfile.isSequenceEnabled() && resource.getId() != null;
+   }
+
    public List<String> getResourceClassNames(SQLConnection connection) {
       SQLStatement statement = null;
 
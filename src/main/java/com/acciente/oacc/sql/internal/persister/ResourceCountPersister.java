@@ -0,0 +1,70 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.sql.internal.persister.id.DomainId;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
+import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
+
+import java.util.Map;
+
+/**
+ * Counts the resources an accessor has a set of permissions to, directly, globally, via inheritance or as a
+ * super-user, in the database, without loading the resources themselves.
+ */
+public interface ResourceCountPersister {
+   /**
+    * Returns the number of resources of the specified class, optionally restricted to a domain and its descendants,
+    * to which the accessor has all the specified permissions or super-user access.
+    *
+    * @param connection                the connection
+    * @param accessorResource          the accessor resource
+    * @param resourceClassId           the resource class of the resources to count
+    * @param resourceDomainId          the domain to restrict the resources to, or <code>null</code> for all domains
+    * @param sysPermissionIdsWithGrant the requested system permission ids, each mapped to whether the grant option
+    *                                  is required
+    * @param permissionIdsWithGrant    the requested non-system permission ids, each mapped to whether the grant
+    *                                  option is required
+    * @return the number of resources, or <code>null</code> if the count cannot be computed in a single query, in
+    *         which case the caller has to fall back to counting the resources itself
+    */
+   Long getResourceCountByResourcePermissions(SQLConnection connection,
+                                              Resource accessorResource,
+                                              Id<ResourceClassId> resourceClassId,
+                                              Id<DomainId> resourceDomainId,
+                                              Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                              Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant);
+
+   /**
+    * Returns whether there is any resource of the specified class, optionally restricted to a domain and its
+    * descendants, to which the accessor has all the specified permissions or super-user access. The query stops at
+    * the first such resource.
+    *
+    * @return true if there is such a resource, false if there is none, or <code>null</code> if the answer cannot be
+    *         computed in a single query, in which case the caller has to fall back to looking for the resources itself
+    * @see #getResourceCountByResourcePermissions
+    */
+   Boolean hasAnyResourceByResourcePermissions(SQLConnection connection,
+                                               Resource accessorResource,
+                                               Id<ResourceClassId> resourceClassId,
+                                               Id<DomainId> resourceDomainId,
+                                               Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                               Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant);
+}
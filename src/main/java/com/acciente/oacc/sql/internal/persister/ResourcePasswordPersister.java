@@ -128,6 +128,29 @@ public class ResourcePasswordPersister extends Persister implements Serializable
       }
    }
 
+   public boolean replaceEncryptedBoundPasswordByResourceId(SQLConnection connection,
+                                                            Resource resource,
+                                                            String oldEncryptedBoundPassword,
+                                                            String newEncryptedBoundPassword) {
+      SQLStatement statement = null;
+
+      try {
+         // only replaces the password if it was not changed since it was read
+         statement = connection.prepareStatement(sqlPasswordStrings.SQL_updateInResourcePassword_Password_BY_ResourceID_Password);
+         statement.setString(1, newEncryptedBoundPassword);
+         statement.setResourceId(2, resource);
+         statement.setString(3, oldEncryptedBoundPassword);
+
+         return statement.executeUpdate() == 1;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
    public void removeEncryptedBoundPasswordByResourceId(SQLConnection connection, Resource resource) {
       SQLStatement statement = null;
 
@@ -145,4 +168,9 @@ public class ResourcePasswordPersister extends Persister implements Serializable
       }
    }
 
+
+   private Object readResolve() {
+      // reattach a deserialized persister to the shared instance for its schema
+      return SharedPersisters.getResourcePasswordPersister(sqlPasswordStrings.getSchemaName());
+   }
 }
@@ -23,6 +23,11 @@ import com.acciente.oacc.sql.internal.persister.id.Id;
 import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
 import com.acciente.oacc.sql.internal.persister.id.ResourceId;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 public interface ResourcePersister {
    void verifyResourceExists(SQLConnection connection,
                              Resource resource);
@@ -32,6 +37,11 @@ public interface ResourcePersister {
                            Id<DomainId> resourceDomainId,
                            String externalId);
 
+   List<Resource> createResources(SQLConnection connection,
+                                  Id<ResourceClassId> resourceClassId,
+                                  Id<DomainId> resourceDomainId,
+                                  List<String> externalIds);
+
    Resource setExternalId(SQLConnection connection,
                           Id<ResourceId> resourceId,
                           String externalId);
@@ -42,8 +52,16 @@ public interface ResourcePersister {
    Id<DomainId> getDomainIdByResource(SQLConnection connection,
                                       Resource resource);
 
+   Map<Id<ResourceId>, String> getResourceClassNamesByResourceIds(SQLConnection connection,
+                                                                  Collection<Id<ResourceId>> resourceIds);
+
    Id<ResourceId> getNextResourceId(SQLConnection connection);
 
+   List<Id<ResourceId>> getNextResourceIds(SQLConnection connection, int count);
+
+   Set<String> getExistingExternalIds(SQLConnection connection,
+                                      Collection<String> externalIds);
+
    boolean isDomainEmpty(SQLConnection connection,
                          Id<DomainId> resourceDomainId);
 
@@ -17,25 +17,210 @@
  */
 package com.acciente.oacc.sql.internal.persister;
 
+import com.acciente.oacc.sql.PreparedStatementCacheStatistics;
+
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 public class SQLConnection {
    private final Connection connection;
 
+   // the idle and in-use cached statements in least recently used order, or null when caching is disabled
+   private final LinkedHashMap<String, SQLStatement> statementCache;
+   private final int                                 statementCacheSize;
+   private final PreparedStatementCacheStatistics    statementCacheStatistics;
+
+   // whether statements of this connection changed the database since the flag was last cleared
+   private boolean changed;
+
+   // the resource class metadata recorded by the transaction in progress on this connection, if any
+   private ResourceClassMetadataRegistry pendingResourceClassMetadataRegistry;
+
    public SQLConnection(Connection connection) {
+      this(connection, 0, null);
+   }
+
+   public SQLConnection(Connection connection,
+                        int statementCacheSize,
+                        PreparedStatementCacheStatistics statementCacheStatistics) {
       this.connection = connection;
+      this.statementCache = statementCacheSize > 0 ? new LinkedHashMap<String, SQLStatement>(16, 0.75f, true) : null;
+      this.statementCacheSize = statementCacheSize;
+      this.statementCacheStatistics = statementCacheStatistics;
    }
 
    public SQLStatement prepareStatement(String sql) throws SQLException {
-      return new SQLStatement(connection.prepareStatement(sql));
+      if (statementCache == null) {
+         return new SQLStatement(connection.prepareStatement(sql), this);
+      }
+
+      final SQLStatement cachedStatement = statementCache.get(sql);
+      if (cachedStatement != null && !cachedStatement.isInUse()) {
+         recordStatementCacheHit();
+         cachedStatement.setInUse(true);
+         return cachedStatement;
+      }
+
+      recordStatementCacheMiss();
+      if (cachedStatement != null) {
+         // the cached statement is still open in an enclosing operation, e.g. an unfinished resource stream
+         return new SQLStatement(connection.prepareStatement(sql), this);
+      }
+
+      final SQLStatement newStatement = new SQLStatement(connection.prepareStatement(sql), this, true);
+      newStatement.setInUse(true);
+      statementCache.put(sql, newStatement);
+      evictIdleStatements();
+      return newStatement;
    }
 
    public SQLStatement prepareStatement(String sql, String[] generatedKeyColumns) throws SQLException {
-      return new SQLStatement(connection.prepareStatement(sql, generatedKeyColumns));
+      // statements that return generated keys are rare enough not to be worth caching
+      return new SQLStatement(connection.prepareStatement(sql, generatedKeyColumns), this);
+   }
+
+   public boolean getAutoCommit() throws SQLException {
+      return connection.getAutoCommit();
+   }
+
+   public void setAutoCommit(boolean autoCommit) throws SQLException {
+      connection.setAutoCommit(autoCommit);
+   }
+
+   public void commit() throws SQLException {
+      connection.commit();
+   }
+
+   public void rollback() throws SQLException {
+      connection.rollback();
    }
 
    public void close() throws SQLException {
-      this.connection.close();
+      try {
+         closeCachedStatements();
+      }
+      finally {
+         this.connection.close();
+      }
+   }
+
+   /**
+    * Closes all cached statements that are not in use, without closing the underlying connection.
+    *
+    * @throws SQLException if a statement could not be closed
+    */
+   public void closeCachedStatements() throws SQLException {
+      if (statementCache == null) {
+         return;
+      }
+
+      SQLException firstException = null;
+      final Iterator<SQLStatement> iterator = statementCache.values().iterator();
+      while (iterator.hasNext()) {
+         final SQLStatement cachedStatement = iterator.next();
+         if (!cachedStatement.isInUse()) {
+            iterator.remove();
+            try {
+               cachedStatement.closeUncached();
+            }
+            catch (SQLException e) {
+               if (firstException == null) {
+                  firstException = e;
+               }
+            }
+         }
+      }
+      if (firstException != null) {
+         throw firstException;
+      }
+   }
+
+   /**
+    * Returns true if an insert, update or delete was executed on this connection since it was opened, or since
+    * the last call to {@link #clearChanged()}. The changes may not have been committed yet.
+    *
+    * @return true if the database may have been changed through this connection
+    */
+   public boolean isChanged() {
+      return changed;
+   }
+
+   public void clearChanged() {
+      changed = false;
+   }
+
+   /**
+    * Returns the registry that records the resource class metadata read or created within the transaction in
+    * progress on this connection, which may not be published to the shared registry before the transaction commits.
+    *
+    * @return the pending registry, or null when no transaction is in progress
+    */
+   public ResourceClassMetadataRegistry getPendingResourceClassMetadataRegistry() {
+      return pendingResourceClassMetadataRegistry;
+   }
+
+   public void setPendingResourceClassMetadataRegistry(ResourceClassMetadataRegistry pendingResourceClassMetadataRegistry) {
+      this.pendingResourceClassMetadataRegistry = pendingResourceClassMetadataRegistry;
+   }
+
+   // called by a statement of this connection once it executed an insert, update or delete
+   void recordChange() {
+      changed = true;
+   }
+
+   int getStatementCacheSize() {
+      return statementCache == null ? 0 : statementCache.size();
+   }
+
+   // called by a cached statement when it is closed by its user
+   void releaseStatement(SQLStatement statement) throws SQLException {
+      statement.setInUse(false);
+      evictIdleStatements();
+   }
+
+   // called by a cached statement that could not be reset for reuse
+   void discardStatement(SQLStatement statement) {
+      final Iterator<SQLStatement> iterator = statementCache.values().iterator();
+      while (iterator.hasNext()) {
+         if (iterator.next() == statement) {
+            iterator.remove();
+            break;
+         }
+      }
+      try {
+         statement.closeUncached();
+      }
+      catch (SQLException e) {
+         // ignore, the caller reports the failure that made the statement unusable
+      }
+   }
+
+   private void evictIdleStatements() throws SQLException {
+      // statements that are in use are never evicted, so the cache may temporarily hold more than its maximum
+      final Iterator<SQLStatement> iterator = statementCache.values().iterator();
+      while (statementCache.size() > statementCacheSize && iterator.hasNext()) {
+         final SQLStatement cachedStatement = iterator.next();
+         if (!cachedStatement.isInUse()) {
+            iterator.remove();
+            if (statementCacheStatistics != null) {
+               statementCacheStatistics.recordEviction();
+            }
+            cachedStatement.closeUncached();
+         }
+      }
+   }
+
+   private void recordStatementCacheHit() {
+      if (statementCacheStatistics != null) {
+         statementCacheStatistics.recordHit();
+      }
+   }
+
+   private void recordStatementCacheMiss() {
+      if (statementCacheStatistics != null) {
+         statementCacheStatistics.recordMiss();
+      }
    }
 }
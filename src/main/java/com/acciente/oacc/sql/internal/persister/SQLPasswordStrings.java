@@ -18,6 +18,10 @@
 package com.acciente.oacc.sql.internal.persister;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class SQLPasswordStrings implements Serializable {
    private static final long serialVersionUID = 1L;
@@ -28,13 +32,27 @@ public class SQLPasswordStrings implements Serializable {
    public final String SQL_findInResourcePassword_Password_BY_ResourceID;
    public final String SQL_createInResourcePassword_WITH_ResourceID_Password;
    public final String SQL_updateInResourcePassword_Password_BY_ResourceID;
+   public final String SQL_updateInResourcePassword_Password_BY_ResourceID_Password;
    public final String SQL_removeInResourcePassword_BY_ResourceID;
 
+   private final String schemaName;
+
+   // the SQL strings are immutable, so they are built once per schema and shared by all their users
+   private static final ConcurrentMap<List<String>, SQLPasswordStrings> instances = new ConcurrentHashMap<>();
+
    public static SQLPasswordStrings getSQLPasswordStrings(String schemaName) {
-      return new SQLPasswordStrings(schemaName);
+      final List<String> key = Collections.singletonList(schemaName);
+      SQLPasswordStrings sqlPasswordStrings = instances.get(key);
+
+      if (sqlPasswordStrings == null) {
+         instances.putIfAbsent(key, new SQLPasswordStrings(schemaName));
+         sqlPasswordStrings = instances.get(key);
+      }
+      return sqlPasswordStrings;
    }
 
    private SQLPasswordStrings(String schemaName) {
+      this.schemaName = schemaName;
       final String schemaNameAndTablePrefix = schemaName != null ? schemaName + ".OAC_" : "OAC_";
 
       // GrantDomainCreatePermissionSys
@@ -51,7 +69,35 @@ public class SQLPasswordStrings implements Serializable {
       SQL_updateInResourcePassword_Password_BY_ResourceID
             = "UPDATE " + schemaNameAndTablePrefix + "ResourcePassword SET Password = ? WHERE ResourceId = ?";
 
+      SQL_updateInResourcePassword_Password_BY_ResourceID_Password
+            = "UPDATE " + schemaNameAndTablePrefix + "ResourcePassword SET Password = ? WHERE ResourceId = ? AND Password = ?";
+
       SQL_removeInResourcePassword_BY_ResourceID
             = "DELETE FROM " + schemaNameAndTablePrefix + "ResourcePassword WHERE ResourceId = ?";
    }
+
+   String getSchemaName() {
+      return schemaName;
+   }
+
+   // serialization helpers
+
+   private Object writeReplace() {
+      // only the schema name is serialized, a deserialized instance resolves to the shared instance for that schema
+      return new SerializedForm(schemaName);
+   }
+
+   private static class SerializedForm implements Serializable {
+      private static final long serialVersionUID = 1L;
+
+      private final String schemaName;
+
+      private SerializedForm(String schemaName) {
+         this.schemaName = schemaName;
+      }
+
+      private Object readResolve() {
+         return getSQLPasswordStrings(schemaName);
+      }
+   }
 }
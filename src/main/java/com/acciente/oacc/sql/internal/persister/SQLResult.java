@@ -64,6 +64,11 @@ public class SQLResult {
       return Id.from(resultSet.getLong(columnLabel));
    }
 
+   public Id<DomainId> getNullableResourceDomainId(String columnLabel) throws SQLException {
+      final long domainId = resultSet.getLong(columnLabel);
+      return resultSet.wasNull() ? null : Id.<DomainId>from(domainId);
+   }
+
    public Id<ResourcePermissionId> getResourcePermissionId(String columnLabel) throws SQLException {
       return Id.from(resultSet.getLong(columnLabel));
    }
@@ -100,6 +105,10 @@ public class SQLResult {
       return resultSet.getInt(columnIndex);
    }
 
+   public long getLong(String columnLabel) throws SQLException {
+      return resultSet.getLong(columnLabel);
+   }
+
    public String getString(String columnLabel) throws SQLException {
       return resultSet.getString(columnLabel);
    }
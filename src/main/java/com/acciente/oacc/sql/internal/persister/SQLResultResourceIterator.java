@@ -0,0 +1,92 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.CloseableIterator;
+import com.acciente.oacc.Resource;
+
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the resources of an open result set with <code>ResourceId</code> and <code>ExternalId</code> columns,
+ * and closes the result set and its statement when exhausted or closed
+ */
+class SQLResultResourceIterator implements CloseableIterator<Resource> {
+   private final SQLStatement statement;
+   private final SQLResult    resultSet;
+   private       Resource     nextResource;
+   private       boolean      closed;
+
+   SQLResultResourceIterator(SQLStatement statement, SQLResult resultSet) {
+      this.statement = statement;
+      this.resultSet = resultSet;
+   }
+
+   @Override
+   public boolean hasNext() {
+      if (nextResource == null && !closed) {
+         try {
+            if (resultSet.next()) {
+               nextResource = resultSet.getResource("ResourceId", "ExternalId");
+            }
+            else {
+               close();
+            }
+         }
+         catch (SQLException e) {
+            close();
+            throw new RuntimeException(e);
+         }
+      }
+      return nextResource != null;
+   }
+
+   @Override
+   public Resource next() {
+      if (!hasNext()) {
+         throw new NoSuchElementException();
+      }
+      final Resource resource = nextResource;
+      nextResource = null;
+      return resource;
+   }
+
+   @Override
+   public void remove() {
+      throw new UnsupportedOperationException("Removing resources through an iterator is not supported");
+   }
+
+   @Override
+   public void close() {
+      if (closed) {
+         return;
+      }
+      closed = true;
+
+      try {
+         resultSet.close();
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         Persister.closeStatement(statement);
+      }
+   }
+}
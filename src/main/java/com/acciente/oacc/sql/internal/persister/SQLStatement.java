@@ -29,9 +29,23 @@ import java.sql.SQLException;
 
 public class SQLStatement {
    private final PreparedStatement statement;
+   private int batchSize;
 
-   SQLStatement(PreparedStatement statement) {
+   private final SQLConnection connection;
+   // whether the statement cache of the connection owns this statement
+   private final boolean       cached;
+   private boolean   inUse;
+   private boolean   fetchSizeChanged;
+   private SQLResult openResult;
+
+   SQLStatement(PreparedStatement statement, SQLConnection connection) {
+      this(statement, connection, false);
+   }
+
+   SQLStatement(PreparedStatement statement, SQLConnection connection, boolean cached) {
       this.statement = statement;
+      this.connection = connection;
+      this.cached = cached;
    }
 
    public void setResourceId(int parameterIndex, Id<ResourceId> resourceId) throws SQLException {
@@ -75,6 +89,10 @@ public class SQLStatement {
       statement.setInt(parameterIndex, bool2int(value));
    }
 
+   public void setInt(int parameterIndex, int value) throws SQLException {
+      statement.setInt(parameterIndex, value);
+   }
+
    public void setString(int parameterIndex, String value) throws SQLException {
       statement.setString(parameterIndex, value);
    }
@@ -83,12 +101,40 @@ public class SQLStatement {
       statement.setNull(parameterIndex, sqlType);
    }
 
+   void setFetchSize(int fetchSize) throws SQLException {
+      statement.setFetchSize(fetchSize);
+      fetchSizeChanged = true;
+   }
+
    SQLResult executeQuery() throws SQLException {
-      return new SQLResult(statement.executeQuery());
+      final SQLResult result = new SQLResult(statement.executeQuery());
+      if (cached) {
+         // a cached statement stays open, so it has to close the result on behalf of callers that don't
+         openResult = result;
+      }
+      return result;
    }
 
    int executeUpdate() throws SQLException {
-      return statement.executeUpdate();
+      final int rowCount = statement.executeUpdate();
+      connection.recordChange();
+      return rowCount;
+   }
+
+   void addBatch() throws SQLException {
+      statement.addBatch();
+      batchSize++;
+   }
+
+   int[] executeBatch() throws SQLException {
+      if (batchSize == 0) {
+         // nothing was added, so skip the round-trip (some drivers reject an empty batch)
+         return new int[0];
+      }
+      batchSize = 0;
+      final int[] rowCounts = statement.executeBatch();
+      connection.recordChange();
+      return rowCounts;
    }
 
    public SQLResult getGeneratedKeys() throws SQLException {
@@ -96,9 +142,52 @@ public class SQLStatement {
    }
 
    void close() throws SQLException {
+      if (!cached) {
+         statement.close();
+         return;
+      }
+
+      if (!inUse) {
+         // already returned to the cache
+         return;
+      }
+
+      // return a cached statement to its connection in the state it was prepared in
+      try {
+         if (openResult != null) {
+            openResult.close();
+            openResult = null;
+         }
+         if (batchSize > 0) {
+            statement.clearBatch();
+            batchSize = 0;
+         }
+         if (fetchSizeChanged) {
+            statement.setFetchSize(0);
+            fetchSizeChanged = false;
+         }
+         statement.clearParameters();
+      }
+      catch (SQLException e) {
+         // don't hand out a statement in an unknown state again
+         connection.discardStatement(this);
+         throw e;
+      }
+      connection.releaseStatement(this);
+   }
+
+   void closeUncached() throws SQLException {
       statement.close();
    }
 
+   boolean isInUse() {
+      return inUse;
+   }
+
+   void setInUse(boolean inUse) {
+      this.inUse = inUse;
+   }
+
    // helpers
 
    private static int bool2int(boolean value) {
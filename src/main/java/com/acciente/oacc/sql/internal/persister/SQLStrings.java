@@ -17,12 +17,21 @@
  */
 package com.acciente.oacc.sql.internal.persister;
 
+import com.acciente.oacc.DomainPermission;
+import com.acciente.oacc.DomainPermissions;
 import com.acciente.oacc.ResourcePermission;
 import com.acciente.oacc.ResourcePermissions;
 import com.acciente.oacc.sql.SQLDialect;
 import com.acciente.oacc.sql.SQLProfile;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class SQLStrings implements Serializable {
    private static final long serialVersionUID = 1L;
@@ -55,6 +64,16 @@ public class SQLStrings implements Serializable {
    public final String SQL_findInDomain_DirectDescendantResourceDomainName_BY_ResourceDomainName;
    public final String SQL_findInDomain_DirectDescendantResourceDomainName_BY_DomainID;
    public final String SQL_findInDomain_ParentResourceDomainName_BY_DomainID;
+   public final String SQL_findInDomain_DomainID_ResourceDomainName_ParentDomainID;
+   public final String SQL_findInDomain_DirectDescendantResourceDomainName_BY_DomainID_IN;
+   public final String SQL_findInDomain_DirectDescendantResourceDomainName_BY_ResourceDomainName_IN;
+   // DomainClosure - common
+   public final String SQL_findInDomainClosure_AncestorDomainID_BY_DomainID;
+   public final String SQL_findInDomainClosure_DescendantDomainID_BY_DomainID_ORDERBY_Depth;
+   public final String SQL_findInDomainClosure_DescendantResourceDomainName_BY_ResourceDomainName;
+   public final String SQL_createInDomainClosure_WITH_DomainID;
+   public final String SQL_createInDomainClosure_WITH_DomainID_ParentDomainID;
+   public final String SQL_removeInDomainClosure_BY_DescendantDomainID;
 
    // GrantDomainCreatePermissionSys - common
    public final String SQL_findInGrantDomainCreatePermissionSys_withoutInheritance_SysPermissionID_BY_AccessorID;
@@ -104,6 +123,9 @@ public class SQLStrings implements Serializable {
    public final String SQL_createInResourceExternalId_WITH_ResourceID_ExternalID;
    public final String SQL_removeInResourceExternalId_BY_ResourceID;
    public final String SQL_findInResourceExternalId_ResourceId_ExternalId_BY_ExternalID;
+   public final String SQL_findInResource_ResourceID_ResourceClassName_BY_ResourceID_IN;
+   public final String SQL_createInResource_WITH_ResourceClassID_DomainID_VALUES;
+   public final String SQL_findInResourceExternalId_ExternalId_BY_ExternalID_IN;
    // Resource - recursive
    public final String SQL_findInResource_COUNTResourceID_BY_DomainID;
    // Resource - non-recursive
@@ -165,6 +187,16 @@ public class SQLStrings implements Serializable {
    public final String SQL_findInGrantResourcePermissionSys_ResourceClassName_SysPermissionID_IsWithGrant_BY_AccessorID_AccessedID;
    // GrantResourcePermissionSys - non-recursive
    public final String SQL_findInGrantResourcePermissionSys_directInheritance_ResourceID_BY_AccessorID;
+   public final String SQL_findInGrantResourcePermissionSys_directInheritance_ResourceID_BY_AccessorID_IN;
+
+   // InheritanceClosure - common
+   public final String SQL_findInInheritanceClosure_InheritedResourceID_BY_AccessorID;
+   public final String SQL_findInInheritanceClosure_AccessorID_BY_InheritedResourceID;
+   public final String SQL_createInInheritanceClosure_WITH_AccessorID_AccessedID;
+   public final String SQL_createInInheritanceClosure_directInheritance_BY_AccessorID_IN;
+   public final String SQL_createInInheritanceClosure_transitiveInheritance_BY_AccessorID_IN;
+   public final String SQL_removeInInheritanceClosure_BY_AccessorID;
+   public final String SQL_removeInInheritanceClosure_BY_AccessorID_IN;
    public final String SQL_findInGrantResourcePermissionSys_withoutInheritance_ResourceID_ExternalID_BY_AccessorID_ResourceClassID_SysPermissionID_IsWithGrant;
    public final String SQL_findInGrantResourcePermissionSys_withoutInheritance_ResourceID_ExternalID_BY_AccessorID_DomainID_ResourceClassID_SysPermissionID_IsWithGrant;
 
@@ -220,59 +252,158 @@ public class SQLStrings implements Serializable {
    // GrantGlobalResourcePermission - non-recursive
    public final String SQL_findInGrantGlobalResourcePermission_withoutInheritance_ResourceDomainID_BY_AccessorID_ResourceClassID_PermissionID_IsWithGrant;
 
+   // EffectiveResourcePermission - recursive
+   public final String SQL_findInGrantResourcePermission_EffectivePermissions_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID;
+   public final String SQL_findInGrantResourcePermission_EffectivePermissions_AccessedID_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID_IN;
+   public final String SQL_findInGrantResourcePermission_EffectivePermissions_AccessedID_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID_IN_SUFFIX;
+   // EffectiveResourcePermission - non-recursive
+   public final String SQL_findInResource_ResourceID_DomainID_ResourceClassID_BY_ResourceID_IN;
+   public final String SQL_findInGrantDomainPermissionSys_withoutInheritance_superUser_ResourceDomainID_BY_AccessorID_IN;
+   public final String SQL_findInGrantGlobalResourcePermissionSys_withoutInheritance_ResourceDomainID_ResourceClassID_SysPermissionID_IsWithGrant_BY_AccessorID_IN;
+   public final String SQL_findInGrantGlobalResourcePermission_withoutInheritance_ResourceDomainID_ResourceClassID_PermissionName_IsWithGrant_BY_AccessorID_IN;
+   public final String SQL_findInGrantGlobalResourcePermissionSys_withoutInheritance_ResourceDomainID_SysPermissionID_IsWithGrant_BY_ResourceClassID_AccessorID_IN;
+   public final String SQL_findInGrantGlobalResourcePermission_withoutInheritance_ResourceDomainID_PermissionID_IsWithGrant_BY_ResourceClassID_AccessorID_IN;
+   public final String SQL_findInGrantResourcePermissionSys_withoutInheritance_AccessedID_SysPermissionID_IsWithGrant_BY_AccessorID_IN_AccessedID_IN;
+   public final String SQL_findInGrantResourcePermissionSys_withoutInheritance_AccessedID_SysPermissionID_IsWithGrant_BY_AccessorID_IN_AccessedID_IN_SUFFIX;
+   public final String SQL_findInGrantResourcePermission_withoutInheritance_AccessedID_PermissionName_IsWithGrant_BY_AccessorID_IN_AccessedID_IN;
+   public final String SQL_findInGrantResourcePermission_withoutInheritance_AccessedID_PermissionName_IsWithGrant_BY_AccessorID_IN_AccessedID_IN_SUFFIX;
+
+   // PermissionChangeCounter - common
+   public final String SQL_findInPermissionChangeCounter_ChangeCount;
+   public final String SQL_updateInPermissionChangeCounter_increment_ChangeCount;
+
+   // DomainChangeCounter - common
+   public final String SQL_findInDomainChangeCounter_ChangeCount;
+   public final String SQL_updateInDomainChangeCounter_increment_ChangeCount;
+
    // Key generators
    public final String SQL_nextResourceID;
+   public final String SQL_nextResourceIDs_BY_Count;
 
+   private final String     schemaName;
    private final SQLProfile sqlProfile;
+   private final boolean    inheritanceClosureEnabled;
+   private final int        maxInListSize;
+
+   // fragments of the resource streaming query, which getStreamResourcesByPermissionsSQL() assembles per request
+   private final String schemaNameAndTablePrefix;
+   private final String unionClause;
+   private final String streamAccessorsCTE;
+   private final String streamDescendantDomainsCTE;
 
    // resource permissions constants
    private static final ResourcePermission ResourcePermission_INHERIT = ResourcePermissions.getInstance(ResourcePermissions.INHERIT);
 
+   // domain permissions constants
+   private static final DomainPermission DomainPermission_SUPER_USER = DomainPermissions.getInstance(DomainPermissions.SUPER_USER);
+
+   // the kinds of rows returned by the effective resource permissions query
+   public static final String EffectivePermissionKind_SUPER_USER = "D";
+   public static final String EffectivePermissionKind_SYS        = "S";
+   public static final String EffectivePermissionKind_NON_SYS    = "P";
+
+   // the SQL strings are immutable, so they are built once per (schema, profile, inheritance closure option) and
+   // shared by all their users
+   private static final ConcurrentMap<List<String>, SQLStrings> instances = new ConcurrentHashMap<>();
+
    public static SQLStrings getSQLStrings(String schemaName,
                                           SQLProfile sqlProfile) {
-      return new SQLStrings(schemaName, sqlProfile, DialectSpecificSQLGenerator.getInstance(sqlProfile
-                                                                                                  .getSqlDialect()));
+      return getSQLStrings(schemaName, sqlProfile, false);
+   }
+
+   public static SQLStrings getSQLStrings(String schemaName,
+                                          SQLProfile sqlProfile,
+                                          boolean inheritanceClosureEnabled) {
+      final List<String> key = Arrays.asList(schemaName,
+                                             SQLProfile.nameOf(sqlProfile),
+                                             String.valueOf(inheritanceClosureEnabled));
+      SQLStrings sqlStrings = instances.get(key);
+
+      if (sqlStrings == null) {
+         instances.putIfAbsent(key,
+                               new SQLStrings(schemaName,
+                                              sqlProfile,
+                                              inheritanceClosureEnabled,
+                                              DialectSpecificSQLGenerator.getInstance(sqlProfile.getSqlDialect())));
+         sqlStrings = instances.get(key);
+      }
+      return sqlStrings;
    }
 
    private SQLStrings(String schemaName,
                       SQLProfile sqlProfile,
+                      boolean inheritanceClosureEnabled,
                       DialectSpecificSQLGenerator dialectSpecificSQLGenerator) {
+      this.schemaName = schemaName;
       this.sqlProfile = sqlProfile;
+      this.inheritanceClosureEnabled = inheritanceClosureEnabled;
+      this.maxInListSize = dialectSpecificSQLGenerator.getMaxInListSize();
       final String withClause = dialectSpecificSQLGenerator.getWithClause();
       final String unionClause = dialectSpecificSQLGenerator.getUnionClause();
       final String schemaNameAndTablePrefix = schemaName != null ? schemaName + ".OAC_" : "OAC_";
+      this.unionClause = unionClause;
+      this.schemaNameAndTablePrefix = schemaNameAndTablePrefix;
       // recursive query to compute all the resource ids that a given accessor is equivalent to as a
-      // result of having the INHERIT permission
+      // result of having the INHERIT permission, which simply joins the accessor with its inherited resources
+      // from the inheritance closure table when it is enabled
       final String SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
-            = withClause + " N( AccessorResourceId ) AS "
-            + "( SELECT ResourceId FROM "
-            + schemaNameAndTablePrefix
-            + "Resource WHERE ResourceId = ? " + unionClause + " SELECT Nplus1.AccessedResourceId FROM "
-            + schemaNameAndTablePrefix
-            + "Grant_ResPerm_Sys Nplus1, N "
-            + "WHERE Nplus1.AccessorResourceId = N.AccessorResourceId AND Nplus1.SysPermissionId = "
-            + ResourcePermission_INHERIT.getSystemPermissionId()
-            + " ) ";
+            = inheritanceClosureEnabled
+              ? withClause + " N0( AccessorResourceId ) AS "
+                    + "( SELECT ResourceId FROM "
+                    + schemaNameAndTablePrefix
+                    + "Resource WHERE ResourceId = ? ), "
+                    + "N( AccessorResourceId ) AS "
+                    + "( SELECT AccessorResourceId FROM N0 " + unionClause + " SELECT C.InheritedResourceId FROM "
+                    + schemaNameAndTablePrefix
+                    + "InheritanceClosure C JOIN N0 ON N0.AccessorResourceId = C.AccessorResourceId ) "
+              : withClause + " N( AccessorResourceId ) AS "
+                    + "( SELECT ResourceId FROM "
+                    + schemaNameAndTablePrefix
+                    + "Resource WHERE ResourceId = ? " + unionClause + " SELECT Nplus1.AccessedResourceId FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_ResPerm_Sys Nplus1, N "
+                    + "WHERE Nplus1.AccessorResourceId = N.AccessorResourceId AND Nplus1.SysPermissionId = "
+                    + ResourcePermission_INHERIT.getSystemPermissionId()
+                    + " ) ";
 
-      // recursive query to compute all ancestors of a given an domain
+      // recursive query to compute all ancestors of a given an domain, which simply reads the ancestors
+      // from the domain closure table when the profile maintains one
       final String SQL_findAncestorsRecursiveInDomain_DomainID_BY_DomainID
-            = ", R( DomainId, ParentDomainId ) AS "
-            + "( SELECT DomainId, ParentDomainId FROM "
-            + schemaNameAndTablePrefix
-            + "Domain WHERE DomainId = ? " + unionClause + " SELECT Rplus1.DomainId, Rplus1.ParentDomainId FROM "
-            + schemaNameAndTablePrefix
-            + "Domain Rplus1, R "
-            + "WHERE R.ParentDomainId IS NOT NULL AND Rplus1.DomainId = R.ParentDomainId ) ";
+            = sqlProfile.isDomainClosureEnabled()
+              ? ", R( DomainId ) AS "
+                    + "( SELECT AncestorDomainId FROM "
+                    + schemaNameAndTablePrefix
+                    + "DomainClosure WHERE DescendantDomainId = ? ) "
+              : ", R( DomainId, ParentDomainId ) AS "
+                    + "( SELECT DomainId, ParentDomainId FROM "
+                    + schemaNameAndTablePrefix
+                    + "Domain WHERE DomainId = ? " + unionClause + " SELECT Rplus1.DomainId, Rplus1.ParentDomainId FROM "
+                    + schemaNameAndTablePrefix
+                    + "Domain Rplus1, R "
+                    + "WHERE R.ParentDomainId IS NOT NULL AND Rplus1.DomainId = R.ParentDomainId ) ";
 
-      // recursive query to compute all descendants of a given an domain
+      // recursive query to compute all descendants of a given an domain, which simply reads the descendants
+      // from the domain closure table when the profile maintains one
       final String SQL_findDescendantsRecursiveInDomain_DomainID_BY_DomainID
-            = "S( DomainId ) AS "
-            + "( SELECT DomainId FROM "
-            + schemaNameAndTablePrefix
-            + "Domain WHERE DomainId = ? " + unionClause + " SELECT Splus1.DomainId FROM "
-            + schemaNameAndTablePrefix
-            + "Domain Splus1, S "
-            + "WHERE Splus1.ParentDomainId IS NOT NULL AND Splus1.ParentDomainId = S.DomainId ) ";
+            = sqlProfile.isDomainClosureEnabled()
+              ? "S( DomainId ) AS "
+                    + "( SELECT DescendantDomainId FROM "
+                    + schemaNameAndTablePrefix
+                    + "DomainClosure WHERE AncestorDomainId = ? ) "
+              : "S( DomainId ) AS "
+                    + "( SELECT DomainId FROM "
+                    + schemaNameAndTablePrefix
+                    + "Domain WHERE DomainId = ? " + unionClause + " SELECT Splus1.DomainId FROM "
+                    + schemaNameAndTablePrefix
+                    + "Domain Splus1, S "
+                    + "WHERE Splus1.ParentDomainId IS NOT NULL AND Splus1.ParentDomainId = S.DomainId ) ";
+
+      streamAccessorsCTE = sqlProfile.isRecursiveCTEEnabled()
+                           ? SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
+                           : null;
+      streamDescendantDomainsCTE = sqlProfile.isRecursiveCTEEnabled()
+                                   ? ", " + SQL_findDescendantsRecursiveInDomain_DomainID_BY_DomainID
+                                   : null;
 
       // ResourceClass
       SQL_findInResourceClass_ResourceClassID_BY_ResourceClassName
@@ -374,31 +505,78 @@ public class SQLStrings implements Serializable {
             + schemaNameAndTablePrefix
             + "Domain WHERE DomainId = ?";
 
-      // Domain - recursive
-      // recursive query to return all descendants domain names of the specified domain names
-      SQL_findInDomain_DescendantResourceDomainName_BY_ResourceDomainName
-            = withClause + " S( DomainId, DomainName ) AS "
-            + "( SELECT DomainId, DomainName FROM "
+      // DomainClosure - common
+      SQL_findInDomainClosure_AncestorDomainID_BY_DomainID
+            = "SELECT AncestorDomainId DomainId FROM "
             + schemaNameAndTablePrefix
-            + "Domain WHERE DomainName = ? "
-            + unionClause + " "
-            + "SELECT Splus1.DomainId, Splus1.DomainName FROM "
+            + "DomainClosure WHERE DescendantDomainId = ?";
+
+      SQL_findInDomainClosure_DescendantDomainID_BY_DomainID_ORDERBY_Depth
+            = "SELECT C.DescendantDomainId DomainId, D.DomainName DomainName FROM "
+            + schemaNameAndTablePrefix
+            + "DomainClosure C JOIN "
             + schemaNameAndTablePrefix
-            + "Domain Splus1, S "
-            + "WHERE Splus1.ParentDomainId IS NOT NULL AND Splus1.ParentDomainId = S.DomainId ) "
-            + "SELECT DomainId, DomainName FROM S";
+            + "Domain D ON D.DomainId = C.DescendantDomainId "
+            + "WHERE C.AncestorDomainId = ? ORDER BY C.Depth";
 
-      SQL_findInDomain_DescendantResourceDomainID_BY_DomainID_ORDERBY_DomainLevel
-            = withClause + " S( DomainId, DomainName, DomainLevel ) AS "
-            + "( SELECT DomainId, DomainName, 0 FROM "
+      SQL_findInDomainClosure_DescendantResourceDomainName_BY_ResourceDomainName
+            = "SELECT D.DomainId DomainId, D.DomainName DomainName FROM "
             + schemaNameAndTablePrefix
-            + "Domain WHERE DomainId = ? "
-            + unionClause + " "
-            + "SELECT Splus1.DomainId, Splus1.DomainName, S.DomainLevel + 1 FROM "
+            + "Domain A JOIN "
             + schemaNameAndTablePrefix
-            + "Domain Splus1, S "
-            + "WHERE Splus1.ParentDomainId IS NOT NULL AND Splus1.ParentDomainId = S.DomainId ) "
-            + "SELECT DomainId, DomainName FROM S ORDER BY DomainLevel";
+            + "DomainClosure C ON C.AncestorDomainId = A.DomainId JOIN "
+            + schemaNameAndTablePrefix
+            + "Domain D ON D.DomainId = C.DescendantDomainId "
+            + "WHERE A.DomainName = ?";
+
+      SQL_createInDomainClosure_WITH_DomainID
+            = "INSERT INTO "
+            + schemaNameAndTablePrefix
+            + "DomainClosure ( AncestorDomainId, DescendantDomainId, Depth ) VALUES ( ?, ?, 0 )";
+
+      // pairs a new domain with every ancestor of its parent domain (including the parent itself)
+      SQL_createInDomainClosure_WITH_DomainID_ParentDomainID
+            = "INSERT INTO "
+            + schemaNameAndTablePrefix
+            + "DomainClosure ( AncestorDomainId, DescendantDomainId, Depth ) "
+            + "SELECT AncestorDomainId, ?, Depth + 1 FROM "
+            + schemaNameAndTablePrefix
+            + "DomainClosure WHERE DescendantDomainId = ?";
+
+      SQL_removeInDomainClosure_BY_DescendantDomainID
+            = "DELETE FROM "
+            + schemaNameAndTablePrefix
+            + "DomainClosure WHERE DescendantDomainId = ?";
+
+      // Domain - recursive
+      // recursive query to return all descendants domain names of the specified domain names
+      SQL_findInDomain_DescendantResourceDomainName_BY_ResourceDomainName
+            = sqlProfile.isDomainClosureEnabled()
+              ? SQL_findInDomainClosure_DescendantResourceDomainName_BY_ResourceDomainName
+              : withClause + " S( DomainId, DomainName ) AS "
+                    + "( SELECT DomainId, DomainName FROM "
+                    + schemaNameAndTablePrefix
+                    + "Domain WHERE DomainName = ? "
+                    + unionClause + " "
+                    + "SELECT Splus1.DomainId, Splus1.DomainName FROM "
+                    + schemaNameAndTablePrefix
+                    + "Domain Splus1, S "
+                    + "WHERE Splus1.ParentDomainId IS NOT NULL AND Splus1.ParentDomainId = S.DomainId ) "
+                    + "SELECT DomainId, DomainName FROM S";
+
+      SQL_findInDomain_DescendantResourceDomainID_BY_DomainID_ORDERBY_DomainLevel
+            = sqlProfile.isDomainClosureEnabled()
+              ? SQL_findInDomainClosure_DescendantDomainID_BY_DomainID_ORDERBY_Depth
+              : withClause + " S( DomainId, DomainName, DomainLevel ) AS "
+                    + "( SELECT DomainId, DomainName, 0 FROM "
+                    + schemaNameAndTablePrefix
+                    + "Domain WHERE DomainId = ? "
+                    + unionClause + " "
+                    + "SELECT Splus1.DomainId, Splus1.DomainName, S.DomainLevel + 1 FROM "
+                    + schemaNameAndTablePrefix
+                    + "Domain Splus1, S "
+                    + "WHERE Splus1.ParentDomainId IS NOT NULL AND Splus1.ParentDomainId = S.DomainId ) "
+                    + "SELECT DomainId, DomainName FROM S ORDER BY DomainLevel";
 
       SQL_removeInDomain_withDescendants_BY_DomainID
             = sqlProfile.isRecursiveDeleteEnabled()
@@ -437,6 +615,26 @@ public class SQLStrings implements Serializable {
             + schemaNameAndTablePrefix
             + "Domain d1 ON d1.DomainId = d0.ParentDomainId WHERE d0.DomainId = ?";
 
+      // returns the entire domain hierarchy, used to load the in-memory domain hierarchy index
+      SQL_findInDomain_DomainID_ResourceDomainName_ParentDomainID
+            = "SELECT DomainId, DomainName, ParentDomainId FROM "
+            + schemaNameAndTablePrefix
+            + "Domain";
+
+      // prefixes of non-recursive queries that return the direct descendants of a set of domains, which must be
+      // completed with an IN list of parameters using getInListSQL()
+      SQL_findInDomain_DirectDescendantResourceDomainName_BY_DomainID_IN
+            = "SELECT DomainId, DomainName FROM "
+            + schemaNameAndTablePrefix
+            + "Domain WHERE ParentDomainId IN ";
+
+      SQL_findInDomain_DirectDescendantResourceDomainName_BY_ResourceDomainName_IN
+            = "SELECT d1.DomainId, d1.DomainName FROM "
+            + schemaNameAndTablePrefix
+            + "Domain d0 JOIN "
+            + schemaNameAndTablePrefix
+            + "Domain d1 on d1.ParentDomainId=d0.DomainId WHERE d0.DomainName IN ";
+
       // GrantDomainCreatePermissionSys - common
       SQL_findInGrantDomainCreatePermissionSys_withoutInheritance_SysPermissionID_BY_AccessorID
             = "SELECT A.SysPermissionId, A.IsWithGrant FROM "
@@ -469,7 +667,7 @@ public class SQLStrings implements Serializable {
       // GrantDomainCreatePermissionSys - recursive
       SQL_findInGrantDomainCreatePermissionSys_SysPermissionID_IsWithGrant_BY_AccessorID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
-            + "SELECT A.SysPermissionId, A.IsWithGrant FROM "
+            + "SELECT A.SysPermissionId SysPermissionId, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_DomCrPerm_Sys A "
             + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId ";
@@ -506,7 +704,7 @@ public class SQLStrings implements Serializable {
       // GrantDomainCreatePermissionPostCreateSys - recursive
       SQL_findInGrantDomainCreatePermissionPostCreateSys_PostCreateSysPermissionID_PostCreateIsWithGrant_IsWithGrant_BY_AccessorID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
-            + "SELECT A.PostCreateSysPermissionId, A.PostCreateIsWithGrant, A.IsWithGrant FROM "
+            + "SELECT A.PostCreateSysPermissionId PostCreateSysPermissionId, A.PostCreateIsWithGrant PostCreateIsWithGrant, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_DomCrPerm_PostCr_Sys A "
             + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId ";
@@ -576,7 +774,7 @@ public class SQLStrings implements Serializable {
             + "Domain Rplus1, R "
             + "WHERE Rplus1.ParentDomainId IS NOT NULL AND Rplus1.ParentDomainId = R.DomainId ) "
             // finally we get the resources of the specified type in the domains we computed above
-            + "SELECT A.ResourceId, E.ExternalId FROM "
+            + "SELECT A.ResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Resource A "
             + "JOIN R ON R.DomainId = A.DomainId LEFT JOIN "
@@ -601,7 +799,7 @@ public class SQLStrings implements Serializable {
             + "Domain Rplus1, R "
             + "WHERE Rplus1.ParentDomainId IS NOT NULL AND Rplus1.ParentDomainId = R.DomainId ) "
             // finally we get the resources of the specified type in the domains we computed above
-            + "SELECT A.ResourceId, E.ExternalId FROM "
+            + "SELECT A.ResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Resource A "
             + "JOIN R ON R.DomainId = A.DomainId "
@@ -613,7 +811,7 @@ public class SQLStrings implements Serializable {
       SQL_findInGrantDomainPermissionSys_SysPermissionID_IsWithGrant_BY_AccessorID_DomainID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
             + SQL_findAncestorsRecursiveInDomain_DomainID_BY_DomainID
-            + "SELECT A.SysPermissionId, A.IsWithGrant FROM "
+            + "SELECT A.SysPermissionId SysPermissionId, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_DomPerm_Sys A "
             + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
@@ -631,7 +829,7 @@ public class SQLStrings implements Serializable {
             + schemaNameAndTablePrefix
             + "Domain Pplus1, P "
             + "WHERE Pplus1.ParentDomainId IS NOT NULL AND Pplus1.ParentDomainId = P.AccessedDomainId ) "
-            + "SELECT B.DomainName, P.SysPermissionId, P.IsWithGrant FROM P JOIN "
+            + "SELECT B.DomainName DomainName, P.SysPermissionId SysPermissionId, P.IsWithGrant IsWithGrant FROM P JOIN "
             + schemaNameAndTablePrefix
             + "Domain B ON B.DomainId = P.AccessedDomainId";
 
@@ -697,6 +895,19 @@ public class SQLStrings implements Serializable {
       SQL_findInResource_DomainID_BY_ResourceID
             = "SELECT DomainId FROM " + schemaNameAndTablePrefix + "Resource WHERE ResourceId = ? ";
 
+      // prefix of a query for a set of resources, which must be completed with an IN list using getInListSQL()
+      SQL_findInResource_ResourceID_ResourceClassName_BY_ResourceID_IN
+            = "SELECT A.ResourceId, B.ResourceClassName FROM "
+            + schemaNameAndTablePrefix + "Resource A JOIN "
+            + schemaNameAndTablePrefix + "ResourceClass B ON B.ResourceClassId = A.ResourceClassId WHERE A.ResourceId IN ";
+
+      // prefix of a multi-row insert, which must be completed with one row of parameters per new resource
+      // using getMultiRowValuesSQL()
+      SQL_createInResource_WITH_ResourceClassID_DomainID_VALUES
+            = "INSERT INTO "
+            + schemaNameAndTablePrefix
+            + "Resource ( ResourceClassId, DomainId ) VALUES ";
+
       SQL_findInResource_withoutInheritance_ResourceId_ExternalId_BY_ResourceClassID_DomainID
             = "SELECT A.ResourceId, E.ExternalId FROM "
             + schemaNameAndTablePrefix + "Resource A  LEFT JOIN "
@@ -715,6 +926,11 @@ public class SQLStrings implements Serializable {
             = "SELECT ResourceId, ExternalId FROM "
             + schemaNameAndTablePrefix + "ResourceExternalID WHERE ExternalId = ?";
 
+      // prefix of a query for a set of external ids, which must be completed with an IN list using getInListSQL()
+      SQL_findInResourceExternalId_ExternalId_BY_ExternalID_IN
+            = "SELECT ExternalId FROM "
+            + schemaNameAndTablePrefix + "ResourceExternalID WHERE ExternalId IN ";
+
       // Resource - recursive
       SQL_findInResource_COUNTResourceID_BY_DomainID
             = withClause + " "
@@ -782,7 +998,7 @@ public class SQLStrings implements Serializable {
       SQL_findInGrantResourceCreatePermissionSys_SysPermissionId_IsWithGrant_BY_AccessorID_AccessedDomainID_ResourceClassID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
             + SQL_findAncestorsRecursiveInDomain_DomainID_BY_DomainID
-            + "SELECT A.SysPermissionId, A.IsWithGrant FROM "
+            + "SELECT A.SysPermissionId SysPermissionId, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_ResCrPerm_Sys A "
             + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
@@ -801,7 +1017,7 @@ public class SQLStrings implements Serializable {
             + schemaNameAndTablePrefix
             + "Domain Pplus1, P "
             + "WHERE Pplus1.ParentDomainId IS NOT NULL AND Pplus1.ParentDomainId = P.AccessedDomainId ) "
-            + "SELECT C.DomainName, B.ResourceClassName, P.SysPermissionId, P.IsWithGrant FROM P JOIN "
+            + "SELECT C.DomainName DomainName, B.ResourceClassName ResourceClassName, P.SysPermissionId SysPermissionId, P.IsWithGrant IsWithGrant FROM P JOIN "
             + schemaNameAndTablePrefix
             + "ResourceClass B ON B.ResourceClassId = P.ResourceClassId JOIN "
             + schemaNameAndTablePrefix
@@ -876,7 +1092,7 @@ public class SQLStrings implements Serializable {
       SQL_findInGrantResourceCreatePermissionPostCreateSys_PostCreateSysPermissionID_PostCreateIsWithGrant_IsWithGrant_BY_AccessorID_AccessedDomainID_ResourceClassID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
             + SQL_findAncestorsRecursiveInDomain_DomainID_BY_DomainID
-            + "SELECT A.PostCreateSysPermissionId, A.PostCreateIsWithGrant, A.IsWithGrant FROM "
+            + "SELECT A.PostCreateSysPermissionId PostCreateSysPermissionId, A.PostCreateIsWithGrant PostCreateIsWithGrant, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_ResCrPerm_PostCr_Sys A "
             + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
@@ -895,7 +1111,7 @@ public class SQLStrings implements Serializable {
             + schemaNameAndTablePrefix
             + "Domain Pplus1, P "
             + "WHERE Pplus1.ParentDomainId IS NOT NULL AND Pplus1.ParentDomainId = P.AccessedDomainId ) "
-            + "SELECT C.DomainName, B.ResourceClassName, P.PostCreateSysPermissionId, P.PostCreateIsWithGrant, P.IsWithGrant FROM P JOIN "
+            + "SELECT C.DomainName DomainName, B.ResourceClassName ResourceClassName, P.PostCreateSysPermissionId PostCreateSysPermissionId, P.PostCreateIsWithGrant PostCreateIsWithGrant, P.IsWithGrant IsWithGrant FROM P JOIN "
             + schemaNameAndTablePrefix
             + "ResourceClass B ON B.ResourceClassId = P.ResourceClassId JOIN "
             + schemaNameAndTablePrefix
@@ -982,7 +1198,7 @@ public class SQLStrings implements Serializable {
       SQL_findInGrantResourceCreatePermissionPostCreate_ResourceClassName_PostCreatePermissionName_PostCreateIsWithGrant_IsWithGrant_BY_AccessorID_AccessedDomainID_ResourceClassID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
             + SQL_findAncestorsRecursiveInDomain_DomainID_BY_DomainID
-            + "SELECT C.ResourceClassName, B.PermissionName PostCreatePermissionName, A.PostCreateIsWithGrant, A.IsWithGrant FROM "
+            + "SELECT C.ResourceClassName ResourceClassName, B.PermissionName PostCreatePermissionName, A.PostCreateIsWithGrant PostCreateIsWithGrant, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_ResCrPerm_PostCr A JOIN "
             + schemaNameAndTablePrefix
@@ -1005,7 +1221,7 @@ public class SQLStrings implements Serializable {
             + schemaNameAndTablePrefix
             + "Domain Pplus1, P "
             + "WHERE Pplus1.ParentDomainId IS NOT NULL AND Pplus1.ParentDomainId = P.AccessedDomainId ) "
-            + "SELECT D.DomainName, C.ResourceClassName, B.PermissionName PostCreatePermissionName, P.PostCreateIsWithGrant, P.IsWithGrant FROM P JOIN "
+            + "SELECT D.DomainName DomainName, C.ResourceClassName ResourceClassName, B.PermissionName PostCreatePermissionName, P.PostCreateIsWithGrant PostCreateIsWithGrant, P.IsWithGrant IsWithGrant FROM P JOIN "
             + schemaNameAndTablePrefix
             + "ResourceClassPermission B ON B.ResourceClassId = P.ResourceClassId AND B.PermissionId = P.PostCreatePermissionId JOIN "
             + schemaNameAndTablePrefix
@@ -1068,7 +1284,7 @@ public class SQLStrings implements Serializable {
       // GrantResourcePermissionSys - recursive
       SQL_findInGrantResourcePermissionSys_ResourceID_ExternalID_BY_AccessorID_ResourceClassID_SysPermissionID_IsWithGrant
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
-            + "SELECT B.AccessedResourceId ResourceId, E.ExternalId FROM "
+            + "SELECT B.AccessedResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Grant_ResPerm_Sys B "
             + "JOIN N ON N.AccessorResourceId = B.AccessorResourceId LEFT JOIN "
@@ -1079,7 +1295,7 @@ public class SQLStrings implements Serializable {
       SQL_findInGrantResourcePermissionSys_ResourceID_ExternalID_BY_AccessorID_DomainID_ResourceClassID_SysPermissionID_IsWithGrant
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
             + ", " + SQL_findDescendantsRecursiveInDomain_DomainID_BY_DomainID
-            + "SELECT B.AccessedResourceId ResourceId, E.ExternalId FROM "
+            + "SELECT B.AccessedResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Grant_ResPerm_Sys B JOIN "
             + schemaNameAndTablePrefix
@@ -1092,7 +1308,7 @@ public class SQLStrings implements Serializable {
 
       SQL_findInGrantResourcePermissionSys_ResourceClassName_SysPermissionID_IsWithGrant_BY_AccessorID_AccessedID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
-            + "SELECT B.ResourceClassName, A.SysPermissionId, A.IsWithGrant FROM "
+            + "SELECT B.ResourceClassName ResourceClassName, A.SysPermissionId SysPermissionId, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_ResPerm_Sys A JOIN "
             + schemaNameAndTablePrefix
@@ -1108,6 +1324,92 @@ public class SQLStrings implements Serializable {
             + "WHERE AccessorResourceId = ? AND SysPermissionId = "
             + ResourcePermission_INHERIT.getSystemPermissionId();
 
+      // prefix of the above query for a set of accessors, which must be completed with an IN list using getInListSQL()
+      SQL_findInGrantResourcePermissionSys_directInheritance_ResourceID_BY_AccessorID_IN
+            = "SELECT AccessedResourceId ResourceId FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_ResPerm_Sys "
+            + "WHERE SysPermissionId = "
+            + ResourcePermission_INHERIT.getSystemPermissionId()
+            + " AND AccessorResourceId IN ";
+
+      // InheritanceClosure - common
+      SQL_findInInheritanceClosure_InheritedResourceID_BY_AccessorID
+            = "SELECT InheritedResourceId ResourceId FROM "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure WHERE AccessorResourceId = ?";
+
+      SQL_findInInheritanceClosure_AccessorID_BY_InheritedResourceID
+            = "SELECT AccessorResourceId ResourceId FROM "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure WHERE InheritedResourceId = ?";
+
+      // pairs the accessor and every resource that inherits from it with the accessed resource and every resource
+      // the accessed resource inherits from, unless already paired
+      SQL_createInInheritanceClosure_WITH_AccessorID_AccessedID
+            = "INSERT INTO "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure ( AccessorResourceId, InheritedResourceId ) "
+            + "SELECT X.ResourceId, Y.ResourceId FROM "
+            + "( SELECT ResourceId FROM "
+            + schemaNameAndTablePrefix
+            + "Resource WHERE ResourceId = ? UNION SELECT AccessorResourceId FROM "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure WHERE InheritedResourceId = ? ) X JOIN "
+            + "( SELECT ResourceId FROM "
+            + schemaNameAndTablePrefix
+            + "Resource WHERE ResourceId = ? UNION SELECT InheritedResourceId FROM "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure WHERE AccessorResourceId = ? ) Y ON Y.ResourceId <> X.ResourceId "
+            + "LEFT JOIN "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure E ON E.AccessorResourceId = X.ResourceId AND E.InheritedResourceId = Y.ResourceId "
+            + "WHERE E.AccessorResourceId IS NULL";
+
+      // prefix of a statement that pairs a set of accessors with the resources they directly inherit from, which
+      // must be completed with an IN list using getInListSQL()
+      SQL_createInInheritanceClosure_directInheritance_BY_AccessorID_IN
+            = "INSERT INTO "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure ( AccessorResourceId, InheritedResourceId ) "
+            + "SELECT AccessorResourceId, AccessedResourceId FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_ResPerm_Sys "
+            + "WHERE SysPermissionId = "
+            + ResourcePermission_INHERIT.getSystemPermissionId()
+            + " AND AccessorResourceId IN ";
+
+      // prefix of a statement that pairs a set of accessors with the resources that the resources they directly
+      // inherit from are already paired with, unless already paired, which must be completed with an IN list
+      // using getInListSQL(); each execution extends the closure of the accessors by at least one more level
+      SQL_createInInheritanceClosure_transitiveInheritance_BY_AccessorID_IN
+            = "INSERT INTO "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure ( AccessorResourceId, InheritedResourceId ) "
+            + "SELECT DISTINCT G.AccessorResourceId, C.InheritedResourceId FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_ResPerm_Sys G JOIN "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure C ON C.AccessorResourceId = G.AccessedResourceId LEFT JOIN "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure E ON E.AccessorResourceId = G.AccessorResourceId "
+            + "AND E.InheritedResourceId = C.InheritedResourceId "
+            + "WHERE E.AccessorResourceId IS NULL AND G.SysPermissionId = "
+            + ResourcePermission_INHERIT.getSystemPermissionId()
+            + " AND G.AccessorResourceId IN ";
+
+      SQL_removeInInheritanceClosure_BY_AccessorID
+            = "DELETE FROM "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure WHERE AccessorResourceId = ?";
+
+      // prefix of the above statement for a set of accessors, which must be completed with an IN list using
+      // getInListSQL()
+      SQL_removeInInheritanceClosure_BY_AccessorID_IN
+            = "DELETE FROM "
+            + schemaNameAndTablePrefix
+            + "InheritanceClosure WHERE AccessorResourceId IN ";
+
       SQL_findInGrantResourcePermissionSys_withoutInheritance_ResourceID_ExternalID_BY_AccessorID_ResourceClassID_SysPermissionID_IsWithGrant
             = "SELECT B.AccessedResourceId ResourceId, E.ExternalId FROM "
             + schemaNameAndTablePrefix
@@ -1183,7 +1485,7 @@ public class SQLStrings implements Serializable {
       // GrantResourcePermission - recursive
       SQL_findInGrantResourcePermission_ResourceID_ExternalID_BY_AccessorID_ResourceClassID_PermissionID_IsWithGrant
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
-            + "SELECT B.AccessedResourceId ResourceId, E.ExternalId FROM "
+            + "SELECT B.AccessedResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Grant_ResPerm B "
             + "JOIN N ON N.AccessorResourceId = B.AccessorResourceId LEFT JOIN "
@@ -1194,7 +1496,7 @@ public class SQLStrings implements Serializable {
       SQL_findInGrantResourcePermission_ResourceID_ExternalID_BY_AccessorID_DomainID_ResourceClassID_PermissionID_IsWithGrant
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
             + ", " + SQL_findDescendantsRecursiveInDomain_DomainID_BY_DomainID
-            + "SELECT B.AccessedResourceId ResourceId, E.ExternalId FROM "
+            + "SELECT B.AccessedResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Grant_ResPerm B JOIN "
             + schemaNameAndTablePrefix
@@ -1207,7 +1509,7 @@ public class SQLStrings implements Serializable {
 
       SQL_findInGrantResourcePermission_ResourceClassName_PermissionName_IsWithGrant_BY_AccessorID_AccessedID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
-            + "SELECT C.ResourceClassName, B.PermissionName, A.IsWithGrant FROM "
+            + "SELECT C.ResourceClassName ResourceClassName, B.PermissionName PermissionName, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_ResPerm A JOIN "
             + schemaNameAndTablePrefix
@@ -1302,7 +1604,7 @@ public class SQLStrings implements Serializable {
             + "Domain Rplus1, R "
             + "WHERE Rplus1.ParentDomainId IS NOT NULL AND Rplus1.ParentDomainId = R.DomainId ) "
             // finally we get the resources of the specified type in the domains we computed above
-            + "SELECT A.ResourceId, E.ExternalId FROM "
+            + "SELECT A.ResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Resource A "
             + "JOIN R ON R.DomainId = A.DomainId LEFT JOIN "
@@ -1327,7 +1629,7 @@ public class SQLStrings implements Serializable {
             + "Domain Rplus1, R "
             + "WHERE Rplus1.ParentDomainId IS NOT NULL AND Rplus1.ParentDomainId = R.DomainId ) "
             // finally we get the resources of the specified type in the domains we computed above
-            + "SELECT A.ResourceId, E.ExternalId FROM "
+            + "SELECT A.ResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Resource A "
             + "JOIN R ON R.DomainId = A.DomainId "
@@ -1339,7 +1641,7 @@ public class SQLStrings implements Serializable {
       SQL_findInGrantGlobalResourcePermissionSys_SysPermissionID_IsWithGrant_BY_AccessorID_AccessedDomainID_ResourceClassID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
             + SQL_findAncestorsRecursiveInDomain_DomainID_BY_DomainID
-            + "SELECT A.SysPermissionId, A.IsWithGrant FROM "
+            + "SELECT A.SysPermissionId SysPermissionId, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_Global_ResPerm_Sys A "
             + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
@@ -1358,7 +1660,7 @@ public class SQLStrings implements Serializable {
             + schemaNameAndTablePrefix
             + "Domain Pplus1, P "
             + "WHERE Pplus1.ParentDomainId IS NOT NULL AND Pplus1.ParentDomainId = P.AccessedDomainId ) "
-            + "SELECT C.DomainName, B.ResourceClassName, P.SysPermissionId, P.IsWithGrant FROM P JOIN "
+            + "SELECT C.DomainName DomainName, B.ResourceClassName ResourceClassName, P.SysPermissionId SysPermissionId, P.IsWithGrant IsWithGrant FROM P JOIN "
             + schemaNameAndTablePrefix
             + "ResourceClass B ON B.ResourceClassId = P.ResourceClassId JOIN "
             + schemaNameAndTablePrefix
@@ -1465,7 +1767,7 @@ public class SQLStrings implements Serializable {
             + "Domain Rplus1, R "
             + "WHERE Rplus1.ParentDomainId IS NOT NULL AND Rplus1.ParentDomainId = R.DomainId ) "
             // finally we get the resources of the specified type in the domains we computed above
-            + "SELECT A.ResourceId, E.ExternalId FROM "
+            + "SELECT A.ResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Resource A "
             + "JOIN R ON R.DomainId = A.DomainId LEFT JOIN "
@@ -1490,7 +1792,7 @@ public class SQLStrings implements Serializable {
             + "Domain Rplus1, R "
             + "WHERE Rplus1.ParentDomainId IS NOT NULL AND Rplus1.ParentDomainId = R.DomainId ) "
             // finally we get the resources of the specified type in the domains we computed above
-            + "SELECT A.ResourceId, E.ExternalId FROM "
+            + "SELECT A.ResourceId ResourceId, E.ExternalId ExternalId FROM "
             + schemaNameAndTablePrefix
             + "Resource A "
             + "JOIN R ON R.DomainId = A.DomainId "
@@ -1502,7 +1804,7 @@ public class SQLStrings implements Serializable {
       SQL_findInGrantGlobalResourcePermission_PermissionName_IsWithGrant_BY_AccessorID_AccessedDomainID_ResourceClassID
             = SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
             + SQL_findAncestorsRecursiveInDomain_DomainID_BY_DomainID
-            + "SELECT B.PermissionName, A.IsWithGrant FROM "
+            + "SELECT B.PermissionName PermissionName, A.IsWithGrant IsWithGrant FROM "
             + schemaNameAndTablePrefix
             + "Grant_Global_ResPerm A JOIN "
             + schemaNameAndTablePrefix
@@ -1523,7 +1825,7 @@ public class SQLStrings implements Serializable {
             + schemaNameAndTablePrefix
             + "Domain Pplus1, P "
             + "WHERE Pplus1.ParentDomainId IS NOT NULL AND Pplus1.ParentDomainId = P.AccessedDomainId ) "
-            + "SELECT D.DomainName, C.ResourceClassName, B.PermissionName, P.IsWithGrant FROM P JOIN "
+            + "SELECT D.DomainName DomainName, C.ResourceClassName ResourceClassName, B.PermissionName PermissionName, P.IsWithGrant IsWithGrant FROM P JOIN "
             + schemaNameAndTablePrefix
             + "ResourceClassPermission B ON B.ResourceClassId = P.ResourceClassId AND B.PermissionId = P.PermissionId JOIN "
             + schemaNameAndTablePrefix
@@ -1554,16 +1856,870 @@ public class SQLStrings implements Serializable {
             + "Grant_Global_ResPerm "
             + "WHERE AccessorResourceId = ? AND ResourceClassId = ? AND PermissionId = ? AND ( ? IN ( 0, IsWithGrant ) )";
 
+      // EffectiveResourcePermission - recursive
+      // computes all the direct and global permissions an accessor has to a resource, including those it inherits,
+      // as well as whether the accessor is a super-user of the accessed resource's domain, in a single statement;
+      // the rows are distinguished by the PermissionKind column, and the accessed resource (D) and the ancestors of
+      // its domain (R) are derived from the accessed resource id, so that the query only takes two parameters
+      SQL_findInGrantResourcePermission_EffectivePermissions_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID
+            = sqlProfile.isRecursiveCTEEnabled()
+              ? SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
+                    + ", D( ResourceId, DomainId, ResourceClassId ) AS "
+                    + "( SELECT ResourceId, DomainId, ResourceClassId FROM "
+                    + schemaNameAndTablePrefix
+                    + "Resource WHERE ResourceId = ? ) "
+                    + (sqlProfile.isDomainClosureEnabled()
+                       ? ", R( DomainId ) AS "
+                             + "( SELECT C.AncestorDomainId FROM "
+                             + schemaNameAndTablePrefix
+                             + "DomainClosure C JOIN D ON D.DomainId = C.DescendantDomainId ) "
+                       : ", R( DomainId, ParentDomainId ) AS "
+                             + "( SELECT X.DomainId, X.ParentDomainId FROM "
+                             + schemaNameAndTablePrefix
+                             + "Domain X JOIN D ON D.DomainId = X.DomainId " + unionClause + " SELECT Rplus1.DomainId, Rplus1.ParentDomainId FROM "
+                             + schemaNameAndTablePrefix
+                             + "Domain Rplus1, R "
+                             + "WHERE R.ParentDomainId IS NOT NULL AND Rplus1.DomainId = R.ParentDomainId ) ")
+                    + "SELECT '" + EffectivePermissionKind_SUPER_USER + "' PermissionKind, A.SysPermissionId SysPermissionId, '-' PermissionName, A.IsWithGrant IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_DomPerm_Sys A "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN R ON R.DomainId = A.AccessedDomainId "
+                    + "WHERE A.SysPermissionId = " + DomainPermission_SUPER_USER.getSystemPermissionId() + " "
+                    + unionClause + " "
+                    + "SELECT '" + EffectivePermissionKind_SYS + "', A.SysPermissionId, '-', A.IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_ResPerm_Sys A "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN D ON D.ResourceId = A.AccessedResourceId "
+                    + unionClause + " "
+                    + "SELECT '" + EffectivePermissionKind_NON_SYS + "', 0, B.PermissionName, A.IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_ResPerm A JOIN "
+                    + schemaNameAndTablePrefix
+                    + "ResourceClassPermission B ON B.ResourceClassId = A.ResourceClassId AND B.PermissionId = A.PermissionId "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN D ON D.ResourceId = A.AccessedResourceId "
+                    + unionClause + " "
+                    + "SELECT '" + EffectivePermissionKind_SYS + "', A.SysPermissionId, '-', A.IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_Global_ResPerm_Sys A "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN R ON R.DomainId = A.AccessedDomainId "
+                    + "JOIN D ON D.ResourceClassId = A.ResourceClassId "
+                    + unionClause + " "
+                    + "SELECT '" + EffectivePermissionKind_NON_SYS + "', 0, B.PermissionName, A.IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_Global_ResPerm A JOIN "
+                    + schemaNameAndTablePrefix
+                    + "ResourceClassPermission B ON B.ResourceClassId = A.ResourceClassId AND B.PermissionId = A.PermissionId "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN R ON R.DomainId = A.AccessedDomainId "
+                    + "JOIN D ON D.ResourceClassId = A.ResourceClassId"
+              : null;
+
+      // variant of the above query for a set of accessed resources, whose rows also identify the accessed resource;
+      // the prefix and suffix must be joined with an IN list of the accessed resources using getInListSQL()
+      SQL_findInGrantResourcePermission_EffectivePermissions_AccessedID_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID_IN
+            = sqlProfile.isRecursiveCTEEnabled()
+              ? SQL_findRecursiveInGrantResourcePermissionSys_AccessorID_BY_AccessorID
+                    + ", D( ResourceId, DomainId, ResourceClassId ) AS "
+                    + "( SELECT ResourceId, DomainId, ResourceClassId FROM "
+                    + schemaNameAndTablePrefix
+                    + "Resource WHERE ResourceId IN "
+              : null;
+
+      SQL_findInGrantResourcePermission_EffectivePermissions_AccessedID_PermissionKind_SysPermissionID_PermissionName_IsWithGrant_BY_AccessorID_AccessedID_IN_SUFFIX
+            = sqlProfile.isRecursiveCTEEnabled()
+              ? " ) "
+                    + (sqlProfile.isDomainClosureEnabled()
+                       ? ", R( ResourceDomainId, DomainId ) AS "
+                             + "( SELECT C.DescendantDomainId, C.AncestorDomainId FROM "
+                             + schemaNameAndTablePrefix
+                             + "DomainClosure C WHERE C.DescendantDomainId IN ( SELECT DomainId FROM D ) ) "
+                       : ", R( ResourceDomainId, DomainId, ParentDomainId ) AS "
+                             + "( SELECT X.DomainId, X.DomainId, X.ParentDomainId FROM "
+                             + schemaNameAndTablePrefix
+                             + "Domain X WHERE X.DomainId IN ( SELECT DomainId FROM D ) " + unionClause + " SELECT R.ResourceDomainId, Rplus1.DomainId, Rplus1.ParentDomainId FROM "
+                             + schemaNameAndTablePrefix
+                             + "Domain Rplus1, R "
+                             + "WHERE R.ParentDomainId IS NOT NULL AND Rplus1.DomainId = R.ParentDomainId ) ")
+                    + "SELECT D.ResourceId AccessedResourceId, '" + EffectivePermissionKind_SUPER_USER + "' PermissionKind, A.SysPermissionId SysPermissionId, '-' PermissionName, A.IsWithGrant IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_DomPerm_Sys A "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN R ON R.DomainId = A.AccessedDomainId "
+                    + "JOIN D ON D.DomainId = R.ResourceDomainId "
+                    + "WHERE A.SysPermissionId = " + DomainPermission_SUPER_USER.getSystemPermissionId() + " "
+                    + unionClause + " "
+                    + "SELECT A.AccessedResourceId, '" + EffectivePermissionKind_SYS + "', A.SysPermissionId, '-', A.IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_ResPerm_Sys A "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN D ON D.ResourceId = A.AccessedResourceId "
+                    + unionClause + " "
+                    + "SELECT A.AccessedResourceId, '" + EffectivePermissionKind_NON_SYS + "', 0, B.PermissionName, A.IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_ResPerm A JOIN "
+                    + schemaNameAndTablePrefix
+                    + "ResourceClassPermission B ON B.ResourceClassId = A.ResourceClassId AND B.PermissionId = A.PermissionId "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN D ON D.ResourceId = A.AccessedResourceId "
+                    + unionClause + " "
+                    + "SELECT D.ResourceId, '" + EffectivePermissionKind_SYS + "', A.SysPermissionId, '-', A.IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_Global_ResPerm_Sys A "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN R ON R.DomainId = A.AccessedDomainId "
+                    + "JOIN D ON D.DomainId = R.ResourceDomainId AND D.ResourceClassId = A.ResourceClassId "
+                    + unionClause + " "
+                    + "SELECT D.ResourceId, '" + EffectivePermissionKind_NON_SYS + "', 0, B.PermissionName, A.IsWithGrant FROM "
+                    + schemaNameAndTablePrefix
+                    + "Grant_Global_ResPerm A JOIN "
+                    + schemaNameAndTablePrefix
+                    + "ResourceClassPermission B ON B.ResourceClassId = A.ResourceClassId AND B.PermissionId = A.PermissionId "
+                    + "JOIN N ON N.AccessorResourceId = A.AccessorResourceId "
+                    + "JOIN R ON R.DomainId = A.AccessedDomainId "
+                    + "JOIN D ON D.DomainId = R.ResourceDomainId AND D.ResourceClassId = A.ResourceClassId"
+              : null;
+
+      // EffectiveResourcePermission - non-recursive
+      // prefixes of queries for a set of accessors or accessed resources, which must be completed with an IN list
+      // using getInListSQL(); the inheritance and domain hierarchy are resolved by the persister
+      SQL_findInResource_ResourceID_DomainID_ResourceClassID_BY_ResourceID_IN
+            = "SELECT ResourceId, DomainId, ResourceClassId FROM "
+            + schemaNameAndTablePrefix
+            + "Resource WHERE ResourceId IN ";
+
+      SQL_findInGrantDomainPermissionSys_withoutInheritance_superUser_ResourceDomainID_BY_AccessorID_IN
+            = "SELECT AccessedDomainId DomainId FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_DomPerm_Sys "
+            + "WHERE SysPermissionId = "
+            + DomainPermission_SUPER_USER.getSystemPermissionId()
+            + " AND AccessorResourceId IN ";
+
+      SQL_findInGrantGlobalResourcePermissionSys_withoutInheritance_ResourceDomainID_ResourceClassID_SysPermissionID_IsWithGrant_BY_AccessorID_IN
+            = "SELECT AccessedDomainId DomainId, ResourceClassId, SysPermissionId, IsWithGrant FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_Global_ResPerm_Sys "
+            + "WHERE AccessorResourceId IN ";
+
+      SQL_findInGrantGlobalResourcePermission_withoutInheritance_ResourceDomainID_ResourceClassID_PermissionName_IsWithGrant_BY_AccessorID_IN
+            = "SELECT A.AccessedDomainId DomainId, A.ResourceClassId, B.PermissionName, A.IsWithGrant FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_Global_ResPerm A JOIN "
+            + schemaNameAndTablePrefix
+            + "ResourceClassPermission B ON B.ResourceClassId = A.ResourceClassId AND B.PermissionId = A.PermissionId "
+            + "WHERE A.AccessorResourceId IN ";
+
+      // used to count resources by permissions without recursion
+      SQL_findInGrantGlobalResourcePermissionSys_withoutInheritance_ResourceDomainID_SysPermissionID_IsWithGrant_BY_ResourceClassID_AccessorID_IN
+            = "SELECT AccessedDomainId DomainId, SysPermissionId, IsWithGrant FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_Global_ResPerm_Sys "
+            + "WHERE ResourceClassId = ? AND AccessorResourceId IN ";
+
+      SQL_findInGrantGlobalResourcePermission_withoutInheritance_ResourceDomainID_PermissionID_IsWithGrant_BY_ResourceClassID_AccessorID_IN
+            = "SELECT AccessedDomainId DomainId, PermissionId, IsWithGrant FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_Global_ResPerm "
+            + "WHERE ResourceClassId = ? AND AccessorResourceId IN ";
+
+      SQL_findInGrantResourcePermissionSys_withoutInheritance_AccessedID_SysPermissionID_IsWithGrant_BY_AccessorID_IN_AccessedID_IN
+            = "SELECT AccessedResourceId, SysPermissionId, IsWithGrant FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_ResPerm_Sys "
+            + "WHERE AccessorResourceId IN ";
+
+      SQL_findInGrantResourcePermissionSys_withoutInheritance_AccessedID_SysPermissionID_IsWithGrant_BY_AccessorID_IN_AccessedID_IN_SUFFIX
+            = " AND AccessedResourceId IN ";
+
+      SQL_findInGrantResourcePermission_withoutInheritance_AccessedID_PermissionName_IsWithGrant_BY_AccessorID_IN_AccessedID_IN
+            = "SELECT A.AccessedResourceId, B.PermissionName, A.IsWithGrant FROM "
+            + schemaNameAndTablePrefix
+            + "Grant_ResPerm A JOIN "
+            + schemaNameAndTablePrefix
+            + "ResourceClassPermission B ON B.ResourceClassId = A.ResourceClassId AND B.PermissionId = A.PermissionId "
+            + "WHERE A.AccessorResourceId IN ";
+
+      SQL_findInGrantResourcePermission_withoutInheritance_AccessedID_PermissionName_IsWithGrant_BY_AccessorID_IN_AccessedID_IN_SUFFIX
+            = " AND A.AccessedResourceId IN ";
+
+      // PermissionChangeCounter - common
+      SQL_findInPermissionChangeCounter_ChangeCount
+            = "SELECT ChangeCount FROM "
+            + schemaNameAndTablePrefix
+            + "PermissionChangeCounter";
+
+      SQL_updateInPermissionChangeCounter_increment_ChangeCount
+            = "UPDATE "
+            + schemaNameAndTablePrefix
+            + "PermissionChangeCounter SET ChangeCount = ChangeCount + 1";
+
+      // DomainChangeCounter - common
+      SQL_findInDomainChangeCounter_ChangeCount
+            = "SELECT ChangeCount FROM "
+            + schemaNameAndTablePrefix
+            + "DomainChangeCounter";
+
+      SQL_updateInDomainChangeCounter_increment_ChangeCount
+            = "UPDATE "
+            + schemaNameAndTablePrefix
+            + "DomainChangeCounter SET ChangeCount = ChangeCount + 1";
+
       // Key generators
       SQL_nextResourceID
             = dialectSpecificSQLGenerator.nextSequenceValueStatement(schemaNameAndTablePrefix + "ResourceId");
+
+      // reserves a block of resource ids in one statement
+      SQL_nextResourceIDs_BY_Count
+            = sqlProfile.isSequenceEnabled()
+              ? dialectSpecificSQLGenerator.nextSequenceValuesStatement(schemaNameAndTablePrefix + "ResourceId")
+              : null;
+   }
+
+   public String getSchemaName() {
+      return schemaName;
    }
 
    public SQLProfile getSqlProfile() {
       return sqlProfile;
    }
 
+   public boolean isInheritanceClosureEnabled() {
+      return inheritanceClosureEnabled;
+   }
+
+   /**
+    * Returns whether the resources an accessor has a set of permissions to can be streamed from a single query,
+    * which requires either recursive queries, or both the domain closure table and the inheritance closure table.
+    *
+    * @return true if {@link #getStreamResourcesByPermissionsSQL(int, int, boolean)} and
+    *         {@link #getPageResourcesByPermissionsSQL(int, int, boolean, int)} are supported
+    */
+   public boolean isResourceStreamingSupported() {
+      return sqlProfile.isRecursiveCTEEnabled() || (sqlProfile.isDomainClosureEnabled() && inheritanceClosureEnabled);
+   }
+
    public SQLDialect getSqlDialect() {
       return sqlProfile.getSqlDialect();
    }
+
+   /**
+    * Returns the largest number of parameters the SQL dialect accepts in a single IN list.
+    *
+    * @return the maximum IN list size
+    */
+   public int getMaxInListSize() {
+      return maxInListSize;
+   }
+
+   /**
+    * Completes one of the IN list query prefixes with a parenthesized list of the specified number of parameters.
+    *
+    * @param sqlPrefix      a query prefix that ends with the IN keyword
+    * @param parameterCount the number of parameters in the list, at most {@link #getMaxInListSize()}
+    * @return the complete query
+    */
+   public String getInListSQL(String sqlPrefix, int parameterCount) {
+      if (parameterCount < 1 || parameterCount > maxInListSize) {
+         throw new IllegalArgumentException("IN list parameter count must be between 1 and "
+                                                  + maxInListSize + ", but was: " + parameterCount);
+      }
+
+      final StringBuilder sql = new StringBuilder(sqlPrefix.length() + 3 * parameterCount + 2);
+      sql.append(sqlPrefix).append("( ?");
+      for (int i = 1; i < parameterCount; i++) {
+         sql.append(", ?");
+      }
+      return sql.append(" )").toString();
+   }
+
+   /**
+    * Joins one of the IN list query prefixes and its suffix with a parenthesized list of the specified number
+    * of parameters, for queries whose IN list is not at their end.
+    *
+    * @param sqlPrefix      a query prefix that ends with the IN keyword
+    * @param parameterCount the number of parameters in the list, at most {@link #getMaxInListSize()}
+    * @param sqlSuffix      the remainder of the query following the IN list
+    * @return the complete query
+    */
+   public String getInListSQL(String sqlPrefix, int parameterCount, String sqlSuffix) {
+      return getInListSQL(sqlPrefix, parameterCount) + sqlSuffix;
+   }
+
+   /**
+    * Completes one of the multi-row insert prefixes with the specified number of parenthesized rows of parameters.
+    *
+    * @param sqlPrefix   an insert statement prefix that ends with the VALUES keyword
+    * @param rowCount    the number of rows to insert
+    * @param columnCount the number of parameters in each row
+    * @return the complete statement
+    */
+   public String getMultiRowValuesSQL(String sqlPrefix, int rowCount, int columnCount) {
+      if (rowCount < 1 || columnCount < 1 || rowCount * columnCount > maxInListSize) {
+         throw new IllegalArgumentException("Multi-row insert parameter count must be between 1 and "
+                                                  + maxInListSize + ", but was: " + rowCount * columnCount);
+      }
+
+      final StringBuilder row = new StringBuilder(3 * columnCount + 2);
+      row.append("( ?");
+      for (int i = 1; i < columnCount; i++) {
+         row.append(", ?");
+      }
+      row.append(" )");
+
+      final StringBuilder sql = new StringBuilder(sqlPrefix.length() + (row.length() + 2) * rowCount);
+      sql.append(sqlPrefix).append(row);
+      for (int i = 1; i < rowCount; i++) {
+         sql.append(", ").append(row);
+      }
+      return sql.toString();
+   }
+
+   /**
+    * Assembles the query that streams the resources of a resource class to which an accessor has all the requested
+    * permissions, directly, globally or via inheritance, or to which it has super-user access, in ascending order of
+    * resource id. The requested permissions are intersected in the query, by counting the distinct permissions each
+    * resource matches, so that no per-permission result needs to be held in memory.
+    * <p/>
+    * The query takes its parameters in this order:
+    * <ol>
+    * <li>the accessor resource id</li>
+    * <li>the domain id, if restricted to a domain (and its descendants)</li>
+    * <li>if any system permissions are requested, the resource class id followed by the system permission id and
+    * the is-with-grant flag of each requested system permission (global permissions)</li>
+    * <li>if any non-system permissions are requested, the resource class id followed by the permission id and
+    * the is-with-grant flag of each requested non-system permission (global permissions)</li>
+    * <li>if any system permissions are requested, the resource class id followed by the system permission id and
+    * the is-with-grant flag of each requested system permission, and then the resource class id again (direct
+    * permissions)</li>
+    * <li>if any non-system permissions are requested, the resource class id followed by the permission id and
+    * the is-with-grant flag of each requested non-system permission, and then the resource class id again (direct
+    * permissions)</li>
+    * <li>the resource class id</li>
+    * </ol>
+    * SQL profiles without recursive queries instead join the domain closure and inheritance closure tables, and
+    * take the domain id first, then the resource class id, then for each kind of permission the accessor resource
+    * id twice ahead of the parameters of the direct and of the global permissions, then the accessor resource id
+    * twice for the super-user domains.
+    *
+    * @param sysPermissionCount the number of distinct system permissions requested
+    * @param permissionCount    the number of distinct non-system permissions requested
+    * @param restrictToDomain   true if the resources must be in a given domain or its descendants
+    * @return the complete query
+    * @throws IllegalStateException if streaming is not supported, see {@link #isResourceStreamingSupported()}
+    */
+   public String getStreamResourcesByPermissionsSQL(int sysPermissionCount,
+                                                    int permissionCount,
+                                                    boolean restrictToDomain) {
+      if (!sqlProfile.isRecursiveCTEEnabled() && isResourceStreamingSupported()) {
+         return getResourcesByPermissionsWithClosuresSQL(sysPermissionCount, permissionCount, restrictToDomain, false);
+      }
+      return getResourcesByPermissionsSQL(sysPermissionCount, permissionCount, restrictToDomain, false, false);
+   }
+
+   /**
+    * Assembles the query that returns one page of the resources of a resource class to which an accessor has all
+    * the requested permissions, i.e. the first resources in ascending order of resource id whose id is greater than
+    * a given resource id. The query takes the same parameters as the one
+    * {@link #getStreamResourcesByPermissionsSQL(int, int, boolean)} assembles, followed by the resource id after
+    * which the page starts.
+    *
+    * @param sysPermissionCount the number of distinct system permissions requested
+    * @param permissionCount    the number of distinct non-system permissions requested
+    * @param restrictToDomain   true if the resources must be in a given domain or its descendants
+    * @param pageSize           the maximum number of resources the query returns
+    * @return the complete query
+    * @throws IllegalStateException if streaming is not supported, see {@link #isResourceStreamingSupported()}
+    */
+   public String getPageResourcesByPermissionsSQL(int sysPermissionCount,
+                                                  int permissionCount,
+                                                  boolean restrictToDomain,
+                                                  int pageSize) {
+      if (!sqlProfile.isRecursiveCTEEnabled() && isResourceStreamingSupported()) {
+         return getPageSQL(getResourcesByPermissionsWithClosuresSQL(sysPermissionCount,
+                                                                    permissionCount,
+                                                                    restrictToDomain,
+                                                                    true),
+                           pageSize);
+      }
+      return getPageSQL(getResourcesByPermissionsSQL(sysPermissionCount, permissionCount, restrictToDomain, true, false),
+                        pageSize);
+   }
+
+   /**
+    * Assembles the query that counts the resources of a resource class to which an accessor has all the requested
+    * permissions, directly, globally or via inheritance, or to which it has super-user access. The query takes the
+    * same parameters as the one {@link #getStreamResourcesByPermissionsSQL(int, int, boolean)} assembles, and
+    * returns a single COUNTResourceID column.
+    *
+    * @param sysPermissionCount the number of distinct system permissions requested
+    * @param permissionCount    the number of distinct non-system permissions requested
+    * @param restrictToDomain   true if the resources must be in a given domain or its descendants
+    * @return the complete query
+    * @throws IllegalStateException if the SQL profile does not support recursive queries
+    */
+   public String getCountResourcesByPermissionsSQL(int sysPermissionCount,
+                                                   int permissionCount,
+                                                   boolean restrictToDomain) {
+      return getResourcesByPermissionsSQL(sysPermissionCount, permissionCount, restrictToDomain, false, true);
+   }
+
+   /**
+    * Assembles the query that counts (or finds the first of) the resources of a resource class to which an accessor
+    * has all the requested permissions, for SQL profiles without recursive queries. Instead of recursing in the
+    * database, the query takes the resources the accessor inherits from, the domains (including descendants) in
+    * which it has each requested permission globally and the domains (including descendants) of which it is a
+    * super-user as IN lists, which the caller computes beforehand.
+    * <p/>
+    * The query takes its parameters in this order:
+    * <ol>
+    * <li>the resource class id</li>
+    * <li>the ids of the domains to restrict the resources to, if any</li>
+    * <li>if any system permissions are requested, the ids of the accessor resources, the resource class id and the
+    * system permission id and the is-with-grant flag of each requested system permission</li>
+    * <li>if any non-system permissions are requested, the ids of the accessor resources, the resource class id and
+    * the permission id and the is-with-grant flag of each requested non-system permission</li>
+    * <li>for each globally granted permission, the resource class id followed by the ids of its domains</li>
+    * <li>the ids of the super-user domains, if any</li>
+    * </ol>
+    *
+    * @param countOnly                          true to count the resources, false to find the one with the lowest id
+    * @param restrictDomainCount                the number of domains to restrict the resources to, or zero for
+    *                                           all domains
+    * @param accessorCount                      the number of accessor resources, including inherited ones
+    * @param sysPermissionCount                 the number of distinct system permissions requested
+    * @param permissionCount                    the number of distinct non-system permissions requested
+    * @param globalDomainCountsByPermissionKey  for each requested permission the accessor has globally in any domain,
+    *                                           its system permission id or permission id mapped to the number of
+    *                                           those domains, in the order their parameters are set
+    * @param superUserDomainCount               the number of super-user domains
+    * @return the complete query
+    */
+   public String getResourcesByPermissionsWithoutRecursionSQL(boolean countOnly,
+                                                              int restrictDomainCount,
+                                                              int accessorCount,
+                                                              int sysPermissionCount,
+                                                              int permissionCount,
+                                                              Map<Long, Integer> globalDomainCountsByPermissionKey,
+                                                              int superUserDomainCount) {
+      assertPermissionCounts(sysPermissionCount, permissionCount);
+
+      final StringBuilder sql = new StringBuilder(2048);
+      if (countOnly) {
+         // each resource is a single row of the Resource table, so counting the rows counts distinct resources
+         sql.append("SELECT COUNT( B.ResourceId ) COUNTResourceID FROM ");
+      }
+      else {
+         sql.append("SELECT B.ResourceId FROM ");
+      }
+      sql.append(schemaNameAndTablePrefix).append("Resource B WHERE B.ResourceClassId = ? ");
+      if (restrictDomainCount > 0) {
+         appendInList(sql.append("AND B.DomainId IN "), restrictDomainCount);
+         sql.append(" ");
+      }
+
+      sql.append("AND ( B.ResourceId IN ( SELECT M.ResourceId FROM ( ");
+      if (sysPermissionCount > 0) {
+         appendDirectAccessedMatches(sql, "Grant_ResPerm_Sys", "SysPermissionId", accessorCount, sysPermissionCount);
+      }
+      if (permissionCount > 0) {
+         if (sysPermissionCount > 0) {
+            sql.append(" UNION ALL ");
+         }
+         appendDirectAccessedMatches(sql, "Grant_ResPerm", "PermissionId", accessorCount, permissionCount);
+      }
+      // system permission ids are negative and non-system permission ids are positive, so the keys never collide
+      for (Map.Entry<Long, Integer> globalDomainCount : globalDomainCountsByPermissionKey.entrySet()) {
+         sql.append(" UNION ALL SELECT X.ResourceId, ").append(globalDomainCount.getKey()).append(" FROM ")
+               .append(schemaNameAndTablePrefix).append("Resource X WHERE X.ResourceClassId = ? AND X.DomainId IN ");
+         appendInList(sql, globalDomainCount.getValue());
+      }
+      sql.append(" ) M GROUP BY M.ResourceId HAVING COUNT( DISTINCT M.PermissionKey ) = ")
+            .append(sysPermissionCount + permissionCount)
+            .append(" )");
+      if (superUserDomainCount > 0) {
+         appendInList(sql.append(" OR B.DomainId IN "), superUserDomainCount);
+      }
+      sql.append(" )");
+
+      if (countOnly) {
+         return sql.toString();
+      }
+      return getPageSQL(sql.append(" ORDER BY B.ResourceId").toString(), 1);
+   }
+
+   /**
+    * Assembles the query that returns one page of the resources of a resource class that have all the requested
+    * permissions directly on an accessed resource, i.e. the first such accessor resources in ascending order of
+    * resource id whose id is greater than a given resource id. Unlike the queries for the accessed side, this query
+    * does not need recursion and is available for all SQL profiles.
+    * <p/>
+    * The query takes its parameters in this order:
+    * <ol>
+    * <li>if any system permissions are requested, the accessed resource id and its resource class id followed by
+    * the system permission id and the is-with-grant flag of each requested system permission</li>
+    * <li>if any non-system permissions are requested, the accessed resource id and its resource class id followed
+    * by the permission id and the is-with-grant flag of each requested non-system permission</li>
+    * <li>the resource id after which the page starts</li>
+    * </ol>
+    *
+    * @param sysPermissionCount the number of distinct system permissions requested
+    * @param permissionCount    the number of distinct non-system permissions requested
+    * @param pageSize           the maximum number of resources the query returns
+    * @return the complete query
+    */
+   public String getPageAccessorResourcesByPermissionsSQL(int sysPermissionCount,
+                                                          int permissionCount,
+                                                          int pageSize) {
+      assertPermissionCounts(sysPermissionCount, permissionCount);
+
+      final StringBuilder sql = new StringBuilder(1024);
+      sql.append("SELECT B.ResourceId, E.ExternalId FROM ").append(schemaNameAndTablePrefix).append("Resource B ")
+            .append("LEFT JOIN ").append(schemaNameAndTablePrefix).append("ResourceExternalID E ON E.ResourceId = B.ResourceId ")
+            .append("WHERE B.ResourceId IN ( SELECT M.AccessorResourceId FROM ( ");
+      if (sysPermissionCount > 0) {
+         appendDirectAccessorMatches(sql, "Grant_ResPerm_Sys", "SysPermissionId", sysPermissionCount);
+      }
+      if (permissionCount > 0) {
+         if (sysPermissionCount > 0) {
+            // the non-recursive dialects have no union clause of their own, but all of them support UNION ALL
+            sql.append(" UNION ALL ");
+         }
+         appendDirectAccessorMatches(sql, "Grant_ResPerm", "PermissionId", permissionCount);
+      }
+      sql.append(" ) M GROUP BY M.AccessorResourceId HAVING COUNT( DISTINCT M.PermissionKey ) = ")
+            .append(sysPermissionCount + permissionCount)
+            .append(" ) AND B.ResourceId > ? ")
+            .append("ORDER BY B.ResourceId");
+
+      return getPageSQL(sql.toString(), pageSize);
+   }
+
+   private String getPageSQL(String orderedSQL, int pageSize) {
+      if (pageSize < 1) {
+         throw new IllegalArgumentException("Page size must be at least 1, but was: " + pageSize);
+      }
+      return DialectSpecificSQLGenerator.getInstance(sqlProfile.getSqlDialect()).pageStatement(orderedSQL, pageSize);
+   }
+
+   private static void assertPermissionCounts(int sysPermissionCount, int permissionCount) {
+      if (sysPermissionCount < 0 || permissionCount < 0 || sysPermissionCount + permissionCount < 1) {
+         throw new IllegalArgumentException("At least one permission must be requested");
+      }
+   }
+
+   private String getResourcesByPermissionsSQL(int sysPermissionCount,
+                                               int permissionCount,
+                                               boolean restrictToDomain,
+                                               boolean afterResourceId,
+                                               boolean countOnly) {
+      if (streamAccessorsCTE == null) {
+         throw new IllegalStateException("Streaming resources by permissions requires a recursive SQL profile, or both "
+                                               + "the domain closure and the inheritance closure tables");
+      }
+      assertPermissionCounts(sysPermissionCount, permissionCount);
+
+      final StringBuilder sql = new StringBuilder(4096);
+      sql.append(streamAccessorsCTE);
+
+      if (restrictToDomain) {
+         sql.append(streamDescendantDomainsCTE);
+      }
+
+      // GS and GP: the domains (including descendants) in which the accessor has the requested global permissions
+      if (sysPermissionCount > 0) {
+         appendGlobalPermissionDomainsCTE(sql, "GS", "Grant_Global_ResPerm_Sys", "SysPermissionId", sysPermissionCount);
+      }
+      if (permissionCount > 0) {
+         appendGlobalPermissionDomainsCTE(sql, "GP", "Grant_Global_ResPerm", "PermissionId", permissionCount);
+      }
+
+      // U: the domains (including descendants) of which the accessor is a super-user
+      sql.append(", U( DomainId ) AS ( ");
+      if (sqlProfile.isDomainClosureEnabled()) {
+         sql.append("SELECT C.DescendantDomainId FROM ").append(schemaNameAndTablePrefix).append("Grant_DomPerm_Sys A ")
+               .append("JOIN N ON N.AccessorResourceId = A.AccessorResourceId JOIN ")
+               .append(schemaNameAndTablePrefix).append("DomainClosure C ON C.AncestorDomainId = A.AccessedDomainId ")
+               .append("WHERE A.SysPermissionId = ").append(DomainPermission_SUPER_USER.getSystemPermissionId());
+      }
+      else {
+         sql.append("SELECT A.AccessedDomainId FROM ").append(schemaNameAndTablePrefix).append("Grant_DomPerm_Sys A ")
+               .append("JOIN N ON N.AccessorResourceId = A.AccessorResourceId ")
+               .append("WHERE A.SysPermissionId = ").append(DomainPermission_SUPER_USER.getSystemPermissionId())
+               .append(" ").append(unionClause).append(" SELECT Uplus1.DomainId FROM ")
+               .append(schemaNameAndTablePrefix).append("Domain Uplus1, U ")
+               .append("WHERE Uplus1.ParentDomainId IS NOT NULL AND Uplus1.ParentDomainId = U.DomainId");
+      }
+      sql.append(" ) ");
+
+      // M: one row per requested permission each resource of the class is granted, which never mixes up system and
+      // non-system permissions, since system permission ids are negative and non-system permission ids are positive
+      sql.append(", M( ResourceId, PermissionKey ) AS ( ");
+      if (sysPermissionCount > 0) {
+         appendPermissionMatches(sql, "GS", "Grant_ResPerm_Sys", "SysPermissionId", sysPermissionCount);
+      }
+      if (permissionCount > 0) {
+         if (sysPermissionCount > 0) {
+            sql.append(" ").append(unionClause).append(" ");
+         }
+         appendPermissionMatches(sql, "GP", "Grant_ResPerm", "PermissionId", permissionCount);
+      }
+      sql.append(" ) ");
+
+      if (countOnly) {
+         // each resource is a single row of the Resource table, so counting the rows counts distinct resources
+         sql.append("SELECT COUNT( B.ResourceId ) COUNTResourceID FROM ");
+      }
+      else {
+         sql.append("SELECT B.ResourceId ResourceId, E.ExternalId ExternalId FROM ");
+      }
+      sql.append(schemaNameAndTablePrefix).append("Resource B ");
+      if (restrictToDomain) {
+         sql.append("JOIN S ON S.DomainId = B.DomainId ");
+      }
+      if (!countOnly) {
+         sql.append("LEFT JOIN ").append(schemaNameAndTablePrefix).append("ResourceExternalID E ON E.ResourceId = B.ResourceId ");
+      }
+      sql.append("WHERE B.ResourceClassId = ? ")
+            .append("AND ( B.ResourceId IN ( SELECT ResourceId FROM M GROUP BY ResourceId HAVING COUNT( DISTINCT PermissionKey ) = ")
+            .append(sysPermissionCount + permissionCount)
+            .append(" ) OR B.DomainId IN ( SELECT DomainId FROM U ) ) ");
+      if (afterResourceId) {
+         sql.append("AND B.ResourceId > ? ");
+      }
+      if (countOnly) {
+         return sql.toString().trim();
+      }
+      sql.append("ORDER BY B.ResourceId");
+
+      return sql.toString();
+   }
+
+   /**
+    * Assembles the query that streams the resources of a resource class to which an accessor has all the requested
+    * permissions, for SQL profiles without recursive queries that maintain both the domain closure table and the
+    * inheritance closure table. The query joins both tables instead of recursing, and uses derived tables instead of
+    * common table expressions, since not all of these profiles support a WITH clause.
+    * <p/>
+    * The query takes its parameters in this order:
+    * <ol>
+    * <li>the domain id, if restricted to a domain (and its descendants)</li>
+    * <li>the resource class id</li>
+    * <li>if any system permissions are requested, for the direct and then for the global permissions: the accessor
+    * resource id twice, the resource class id, and the system permission id and the is-with-grant flag of each
+    * requested system permission</li>
+    * <li>if any non-system permissions are requested, for the direct and then for the global permissions: the
+    * accessor resource id twice, the resource class id, and the permission id and the is-with-grant flag of each
+    * requested non-system permission</li>
+    * <li>the accessor resource id twice (super-user domains)</li>
+    * <li>the resource id after which the page starts, if requested</li>
+    * </ol>
+    */
+   private String getResourcesByPermissionsWithClosuresSQL(int sysPermissionCount,
+                                                           int permissionCount,
+                                                           boolean restrictToDomain,
+                                                           boolean afterResourceId) {
+      assertPermissionCounts(sysPermissionCount, permissionCount);
+
+      final StringBuilder sql = new StringBuilder(4096);
+      sql.append("SELECT B.ResourceId ResourceId, E.ExternalId ExternalId FROM ")
+            .append(schemaNameAndTablePrefix).append("Resource B ");
+      if (restrictToDomain) {
+         sql.append("JOIN ").append(schemaNameAndTablePrefix).append("DomainClosure S ")
+               .append("ON S.DescendantDomainId = B.DomainId AND S.AncestorDomainId = ? ");
+      }
+      sql.append("LEFT JOIN ").append(schemaNameAndTablePrefix).append("ResourceExternalID E ON E.ResourceId = B.ResourceId ")
+            .append("WHERE B.ResourceClassId = ? ")
+            .append("AND ( B.ResourceId IN ( SELECT M.ResourceId FROM ( ");
+
+      // one row per requested permission each resource of the class is granted, which never mixes up system and
+      // non-system permissions, since system permission ids are negative and non-system permission ids are positive
+      if (sysPermissionCount > 0) {
+         appendClosurePermissionMatches(sql, "Grant_ResPerm_Sys", "Grant_Global_ResPerm_Sys", "SysPermissionId", sysPermissionCount);
+      }
+      if (permissionCount > 0) {
+         if (sysPermissionCount > 0) {
+            sql.append(" UNION ALL ");
+         }
+         appendClosurePermissionMatches(sql, "Grant_ResPerm", "Grant_Global_ResPerm", "PermissionId", permissionCount);
+      }
+      sql.append(" ) M GROUP BY M.ResourceId HAVING COUNT( DISTINCT M.PermissionKey ) = ")
+            .append(sysPermissionCount + permissionCount)
+            .append(" ) ");
+
+      // the domains (including descendants) of which the accessor is a super-user
+      sql.append("OR B.DomainId IN ( SELECT C.DescendantDomainId FROM ")
+            .append(schemaNameAndTablePrefix).append("Grant_DomPerm_Sys A JOIN ")
+            .append(schemaNameAndTablePrefix).append("DomainClosure C ON C.AncestorDomainId = A.AccessedDomainId WHERE ");
+      appendClosureAccessorCondition(sql);
+      sql.append(" AND A.SysPermissionId = ").append(DomainPermission_SUPER_USER.getSystemPermissionId()).append(" ) ) ");
+
+      if (afterResourceId) {
+         sql.append("AND B.ResourceId > ? ");
+      }
+      sql.append("ORDER BY B.ResourceId");
+
+      return sql.toString();
+   }
+
+   private void appendClosurePermissionMatches(StringBuilder sql,
+                                               String grantTableName,
+                                               String globalGrantTableName,
+                                               String permissionIdColumnName,
+                                               int permissionCount) {
+      sql.append("SELECT A.AccessedResourceId ResourceId, A.").append(permissionIdColumnName).append(" PermissionKey FROM ")
+            .append(schemaNameAndTablePrefix).append(grantTableName).append(" A WHERE ");
+      appendClosureAccessorCondition(sql);
+      sql.append(" AND A.ResourceClassId = ? AND ");
+      appendPermissionConditions(sql, permissionIdColumnName, permissionCount);
+      sql.append(" UNION ALL ")
+            .append("SELECT X.ResourceId, A.").append(permissionIdColumnName).append(" FROM ")
+            .append(schemaNameAndTablePrefix).append(globalGrantTableName).append(" A JOIN ")
+            .append(schemaNameAndTablePrefix).append("DomainClosure C ON C.AncestorDomainId = A.AccessedDomainId JOIN ")
+            .append(schemaNameAndTablePrefix).append("Resource X ")
+            .append("ON X.DomainId = C.DescendantDomainId AND X.ResourceClassId = A.ResourceClassId WHERE ");
+      appendClosureAccessorCondition(sql);
+      sql.append(" AND A.ResourceClassId = ? AND ");
+      appendPermissionConditions(sql, permissionIdColumnName, permissionCount);
+   }
+
+   // the accessor itself, or any resource it inherits from, which takes the accessor resource id twice
+   private void appendClosureAccessorCondition(StringBuilder sql) {
+      sql.append("( A.AccessorResourceId = ? OR A.AccessorResourceId IN ( SELECT I.InheritedResourceId FROM ")
+            .append(schemaNameAndTablePrefix).append("InheritanceClosure I WHERE I.AccessorResourceId = ? ) )");
+   }
+
+   private void appendGlobalPermissionDomainsCTE(StringBuilder sql,
+                                                 String cteName,
+                                                 String grantTableName,
+                                                 String permissionIdColumnName,
+                                                 int permissionCount) {
+      sql.append(", ").append(cteName).append("( DomainId, PermissionKey ) AS ( ");
+      if (sqlProfile.isDomainClosureEnabled()) {
+         sql.append("SELECT C.DescendantDomainId, A.").append(permissionIdColumnName).append(" FROM ")
+               .append(schemaNameAndTablePrefix).append(grantTableName).append(" A ")
+               .append("JOIN N ON N.AccessorResourceId = A.AccessorResourceId JOIN ")
+               .append(schemaNameAndTablePrefix).append("DomainClosure C ON C.AncestorDomainId = A.AccessedDomainId ")
+               .append("WHERE A.ResourceClassId = ? AND ");
+         appendPermissionConditions(sql, permissionIdColumnName, permissionCount);
+      }
+      else {
+         sql.append("SELECT A.AccessedDomainId, A.").append(permissionIdColumnName).append(" FROM ")
+               .append(schemaNameAndTablePrefix).append(grantTableName).append(" A ")
+               .append("JOIN N ON N.AccessorResourceId = A.AccessorResourceId ")
+               .append("WHERE A.ResourceClassId = ? AND ");
+         appendPermissionConditions(sql, permissionIdColumnName, permissionCount);
+         sql.append(" ").append(unionClause).append(" SELECT ").append(cteName).append("plus1.DomainId, ")
+               .append(cteName).append(".PermissionKey FROM ")
+               .append(schemaNameAndTablePrefix).append("Domain ").append(cteName).append("plus1, ").append(cteName)
+               .append(" WHERE ").append(cteName).append("plus1.ParentDomainId IS NOT NULL AND ")
+               .append(cteName).append("plus1.ParentDomainId = ").append(cteName).append(".DomainId");
+      }
+      sql.append(" ) ");
+   }
+
+   private void appendPermissionMatches(StringBuilder sql,
+                                        String globalCTEName,
+                                        String grantTableName,
+                                        String permissionIdColumnName,
+                                        int permissionCount) {
+      sql.append("SELECT A.AccessedResourceId, A.").append(permissionIdColumnName).append(" FROM ")
+            .append(schemaNameAndTablePrefix).append(grantTableName).append(" A ")
+            .append("JOIN N ON N.AccessorResourceId = A.AccessorResourceId ")
+            .append("WHERE A.ResourceClassId = ? AND ");
+      appendPermissionConditions(sql, permissionIdColumnName, permissionCount);
+      sql.append(" ").append(unionClause).append(" ")
+            .append("SELECT X.ResourceId, ").append(globalCTEName).append(".PermissionKey FROM ").append(globalCTEName)
+            .append(" JOIN ").append(schemaNameAndTablePrefix).append("Resource X ON X.DomainId = ")
+            .append(globalCTEName).append(".DomainId WHERE X.ResourceClassId = ?");
+   }
+
+   private void appendDirectAccessorMatches(StringBuilder sql,
+                                            String grantTableName,
+                                            String permissionIdColumnName,
+                                            int permissionCount) {
+      sql.append("SELECT A.AccessorResourceId, A.").append(permissionIdColumnName).append(" PermissionKey FROM ")
+            .append(schemaNameAndTablePrefix).append(grantTableName).append(" A ")
+            .append("WHERE A.AccessedResourceId = ? AND A.ResourceClassId = ? AND ");
+      appendPermissionConditions(sql, permissionIdColumnName, permissionCount);
+   }
+
+   private void appendDirectAccessedMatches(StringBuilder sql,
+                                            String grantTableName,
+                                            String permissionIdColumnName,
+                                            int accessorCount,
+                                            int permissionCount) {
+      sql.append("SELECT A.AccessedResourceId ResourceId, A.").append(permissionIdColumnName).append(" PermissionKey FROM ")
+            .append(schemaNameAndTablePrefix).append(grantTableName).append(" A ")
+            .append("WHERE A.AccessorResourceId IN ");
+      appendInList(sql, accessorCount);
+      sql.append(" AND A.ResourceClassId = ? AND ");
+      appendPermissionConditions(sql, permissionIdColumnName, permissionCount);
+   }
+
+   private static void appendInList(StringBuilder sql, int parameterCount) {
+      sql.append("( ?");
+      for (int i = 1; i < parameterCount; i++) {
+         sql.append(", ?");
+      }
+      sql.append(" )");
+   }
+
+   private static void appendPermissionConditions(StringBuilder sql,
+                                                  String permissionIdColumnName,
+                                                  int permissionCount) {
+      sql.append("( ");
+      for (int i = 0; i < permissionCount; i++) {
+         if (i > 0) {
+            sql.append(" OR ");
+         }
+         sql.append("( A.").append(permissionIdColumnName).append(" = ? AND ( ? IN ( 0, A.IsWithGrant ) ) )");
+      }
+      sql.append(" )");
+   }
+
+   // serialization helpers
+
+   private Object readResolve() throws ObjectStreamException {
+      // instances are always written in their compact form, so this only reads instances serialized by earlier
+      // versions, which did not record the schema name; it is recovered from the table prefix of one of the SQLs
+      final String sql = SQL_findInResourceClass_ResourceClassID_ResourceClassName_IsAuthenticatable_IsUnauthenticatedCreateAllowed_BY_ResourceClassName;
+      final int prefixStart = sql == null ? -1 : sql.indexOf(" FROM ") + " FROM ".length();
+      final int prefixEnd = sql == null ? -1 : sql.indexOf("OAC_ResourceClass ", prefixStart);
+
+      if (sqlProfile == null || prefixStart < 0 || prefixEnd < prefixStart) {
+         throw new InvalidObjectException("Cannot determine the schema and profile of the serialized SQL strings");
+      }
+
+      // the table prefix is either "OAC_" or "<schemaName>.OAC_"
+      final String legacySchemaName = prefixEnd > prefixStart ? sql.substring(prefixStart, prefixEnd - 1) : null;
+      return getSQLStrings(legacySchemaName, SQLProfile.valueOf(SQLProfile.nameOf(sqlProfile)));
+   }
+
+   private Object writeReplace() {
+      // only the key is serialized, a deserialized instance resolves to the shared instance for that key
+      return new SerializedForm(schemaName, SQLProfile.nameOf(sqlProfile), inheritanceClosureEnabled);
+   }
+
+   private static class SerializedForm implements Serializable {
+      private static final long serialVersionUID = 1L;
+
+      private final String  schemaName;
+      private final String  sqlProfileName;
+      // absent from, and therefore false in, forms serialized before the option existed
+      private final boolean inheritanceClosureEnabled;
+
+      private SerializedForm(String schemaName, String sqlProfileName, boolean inheritanceClosureEnabled) {
+         this.schemaName = schemaName;
+         this.sqlProfileName = sqlProfileName;
+         this.inheritanceClosureEnabled = inheritanceClosureEnabled;
+      }
+
+      private Object readResolve() {
+         return getSQLStrings(schemaName, SQLProfile.valueOf(sqlProfileName), inheritanceClosureEnabled);
+      }
+   }
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.sql.SQLProfile;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The SQL strings and the stateless persisters for one schema, {@link SQLProfile} and inheritance closure option,
+ * which are built once and shared by all access control contexts with those settings, instead of being rebuilt by
+ * every context.
+ * <p>
+ * The resource class persisters and their {@link ResourceClassMetadataRegistry} describe the contents of one
+ * database, so they are only shared by the contexts of the same data source, see
+ * {@link #getResourceClassPersisters(DataSource)}. The non-recursive persisters that use a
+ * {@link DomainHierarchyIndex} hold per-context state, and are not part of the shared set; the non-recursive
+ * persisters included here are the ones that do not use an index.
+ * <p>
+ * This class is thread-safe.
+ */
+public class SharedPersisters {
+   private static final ConcurrentMap<List<String>, SharedPersisters>          instances
+         = new ConcurrentHashMap<>();
+   private static final ConcurrentMap<List<String>, ResourcePasswordPersister> resourcePasswordPersisters
+         = new ConcurrentHashMap<>();
+
+   public final SQLProfile sqlProfile;
+   public final SQLStrings sqlStrings;
+
+   public final AccessorResourcePagePersister                       accessorResourcePagePersister;
+   public final PermissionChangeCounterPersister                    permissionChangeCounterPersister;
+   public final DomainChangeCounterPersister                        domainChangeCounterPersister;
+   public final GrantDomainCreatePermissionSysPersister             grantDomainCreatePermissionSysPersister;
+   public final GrantDomainCreatePermissionPostCreateSysPersister   grantDomainCreatePermissionPostCreateSysPersister;
+   public final GrantDomainPermissionSysPersister                   grantDomainPermissionSysPersister;
+   public final DomainPersister                                     domainPersister;
+   public final ResourcePersister                                   resourcePersister;
+   public final GrantResourceCreatePermissionSysPersister           grantResourceCreatePermissionSysPersister;
+   public final GrantResourceCreatePermissionPostCreateSysPersister grantResourceCreatePermissionPostCreateSysPersister;
+   public final GrantResourceCreatePermissionPostCreatePersister    grantResourceCreatePermissionPostCreatePersister;
+   public final GrantResourcePermissionSysPersister                 grantResourcePermissionSysPersister;
+   public final GrantGlobalResourcePermissionSysPersister           grantGlobalResourcePermissionSysPersister;
+   public final GrantResourcePermissionPersister                    grantResourcePermissionPersister;
+   public final GrantGlobalResourcePermissionPersister              grantGlobalResourcePermissionPersister;
+   // null for non-recursive profiles
+   public final EffectiveResourcePermissionPersister                effectiveResourcePermissionPersister;
+   public final BatchEffectiveResourcePermissionPersister           batchEffectiveResourcePermissionPersister;
+   // null for non-recursive profiles, unless they maintain both the domain and the inheritance closure tables
+   public final StreamingResourcePermissionPersister                streamingResourcePermissionPersister;
+   public final ResourceCountPersister                              resourceCountPersister;
+
+   // weakly keyed, so that the metadata of a data source is released along with the data source
+   private final Map<DataSource, ResourceClassPersisters> resourceClassPersistersByDataSource = new WeakHashMap<>();
+
+   public static SharedPersisters getInstance(String schemaName, SQLProfile sqlProfile) {
+      return getInstance(schemaName, sqlProfile, false);
+   }
+
+   public static SharedPersisters getInstance(String schemaName,
+                                              SQLProfile sqlProfile,
+                                              boolean inheritanceClosureEnabled) {
+      final List<String> key = Arrays.asList(schemaName,
+                                             SQLProfile.nameOf(sqlProfile),
+                                             String.valueOf(inheritanceClosureEnabled));
+      SharedPersisters sharedPersisters = instances.get(key);
+
+      if (sharedPersisters == null) {
+         instances.putIfAbsent(key,
+                               new SharedPersisters(sqlProfile,
+                                                    SQLStrings.getSQLStrings(schemaName,
+                                                                             sqlProfile,
+                                                                             inheritanceClosureEnabled)));
+         sharedPersisters = instances.get(key);
+      }
+      return sharedPersisters;
+   }
+
+   public static ResourcePasswordPersister getResourcePasswordPersister(String schemaName) {
+      final List<String> key = Collections.singletonList(schemaName);
+      ResourcePasswordPersister resourcePasswordPersister = resourcePasswordPersisters.get(key);
+
+      if (resourcePasswordPersister == null) {
+         resourcePasswordPersisters.putIfAbsent(key,
+                                                new ResourcePasswordPersister(SQLPasswordStrings
+                                                                                    .getSQLPasswordStrings(schemaName)));
+         resourcePasswordPersister = resourcePasswordPersisters.get(key);
+      }
+      return resourcePasswordPersister;
+   }
+
+   /**
+    * Returns the resource class persisters and their metadata registry for the specified data source, which are
+    * shared by all access control contexts of that data source. Resource class metadata can only be added, and
+    * metadata added within a transaction is kept in the transaction's pending registry until it commits, so the
+    * registry may be shared by concurrent contexts.
+    *
+    * @param dataSource the data source of the access control context, or null for a context created with a
+    *                   connection, which gets persisters of its own
+    * @return the resource class persisters
+    */
+   public ResourceClassPersisters getResourceClassPersisters(DataSource dataSource) {
+      if (dataSource == null) {
+         return new ResourceClassPersisters(sqlProfile, sqlStrings);
+      }
+      synchronized (resourceClassPersistersByDataSource) {
+         ResourceClassPersisters resourceClassPersisters = resourceClassPersistersByDataSource.get(dataSource);
+         if (resourceClassPersisters == null) {
+            resourceClassPersisters = new ResourceClassPersisters(sqlProfile, sqlStrings);
+            resourceClassPersistersByDataSource.put(dataSource, resourceClassPersisters);
+         }
+         return resourceClassPersisters;
+      }
+   }
+
+   private SharedPersisters(SQLProfile sqlProfile, SQLStrings sqlStrings) {
+      this.sqlProfile = sqlProfile;
+      this.sqlStrings = sqlStrings;
+
+      accessorResourcePagePersister = new AccessorResourcePagePersister(sqlStrings);
+      permissionChangeCounterPersister = new PermissionChangeCounterPersister(sqlStrings);
+      domainChangeCounterPersister = new DomainChangeCounterPersister(sqlStrings);
+
+      if (sqlProfile.isRecursiveCTEEnabled()) {
+         grantDomainCreatePermissionSysPersister
+               = new RecursiveGrantDomainCreatePermissionSysPersister(sqlProfile, sqlStrings);
+         grantDomainCreatePermissionPostCreateSysPersister
+               = new RecursiveGrantDomainCreatePermissionPostCreateSysPersister(sqlProfile, sqlStrings);
+         grantDomainPermissionSysPersister
+               = new RecursiveGrantDomainPermissionSysPersister(sqlProfile, sqlStrings);
+         domainPersister
+               = new RecursiveDomainPersister(sqlProfile, sqlStrings);
+         resourcePersister
+               = new RecursiveResourcePersister(sqlProfile, sqlStrings);
+         grantResourceCreatePermissionSysPersister
+               = new RecursiveGrantResourceCreatePermissionSysPersister(sqlProfile, sqlStrings);
+         grantResourceCreatePermissionPostCreateSysPersister
+               = new RecursiveGrantResourceCreatePermissionPostCreateSysPersister(sqlProfile, sqlStrings);
+         grantResourceCreatePermissionPostCreatePersister
+               = new RecursiveGrantResourceCreatePermissionPostCreatePersister(sqlProfile, sqlStrings);
+         grantResourcePermissionSysPersister
+               = new RecursiveGrantResourcePermissionSysPersister(sqlProfile, sqlStrings);
+         grantGlobalResourcePermissionSysPersister
+               = new RecursiveGrantGlobalResourcePermissionSysPersister(sqlProfile, sqlStrings);
+         grantResourcePermissionPersister
+               = new RecursiveGrantResourcePermissionPersister(sqlProfile, sqlStrings);
+         grantGlobalResourcePermissionPersister
+               = new RecursiveGrantGlobalResourcePermissionPersister(sqlProfile, sqlStrings);
+         effectiveResourcePermissionPersister
+               = new EffectiveResourcePermissionPersister(sqlStrings);
+         batchEffectiveResourcePermissionPersister
+               = new RecursiveBatchEffectiveResourcePermissionPersister(sqlStrings);
+         streamingResourcePermissionPersister
+               = new StreamingResourcePermissionPersister(sqlStrings);
+         resourceCountPersister
+               = new RecursiveResourceCountPersister(sqlStrings);
+      }
+      else {
+         final DomainHierarchyIndex noDomainHierarchyIndex = null;
+
+         grantDomainCreatePermissionSysPersister
+               = new NonRecursiveGrantDomainCreatePermissionSysPersister(sqlProfile, sqlStrings);
+         grantDomainCreatePermissionPostCreateSysPersister
+               = new NonRecursiveGrantDomainCreatePermissionPostCreateSysPersister(sqlProfile, sqlStrings);
+         grantDomainPermissionSysPersister
+               = new NonRecursiveGrantDomainPermissionSysPersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         domainPersister
+               = new NonRecursiveDomainPersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         resourcePersister
+               = new NonRecursiveResourcePersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         grantResourceCreatePermissionSysPersister
+               = new NonRecursiveGrantResourceCreatePermissionSysPersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         grantResourceCreatePermissionPostCreateSysPersister
+               = new NonRecursiveGrantResourceCreatePermissionPostCreateSysPersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         grantResourceCreatePermissionPostCreatePersister
+               = new NonRecursiveGrantResourceCreatePermissionPostCreatePersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         grantResourcePermissionSysPersister
+               = new NonRecursiveGrantResourcePermissionSysPersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         grantGlobalResourcePermissionSysPersister
+               = new NonRecursiveGrantGlobalResourcePermissionSysPersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         grantResourcePermissionPersister
+               = new NonRecursiveGrantResourcePermissionPersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         grantGlobalResourcePermissionPersister
+               = new NonRecursiveGrantGlobalResourcePermissionPersister(sqlProfile, sqlStrings, noDomainHierarchyIndex);
+         effectiveResourcePermissionPersister = null;
+         batchEffectiveResourcePermissionPersister
+               = new NonRecursiveBatchEffectiveResourcePermissionPersister(sqlStrings, noDomainHierarchyIndex);
+         // without recursive queries, resources can only be streamed by joining both closure tables
+         streamingResourcePermissionPersister
+               = sqlStrings.isResourceStreamingSupported()
+                 ? new StreamingResourcePermissionPersister(sqlStrings)
+                 : null;
+         resourceCountPersister
+               = new NonRecursiveResourceCountPersister(sqlStrings, noDomainHierarchyIndex);
+      }
+   }
+
+   /**
+    * The resource class persisters together with the metadata registry they share.
+    */
+   public static class ResourceClassPersisters {
+      public final ResourceClassMetadataRegistry    resourceClassMetadataRegistry;
+      public final ResourceClassPersister           resourceClassPersister;
+      public final ResourceClassPermissionPersister resourceClassPermissionPersister;
+
+      private ResourceClassPersisters(SQLProfile sqlProfile, SQLStrings sqlStrings) {
+         resourceClassMetadataRegistry = new ResourceClassMetadataRegistry();
+         resourceClassPersister = new ResourceClassPersister(sqlProfile, sqlStrings, resourceClassMetadataRegistry);
+         resourceClassPermissionPersister
+               = new ResourceClassPermissionPersister(sqlProfile, sqlStrings, resourceClassMetadataRegistry);
+      }
+   }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.CloseableIterator;
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.sql.internal.persister.id.DomainId;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
+import com.acciente.oacc.sql.internal.persister.id.ResourcePermissionId;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams the resources an accessor has a set of permissions to from a single cursor, instead of accumulating
+ * and intersecting the results of the per-permission queries in memory. Only supported by profiles with recursive
+ * common table expressions, or by profiles that maintain the domain closure table when the inheritance closure
+ * table is enabled, see {@link SQLStrings#isResourceStreamingSupported()}.
+ */
+public class StreamingResourcePermissionPersister extends Persister implements Serializable {
+   private static final long serialVersionUID = 1L;
+
+   private final SQLStrings sqlStrings;
+
+   public StreamingResourcePermissionPersister(SQLStrings sqlStrings) {
+      if (!sqlStrings.isResourceStreamingSupported()) {
+         throw new IllegalArgumentException("Streaming resources by permissions is not supported by SQL profile: "
+                                                  + sqlStrings.getSqlProfile()
+                                                  + (sqlStrings.isInheritanceClosureEnabled()
+                                                     ? ""
+                                                     : " without the inheritance closure"));
+      }
+      this.sqlStrings = sqlStrings;
+   }
+
+   /**
+    * Opens a cursor over the resources of the specified class, optionally restricted to a domain and its
+    * descendants, to which the accessor has all the specified permissions or super-user access, in ascending
+    * order of resource id.
+    *
+    * @param resourceDomainId          the domain to restrict the resources to, or <code>null</code> for all domains
+    * @param sysPermissionIdsWithGrant the requested system permission ids, each mapped to whether the grant option
+    *                                  is required
+    * @param permissionIdsWithGrant    the requested non-system permission ids, each mapped to whether the grant
+    *                                  option is required
+    * @param fetchSize                 the number of rows to fetch per round-trip, or zero for the driver's default
+    * @return an iterator that owns the cursor, and must be closed unless exhausted
+    */
+   public CloseableIterator<Resource> getResourcesByResourcePermissions(SQLConnection connection,
+                                                                       Resource accessorResource,
+                                                                       Id<ResourceClassId> resourceClassId,
+                                                                       Id<DomainId> resourceDomainId,
+                                                                       Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                                                       Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant,
+                                                                       int fetchSize) {
+      SQLStatement statement = null;
+      try {
+         statement = connection.prepareStatement(
+               sqlStrings.getStreamResourcesByPermissionsSQL(sysPermissionIdsWithGrant.size(),
+                                                             permissionIdsWithGrant.size(),
+                                                             resourceDomainId != null));
+         setParameters(statement,
+                       accessorResource,
+                       resourceClassId,
+                       resourceDomainId,
+                       sysPermissionIdsWithGrant,
+                       permissionIdsWithGrant);
+
+         if (fetchSize > 0) {
+            statement.setFetchSize(fetchSize);
+         }
+
+         final CloseableIterator<Resource> resources = new SQLResultResourceIterator(statement, statement.executeQuery());
+
+         // the iterator now owns the statement
+         statement = null;
+
+         return resources;
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   /**
+    * Returns one page of the resources of the specified class, optionally restricted to a domain and its
+    * descendants, to which the accessor has all the specified permissions or super-user access, i.e. at most
+    * <code>pageSize</code> of them, in ascending order of resource id, whose ids are greater than
+    * <code>afterResourceId</code>.
+    *
+    * @param resourceDomainId          the domain to restrict the resources to, or <code>null</code> for all domains
+    * @param sysPermissionIdsWithGrant the requested system permission ids, each mapped to whether the grant option
+    *                                  is required
+    * @param permissionIdsWithGrant    the requested non-system permission ids, each mapped to whether the grant
+    *                                  option is required
+    * @param afterResourceId           the id of the last resource of the previous page, or <code>null</code> for
+    *                                  the first page
+    * @param pageSize                  the maximum number of resources to return
+    * @return the resources in ascending order of resource id
+    */
+   public List<Resource> getResourcePageByResourcePermissions(SQLConnection connection,
+                                                              Resource accessorResource,
+                                                              Id<ResourceClassId> resourceClassId,
+                                                              Id<DomainId> resourceDomainId,
+                                                              Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                                              Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant,
+                                                              Long afterResourceId,
+                                                              int pageSize) {
+      SQLStatement statement = null;
+      try {
+         statement = connection.prepareStatement(
+               sqlStrings.getPageResourcesByPermissionsSQL(sysPermissionIdsWithGrant.size(),
+                                                           permissionIdsWithGrant.size(),
+                                                           resourceDomainId != null,
+                                                           pageSize));
+         final int parameterIndex = setParameters(statement,
+                                                  accessorResource,
+                                                  resourceClassId,
+                                                  resourceDomainId,
+                                                  sysPermissionIdsWithGrant,
+                                                  permissionIdsWithGrant);
+         statement.setResourceId(parameterIndex, getPageStartResourceId(afterResourceId));
+
+         return getResourcePage(statement.executeQuery(), pageSize);
+      }
+      catch (SQLException e) {
+         throw new RuntimeException(e);
+      }
+      finally {
+         closeStatement(statement);
+      }
+   }
+
+   private int setParameters(SQLStatement statement,
+                             Resource accessorResource,
+                             Id<ResourceClassId> resourceClassId,
+                             Id<DomainId> resourceDomainId,
+                             Map<Long, Boolean> sysPermissionIdsWithGrant,
+                             Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) throws SQLException {
+      if (sqlStrings.getSqlProfile().isRecursiveCTEEnabled()) {
+         return setResourcesByPermissionsParameters(statement,
+                                                    accessorResource,
+                                                    resourceClassId,
+                                                    resourceDomainId,
+                                                    sysPermissionIdsWithGrant,
+                                                    permissionIdsWithGrant);
+      }
+      return setResourcesByPermissionsWithClosuresParameters(statement,
+                                                             accessorResource,
+                                                             resourceClassId,
+                                                             resourceDomainId,
+                                                             sysPermissionIdsWithGrant,
+                                                             permissionIdsWithGrant);
+   }
+
+   // also used to count the resources, since the count query takes the same parameters
+   static int setResourcesByPermissionsParameters(SQLStatement statement,
+                                                  Resource accessorResource,
+                                                  Id<ResourceClassId> resourceClassId,
+                                                  Id<DomainId> resourceDomainId,
+                                                  Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                                  Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) throws SQLException {
+      int parameterIndex = 1;
+
+      statement.setResourceId(parameterIndex++, accessorResource);
+      if (resourceDomainId != null) {
+         statement.setResourceDomainId(parameterIndex++, resourceDomainId);
+      }
+
+      // global permissions
+      if (!sysPermissionIdsWithGrant.isEmpty()) {
+         parameterIndex = setSysPermissionParameters(statement, parameterIndex, resourceClassId, sysPermissionIdsWithGrant);
+      }
+      if (!permissionIdsWithGrant.isEmpty()) {
+         parameterIndex = setPermissionParameters(statement, parameterIndex, resourceClassId, permissionIdsWithGrant);
+      }
+
+      // direct permissions, followed by the resource class of the resources in the globally permitted domains
+      if (!sysPermissionIdsWithGrant.isEmpty()) {
+         parameterIndex = setSysPermissionParameters(statement, parameterIndex, resourceClassId, sysPermissionIdsWithGrant);
+         statement.setResourceClassId(parameterIndex++, resourceClassId);
+      }
+      if (!permissionIdsWithGrant.isEmpty()) {
+         parameterIndex = setPermissionParameters(statement, parameterIndex, resourceClassId, permissionIdsWithGrant);
+         statement.setResourceClassId(parameterIndex++, resourceClassId);
+      }
+
+      statement.setResourceClassId(parameterIndex++, resourceClassId);
+
+      return parameterIndex;
+   }
+
+   private static int setResourcesByPermissionsWithClosuresParameters(SQLStatement statement,
+                                                                      Resource accessorResource,
+                                                                      Id<ResourceClassId> resourceClassId,
+                                                                      Id<DomainId> resourceDomainId,
+                                                                      Map<Long, Boolean> sysPermissionIdsWithGrant,
+                                                                      Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) throws SQLException {
+      int parameterIndex = 1;
+
+      if (resourceDomainId != null) {
+         statement.setResourceDomainId(parameterIndex++, resourceDomainId);
+      }
+      statement.setResourceClassId(parameterIndex++, resourceClassId);
+
+      // direct permissions, followed by global permissions, each preceded by the accessor and its inherited resources
+      if (!sysPermissionIdsWithGrant.isEmpty()) {
+         for (int i = 0; i < 2; i++) {
+            parameterIndex = setAccessorParameters(statement, parameterIndex, accessorResource);
+            parameterIndex = setSysPermissionParameters(statement, parameterIndex, resourceClassId, sysPermissionIdsWithGrant);
+         }
+      }
+      if (!permissionIdsWithGrant.isEmpty()) {
+         for (int i = 0; i < 2; i++) {
+            parameterIndex = setAccessorParameters(statement, parameterIndex, accessorResource);
+            parameterIndex = setPermissionParameters(statement, parameterIndex, resourceClassId, permissionIdsWithGrant);
+         }
+      }
+
+      // super-user domains
+      return setAccessorParameters(statement, parameterIndex, accessorResource);
+   }
+
+   private static int setAccessorParameters(SQLStatement statement,
+                                            int parameterIndex,
+                                            Resource accessorResource) throws SQLException {
+      statement.setResourceId(parameterIndex++, accessorResource);
+      statement.setResourceId(parameterIndex++, accessorResource);
+      return parameterIndex;
+   }
+
+   private static int setSysPermissionParameters(SQLStatement statement,
+                                                 int parameterIndex,
+                                                 Id<ResourceClassId> resourceClassId,
+                                                 Map<Long, Boolean> sysPermissionIdsWithGrant) throws SQLException {
+      statement.setResourceClassId(parameterIndex++, resourceClassId);
+      for (Map.Entry<Long, Boolean> sysPermissionIdWithGrant : sysPermissionIdsWithGrant.entrySet()) {
+         statement.setResourceSystemPermissionId(parameterIndex++, sysPermissionIdWithGrant.getKey());
+         statement.setBoolean(parameterIndex++, sysPermissionIdWithGrant.getValue());
+      }
+      return parameterIndex;
+   }
+
+   private static int setPermissionParameters(SQLStatement statement,
+                                              int parameterIndex,
+                                              Id<ResourceClassId> resourceClassId,
+                                              Map<Id<ResourcePermissionId>, Boolean> permissionIdsWithGrant) throws SQLException {
+      statement.setResourceClassId(parameterIndex++, resourceClassId);
+      for (Map.Entry<Id<ResourcePermissionId>, Boolean> permissionIdWithGrant : permissionIdsWithGrant.entrySet()) {
+         statement.setResourcePermissionId(parameterIndex++, permissionIdWithGrant.getKey());
+         statement.setBoolean(parameterIndex++, permissionIdWithGrant.getValue());
+      }
+      return parameterIndex;
+   }
+}
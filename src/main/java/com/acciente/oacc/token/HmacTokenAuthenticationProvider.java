@@ -0,0 +1,247 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.token;
+
+import com.acciente.oacc.AuthenticationProvider;
+import com.acciente.oacc.Credentials;
+import com.acciente.oacc.IncorrectCredentialsException;
+import com.acciente.oacc.InvalidCredentialsException;
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.TokenCredentials;
+import com.acciente.oacc.UnsupportedCredentialsException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentication provider that authenticates resources with expiring, HMAC-signed tokens, and delegates all other
+ * credentials to another authentication provider, typically the built-in password authentication provider.
+ * <p/>
+ * After a resource authenticated with its password, the application calls {@link #issueToken(Resource)} with the
+ * authenticated resource to obtain a {@link TokenCredentials} instance, and hands the token to its client. Later
+ * requests authenticate with the token, which this provider verifies with a single HMAC computation instead of a
+ * password hash. The provider itself does not query the database, but the access control context still resolves
+ * the authenticating resource in the database before it invokes the provider:
+ * <pre>
+ *    final HmacTokenAuthenticationProvider authenticationProvider
+ *          = HmacTokenAuthenticationProvider.newInstance(
+ *                SQLPasswordAuthenticationProvider.newInstance(dataSource, schemaName, passwordEncryptor),
+ *                secretKey, 8, TimeUnit.HOURS);
+ *
+ *    accessControlContext.authenticate(resource, PasswordCredentials.newInstance(password));
+ *    final TokenCredentials token = authenticationProvider.issueToken(accessControlContext.getAuthenticatedResource());
+ *    ...
+ *    accessControlContext.authenticate(resource, token);
+ * </pre>
+ * A token is bound to the id of the resource it was issued for, and is only accepted for a resource specified with
+ * that id. A token remains valid until it expires, even if the credentials of its resource change in the meantime;
+ * all outstanding tokens can be revoked by replacing the secret key. Every application instance that verifies the
+ * tokens must use the same secret key.
+ * <p/>
+ * This class is thread-safe if its delegate is. It is deliberately not serializable, so that the secret key is never
+ * serialized with an access control context.
+ */
+public class HmacTokenAuthenticationProvider implements AuthenticationProvider {
+   private static final String HMAC_ALGORITHM       = "HmacSHA256";
+   private static final int    SECRET_KEY_SIZE_MIN  = 32;
+   private static final char   TOKEN_PART_SEPARATOR = '.';
+   private static final char[] HEX_DIGITS           = "0123456789abcdef".toCharArray();
+
+   private final AuthenticationProvider delegateAuthenticationProvider;
+   private final SecretKeySpec          secretKey;
+   private final long                   timeToLiveMillis;
+
+   /**
+    * Returns a token authentication provider that signs its tokens with the specified secret key.
+    *
+    * @param delegateAuthenticationProvider the authentication provider that handles all credentials other than
+    *                                       tokens
+    * @param secretKey                      the secret key of the HMAC-SHA256 token signatures, at least
+    *                                       {@value SECRET_KEY_SIZE_MIN} bytes long
+    * @param timeToLive                     the time from the issue of a token until it expires
+    * @param timeUnit                       the unit of the time to live
+    * @return an HmacTokenAuthenticationProvider instance configured as described above
+    * @throws IllegalArgumentException if the delegate or time unit is null, the secret key is shorter than
+    *                                  {@value SECRET_KEY_SIZE_MIN} bytes, or the time to live is not positive
+    */
+   public static HmacTokenAuthenticationProvider newInstance(AuthenticationProvider delegateAuthenticationProvider,
+                                                             byte[] secretKey,
+                                                             long timeToLive,
+                                                             TimeUnit timeUnit) {
+      if (delegateAuthenticationProvider == null) {
+         throw new IllegalArgumentException("Delegate authentication provider required, none specified");
+      }
+      if (secretKey == null || secretKey.length < SECRET_KEY_SIZE_MIN) {
+         throw new IllegalArgumentException("The secret key must be at least " + SECRET_KEY_SIZE_MIN + " bytes long");
+      }
+      if (timeUnit == null) {
+         throw new IllegalArgumentException("Time unit required, none specified");
+      }
+      if (timeToLive <= 0) {
+         throw new IllegalArgumentException("The time to live must be positive");
+      }
+      return new HmacTokenAuthenticationProvider(delegateAuthenticationProvider,
+                                                 secretKey,
+                                                 timeUnit.toMillis(timeToLive));
+   }
+
+   private HmacTokenAuthenticationProvider(AuthenticationProvider delegateAuthenticationProvider,
+                                           byte[] secretKey,
+                                           long timeToLiveMillis) {
+      this.delegateAuthenticationProvider = delegateAuthenticationProvider;
+      // the key spec copies the key, so later changes to the caller's array have no effect
+      this.secretKey = new SecretKeySpec(secretKey, HMAC_ALGORITHM);
+      this.timeToLiveMillis = timeToLiveMillis;
+   }
+
+   /**
+    * Issues a token for the specified resource, which expires after the time to live of this provider.
+    * <p/>
+    * The caller is responsible for only issuing tokens to resources that have authenticated, for example by passing
+    * the resource returned by {@link com.acciente.oacc.AccessControlContext#getAuthenticatedResource()} after a
+    * successful authentication.
+    *
+    * @param resource the authenticated resource, which must have an id
+    * @return the token credentials of the resource
+    * @throws IllegalArgumentException if the resource or its id is null
+    */
+   public TokenCredentials issueToken(Resource resource) {
+      if (resource == null || resource.getId() == null) {
+         throw new IllegalArgumentException("A resource with an id is required to issue a token");
+      }
+      final String payload = resource.getId() + String.valueOf(TOKEN_PART_SEPARATOR)
+            + (System.currentTimeMillis() + timeToLiveMillis);
+      return TokenCredentials.newInstance(payload + TOKEN_PART_SEPARATOR + toHex(sign(payload)));
+   }
+
+   @Override
+   public void authenticate(Resource resource, Credentials credentials) {
+      if (credentials instanceof TokenCredentials) {
+         verifyToken(resource, ((TokenCredentials) credentials).getToken());
+      }
+      else {
+         delegateAuthenticationProvider.authenticate(resource, credentials);
+      }
+   }
+
+   @Override
+   public void authenticate(Resource resource) {
+      delegateAuthenticationProvider.authenticate(resource);
+   }
+
+   @Override
+   public void validateCredentials(String resourceClassName, String domainName, Credentials credentials) {
+      assertNotTokenCredentials(credentials);
+      delegateAuthenticationProvider.validateCredentials(resourceClassName, domainName, credentials);
+   }
+
+   @Override
+   public void setCredentials(Resource resource, Credentials credentials) {
+      assertNotTokenCredentials(credentials);
+      delegateAuthenticationProvider.setCredentials(resource, credentials);
+   }
+
+   @Override
+   public void deleteCredentials(Resource resource) {
+      delegateAuthenticationProvider.deleteCredentials(resource);
+   }
+
+   private void verifyToken(Resource resource, String token) {
+      if (token == null) {
+         throw new InvalidCredentialsException("Token required, none specified");
+      }
+
+      final int signatureSeparatorIndex = token.lastIndexOf(TOKEN_PART_SEPARATOR);
+      final int expirySeparatorIndex = token.indexOf(TOKEN_PART_SEPARATOR);
+      if (expirySeparatorIndex < 1 || signatureSeparatorIndex <= expirySeparatorIndex + 1) {
+         throw new IncorrectCredentialsException("Invalid token");
+      }
+
+      // the signature is checked before any part of the payload is interpreted
+      final String payload = token.substring(0, signatureSeparatorIndex);
+      final byte[] signature = fromHex(token.substring(signatureSeparatorIndex + 1));
+      if (signature == null || !MessageDigest.isEqual(signature, sign(payload))) {
+         throw new IncorrectCredentialsException("Invalid token");
+      }
+
+      final long resourceId;
+      final long expiresAtMillis;
+      try {
+         resourceId = Long.parseLong(token.substring(0, expirySeparatorIndex));
+         expiresAtMillis = Long.parseLong(token.substring(expirySeparatorIndex + 1, signatureSeparatorIndex));
+      }
+      catch (NumberFormatException e) {
+         throw new IncorrectCredentialsException("Invalid token", e);
+      }
+
+      if (resource.getId() == null || resource.getId() != resourceId) {
+         throw new IncorrectCredentialsException("Token was not issued for resource " + resource);
+      }
+      if (System.currentTimeMillis() >= expiresAtMillis) {
+         throw new IncorrectCredentialsException("Token expired");
+      }
+   }
+
+   private byte[] sign(String payload) {
+      try {
+         // Mac instances are not thread-safe, and cheap to create compared to the computation they perform
+         final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+         mac.init(secretKey);
+         return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+      }
+      catch (GeneralSecurityException e) {
+         throw new IllegalStateException("Unable to compute the token signature", e);
+      }
+   }
+
+   private static void assertNotTokenCredentials(Credentials credentials) {
+      if (credentials instanceof TokenCredentials) {
+         throw new UnsupportedCredentialsException("Token credentials are issued, and cannot be set");
+      }
+   }
+
+   private static String toHex(byte[] bytes) {
+      final char[] hexChars = new char[bytes.length * 2];
+      for (int i = 0; i < bytes.length; i++) {
+         hexChars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+         hexChars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+      }
+      return new String(hexChars);
+   }
+
+   private static byte[] fromHex(String hexString) {
+      if (hexString.length() % 2 != 0) {
+         return null;
+      }
+      final byte[] bytes = new byte[hexString.length() / 2];
+      for (int i = 0; i < bytes.length; i++) {
+         final int high = Arrays.binarySearch(HEX_DIGITS, hexString.charAt(2 * i));
+         final int low = Arrays.binarySearch(HEX_DIGITS, hexString.charAt(2 * i + 1));
+         if (high < 0 || low < 0) {
+            return null;
+         }
+         bytes[i] = (byte) ((high << 4) | low);
+      }
+      return bytes;
+   }
+}
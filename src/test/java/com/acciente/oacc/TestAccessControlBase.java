@@ -17,9 +17,12 @@
  */
 package com.acciente.oacc;
 
+import com.acciente.oacc.encryptor.PasswordEncryptor;
 import com.acciente.oacc.helper.SQLAccessControlSystemResetUtil;
 import com.acciente.oacc.helper.TestConfigLoader;
 import com.acciente.oacc.sql.SQLAccessControlContextFactory;
+import com.acciente.oacc.sql.SQLAccessControlContextOptions;
+import com.acciente.oacc.sql.SQLAccessControlEngine;
 import com.acciente.oacc.sql.SQLProfile;
 import org.junit.After;
 import org.junit.Before;
@@ -46,7 +49,8 @@ public class TestAccessControlBase {
             = SQLAccessControlContextFactory.getAccessControlContext(dataSource,
                                                                      TestConfigLoader.getDatabaseSchema(),
                                                                      sqlProfile,
-                                                                     TestConfigLoader.getPasswordEncryptor());
+                                                                     TestConfigLoader.getPasswordEncryptor(),
+                                                                     newOptionsBuilder().build());
    }
 
    protected AccessControlContext accessControlContext;
@@ -61,7 +65,8 @@ public class TestAccessControlBase {
             = SQLAccessControlContextFactory.getAccessControlContext(dataSource,
                                                                      TestConfigLoader.getDatabaseSchema(),
                                                                      sqlProfile,
-                                                                     TestConfigLoader.getPasswordEncryptor());
+                                                                     TestConfigLoader.getPasswordEncryptor(),
+                                                                     newOptionsBuilder().build());
    }
 
    @After
@@ -70,6 +75,53 @@ public class TestAccessControlBase {
    }
 
 
+   /**
+    * Returns an options builder preset with the options of the database configuration under test, so that
+    * contexts created with additional options still maintain the same optional tables.
+    */
+   protected static SQLAccessControlContextOptions.Builder newOptionsBuilder() {
+      return SQLAccessControlContextOptions.builder()
+            .inheritanceClosureEnabled(TestConfigLoader.isInheritanceClosureEnabled());
+   }
+
+   protected static AccessControlContext newAccessControlContext(SQLAccessControlContextOptions options) {
+      return SQLAccessControlContextFactory.getAccessControlContext(dataSource,
+                                                                    TestConfigLoader.getDatabaseSchema(),
+                                                                    sqlProfile,
+                                                                    TestConfigLoader.getPasswordEncryptor(),
+                                                                    options);
+   }
+
+   protected static AccessControlContext newAccessControlContext(PasswordEncryptor passwordEncryptor) {
+      return SQLAccessControlContextFactory.getAccessControlContext(dataSource,
+                                                                    TestConfigLoader.getDatabaseSchema(),
+                                                                    sqlProfile,
+                                                                    passwordEncryptor,
+                                                                    newOptionsBuilder().build());
+   }
+
+   protected static AccessControlContext newAccessControlContext(DataSource readDataSource,
+                                                                 SQLAccessControlContextOptions options) {
+      return SQLAccessControlContextFactory.getAccessControlContext(dataSource,
+                                                                    readDataSource,
+                                                                    TestConfigLoader.getDatabaseSchema(),
+                                                                    sqlProfile,
+                                                                    TestConfigLoader.getPasswordEncryptor(),
+                                                                    options);
+   }
+
+   protected static DataSource getDataSource() {
+      return dataSource;
+   }
+
+   protected static SQLAccessControlEngine newAccessControlEngine(SQLAccessControlContextOptions options) {
+      return SQLAccessControlEngine.newInstance(dataSource,
+                                                TestConfigLoader.getDatabaseSchema(),
+                                                sqlProfile,
+                                                TestConfigLoader.getPasswordEncryptor(),
+                                                options);
+   }
+
    public static Resource getSystemResource() {
       return SYS_RESOURCE;
    }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.helper.TestConfigLoader;
+import com.acciente.oacc.sql.SQLAccessControlEngine;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestAccessControl_SQLAccessControlEngine extends TestAccessControlBase {
+   private SQLAccessControlEngine accessControlEngine;
+
+   @Before
+   public void setUpEngine() {
+      accessControlEngine
+            = newAccessControlEngine(newOptionsBuilder()
+                                           .effectiveResourcePermissionCacheSize(16)
+                                           .build());
+   }
+
+   @Test
+   public void newAccessControlContext_shouldReturnIndependentSessions() {
+      final AccessControlContext sessionContext1 = accessControlEngine.newAccessControlContext();
+      final AccessControlContext sessionContext2 = accessControlEngine.newAccessControlContext();
+      assertThat(sessionContext1, not(sameInstance(sessionContext2)));
+
+      sessionContext1.authenticate(SYS_RESOURCE,
+                                   PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+      assertThat(sessionContext1.getAuthenticatedResource(), is(SYS_RESOURCE));
+
+      try {
+         sessionContext2.getAuthenticatedResource();
+         fail("getting the authenticated resource of an unauthenticated session should have failed");
+      }
+      catch (NotAuthenticatedException e) {
+         assertThat(e.getMessage().toLowerCase().contains("not authenticated"), is(true));
+      }
+   }
+
+   @Test
+   public void newAccessControlContext_shouldShareResourceClassMetadata() {
+      final AccessControlContext sessionContext1 = accessControlEngine.newAccessControlContext();
+      final AccessControlContext sessionContext2 = accessControlEngine.newAccessControlContext();
+      sessionContext1.authenticate(SYS_RESOURCE,
+                                   PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+      sessionContext2.authenticate(SYS_RESOURCE,
+                                   PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+
+      final String resourceClassName = generateUniqueResourceClassName();
+      sessionContext1.createResourceClass(resourceClassName, false, false);
+      sessionContext1.createResourcePermission(resourceClassName, "READ");
+
+      final Resource resource
+            = sessionContext2.createResource(resourceClassName, sessionContext2.getDomainNameByResource(SYS_RESOURCE));
+      sessionContext2.setResourcePermissions(SYS_RESOURCE,
+                                             resource,
+                                             setOf(ResourcePermissions.getInstance("READ")));
+
+      assertThat(sessionContext1.hasResourcePermissions(SYS_RESOURCE,
+                                                        resource,
+                                                        ResourcePermissions.getInstance("READ")),
+                 is(true));
+   }
+
+   @Test
+   public void newAccessControlContext_concurrentSessions_shouldKeepSessionStateApart() throws Exception {
+      authenticateSystemResource();
+      final char[] password = generateUniquePassword();
+      final int sessionCount = 4;
+      final List<Resource> accessorResources = new ArrayList<>(sessionCount);
+      for (int i = 0; i < sessionCount; i++) {
+         accessorResources.add(generateAuthenticatableResource(password));
+      }
+      // only the first accessor may query the queried resource
+      final Resource queriedResource = generateUnauthenticatableResource();
+      grantQueryPermission(accessorResources.get(0), queriedResource);
+
+      final ExecutorService executorService = Executors.newFixedThreadPool(sessionCount);
+      try {
+         final List<Future<Void>> futures = new ArrayList<>(sessionCount);
+         for (int i = 0; i < sessionCount; i++) {
+            final Resource accessorResource = accessorResources.get(i);
+            final boolean canQuery = i == 0;
+            futures.add(executorService.submit(new Callable<Void>() {
+               @Override
+               public Void call() {
+                  final AccessControlContext sessionContext = accessControlEngine.newAccessControlContext();
+                  sessionContext.authenticate(accessorResource, PasswordCredentials.newInstance(password));
+
+                  for (int j = 0; j < 10; j++) {
+                     assertThat(sessionContext.getAuthenticatedResource(), is(accessorResource));
+                     assertThat(sessionContext.getSessionResource(), is(accessorResource));
+                     assertThat(sessionContext.hasResourcePermissions(accessorResource,
+                                                                      queriedResource,
+                                                                      ResourcePermissions
+                                                                            .getInstance(ResourcePermissions.QUERY)),
+                                is(canQuery));
+                  }
+                  return null;
+               }
+            }));
+         }
+
+         for (Future<Void> future : futures) {
+            future.get();
+         }
+      }
+      finally {
+         executorService.shutdown();
+      }
+   }
+}
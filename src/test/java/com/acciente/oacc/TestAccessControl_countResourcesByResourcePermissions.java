@@ -0,0 +1,225 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestAccessControl_countResourcesByResourcePermissions extends TestAccessControlBase {
+   @Test
+   public void countResourcesByResourcePermissions_emptyAsSystemResource() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+      final ResourcePermission permission = ResourcePermissions.getInstance(permissionName);
+
+      assertThat(accessControlContext.countResourcesByResourcePermissions(accessorResource, resourceClassName, permission),
+                 is(0L));
+      assertThat(accessControlContext.countResourcesByResourcePermissions(accessorResource,
+                                                                          resourceClassName,
+                                                                          setOf(permission)),
+                 is(0L));
+      assertThat(accessControlContext.hasAnyResourceByResourcePermissions(accessorResource, resourceClassName, permission),
+                 is(false));
+      assertThat(accessControlContext.hasAnyResourceByResourcePermissions(accessorResource,
+                                                                          resourceClassName,
+                                                                          setOf(permission)),
+                 is(false));
+   }
+
+   @Test
+   public void countResourcesByResourcePermissions_allPaths_validAsAuthenticated() {
+      authenticateSystemResource();
+
+      final char[] password = generateUniquePassword();
+      final Resource accessorResource = generateAuthenticatableResource(password);
+      final Resource donorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName1 = generateResourceClassPermission(resourceClassName);
+      final String permissionName2 = generateResourceClassPermission(resourceClassName);
+      final ResourcePermission permission1 = ResourcePermissions.getInstance(permissionName1);
+      final ResourcePermission permission2 = ResourcePermissions.getInstance(permissionName2);
+      final ResourcePermission permission2WithGrant = ResourcePermissions.getInstanceWithGrantOption(permissionName2);
+
+      final String directDomain = generateDomain();
+      final String globalDomain = generateDomain();
+      final String superUserDomain = generateDomain();
+
+      // direct, with both permissions
+      final Resource resource_direct = accessControlContext.createResource(resourceClassName, directDomain);
+      accessControlContext.setResourcePermissions(accessorResource, resource_direct, setOf(permission1, permission2));
+      // direct and inherited
+      final Resource resource_inherited = accessControlContext.createResource(resourceClassName, directDomain);
+      accessControlContext.setResourcePermissions(accessorResource, resource_inherited, setOf(permission1));
+      accessControlContext.setResourcePermissions(donorResource, resource_inherited, setOf(permission2WithGrant));
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  donorResource,
+                                                  setOf(ResourcePermissions.getInstance(ResourcePermissions.INHERIT)));
+      // only one of the permissions
+      final Resource resource_partial = accessControlContext.createResource(resourceClassName, directDomain);
+      accessControlContext.setResourcePermissions(accessorResource, resource_partial, setOf(permission1));
+      // global permissions in a domain and its descendant
+      accessControlContext.createResource(resourceClassName, globalDomain);
+      accessControlContext.createResource(resourceClassName, generateChildDomain(globalDomain));
+      accessControlContext.setGlobalResourcePermissions(accessorResource,
+                                                        resourceClassName,
+                                                        globalDomain,
+                                                        setOf(permission1, permission2));
+      // super-user
+      accessControlContext.createResource(resourceClassName, superUserDomain);
+      accessControlContext.createResource(resourceClassName, generateChildDomain(superUserDomain));
+      accessControlContext.setDomainPermissions(accessorResource,
+                                                superUserDomain,
+                                                setOf(DomainPermissions.getInstance(DomainPermissions.SUPER_USER)));
+      // a resource of another class
+      final String otherResourceClassName = generateResourceClass(false, false);
+      accessControlContext.createResource(otherResourceClassName, superUserDomain);
+
+      // authenticate as accessor and verify against the set-based version
+      accessControlContext.authenticate(accessorResource, PasswordCredentials.newInstance(password));
+
+      final Set<Resource> expectedResources
+            = accessControlContext.getResourcesByResourcePermissions(accessorResource,
+                                                                     resourceClassName,
+                                                                     permission1,
+                                                                     permission2);
+      assertThat(expectedResources.size(), is(6));
+      assertThat(accessControlContext.countResourcesByResourcePermissions(accessorResource,
+                                                                          resourceClassName,
+                                                                          permission1,
+                                                                          permission2),
+                 is((long) expectedResources.size()));
+      assertThat(accessControlContext.countResourcesByResourcePermissions(accessorResource,
+                                                                          resourceClassName,
+                                                                          setOf(permission1, permission2)),
+                 is((long) expectedResources.size()));
+      assertThat(accessControlContext.hasAnyResourceByResourcePermissions(accessorResource,
+                                                                          resourceClassName,
+                                                                          permission1,
+                                                                          permission2),
+                 is(true));
+
+      // with grant, only the inherited and super-user resources qualify
+      final Set<Resource> expectedResourcesWithGrant
+            = accessControlContext.getResourcesByResourcePermissions(accessorResource,
+                                                                     resourceClassName,
+                                                                     setOf(permission1, permission2WithGrant));
+      assertThat(expectedResourcesWithGrant.size(), is(3));
+      assertThat(accessControlContext.countResourcesByResourcePermissions(accessorResource,
+                                                                          resourceClassName,
+                                                                          setOf(permission1, permission2WithGrant)),
+                 is((long) expectedResourcesWithGrant.size()));
+
+      // restricted to domains
+      assertThat(accessControlContext.countResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                                   resourceClassName,
+                                                                                   directDomain,
+                                                                                   permission1,
+                                                                                   permission2),
+                 is(2L));
+      assertThat(accessControlContext.countResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                                   resourceClassName,
+                                                                                   globalDomain,
+                                                                                   setOf(permission1, permission2)),
+                 is(2L));
+      assertThat(accessControlContext.countResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                                   resourceClassName,
+                                                                                   superUserDomain,
+                                                                                   permission1),
+                 is((long) accessControlContext.getResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                                           resourceClassName,
+                                                                                           superUserDomain,
+                                                                                           permission1).size()));
+   }
+
+   @Test
+   public void hasAnyResourceByResourcePermissions_partial_shouldBeFalse() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName1 = generateResourceClassPermission(resourceClassName);
+      final String permissionName2 = generateResourceClassPermission(resourceClassName);
+      final Resource accessedResource = accessControlContext.createResource(resourceClassName, generateDomain());
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  accessedResource,
+                                                  setOf(ResourcePermissions.getInstance(permissionName1)));
+
+      assertThat(accessControlContext.hasAnyResourceByResourcePermissions(accessorResource,
+                                                                          resourceClassName,
+                                                                          ResourcePermissions.getInstance(permissionName1)),
+                 is(true));
+      assertThat(accessControlContext.hasAnyResourceByResourcePermissions(accessorResource,
+                                                                          resourceClassName,
+                                                                          ResourcePermissions.getInstance(permissionName1),
+                                                                          ResourcePermissions.getInstance(permissionName2)),
+                 is(false));
+      assertThat(accessControlContext.hasAnyResourceByResourcePermissions(accessorResource,
+                                                                          resourceClassName,
+                                                                          setOf(ResourcePermissions
+                                                                                      .getInstanceWithGrantOption(permissionName1))),
+                 is(false));
+   }
+
+   @Test
+   public void countResourcesByResourcePermissions_nonExistentReferences_shouldFail() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+
+      try {
+         accessControlContext.countResourcesByResourcePermissions(accessorResource,
+                                                                  "invalid_resource_class",
+                                                                  ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+         fail("counting resources by permission for non-existent resource class should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("could not find resource class"));
+      }
+
+      try {
+         accessControlContext.hasAnyResourceByResourcePermissions(accessorResource,
+                                                                  resourceClassName,
+                                                                  ResourcePermissions.getInstance("invalid_permission"));
+         fail("checking for resources by permission with non-existent permission should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("not defined for resource class"));
+      }
+
+      try {
+         accessControlContext.countResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                           resourceClassName,
+                                                                           "invalid_domain",
+                                                                           ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+         fail("counting resources by permission and domain for non-existent domain should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("could not find domain"));
+      }
+   }
+}
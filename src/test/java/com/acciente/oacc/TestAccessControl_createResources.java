@@ -0,0 +1,218 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestAccessControl_createResources extends TestAccessControlBase {
+   @Test
+   public void createResources_validAsSystemResource() {
+      authenticateSystemResource();
+
+      final String domainName = generateDomain();
+      final String resourceClassName = generateResourceClass(false, false);
+      final List<String> externalIds = Arrays.asList(generateUniqueExternalId(),
+                                                     generateUniqueExternalId(),
+                                                     generateUniqueExternalId());
+
+      // create resources and verify
+      final List<Resource> resources = accessControlContext.createResources(resourceClassName, domainName, externalIds);
+
+      assertThat(resources.size(), is(externalIds.size()));
+      for (int i = 0; i < resources.size(); i++) {
+         final Resource resource = resources.get(i);
+         assertThat(resource.getExternalId(), is(externalIds.get(i)));
+         assertThat(accessControlContext.getDomainNameByResource(resource), is(domainName));
+         assertThat(accessControlContext.getResourceClassInfoByResource(resource).getResourceClassName(),
+                    is(resourceClassName));
+         assertThat(accessControlContext.getDomainNameByResource(Resources.getInstance(externalIds.get(i))),
+                    is(domainName));
+      }
+      assertThat(setOf(resources.get(0).getId(), resources.get(1).getId(), resources.get(2).getId()).size(), is(3));
+   }
+
+   @Test
+   public void createResources_moreThanOneBlock_validAsSystemResource() {
+      authenticateSystemResource();
+
+      final String domainName = generateDomain();
+      final String resourceClassName = generateResourceClass(false, false);
+      final List<String> externalIds = new ArrayList<>();
+      for (int i = 0; i < 1100; i++) {
+         externalIds.add(generateUniqueExternalId() + "_" + i);
+      }
+
+      // create resources and verify
+      final List<Resource> resources = accessControlContext.createResources(resourceClassName, domainName, externalIds);
+
+      assertThat(resources.size(), is(externalIds.size()));
+      assertThat(accessControlContext.getResourcesByResourcePermissions(SYS_RESOURCE,
+                                                                        resourceClassName,
+                                                                        ResourcePermissions.getInstance(ResourcePermissions.QUERY))
+                       .containsAll(resources),
+                 is(true));
+      assertThat(resources.get(1099).getExternalId(), is(externalIds.get(1099)));
+   }
+
+   @Test
+   public void createResources_validAsAuthorized_withPostCreatePermissions() {
+      final String domainName = generateDomain();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String customPermissionName = generateResourceClassPermission(resourceClassName);
+      final ResourcePermission customPermission = ResourcePermissions.getInstance(customPermissionName);
+      final ResourcePermission inheritPermission = ResourcePermissions.getInstance(ResourcePermissions.INHERIT);
+
+      // set up an authenticatable resource with resource class create permission
+      final Resource authenticatedResource = generateResourceAndAuthenticate();
+      grantResourceCreatePermission(authenticatedResource,
+                                    resourceClassName,
+                                    domainName,
+                                    customPermissionName,
+                                    ResourcePermissions.INHERIT);
+
+      // create resources and verify
+      final List<Resource> resources
+            = accessControlContext.createResources(resourceClassName,
+                                                   domainName,
+                                                   Arrays.asList(generateUniqueExternalId(), generateUniqueExternalId()));
+
+      for (Resource resource : resources) {
+         assertThat(accessControlContext.getResourcePermissions(authenticatedResource, resource),
+                    is(setOf(customPermission, inheritPermission)));
+      }
+      final Set<Resource> resourcesByPermission
+            = accessControlContext.getResourcesByResourcePermissions(authenticatedResource,
+                                                                     resourceClassName,
+                                                                     customPermission);
+      assertThat(resourcesByPermission, is(setOf(resources.get(0), resources.get(1))));
+   }
+
+   @Test
+   public void createResources_validAsUnauthenticated() {
+      final String domainName = generateDomain();
+      final String resourceClassName = generateResourceClass(false, true);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+      final ResourcePermission implicitResourcePermission = ResourcePermissions.getInstance(permissionName);
+
+      // create resources while unauthenticated and verify
+      accessControlContext.unauthenticate();
+      final List<Resource> resources
+            = accessControlContext.createResources(resourceClassName,
+                                                   domainName,
+                                                   Arrays.asList(generateUniqueExternalId(), generateUniqueExternalId()));
+
+      // re-authenticate as System Resource and verify each resource gets *ALL* permissions to itself
+      authenticateSystemResource();
+      for (Resource resource : resources) {
+         assertThat(accessControlContext.hasResourcePermissions(resource, resource, implicitResourcePermission),
+                    is(true));
+         assertThat(accessControlContext.getDomainNameByResource(resource), is(domainName));
+      }
+   }
+
+   @Test
+   public void createResources_duplicateExternalId_shouldFail() {
+      authenticateSystemResource();
+
+      final String domainName = generateDomain();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String externalId = generateUniqueExternalId();
+
+      try {
+         accessControlContext.createResources(resourceClassName, domainName, Arrays.asList(externalId, externalId));
+         fail("creating resources with duplicate external ids should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("duplicate external id"));
+      }
+
+      // create resource with the external id, then attempt again to create a resource with it
+      accessControlContext.createResource(resourceClassName, domainName, externalId);
+
+      try {
+         accessControlContext.createResources(resourceClassName,
+                                              domainName,
+                                              Arrays.asList(generateUniqueExternalId(), externalId));
+         fail("creating resources with an existing external id should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("external id is not unique"));
+      }
+   }
+
+   @Test
+   public void createResources_nullsAndEmpty_shouldFail() {
+      authenticateSystemResource();
+
+      final String domainName = generateDomain();
+      final String resourceClassName = generateResourceClass(false, false);
+
+      try {
+         accessControlContext.createResources(resourceClassName, domainName, null);
+         fail("creating resources with null list of external ids should have failed");
+      }
+      catch (NullPointerException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("none specified"));
+      }
+
+      try {
+         accessControlContext.createResources(resourceClassName, domainName, Collections.<String>emptyList());
+         fail("creating resources with empty list of external ids should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("none specified"));
+      }
+
+      try {
+         accessControlContext.createResources(resourceClassName,
+                                              domainName,
+                                              Arrays.asList(generateUniqueExternalId(), null));
+         fail("creating resources with null external id should have failed");
+      }
+      catch (NullPointerException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("external id required"));
+      }
+   }
+
+   @Test
+   public void createResources_notAuthorized_shouldFail() {
+      final String domainName = generateDomain();
+      final String resourceClassName = generateResourceClass(false, false);
+
+      generateResourceAndAuthenticate();
+
+      try {
+         accessControlContext.createResources(resourceClassName, domainName, Arrays.asList(generateUniqueExternalId()));
+         fail("creating resources without authorization should have failed");
+      }
+      catch (NotAuthorizedException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("is not authorized to create resource"));
+      }
+   }
+}
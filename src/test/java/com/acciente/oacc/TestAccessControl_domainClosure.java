@@ -0,0 +1,192 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.helper.TestConfigLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class TestAccessControl_domainClosure extends TestAccessControlBase {
+   @Before
+   public void assumeDomainClosureProfile() {
+      assumeTrue(TestConfigLoader.getSQLProfile().isDomainClosureEnabled());
+   }
+
+   @Test
+   public void createDomain_shouldAddClosureRowsForAllAncestors() throws SQLException {
+      authenticateSystemResource();
+      final String parentDomainName = generateDomain();
+      final String childDomainName = generateChildDomain(parentDomainName);
+      final String grandChildDomainName = generateChildDomain(childDomainName);
+
+      assertThat(getAncestorDepths(parentDomainName), is(mapOf(parentDomainName, 0)));
+      assertThat(getAncestorDepths(childDomainName), is(mapOf(childDomainName, 0, parentDomainName, 1)));
+      assertThat(getAncestorDepths(grandChildDomainName),
+                 is(mapOf(grandChildDomainName, 0, childDomainName, 1, parentDomainName, 2)));
+      assertThat(getAncestorDepths(AccessControlContext.SYSTEM_DOMAIN),
+                 is(mapOf(AccessControlContext.SYSTEM_DOMAIN, 0)));
+   }
+
+   @Test
+   public void deleteDomain_shouldRemoveClosureRowsOfDomainAndDescendants() throws SQLException {
+      authenticateSystemResource();
+      final String parentDomainName = generateDomain();
+      final String childDomainName = generateChildDomain(parentDomainName);
+      final String grandChildDomainName = generateChildDomain(childDomainName);
+      final String otherChildDomainName = generateChildDomain(parentDomainName);
+
+      accessControlContext.deleteDomain(childDomainName);
+
+      assertThat(getAncestorDepths(parentDomainName), is(mapOf(parentDomainName, 0)));
+      assertThat(getAncestorDepths(otherChildDomainName), is(mapOf(otherChildDomainName, 0, parentDomainName, 1)));
+      assertThat(getDescendantCount(parentDomainName), is(2));
+      assertThat(accessControlContext.getDomainDescendants(parentDomainName),
+                 is(setOf(parentDomainName, otherChildDomainName)));
+      assertThat(accessControlContext.getDomainDescendants(grandChildDomainName).isEmpty(), is(true));
+   }
+
+   @Test
+   public void domainPermissions_grantedOnAncestor_shouldApplyToDescendants() {
+      authenticateSystemResource();
+      final String parentDomainName = generateDomain();
+      final String childDomainName = generateChildDomain(parentDomainName);
+      final String grandChildDomainName = generateChildDomain(childDomainName);
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final DomainPermission createChildDomain = DomainPermissions.getInstance(DomainPermissions.CREATE_CHILD_DOMAIN);
+
+      accessControlContext.grantDomainPermissions(accessorResource, childDomainName, createChildDomain);
+
+      assertThat(accessControlContext.hasDomainPermissions(accessorResource, grandChildDomainName, createChildDomain),
+                 is(true));
+      assertThat(accessControlContext.hasDomainPermissions(accessorResource, parentDomainName, createChildDomain),
+                 is(false));
+      assertThat(accessControlContext.getEffectiveDomainPermissions(accessorResource, grandChildDomainName),
+                 is(setOf(createChildDomain)));
+   }
+
+   @Test
+   public void globalResourcePermissions_grantedOnAncestor_shouldApplyToResourcesInDescendants() {
+      authenticateSystemResource();
+      final String parentDomainName = generateDomain();
+      final String childDomainName = generateChildDomain(parentDomainName);
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource = accessControlContext.createResource(resourceClassName, childDomainName);
+
+      accessControlContext.grantGlobalResourcePermissions(accessorResource,
+                                                          resourceClassName,
+                                                          parentDomainName,
+                                                          customPermission);
+
+      assertThat(accessControlContext.hasResourcePermissions(accessorResource, accessedResource, customPermission),
+                 is(true));
+      assertThat(accessControlContext.getEffectiveResourcePermissions(accessorResource, accessedResource),
+                 is(setOf(customPermission)));
+      assertThat(accessControlContext.getResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                                 resourceClassName,
+                                                                                 childDomainName,
+                                                                                 customPermission),
+                 is(setOf(accessedResource)));
+   }
+
+   @Test
+   public void superUserPermission_grantedOnAncestor_shouldApplyToResourcesInDescendants() {
+      authenticateSystemResource();
+      final String parentDomainName = generateDomain();
+      final String childDomainName = generateChildDomain(parentDomainName);
+      final String resourceClassName = generateResourceClass(false, false);
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource = accessControlContext.createResource(resourceClassName, childDomainName);
+
+      accessControlContext.grantDomainPermissions(accessorResource,
+                                                  parentDomainName,
+                                                  DomainPermissions.getInstance(DomainPermissions.SUPER_USER));
+
+      assertThat(accessControlContext.hasResourcePermissions(accessorResource,
+                                                             accessedResource,
+                                                             ResourcePermissions.getInstance(ResourcePermissions.DELETE)),
+                 is(true));
+      assertThat(accessControlContext.getResourcesByResourcePermissions(accessorResource,
+                                                                        resourceClassName,
+                                                                        ResourcePermissions
+                                                                              .getInstance(ResourcePermissions.DELETE)),
+                 is(setOf(accessedResource)));
+   }
+
+   private static Map<String, Integer> getAncestorDepths(String domainName) throws SQLException {
+      final String tablePrefix = getTablePrefix();
+      final Map<String, Integer> ancestorDepths = new HashMap<>();
+      try (Connection connection = getDataSource().getConnection();
+           PreparedStatement statement
+                 = connection.prepareStatement("SELECT A.DomainName AncestorDomainName, C.Depth Depth FROM "
+                                                     + tablePrefix + "DomainClosure C JOIN "
+                                                     + tablePrefix + "Domain A ON A.DomainId = C.AncestorDomainId JOIN "
+                                                     + tablePrefix + "Domain D ON D.DomainId = C.DescendantDomainId "
+                                                     + "WHERE D.DomainName = ?")) {
+         statement.setString(1, domainName);
+         try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+               ancestorDepths.put(resultSet.getString("AncestorDomainName"), resultSet.getInt("Depth"));
+            }
+         }
+      }
+      return ancestorDepths;
+   }
+
+   private static int getDescendantCount(String domainName) throws SQLException {
+      final String tablePrefix = getTablePrefix();
+      try (Connection connection = getDataSource().getConnection();
+           PreparedStatement statement
+                 = connection.prepareStatement("SELECT COUNT( C.DescendantDomainId ) DescendantCount FROM "
+                                                     + tablePrefix + "DomainClosure C JOIN "
+                                                     + tablePrefix + "Domain A ON A.DomainId = C.AncestorDomainId "
+                                                     + "WHERE A.DomainName = ?")) {
+         statement.setString(1, domainName);
+         try (ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt("DescendantCount");
+         }
+      }
+   }
+
+   private static String getTablePrefix() {
+      final String schemaName = TestConfigLoader.getDatabaseSchema();
+      return schemaName != null ? schemaName + ".OAC_" : "OAC_";
+   }
+
+   private static Map<String, Integer> mapOf(Object... keysAndValues) {
+      final Map<String, Integer> map = new HashMap<>();
+      for (int i = 0; i < keysAndValues.length; i += 2) {
+         map.put((String) keysAndValues[i], (Integer) keysAndValues[i + 1]);
+      }
+      return map;
+   }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.helper.TestConfigLoader;
+import com.acciente.oacc.sql.SQLAccessControlContextOptions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TestAccessControl_domainHierarchyIndex extends TestAccessControlBase {
+   private AccessControlContext indexingAccessControlContext;
+   private AccessControlContext otherIndexingAccessControlContext;
+
+   @Before
+   public void setUpIndexingContexts() {
+      final SQLAccessControlContextOptions options
+            = newOptionsBuilder().domainHierarchyIndexEnabled(true).build();
+      indexingAccessControlContext = newAccessControlContext(options);
+      indexingAccessControlContext.authenticate(SYS_RESOURCE,
+                                                PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+      otherIndexingAccessControlContext = newAccessControlContext(options);
+      otherIndexingAccessControlContext.authenticate(SYS_RESOURCE,
+                                                     PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+   }
+
+   @Test
+   public void getDomainDescendants_afterCreateAndDeleteDomain_shouldReflectChanges() {
+      final String parentDomainName = generateUniqueDomainName();
+      indexingAccessControlContext.createDomain(parentDomainName);
+      assertThat(indexingAccessControlContext.getDomainDescendants(parentDomainName), is(setOf(parentDomainName)));
+
+      final String childDomainName = generateUniqueDomainName();
+      indexingAccessControlContext.createDomain(childDomainName, parentDomainName);
+      final String grandChildDomainName = generateUniqueDomainName();
+      indexingAccessControlContext.createDomain(grandChildDomainName, childDomainName);
+      assertThat(indexingAccessControlContext.getDomainDescendants(parentDomainName),
+                 is(setOf(parentDomainName, childDomainName, grandChildDomainName)));
+
+      indexingAccessControlContext.deleteDomain(childDomainName);
+      assertThat(indexingAccessControlContext.getDomainDescendants(parentDomainName), is(setOf(parentDomainName)));
+   }
+
+   @Test
+   public void getDomainDescendants_afterCreateAndDeleteDomainInOtherContext_shouldReflectChanges() {
+      final String parentDomainName = generateUniqueDomainName();
+      indexingAccessControlContext.createDomain(parentDomainName);
+      assertThat(otherIndexingAccessControlContext.getDomainDescendants(parentDomainName), is(setOf(parentDomainName)));
+
+      final String childDomainName = generateUniqueDomainName();
+      indexingAccessControlContext.createDomain(childDomainName, parentDomainName);
+      assertThat(otherIndexingAccessControlContext.getDomainDescendants(parentDomainName),
+                 is(setOf(parentDomainName, childDomainName)));
+
+      indexingAccessControlContext.deleteDomain(childDomainName);
+      assertThat(otherIndexingAccessControlContext.getDomainDescendants(parentDomainName), is(setOf(parentDomainName)));
+   }
+
+   @Test
+   public void hasDomainPermissions_inheritedFromAncestorDomain_shouldSucceed() {
+      authenticateSystemResource();
+      final String parentDomainName = generateDomain();
+      final String childDomainName = generateChildDomain(parentDomainName);
+      final Resource accessorResource = generateUnauthenticatableResource();
+
+      assertThat(indexingAccessControlContext.hasDomainPermissions(accessorResource,
+                                                                   childDomainName,
+                                                                   DomainPermissions.getInstance(DomainPermissions.SUPER_USER)),
+                 is(false));
+
+      indexingAccessControlContext.grantDomainPermissions(accessorResource,
+                                                          parentDomainName,
+                                                          DomainPermissions.getInstance(DomainPermissions.SUPER_USER));
+      assertThat(indexingAccessControlContext.hasDomainPermissions(accessorResource,
+                                                                   childDomainName,
+                                                                   DomainPermissions.getInstance(DomainPermissions.SUPER_USER)),
+                 is(true));
+   }
+
+   @Test
+   public void domainChangeCounter_shouldOnlyChangeWhenDomainsAreCreatedOrDeleted() throws SQLException {
+      final long initialChangeCount = getDomainChangeCount();
+      final String parentDomainName = generateUniqueDomainName();
+      indexingAccessControlContext.createDomain(parentDomainName);
+      final String childDomainName = generateUniqueDomainName();
+      indexingAccessControlContext.createDomain(childDomainName, parentDomainName);
+      assertThat(getDomainChangeCount(), is(initialChangeCount + 2));
+
+      // permission changes leave the counter, and therefore the indexes of other contexts, alone
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final long changeCountBeforeGrant = getDomainChangeCount();
+      indexingAccessControlContext.grantDomainPermissions(accessorResource,
+                                                          parentDomainName,
+                                                          DomainPermissions.getInstance(DomainPermissions.SUPER_USER));
+      assertThat(getDomainChangeCount(), is(changeCountBeforeGrant));
+
+      indexingAccessControlContext.deleteDomain(childDomainName);
+      assertThat(getDomainChangeCount(), is(changeCountBeforeGrant + 1));
+   }
+
+   private static long getDomainChangeCount() throws SQLException {
+      final String schemaName = TestConfigLoader.getDatabaseSchema();
+      final String tablePrefix = schemaName != null ? schemaName + ".OAC_" : "OAC_";
+      try (Connection connection = getDataSource().getConnection();
+           Statement statement = connection.createStatement();
+           ResultSet resultSet = statement.executeQuery("SELECT ChangeCount FROM " + tablePrefix + "DomainChangeCounter")) {
+         resultSet.next();
+         return resultSet.getLong("ChangeCount");
+      }
+   }
+}
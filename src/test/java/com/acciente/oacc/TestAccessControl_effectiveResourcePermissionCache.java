@@ -0,0 +1,112 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.helper.TestConfigLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TestAccessControl_effectiveResourcePermissionCache extends TestAccessControlBase {
+   private AccessControlContext cachingAccessControlContext;
+
+   @Before
+   public void setUpCachingContext() {
+      cachingAccessControlContext
+            = newAccessControlContext(newOptionsBuilder()
+                                            .effectiveResourcePermissionCacheSize(2)
+                                            .build());
+      cachingAccessControlContext.authenticate(SYS_RESOURCE,
+                                               PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+   }
+
+   @Test
+   public void hasResourcePermissions_afterGrantAndRevoke_shouldReflectChanges() {
+      authenticateSystemResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource
+            = accessControlContext.createResource(resourceClassName,
+                                                  accessControlContext.getDomainNameByResource(SYS_RESOURCE));
+
+      assertThat(cachingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                    accessedResource,
+                                                                    customPermission),
+                 is(false));
+
+      cachingAccessControlContext.grantResourcePermissions(accessorResource, accessedResource, customPermission);
+      assertThat(cachingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                    accessedResource,
+                                                                    customPermission),
+                 is(true));
+
+      cachingAccessControlContext.revokeResourcePermissions(accessorResource, accessedResource, customPermission);
+      assertThat(cachingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                    accessedResource,
+                                                                    customPermission),
+                 is(false));
+   }
+
+   @Test
+   public void getEffectiveResourcePermissions_returnedSetModified_shouldNotAffectCache() {
+      authenticateSystemResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource
+            = accessControlContext.createResource(resourceClassName,
+                                                  accessControlContext.getDomainNameByResource(SYS_RESOURCE));
+      accessControlContext.grantResourcePermissions(accessorResource, accessedResource, customPermission);
+
+      final Set<ResourcePermission> effectivePermissions
+            = cachingAccessControlContext.getEffectiveResourcePermissions(accessorResource, accessedResource);
+      assertThat(effectivePermissions, is(Collections.singleton(customPermission)));
+      effectivePermissions.clear();
+
+      assertThat(cachingAccessControlContext.getEffectiveResourcePermissions(accessorResource, accessedResource),
+                 is(Collections.singleton(customPermission)));
+   }
+
+   @Test
+   public void hasResourcePermissions_moreEntriesThanCacheSize_shouldSucceed() {
+      authenticateSystemResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String domainName = accessControlContext.getDomainNameByResource(SYS_RESOURCE);
+
+      for (int i = 0; i < 5; i++) {
+         final Resource accessedResource = accessControlContext.createResource(resourceClassName, domainName);
+         accessControlContext.grantResourcePermissions(accessorResource, accessedResource, customPermission);
+
+         assertThat(cachingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                       accessedResource,
+                                                                       customPermission),
+                    is(true));
+      }
+   }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.helper.TestConfigLoader;
+import com.acciente.oacc.sql.SQLAccessControlContextFactory;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestAccessControl_executeInTransaction extends TestAccessControlBase {
+   @Test
+   public void executeInTransaction_completesNormally_shouldCommit() {
+      authenticateSystemResource();
+
+      final String domainName = generateUniqueDomainName();
+      final String childDomainName = generateUniqueDomainName();
+      final String resourceClassName = generateResourceClass(false, false);
+
+      final Resource resource = accessControlContext.executeInTransaction(new UnitOfWork<Resource>() {
+         @Override
+         public Resource execute(AccessControlContext accessControlContext) {
+            accessControlContext.createDomain(domainName);
+            accessControlContext.createDomain(childDomainName, domainName);
+            return accessControlContext.createResource(resourceClassName, childDomainName);
+         }
+      });
+
+      // verify
+      assertThat(accessControlContext.getDomainDescendants(domainName), is(setOf(domainName, childDomainName)));
+      assertThat(accessControlContext.getDomainNameByResource(resource), is(childDomainName));
+   }
+
+   @Test
+   public void executeInTransaction_throwsException_shouldRollback() {
+      authenticateSystemResource();
+
+      final String domainName = generateUniqueDomainName();
+
+      try {
+         accessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+            @Override
+            public Void execute(AccessControlContext accessControlContext) {
+               accessControlContext.createDomain(domainName);
+               assertThat(accessControlContext.getDomainDescendants(domainName), is(setOf(domainName)));
+               throw new IllegalStateException("abort unit of work");
+            }
+         });
+         fail("executing a unit of work that throws an exception should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage(), is("abort unit of work"));
+      }
+
+      // verify
+      assertThat(accessControlContext.getDomainDescendants(domainName).isEmpty(), is(true));
+   }
+
+   @Test
+   public void executeInTransaction_nested_shouldParticipateInEnclosingTransaction() {
+      authenticateSystemResource();
+
+      final String domainName = generateUniqueDomainName();
+      final String childDomainName = generateUniqueDomainName();
+
+      try {
+         accessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+            @Override
+            public Void execute(final AccessControlContext accessControlContext) {
+               accessControlContext.createDomain(domainName);
+               accessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+                  @Override
+                  public Void execute(AccessControlContext accessControlContext) {
+                     accessControlContext.createDomain(childDomainName, domainName);
+                     return null;
+                  }
+               });
+               throw new IllegalStateException("abort unit of work");
+            }
+         });
+         fail("executing a unit of work that throws an exception should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage(), is("abort unit of work"));
+      }
+
+      // verify
+      assertThat(accessControlContext.getDomainDescendants(domainName).isEmpty(), is(true));
+      assertThat(accessControlContext.getDomainDescendants(childDomainName).isEmpty(), is(true));
+   }
+
+   @Test
+   public void executeInTransaction_rolledBackResourceClass_shouldNotBeRegistered() {
+      authenticateSystemResource();
+
+      final String resourceClassName = generateUniqueResourceClassName();
+      final String permissionName = generateUniquePermissionName();
+
+      try {
+         accessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+            @Override
+            public Void execute(AccessControlContext accessControlContext) {
+               accessControlContext.createResourceClass(resourceClassName, false, false);
+               accessControlContext.createResourcePermission(resourceClassName, permissionName);
+               // look the new metadata up within the transaction, which registers it
+               assertThat(accessControlContext.getResourceClassInfo(resourceClassName).getResourceClassName(),
+                          is(resourceClassName));
+               assertThat(accessControlContext.getResourcePermissionNames(resourceClassName).contains(permissionName),
+                          is(true));
+               throw new IllegalStateException("abort unit of work");
+            }
+         });
+         fail("executing a unit of work that throws an exception should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage(), is("abort unit of work"));
+      }
+
+      // verify
+      assertThat(accessControlContext.getResourceClassNames().contains(resourceClassName), is(false));
+      try {
+         accessControlContext.getResourceClassInfo(resourceClassName);
+         fail("getting the info of a rolled back resource class should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("could not find resource class"));
+      }
+
+      // the rolled back resource class can be created again
+      accessControlContext.createResourceClass(resourceClassName, false, false);
+      assertThat(accessControlContext.getResourcePermissionNames(resourceClassName).contains(permissionName), is(false));
+   }
+
+   @Test
+   public void executeInTransaction_committedResourceClass_shouldBeRegistered() {
+      authenticateSystemResource();
+
+      final String resourceClassName = generateUniqueResourceClassName();
+      final String permissionName = generateUniquePermissionName();
+
+      accessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+         @Override
+         public Void execute(AccessControlContext accessControlContext) {
+            accessControlContext.createResourceClass(resourceClassName, false, false);
+            accessControlContext.createResourcePermission(resourceClassName, permissionName);
+            accessControlContext.getResourceClassInfo(resourceClassName);
+            return null;
+         }
+      });
+
+      // verify
+      assertThat(accessControlContext.getResourceClassInfo(resourceClassName).getResourceClassName(),
+                 is(resourceClassName));
+      assertThat(accessControlContext.getResourcePermissionNames(resourceClassName).contains(permissionName), is(true));
+   }
+
+   @Test
+   public void executeInTransaction_rollbackFails_shouldNotMaskException() {
+      final AccessControlContext failingRollbackAccessControlContext
+            = SQLAccessControlContextFactory.getAccessControlContext(newFailingRollbackDataSource(),
+                                                                     TestConfigLoader.getDatabaseSchema(),
+                                                                     TestConfigLoader.getSQLProfile(),
+                                                                     TestConfigLoader.getPasswordEncryptor(),
+                                                                     newOptionsBuilder().build());
+      failingRollbackAccessControlContext.authenticate(SYS_RESOURCE,
+                                                       PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+
+      try {
+         failingRollbackAccessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+            @Override
+            public Void execute(AccessControlContext accessControlContext) {
+               throw new IllegalStateException("abort unit of work");
+            }
+         });
+         fail("executing a unit of work that throws an exception should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage(), is("abort unit of work"));
+         assertThat(e.getSuppressed().length, is(1));
+         assertThat(e.getSuppressed()[0].getMessage(), is("rollback failed"));
+      }
+   }
+
+   @Test
+   public void executeInTransaction_nulls_shouldFail() {
+      authenticateSystemResource();
+
+      try {
+         accessControlContext.executeInTransaction(null);
+         fail("executing a null unit of work should have failed");
+      }
+      catch (NullPointerException e) {
+         assertThat(e.getMessage(), is("Unit of work required, none specified"));
+      }
+   }
+
+   private static DataSource newFailingRollbackDataSource() {
+      final DataSource dataSource = getDataSource();
+      return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                                                 new Class<?>[]{DataSource.class},
+                                                 new InvocationHandler() {
+                                                    @Override
+                                                    public Object invoke(Object proxy, Method method, Object[] args)
+                                                          throws Throwable {
+                                                       final Object result = invokeTarget(dataSource, method, args);
+                                                       if (method.getName().equals("getConnection")) {
+                                                          return newFailingRollbackConnection((Connection) result);
+                                                       }
+                                                       return result;
+                                                    }
+                                                 });
+   }
+
+   private static Connection newFailingRollbackConnection(final Connection connection) {
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                 new Class<?>[]{Connection.class},
+                                                 new InvocationHandler() {
+                                                    @Override
+                                                    public Object invoke(Object proxy, Method method, Object[] args)
+                                                          throws Throwable {
+                                                       if (method.getName().equals("rollback")) {
+                                                          throw new SQLException("rollback failed");
+                                                       }
+                                                       return invokeTarget(connection, method, args);
+                                                    }
+                                                 });
+   }
+
+   private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+      try {
+         return method.invoke(target, args);
+      }
+      catch (InvocationTargetException e) {
+         throw e.getCause();
+      }
+   }
+}
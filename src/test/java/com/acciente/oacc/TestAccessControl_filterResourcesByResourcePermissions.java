@@ -0,0 +1,186 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestAccessControl_filterResourcesByResourcePermissions extends TestAccessControlBase {
+   @Test
+   public void filterResourcesByResourcePermissions_asSystemResource_shouldReturnAll() {
+      authenticateSystemResource();
+
+      final String resourceClassName = generateResourceClass(false, false);
+      final String customPermissionName = generateResourceClassPermission(resourceClassName);
+      final String domainName = generateDomain();
+      final Resource accessedResource1 = accessControlContext.createResource(resourceClassName, domainName);
+      final Resource accessedResource2 = accessControlContext.createResource(resourceClassName, domainName);
+
+      final Set<Resource> permittedResources
+            = accessControlContext.filterResourcesByResourcePermissions(SYS_RESOURCE,
+                                                                        Arrays.asList(accessedResource1, accessedResource2),
+                                                                        ResourcePermissions.getInstance(customPermissionName));
+      assertThat(permittedResources, is(setOf(accessedResource1, accessedResource2)));
+   }
+
+   @Test
+   public void filterResourcesByResourcePermissions_directGlobalAndInherited_shouldMatchHasResourcePermissions() {
+      authenticateSystemResource();
+
+      final String resourceClassName = generateResourceClass(false, false);
+      final String customPermissionName = generateResourceClassPermission(resourceClassName);
+      final ResourcePermission customPermission = ResourcePermissions.getInstance(customPermissionName);
+      final String parentDomainName = generateDomain();
+      final String childDomainName = generateChildDomain(parentDomainName);
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource donorResource = generateUnauthenticatableResource();
+
+      final Resource directResource = accessControlContext.createResource(resourceClassName, parentDomainName);
+      final Resource inheritedResource = accessControlContext.createResource(resourceClassName, parentDomainName);
+      final Resource globalResource = accessControlContext.createResource(resourceClassName, childDomainName);
+      final Resource otherResource = accessControlContext.createResource(resourceClassName, parentDomainName);
+
+      // setup direct, inherited and global (via the parent domain) permissions
+      accessControlContext.setResourcePermissions(accessorResource, directResource, setOf(customPermission));
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  donorResource,
+                                                  setOf(ResourcePermissions.getInstance(ResourcePermissions.INHERIT)));
+      accessControlContext.setResourcePermissions(donorResource, inheritedResource, setOf(customPermission));
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  otherResource,
+                                                  setOf(ResourcePermissions.getInstance(ResourcePermissions.DELETE)));
+
+      final Resource unrelatedResource = accessControlContext.createResource(resourceClassName, generateDomain());
+      accessControlContext.setGlobalResourcePermissions(accessorResource,
+                                                        resourceClassName,
+                                                        parentDomainName,
+                                                        setOf(ResourcePermissions.getInstance(ResourcePermissions.QUERY)));
+      accessControlContext.setGlobalResourcePermissions(donorResource,
+                                                        resourceClassName,
+                                                        parentDomainName,
+                                                        setOf(customPermission));
+
+      final List<Resource> accessedResources
+            = Arrays.asList(otherResource, directResource, inheritedResource, globalResource, unrelatedResource);
+
+      // verify
+      final Set<Resource> permittedResources
+            = accessControlContext.filterResourcesByResourcePermissions(accessorResource,
+                                                                        accessedResources,
+                                                                        setOf(customPermission));
+      for (Resource accessedResource : accessedResources) {
+         assertThat(permittedResources.contains(accessedResource),
+                    is(accessControlContext.hasResourcePermissions(accessorResource, accessedResource, customPermission)));
+      }
+      assertThat(permittedResources.contains(unrelatedResource), is(false));
+      assertThat(permittedResources.contains(globalResource), is(true));
+
+      final Set<Resource> permittedQueryResources
+            = accessControlContext.filterResourcesByResourcePermissions(accessorResource,
+                                                                        accessedResources,
+                                                                        customPermission,
+                                                                        ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+      assertThat(permittedQueryResources, is(setOf(otherResource, directResource, inheritedResource, globalResource)));
+   }
+
+   @Test
+   public void filterResourcesByResourcePermissions_superUser_shouldReturnResourcesOfDomain() {
+      authenticateSystemResource();
+
+      final String resourceClassName = generateResourceClass(false, false);
+      final String customPermissionName = generateResourceClassPermission(resourceClassName);
+      final String superUserDomainName = generateDomain();
+      final Resource accessorResource = generateUnauthenticatableResource();
+      accessControlContext.setDomainPermissions(accessorResource,
+                                                superUserDomainName,
+                                                setOf(DomainPermissions.getInstance(DomainPermissions.SUPER_USER)));
+
+      final Resource superUserResource
+            = accessControlContext.createResource(resourceClassName, generateChildDomain(superUserDomainName));
+      final Resource otherResource = accessControlContext.createResource(resourceClassName, generateDomain());
+
+      final Set<Resource> permittedResources
+            = accessControlContext.filterResourcesByResourcePermissions(accessorResource,
+                                                                        Arrays.asList(superUserResource, otherResource),
+                                                                        ResourcePermissions.getInstance(customPermissionName));
+      assertThat(permittedResources, is(setOf(superUserResource)));
+   }
+
+   @Test
+   public void filterResourcesByResourcePermissions_emptyCollection_shouldReturnEmptySet() {
+      authenticateSystemResource();
+
+      final Set<Resource> permittedResources
+            = accessControlContext.filterResourcesByResourcePermissions(SYS_RESOURCE,
+                                                                        Collections.<Resource>emptyList(),
+                                                                        ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+      assertThat(permittedResources.isEmpty(), is(true));
+   }
+
+   @Test
+   public void filterResourcesByResourcePermissions_nonExistentResource_shouldFail() {
+      authenticateSystemResource();
+
+      final Resource accessedResource = generateUnauthenticatableResource();
+
+      try {
+         accessControlContext.filterResourcesByResourcePermissions(SYS_RESOURCE,
+                                                                   Arrays.asList(accessedResource, Resources.getInstance(-999L)),
+                                                                   ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+         fail("filtering resources including a non-existent resource should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("not found"));
+      }
+   }
+
+   @Test
+   public void filterResourcesByResourcePermissions_nulls_shouldFail() {
+      authenticateSystemResource();
+
+      final Resource accessedResource = generateUnauthenticatableResource();
+
+      try {
+         accessControlContext.filterResourcesByResourcePermissions(SYS_RESOURCE,
+                                                                   null,
+                                                                   ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+         fail("filtering a null collection of resources should have failed");
+      }
+      catch (NullPointerException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("none specified"));
+      }
+      try {
+         accessControlContext.filterResourcesByResourcePermissions(SYS_RESOURCE,
+                                                                   Arrays.asList(accessedResource, null),
+                                                                   ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+         fail("filtering a collection of resources with a null element should have failed");
+      }
+      catch (NullPointerException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("null element"));
+      }
+   }
+}
@@ -461,6 +461,37 @@ public class TestAccessControl_getEffectiveResourcePermissions extends TestAcces
       assertThat(permissions_post, is(permissions_expected));
    }
 
+   @Test
+   public void getEffectiveResourcePermissions_superUserOfAncestorDomain_validAsSystemResource() {
+      authenticateSystemResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String parentDomain = generateDomain();
+      final Resource accessedResource
+            = accessControlContext.createResource(resourceClassName, generateChildDomain(parentDomain));
+
+      // set direct permissions, which the super-user privileges supersede
+      accessControlContext.setResourcePermissions(accessorResource, accessedResource, setOf(customPermission));
+
+      // set super-user domain permissions on the parent of the accessed resource's domain
+      accessControlContext.setDomainPermissions(accessorResource,
+                                                parentDomain,
+                                                setOf(DomainPermissions.getInstance(DomainPermissions.SUPER_USER)));
+
+      // verify
+      Set<ResourcePermission> permissions_expected
+            = setOf(ResourcePermissions.getInstanceWithGrantOption(ResourcePermissions.QUERY),
+                    ResourcePermissions.getInstanceWithGrantOption(ResourcePermissions.DELETE),
+                    ResourcePermissions.getInstanceWithGrantOption(ResourcePermissions.INHERIT),
+                    ResourcePermissions.getInstanceWithGrantOption(customPermission.getPermissionName()));
+
+      final Set<ResourcePermission> permissions_post
+            = accessControlContext.getEffectiveResourcePermissions(accessorResource, accessedResource);
+      assertThat(permissions_post, is(permissions_expected));
+   }
+
    @Test
    public void getEffectiveResourcePermissions_withoutQueryAuthorization_shouldFailAsAuthenticated() {
       authenticateSystemResource();
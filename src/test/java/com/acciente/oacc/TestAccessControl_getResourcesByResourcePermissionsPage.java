@@ -0,0 +1,214 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestAccessControl_getResourcesByResourcePermissionsPage extends TestAccessControlBase {
+   @Test
+   public void getResourcesByResourcePermissionsPage_validAsSystemResource() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+      final String unqueriedPermissionName = generateResourceClassPermission(resourceClassName);
+      final String domainName = generateDomain();
+
+      final Set<ResourcePermission> queriedPermissions = setOf(ResourcePermissions.getInstance(permissionName));
+      for (int i = 0; i < 5; i++) {
+         final Resource accessedResource = accessControlContext.createResource(resourceClassName, domainName);
+         accessControlContext.setResourcePermissions(accessorResource, accessedResource, queriedPermissions);
+      }
+      final String globalDomainName = generateDomain();
+      accessControlContext.createResource(resourceClassName, globalDomainName);
+      accessControlContext.createResource(resourceClassName, globalDomainName);
+      accessControlContext.setGlobalResourcePermissions(accessorResource,
+                                                        resourceClassName,
+                                                        globalDomainName,
+                                                        queriedPermissions);
+      final Resource unqueriedResource = accessControlContext.createResource(resourceClassName, domainName);
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  unqueriedResource,
+                                                  setOf(ResourcePermissions.getInstance(unqueriedPermissionName)));
+
+      // page through the resources and verify against the set-based version
+      final Set<Resource> expectedResources
+            = accessControlContext.getResourcesByResourcePermissions(accessorResource,
+                                                                     resourceClassName,
+                                                                     queriedPermissions);
+      assertThat(expectedResources.size(), is(7));
+
+      final List<Resource> pagedResources = new ArrayList<>();
+      List<Resource> page = accessControlContext.getResourcesByResourcePermissionsPage(accessorResource,
+                                                                                       resourceClassName,
+                                                                                       null,
+                                                                                       3,
+                                                                                       queriedPermissions);
+      while (!page.isEmpty()) {
+         assertThat(page.size() <= 3, is(true));
+         pagedResources.addAll(page);
+         page = accessControlContext.getResourcesByResourcePermissionsPage(accessorResource,
+                                                                           resourceClassName,
+                                                                           page.get(page.size() - 1).getId(),
+                                                                           3,
+                                                                           ResourcePermissions.getInstance(permissionName));
+      }
+
+      assertInIdOrder(pagedResources);
+      assertThat(pagedResources.size(), is(expectedResources.size()));
+      assertThat(setOf(pagedResources.toArray(new Resource[pagedResources.size()])), is(expectedResources));
+   }
+
+   @Test
+   public void getResourcesByResourcePermissionsPage_superUser_validAsAuthenticated() {
+      authenticateSystemResource();
+
+      final char[] password = generateUniquePassword();
+      final Resource accessorResource = generateAuthenticatableResource(password);
+      final String domainName = generateDomain();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+      final Resource resource1 = accessControlContext.createResource(resourceClassName, domainName);
+      final Resource resource2 = accessControlContext.createResource(resourceClassName, generateChildDomain(domainName));
+      accessControlContext.createResource(resourceClassName, generateDomain());
+
+      accessControlContext.setDomainPermissions(accessorResource,
+                                                domainName,
+                                                setOf(DomainPermissions.getInstance(DomainPermissions.SUPER_USER)));
+
+      // authenticate as accessor and verify
+      accessControlContext.authenticate(accessorResource, PasswordCredentials.newInstance(password));
+
+      final List<Resource> firstPage
+            = accessControlContext.getResourcesByResourcePermissionsPage(accessorResource,
+                                                                         resourceClassName,
+                                                                         null,
+                                                                         1,
+                                                                         ResourcePermissions.getInstance(permissionName));
+      assertThat(firstPage.size(), is(1));
+
+      final List<Resource> remainingPage
+            = accessControlContext.getResourcesByResourcePermissionsPage(accessorResource,
+                                                                         resourceClassName,
+                                                                         firstPage.get(0).getId(),
+                                                                         10,
+                                                                         ResourcePermissions.getInstance(permissionName));
+      assertThat(remainingPage.size(), is(1));
+      assertThat(setOf(firstPage.get(0), remainingPage.get(0)), is(setOf(resource1, resource2)));
+      assertThat(firstPage.get(0).getId() < remainingPage.get(0).getId(), is(true));
+   }
+
+   @Test
+   public void getAccessorResourcesByResourcePermissionsPage_validAsSystemResource() {
+      authenticateSystemResource();
+
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName1 = generateResourceClassPermission(resourceClassName);
+      final String permissionName2 = generateResourceClassPermission(resourceClassName);
+      final Resource accessedResource = accessControlContext.createResource(resourceClassName, generateDomain());
+
+      final Set<ResourcePermission> queriedPermissions = setOf(ResourcePermissions.getInstance(permissionName1),
+                                                               ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+      for (int i = 0; i < 4; i++) {
+         accessControlContext.setResourcePermissions(generateUnauthenticatableResource(),
+                                                     accessedResource,
+                                                     queriedPermissions);
+      }
+      accessControlContext.setResourcePermissions(generateUnauthenticatableResource(),
+                                                  accessedResource,
+                                                  setOf(ResourcePermissions.getInstance(permissionName1),
+                                                        ResourcePermissions.getInstance(permissionName2)));
+
+      // page through the accessors and verify against the set-based version
+      final Set<Resource> expectedResources
+            = accessControlContext.getAccessorResourcesByResourcePermissions(accessedResource,
+                                                                             resourceClassName,
+                                                                             queriedPermissions);
+      assertThat(expectedResources.size(), is(4));
+
+      final List<Resource> pagedResources = new ArrayList<>();
+      List<Resource> page = accessControlContext.getAccessorResourcesByResourcePermissionsPage(accessedResource,
+                                                                                               resourceClassName,
+                                                                                               null,
+                                                                                               3,
+                                                                                               queriedPermissions);
+      while (!page.isEmpty()) {
+         assertThat(page.size() <= 3, is(true));
+         pagedResources.addAll(page);
+         page = accessControlContext.getAccessorResourcesByResourcePermissionsPage(accessedResource,
+                                                                                   resourceClassName,
+                                                                                   page.get(page.size() - 1).getId(),
+                                                                                   3,
+                                                                                   ResourcePermissions.getInstance(permissionName1),
+                                                                                   ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+      }
+
+      assertInIdOrder(pagedResources);
+      assertThat(pagedResources.size(), is(expectedResources.size()));
+      assertThat(setOf(pagedResources.toArray(new Resource[pagedResources.size()])), is(expectedResources));
+   }
+
+   @Test
+   public void getResourcesByResourcePermissionsPage_invalidPageSize_shouldFail() {
+      authenticateSystemResource();
+
+      final Resource resource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+
+      try {
+         accessControlContext.getResourcesByResourcePermissionsPage(resource,
+                                                                    resourceClassName,
+                                                                    null,
+                                                                    0,
+                                                                    ResourcePermissions.getInstance(permissionName));
+         fail("getting a page of resources with a page size of zero should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("page size must be positive"));
+      }
+
+      try {
+         accessControlContext.getAccessorResourcesByResourcePermissionsPage(resource,
+                                                                            resourceClassName,
+                                                                            null,
+                                                                            -1,
+                                                                            setOf(ResourcePermissions.getInstance(permissionName)));
+         fail("getting a page of accessor resources with a negative page size should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("page size must be positive"));
+      }
+   }
+
+   private static void assertInIdOrder(List<Resource> resources) {
+      for (int i = 1; i < resources.size(); i++) {
+         assertThat(resources.get(i - 1).getId() < resources.get(i).getId(), is(true));
+      }
+   }
+}
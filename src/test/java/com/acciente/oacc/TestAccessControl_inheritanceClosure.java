@@ -0,0 +1,214 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.helper.TestConfigLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class TestAccessControl_inheritanceClosure extends TestAccessControlBase {
+   private static final ResourcePermission INHERIT = ResourcePermissions.getInstance(ResourcePermissions.INHERIT);
+
+   @Before
+   public void assumeInheritanceClosureEnabled() {
+      assumeTrue(TestConfigLoader.isInheritanceClosureEnabled());
+   }
+
+   @Test
+   public void grantInherit_shouldAddClosureRowsForTransitivelyInheritedResources() throws SQLException {
+      authenticateSystemResource();
+      final Resource resourceA = generateUnauthenticatableResource();
+      final Resource resourceB = generateUnauthenticatableResource();
+      final Resource resourceC = generateUnauthenticatableResource();
+
+      accessControlContext.grantResourcePermissions(resourceB, resourceC, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceA, resourceB, INHERIT);
+
+      assertThat(getInheritedResourceIds(resourceA), is(idsOf(resourceB, resourceC)));
+      assertThat(getInheritedResourceIds(resourceB), is(idsOf(resourceC)));
+      assertThat(getInheritedResourceIds(resourceC), is(idsOf()));
+   }
+
+   @Test
+   public void grantInherit_toInheritedResource_shouldAddClosureRowsForItsInheritors() throws SQLException {
+      authenticateSystemResource();
+      final Resource resourceA = generateUnauthenticatableResource();
+      final Resource resourceB = generateUnauthenticatableResource();
+      final Resource resourceC = generateUnauthenticatableResource();
+      final Resource resourceD = generateUnauthenticatableResource();
+
+      accessControlContext.grantResourcePermissions(resourceA, resourceB, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceC, resourceD, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceB, resourceC, INHERIT);
+
+      assertThat(getInheritedResourceIds(resourceA), is(idsOf(resourceB, resourceC, resourceD)));
+      assertThat(getInheritedResourceIds(resourceB), is(idsOf(resourceC, resourceD)));
+      assertThat(getInheritedResourceIds(resourceC), is(idsOf(resourceD)));
+   }
+
+   @Test
+   public void revokeInherit_shouldOnlyRemoveClosureRowsNoLongerReachable() throws SQLException {
+      authenticateSystemResource();
+      final Resource resourceA = generateUnauthenticatableResource();
+      final Resource resourceB = generateUnauthenticatableResource();
+      final Resource resourceC = generateUnauthenticatableResource();
+      final Resource resourceD = generateUnauthenticatableResource();
+
+      // A inherits D via both B and C
+      accessControlContext.grantResourcePermissions(resourceA, resourceB, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceA, resourceC, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceB, resourceD, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceC, resourceD, INHERIT);
+      assertThat(getInheritedResourceIds(resourceA), is(idsOf(resourceB, resourceC, resourceD)));
+
+      accessControlContext.revokeResourcePermissions(resourceB, resourceD, INHERIT);
+      assertThat(getInheritedResourceIds(resourceA), is(idsOf(resourceB, resourceC, resourceD)));
+      assertThat(getInheritedResourceIds(resourceB), is(idsOf()));
+
+      accessControlContext.revokeResourcePermissions(resourceA, resourceC, INHERIT);
+      assertThat(getInheritedResourceIds(resourceA), is(idsOf(resourceB)));
+      assertThat(getInheritedResourceIds(resourceC), is(idsOf(resourceD)));
+   }
+
+   @Test
+   public void setResourcePermissions_withoutInherit_shouldRemoveClosureRows() throws SQLException {
+      authenticateSystemResource();
+      final Resource resourceA = generateUnauthenticatableResource();
+      final Resource resourceB = generateUnauthenticatableResource();
+      final Resource resourceC = generateUnauthenticatableResource();
+
+      accessControlContext.grantResourcePermissions(resourceA, resourceB, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceB, resourceC, INHERIT);
+
+      accessControlContext.setResourcePermissions(resourceB, resourceC, new HashSet<ResourcePermission>());
+
+      assertThat(getInheritedResourceIds(resourceA), is(idsOf(resourceB)));
+      assertThat(getInheritedResourceIds(resourceB), is(idsOf()));
+   }
+
+   @Test
+   public void deleteResource_shouldRemoveClosureRowsReachedThroughDeletedResource() throws SQLException {
+      authenticateSystemResource();
+      final Resource resourceA = generateUnauthenticatableResource();
+      final Resource resourceB = generateUnauthenticatableResource();
+      final Resource resourceC = generateUnauthenticatableResource();
+      final Resource resourceD = generateUnauthenticatableResource();
+
+      accessControlContext.grantResourcePermissions(resourceA, resourceB, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceA, resourceD, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceB, resourceC, INHERIT);
+
+      accessControlContext.deleteResource(resourceB);
+
+      assertThat(getInheritedResourceIds(resourceA), is(idsOf(resourceD)));
+      assertThat(getInheritedResourceIds(resourceB), is(idsOf()));
+   }
+
+   @Test
+   public void createResources_withPostCreateInherit_shouldAddClosureRowsForAllNewResources() throws SQLException {
+      final Resource creatorResource = generateResourceAndAuthenticate();
+      final String domainName = accessControlContext.getDomainNameByResource(creatorResource);
+      final String resourceClassName = generateResourceClass(false, false);
+      grantResourceCreatePermission(creatorResource,
+                                    resourceClassName,
+                                    domainName,
+                                    ResourceCreatePermissions.getInstance(ResourceCreatePermissions.CREATE),
+                                    ResourceCreatePermissions.getInstance(INHERIT));
+      final Resource inheritorResource = generateUnauthenticatableResource();
+      systemAccessControlContext.grantResourcePermissions(inheritorResource, creatorResource, INHERIT);
+
+      final List<Resource> newResources
+            = accessControlContext.createResources(resourceClassName,
+                                                   domainName,
+                                                   Arrays.asList(generateUniqueExternalId(),
+                                                                 generateUniqueExternalId()));
+
+      assertThat(getInheritedResourceIds(creatorResource), is(idsOf(newResources.get(0), newResources.get(1))));
+      assertThat(getInheritedResourceIds(inheritorResource),
+                 is(idsOf(creatorResource, newResources.get(0), newResources.get(1))));
+   }
+
+   @Test
+   public void effectivePermissions_shouldFollowTransitiveInheritance() {
+      authenticateSystemResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessedResource = accessControlContext.createResource(resourceClassName, generateDomain());
+      final Resource resourceA = generateUnauthenticatableResource();
+      final Resource resourceB = generateUnauthenticatableResource();
+      final Resource resourceC = generateUnauthenticatableResource();
+
+      accessControlContext.grantResourcePermissions(resourceC, accessedResource, customPermission);
+      accessControlContext.grantResourcePermissions(resourceA, resourceB, INHERIT);
+      accessControlContext.grantResourcePermissions(resourceB, resourceC, INHERIT);
+
+      assertThat(accessControlContext.hasResourcePermissions(resourceA, accessedResource, customPermission), is(true));
+      assertThat(accessControlContext.getResourcesByResourcePermissions(resourceA, resourceClassName, customPermission),
+                 is(setOf(accessedResource)));
+
+      accessControlContext.revokeResourcePermissions(resourceB, resourceC, INHERIT);
+
+      assertThat(accessControlContext.hasResourcePermissions(resourceA, accessedResource, customPermission), is(false));
+      assertThat(accessControlContext.getResourcesByResourcePermissions(resourceA, resourceClassName, customPermission)
+                       .isEmpty(),
+                 is(true));
+   }
+
+   private static Set<Long> getInheritedResourceIds(Resource accessorResource) throws SQLException {
+      final Set<Long> inheritedResourceIds = new HashSet<>();
+      try (Connection connection = getDataSource().getConnection();
+           PreparedStatement statement
+                 = connection.prepareStatement("SELECT InheritedResourceId FROM " + getTablePrefix()
+                                                     + "InheritanceClosure WHERE AccessorResourceId = ?")) {
+         statement.setLong(1, accessorResource.getId());
+         try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+               inheritedResourceIds.add(resultSet.getLong("InheritedResourceId"));
+            }
+         }
+      }
+      return inheritedResourceIds;
+   }
+
+   private static String getTablePrefix() {
+      final String schemaName = TestConfigLoader.getDatabaseSchema();
+      return schemaName != null ? schemaName + ".OAC_" : "OAC_";
+   }
+
+   private static Set<Long> idsOf(Resource... resources) {
+      final Set<Long> resourceIds = new HashSet<>();
+      for (Resource resource : resources) {
+         resourceIds.add(resource.getId());
+      }
+      return resourceIds;
+   }
+}
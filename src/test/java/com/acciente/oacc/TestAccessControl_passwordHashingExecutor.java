@@ -0,0 +1,243 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.encryptor.PasswordEncryptor;
+import com.acciente.oacc.helper.TestConfigLoader;
+import com.acciente.oacc.sql.PasswordHashingExecutor;
+import com.acciente.oacc.sql.SQLAccessControlContextFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestAccessControl_passwordHashingExecutor extends TestAccessControlBase {
+   private PasswordHashingExecutor passwordHashingExecutor;
+
+   @After
+   public void shutDownExecutor() {
+      if (passwordHashingExecutor != null) {
+         passwordHashingExecutor.shutdown();
+      }
+   }
+
+   @Test
+   public void authenticate_withExecutor_shouldHashOnWorkerThreadWithoutHoldingConnection() {
+      passwordHashingExecutor = PasswordHashingExecutor.newInstance(1, 1);
+      final AtomicInteger openConnectionCount = new AtomicInteger();
+      final AtomicInteger openConnectionCountWhileHashing = new AtomicInteger(-1);
+      final StringBuilder hashingThreadName = new StringBuilder();
+      final PasswordEncryptor passwordEncryptor = TestConfigLoader.getPasswordEncryptor();
+      final AccessControlContext hashingAccessControlContext
+            = SQLAccessControlContextFactory.getAccessControlContext(newTrackingDataSource(openConnectionCount),
+                                                                     TestConfigLoader.getDatabaseSchema(),
+                                                                     TestConfigLoader.getSQLProfile(),
+                                                                     new PasswordEncryptor() {
+                                                                        @Override
+                                                                        public String encryptPassword(char[] password) {
+                                                                           return passwordEncryptor.encryptPassword(password);
+                                                                        }
+
+                                                                        @Override
+                                                                        public boolean checkPassword(char[] plainPassword,
+                                                                                                     String encryptedPassword) {
+                                                                           openConnectionCountWhileHashing.set(openConnectionCount.get());
+                                                                           hashingThreadName.append(Thread.currentThread().getName());
+                                                                           return passwordEncryptor.checkPassword(plainPassword,
+                                                                                                                  encryptedPassword);
+                                                                        }
+                                                                     },
+                                                                     newOptionsBuilder()
+                                                                           .passwordHashingExecutor(passwordHashingExecutor)
+                                                                           .build());
+
+      hashingAccessControlContext.authenticate(SYS_RESOURCE,
+                                               PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+
+      assertThat(hashingAccessControlContext.getAuthenticatedResource(), is(SYS_RESOURCE));
+      assertThat(hashingThreadName.toString(), containsString("oacc-password-hashing-"));
+      // the connection that read the stored password is released before the password is hashed
+      assertThat(openConnectionCountWhileHashing.get(), is(0));
+      assertThat(passwordHashingExecutor.getCompletedCount(), is(1L));
+   }
+
+   @Test
+   public void authenticate_withBusyExecutor_shouldReject() throws Exception {
+      passwordHashingExecutor = PasswordHashingExecutor.newInstance(1, 0);
+      final AccessControlContext hashingAccessControlContext
+            = newAccessControlContext(newOptionsBuilder().passwordHashingExecutor(passwordHashingExecutor).build());
+      final CountDownLatch workerStarted = new CountDownLatch(1);
+      final CountDownLatch releaseWorker = new CountDownLatch(1);
+
+      // occupy the only worker thread, without a queue to wait in
+      final Thread busyCaller = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            passwordHashingExecutor.execute(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  workerStarted.countDown();
+                  releaseWorker.await();
+                  return null;
+               }
+            });
+         }
+      });
+      busyCaller.start();
+      assertThat(workerStarted.await(10, TimeUnit.SECONDS), is(true));
+
+      try {
+         hashingAccessControlContext.authenticate(SYS_RESOURCE,
+                                                  PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+         fail("authenticating while all password hashing threads are busy should have been rejected");
+      }
+      catch (AuthenticationRejectedException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("queue is full"));
+      }
+      finally {
+         releaseWorker.countDown();
+         busyCaller.join(10000);
+      }
+      assertThat(passwordHashingExecutor.getRejectedCount(), is(1L));
+   }
+
+   @Test
+   public void authenticate_withShutDownExecutor_shouldReject() {
+      passwordHashingExecutor = PasswordHashingExecutor.newInstance(1, 1);
+      final AccessControlContext hashingAccessControlContext
+            = newAccessControlContext(newOptionsBuilder().passwordHashingExecutor(passwordHashingExecutor).build());
+      passwordHashingExecutor.shutdown();
+
+      try {
+         hashingAccessControlContext.authenticate(SYS_RESOURCE,
+                                                  PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+         fail("authenticating with a shut down password hashing executor should have been rejected");
+      }
+      catch (AuthenticationRejectedException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("shut down"));
+      }
+      assertThat(passwordHashingExecutor.getRejectedCount(), is(0L));
+   }
+
+   @Test
+   public void authenticate_afterDeserialization_shouldHashOnExecutor() throws Exception {
+      passwordHashingExecutor = PasswordHashingExecutor.newInstance(1, 1);
+      final AccessControlContext hashingAccessControlContext
+            = newAccessControlContext(newOptionsBuilder().passwordHashingExecutor(passwordHashingExecutor).build());
+
+      final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+         objectOutputStream.writeObject(hashingAccessControlContext);
+      }
+      final byte[] serializedAccessControlContext = byteArrayOutputStream.toByteArray();
+
+      // a context that hashes on a pool cannot be re-initialized without one
+      try {
+         SQLAccessControlContextFactory.postDeserialize(deserialize(serializedAccessControlContext), getDataSource());
+         fail("re-initializing a context that hashes on a pool without a pool should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("without a password hashing executor"));
+      }
+
+      final AccessControlContext deserializedAccessControlContext = deserialize(serializedAccessControlContext);
+      SQLAccessControlContextFactory.postDeserialize(deserializedAccessControlContext,
+                                                     getDataSource(),
+                                                     passwordHashingExecutor);
+
+      deserializedAccessControlContext.authenticate(SYS_RESOURCE,
+                                                    PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+
+      assertThat(deserializedAccessControlContext.getAuthenticatedResource(), is(SYS_RESOURCE));
+      assertThat(passwordHashingExecutor.getCompletedCount(), is(1L));
+   }
+
+   private static AccessControlContext deserialize(byte[] serializedAccessControlContext)
+         throws IOException, ClassNotFoundException {
+      try (ObjectInputStream objectInputStream
+                 = new ObjectInputStream(new ByteArrayInputStream(serializedAccessControlContext))) {
+         return (AccessControlContext) objectInputStream.readObject();
+      }
+   }
+
+   private static DataSource newTrackingDataSource(final AtomicInteger openConnectionCount) {
+      final DataSource dataSource = getDataSource();
+      return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                                                 new Class<?>[]{DataSource.class},
+                                                 new InvocationHandler() {
+                                                    @Override
+                                                    public Object invoke(Object proxy, Method method, Object[] args)
+                                                          throws Throwable {
+                                                       final Object result = invokeDelegate(dataSource, method, args);
+                                                       if (method.getName().equals("getConnection")) {
+                                                          openConnectionCount.incrementAndGet();
+                                                          return newTrackingConnection((Connection) result,
+                                                                                       openConnectionCount);
+                                                       }
+                                                       return result;
+                                                    }
+                                                 });
+   }
+
+   private static Connection newTrackingConnection(final Connection connection,
+                                                   final AtomicInteger openConnectionCount) {
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                 new Class<?>[]{Connection.class},
+                                                 new InvocationHandler() {
+                                                    private boolean closed;
+
+                                                    @Override
+                                                    public Object invoke(Object proxy, Method method, Object[] args)
+                                                          throws Throwable {
+                                                       if (method.getName().equals("close") && !closed) {
+                                                          closed = true;
+                                                          openConnectionCount.decrementAndGet();
+                                                       }
+                                                       return invokeDelegate(connection, method, args);
+                                                    }
+                                                 });
+   }
+
+   private static Object invokeDelegate(Object delegate, Method method, Object[] args) throws Throwable {
+      try {
+         return method.invoke(delegate, args);
+      }
+      catch (InvocationTargetException e) {
+         throw e.getCause();
+      }
+   }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.encryptor.PasswordEncryptor;
+import com.acciente.oacc.encryptor.TransitioningPasswordEncryptor;
+import com.acciente.oacc.encryptor.bcrypt.BCryptPasswordEncryptor;
+import com.acciente.oacc.encryptor.jasypt.JasyptPasswordEncryptor;
+import com.acciente.oacc.helper.TestConfigLoader;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TestAccessControl_passwordRehash extends TestAccessControlBase {
+   @Test
+   public void authenticate_withOldPassword_shouldRehashOnce() {
+      final PasswordEncryptor oldPasswordEncryptor = TestConfigLoader.getPasswordEncryptor();
+      final PasswordEncryptor newPasswordEncryptor
+            = oldPasswordEncryptor instanceof BCryptPasswordEncryptor
+              ? JasyptPasswordEncryptor.newInstance("SHA-256", 1000, 16)
+              : BCryptPasswordEncryptor.newInstance(4);
+      final TransitioningPasswordEncryptor transitioningPasswordEncryptor
+            = TransitioningPasswordEncryptor.newInstance(newPasswordEncryptor, oldPasswordEncryptor);
+
+      final char[] password = generateUniquePassword();
+      final Resource resource = generateAuthenticatableResource(password);
+      final AccessControlContext transitioningAccessControlContext
+            = newAccessControlContext(transitioningPasswordEncryptor);
+
+      // the first authentication checks the old password, and replaces it
+      transitioningAccessControlContext.authenticate(resource, PasswordCredentials.newInstance(password));
+      assertThat(transitioningPasswordEncryptor.getOldPasswordCheckCount(), is(1L));
+      assertThat(transitioningPasswordEncryptor.getRehashCount(), is(1L));
+      assertThat(transitioningPasswordEncryptor.getRehashFailureCount(), is(0L));
+
+      // later authentications check the new password
+      transitioningAccessControlContext.unauthenticate();
+      transitioningAccessControlContext.authenticate(resource, PasswordCredentials.newInstance(password));
+      assertThat(transitioningPasswordEncryptor.getOldPasswordCheckCount(), is(1L));
+      assertThat(transitioningPasswordEncryptor.getNewPasswordCheckCount(), is(1L));
+      assertThat(transitioningPasswordEncryptor.getRehashCount(), is(1L));
+   }
+}
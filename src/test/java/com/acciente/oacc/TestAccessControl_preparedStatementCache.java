@@ -0,0 +1,136 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.helper.TestConfigLoader;
+import com.acciente.oacc.sql.PreparedStatementCacheStatistics;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+public class TestAccessControl_preparedStatementCache extends TestAccessControlBase {
+   private PreparedStatementCacheStatistics statistics;
+   private AccessControlContext             cachingAccessControlContext;
+
+   @Before
+   public void setUpCachingContext() {
+      statistics = PreparedStatementCacheStatistics.newInstance();
+      // a small cache, so that statements get evicted and prepared again
+      cachingAccessControlContext
+            = newAccessControlContext(newOptionsBuilder()
+                                            .preparedStatementCacheSize(4)
+                                            .preparedStatementCacheStatistics(statistics)
+                                            .build());
+      cachingAccessControlContext.authenticate(SYS_RESOURCE,
+                                               PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+   }
+
+   @Test
+   public void hasResourcePermissions_repeatedWithinUnitOfWork_shouldHitCache() {
+      authenticateSystemResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource
+            = accessControlContext.createResource(resourceClassName,
+                                                  accessControlContext.getDomainNameByResource(SYS_RESOURCE));
+      statistics.reset();
+
+      cachingAccessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+         @Override
+         public Void execute(AccessControlContext accessControlContext) {
+            for (int i = 0; i < 3; i++) {
+               assertThat(accessControlContext.hasResourcePermissions(accessorResource,
+                                                                      accessedResource,
+                                                                      customPermission),
+                          is(false));
+            }
+
+            accessControlContext.grantResourcePermissions(accessorResource, accessedResource, customPermission);
+
+            for (int i = 0; i < 3; i++) {
+               assertThat(accessControlContext.hasResourcePermissions(accessorResource,
+                                                                      accessedResource,
+                                                                      customPermission),
+                          is(true));
+            }
+            return null;
+         }
+      });
+
+      assertThat(statistics.getHitCount(), greaterThan(0L));
+      assertThat(statistics.getMissCount(), greaterThan(0L));
+      assertThat(statistics.getHitRate() > 0.0, is(true));
+
+      // the statements cached by the unit of work are closed with its connection, later calls still succeed
+      cachingAccessControlContext.revokeResourcePermissions(accessorResource, accessedResource, customPermission);
+      assertThat(cachingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                    accessedResource,
+                                                                    customPermission),
+                 is(false));
+   }
+
+   @Test
+   public void getResourcesByResourcePermissions_whileStreamIsOpen_shouldSucceed() {
+      authenticateSystemResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String domainName = accessControlContext.getDomainNameByResource(SYS_RESOURCE);
+      final Resource accessedResource1 = accessControlContext.createResource(resourceClassName, domainName);
+      final Resource accessedResource2 = accessControlContext.createResource(resourceClassName, domainName);
+      accessControlContext.grantResourcePermissions(accessorResource, accessedResource1, customPermission);
+      accessControlContext.grantResourcePermissions(accessorResource, accessedResource2, customPermission);
+
+      cachingAccessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+         @Override
+         public Void execute(AccessControlContext accessControlContext) {
+            try (CloseableIterator<Resource> outerStream
+                       = accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                                   resourceClassName,
+                                                                                   customPermission)) {
+               int outerCount = 0;
+               while (outerStream.hasNext()) {
+                  outerStream.next();
+                  outerCount++;
+
+                  // the same statement is still open in the outer stream, so the inner one cannot reuse it
+                  try (CloseableIterator<Resource> innerStream
+                             = accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                                         resourceClassName,
+                                                                                         customPermission)) {
+                     int innerCount = 0;
+                     while (innerStream.hasNext()) {
+                        innerStream.next();
+                        innerCount++;
+                     }
+                     assertThat(innerCount, is(2));
+                  }
+               }
+               assertThat(outerCount, is(2));
+            }
+            return null;
+         }
+      });
+   }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import com.acciente.oacc.helper.TestConfigLoader;
+import com.acciente.oacc.sql.SQLAccessControlContextFactory;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestAccessControl_readDataSource extends TestAccessControlBase {
+   @Test
+   public void readOnlyOperations_shouldUseReadDataSource() {
+      final AtomicInteger readConnectionCount = new AtomicInteger();
+      final AccessControlContext routingAccessControlContext
+            = newAccessControlContext(newCountingDataSource(readConnectionCount),
+                                      newOptionsBuilder().build());
+      routingAccessControlContext.authenticate(SYS_RESOURCE,
+                                               PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource
+            = routingAccessControlContext.createResource(resourceClassName,
+                                                         routingAccessControlContext.getDomainNameByResource(SYS_RESOURCE));
+      final int readConnectionCountAfterSetup = readConnectionCount.get();
+
+      // changes go to the primary
+      routingAccessControlContext.grantResourcePermissions(accessorResource, accessedResource, customPermission);
+      assertThat(readConnectionCount.get(), is(readConnectionCountAfterSetup));
+
+      // reads go to the read data source
+      assertThat(routingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                    accessedResource,
+                                                                    customPermission),
+                 is(true));
+      assertThat(routingAccessControlContext.getEffectiveResourcePermissions(accessorResource, accessedResource),
+                 is(setOf(customPermission)));
+      assertThat(readConnectionCount.get(), is(readConnectionCountAfterSetup + 2));
+   }
+
+   @Test
+   public void readOnlyOperations_withinReadYourWritesWindow_shouldUsePrimary() {
+      final AtomicInteger readConnectionCount = new AtomicInteger();
+      final AccessControlContext routingAccessControlContext
+            = newAccessControlContext(newCountingDataSource(readConnectionCount),
+                                      newOptionsBuilder()
+                                            .readYourWritesWindowMillis(60000)
+                                            .build());
+      routingAccessControlContext.authenticate(SYS_RESOURCE,
+                                               PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource
+            = systemAccessControlContext.createResource(resourceClassName,
+                                                        systemAccessControlContext.getDomainNameByResource(SYS_RESOURCE));
+
+      // no change was made through the routing context yet, so reads go to the read data source
+      assertThat(routingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                    accessedResource,
+                                                                    customPermission),
+                 is(false));
+      assertThat(readConnectionCount.get(), is(1));
+
+      // after a change, reads stay on the primary for the configured window
+      routingAccessControlContext.grantResourcePermissions(accessorResource, accessedResource, customPermission);
+      assertThat(routingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                    accessedResource,
+                                                                    customPermission),
+                 is(true));
+      assertThat(readConnectionCount.get(), is(1));
+   }
+
+   @Test
+   public void readOnlyOperations_afterRolledBackUnitOfWork_shouldUseReadDataSource() {
+      final AtomicInteger readConnectionCount = new AtomicInteger();
+      final AccessControlContext routingAccessControlContext
+            = newAccessControlContext(newCountingDataSource(readConnectionCount),
+                                      newOptionsBuilder()
+                                            .readYourWritesWindowMillis(60000)
+                                            .build());
+      routingAccessControlContext.authenticate(SYS_RESOURCE,
+                                               PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource
+            = systemAccessControlContext.createResource(resourceClassName,
+                                                        systemAccessControlContext.getDomainNameByResource(SYS_RESOURCE));
+
+      // a change that is rolled back does not keep reads on the primary
+      try {
+         routingAccessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+            @Override
+            public Void execute(AccessControlContext accessControlContext) {
+               accessControlContext.grantResourcePermissions(accessorResource, accessedResource, customPermission);
+               throw new IllegalStateException("abort unit of work");
+            }
+         });
+         fail("executing a failing unit of work should have thrown the exception of the unit of work");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage(), is("abort unit of work"));
+      }
+      assertThat(routingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                    accessedResource,
+                                                                    customPermission),
+                 is(false));
+      assertThat(readConnectionCount.get(), is(1));
+   }
+
+   @Test
+   public void readOnlyOperations_afterUnitOfWorkLongerThanWindow_shouldUsePrimary() {
+      final AtomicInteger readConnectionCount = new AtomicInteger();
+      final long readYourWritesWindowMillis = 2000;
+      final AccessControlContext routingAccessControlContext
+            = newAccessControlContext(newCountingDataSource(readConnectionCount),
+                                      newOptionsBuilder()
+                                            .readYourWritesWindowMillis(readYourWritesWindowMillis)
+                                            .build());
+      routingAccessControlContext.authenticate(SYS_RESOURCE,
+                                               PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource
+            = systemAccessControlContext.createResource(resourceClassName,
+                                                        systemAccessControlContext.getDomainNameByResource(SYS_RESOURCE));
+
+      // the window starts when the unit of work commits, not when its first change is made
+      routingAccessControlContext.executeInTransaction(new UnitOfWork<Void>() {
+         @Override
+         public Void execute(AccessControlContext accessControlContext) {
+            accessControlContext.grantResourcePermissions(accessorResource, accessedResource, customPermission);
+            try {
+               Thread.sleep(readYourWritesWindowMillis + 500);
+            }
+            catch (InterruptedException e) {
+               throw new RuntimeException(e);
+            }
+            return null;
+         }
+      });
+      assertThat(routingAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                    accessedResource,
+                                                                    customPermission),
+                 is(true));
+      assertThat(readConnectionCount.get(), is(0));
+   }
+
+   @Test
+   public void readOnlyOperations_afterDeserialization_shouldUseReadDataSource() throws Exception {
+      final AccessControlContext routingAccessControlContext
+            = newAccessControlContext(newCountingDataSource(new AtomicInteger()),
+                                      newOptionsBuilder().build());
+      routingAccessControlContext.authenticate(SYS_RESOURCE,
+                                               PasswordCredentials.newInstance(TestConfigLoader.getOaccRootPassword()));
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource
+            = systemAccessControlContext.createResource(resourceClassName,
+                                                        systemAccessControlContext.getDomainNameByResource(SYS_RESOURCE));
+      systemAccessControlContext.grantResourcePermissions(accessorResource, accessedResource, customPermission);
+
+      final byte[] serializedAccessControlContext = serialize(routingAccessControlContext);
+
+      // a context that routes reads cannot be re-initialized without a read data source
+      try {
+         SQLAccessControlContextFactory.postDeserialize(deserialize(serializedAccessControlContext), getDataSource());
+         fail("re-initializing a context that routes reads without a read data source should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("without a read data source"));
+      }
+
+      final AtomicInteger readConnectionCount = new AtomicInteger();
+      final AccessControlContext deserializedAccessControlContext = deserialize(serializedAccessControlContext);
+      SQLAccessControlContextFactory.postDeserialize(deserializedAccessControlContext,
+                                                     getDataSource(),
+                                                     newCountingDataSource(readConnectionCount));
+
+      assertThat(deserializedAccessControlContext.hasResourcePermissions(accessorResource,
+                                                                         accessedResource,
+                                                                         customPermission),
+                 is(true));
+      assertThat(readConnectionCount.get(), is(1));
+   }
+
+   private static byte[] serialize(AccessControlContext accessControlContext) throws IOException {
+      final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+         objectOutputStream.writeObject(accessControlContext);
+      }
+      return byteArrayOutputStream.toByteArray();
+   }
+
+   private static AccessControlContext deserialize(byte[] serializedAccessControlContext)
+         throws IOException, ClassNotFoundException {
+      try (ObjectInputStream objectInputStream
+                 = new ObjectInputStream(new ByteArrayInputStream(serializedAccessControlContext))) {
+         return (AccessControlContext) objectInputStream.readObject();
+      }
+   }
+
+   private static DataSource newCountingDataSource(final AtomicInteger connectionCount) {
+      final DataSource dataSource = getDataSource();
+      return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                                                 new Class<?>[]{DataSource.class},
+                                                 new InvocationHandler() {
+                                                    @Override
+                                                    public Object invoke(Object proxy, Method method, Object[] args)
+                                                          throws Throwable {
+                                                       if (method.getName().equals("getConnection")) {
+                                                          connectionCount.incrementAndGet();
+                                                       }
+                                                       try {
+                                                          return method.invoke(dataSource, args);
+                                                       }
+                                                       catch (InvocationTargetException e) {
+                                                          throw e.getCause();
+                                                       }
+                                                    }
+                                                 });
+   }
+}
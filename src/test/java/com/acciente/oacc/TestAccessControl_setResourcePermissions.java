@@ -30,6 +30,45 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 public class TestAccessControl_setResourcePermissions extends TestAccessControlBase {
+   @Test
+   public void setResourcePermission_manyPermissions_shouldAddUpdateAndRemoveAll() {
+      authenticateSystemResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource = accessControlContext.createResource(resourceClassName, generateDomain());
+
+      // the persisters send the inserts, updates and deletes of each kind of permission as one batch
+      final Set<ResourcePermission> permissions_pre = new HashSet<>();
+      final Set<ResourcePermission> permissions_post = new HashSet<>();
+      permissions_pre.add(ResourcePermissions.getInstance(ResourcePermissions.DELETE));
+      permissions_pre.add(ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+      permissions_post.add(ResourcePermissions.getInstanceWithGrantOption(ResourcePermissions.DELETE));
+      permissions_post.add(ResourcePermissions.getInstance(ResourcePermissions.INHERIT));
+      for (int i = 0; i < 20; i++) {
+         final String permissionName = generateResourceClassPermission(resourceClassName);
+         if (i % 4 != 3) {
+            permissions_pre.add(ResourcePermissions.getInstance(permissionName));
+         }
+         if (i % 4 == 1) {
+            permissions_post.add(ResourcePermissions.getInstanceWithGrantOption(permissionName));
+         }
+         else if (i % 4 != 2) {
+            permissions_post.add(ResourcePermissions.getInstance(permissionName));
+         }
+      }
+
+      accessControlContext.setResourcePermissions(accessorResource, accessedResource, permissions_pre);
+      assertThat(accessControlContext.getResourcePermissions(accessorResource, accessedResource), is(permissions_pre));
+
+      accessControlContext.setResourcePermissions(accessorResource, accessedResource, permissions_post);
+      assertThat(accessControlContext.getResourcePermissions(accessorResource, accessedResource), is(permissions_post));
+
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  accessedResource,
+                                                  Collections.<ResourcePermission>emptySet());
+      assertThat(accessControlContext.getResourcePermissions(accessorResource, accessedResource).isEmpty(), is(true));
+   }
+
    @Test
    public void setResourcePermission_validAsSystemResource() {
       authenticateSystemResource();
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestAccessControl_streamResourcesByResourcePermissions extends TestAccessControlBase {
+   @Test
+   public void streamResourcesByResourcePermissions_emptyAsSystemResource() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+
+      try (CloseableIterator<Resource> resources
+                 = accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                             resourceClassName,
+                                                                             ResourcePermissions
+                                                                                   .getInstance(permissionName))) {
+         assertThat(resources.hasNext(), is(false));
+         try {
+            resources.next();
+            fail("advancing an exhausted resource stream should have failed");
+         }
+         catch (NoSuchElementException e) {
+            // expected
+         }
+      }
+   }
+
+   @Test
+   public void streamResourcesByResourcePermissions_direct_inIdOrder() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+      final String unqueriedPermissionName = generateResourceClassPermission(resourceClassName);
+      final String domainName = generateDomain();
+
+      final Set<ResourcePermission> queriedPermissions = setOf(ResourcePermissions.getInstance(permissionName));
+      for (int i = 0; i < 5; i++) {
+         final Resource accessedResource = accessControlContext.createResource(resourceClassName, domainName);
+         accessControlContext.setResourcePermissions(accessorResource, accessedResource, queriedPermissions);
+      }
+      final Resource unqueriedResource = accessControlContext.createResource(resourceClassName, domainName);
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  unqueriedResource,
+                                                  setOf(ResourcePermissions.getInstance(unqueriedPermissionName)));
+
+      // verify
+      final Set<Resource> expectedResources
+            = accessControlContext.getResourcesByResourcePermissions(accessorResource,
+                                                                     resourceClassName,
+                                                                     queriedPermissions);
+      assertThat(expectedResources.size(), is(5));
+
+      final List<Resource> streamedResources
+            = drainInIdOrder(accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                                      resourceClassName,
+                                                                                      ResourcePermissions
+                                                                                            .getInstance(permissionName)));
+      assertThat(new HashSet<>(streamedResources), is(expectedResources));
+      assertThat(streamedResources.size(), is(expectedResources.size()));
+
+      final List<Resource> streamedResources2
+            = drainInIdOrder(accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                                      resourceClassName,
+                                                                                      queriedPermissions));
+      assertThat(streamedResources2, is(streamedResources));
+   }
+
+   @Test
+   public void streamResourcesByResourcePermissions_multiplePermissions_shouldIntersect() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource donorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName1 = generateResourceClassPermission(resourceClassName);
+      final String permissionName2 = generateResourceClassPermission(resourceClassName);
+      final String domainName = generateDomain();
+      final Resource resource_bothDirect = accessControlContext.createResource(resourceClassName, domainName);
+      final Resource resource_directAndInherited = accessControlContext.createResource(resourceClassName, domainName);
+      final Resource resource_directAndGlobal = accessControlContext.createResource(resourceClassName, generateDomain());
+      final Resource resource_onlyFirst = accessControlContext.createResource(resourceClassName, domainName);
+      final Resource resource_onlySecondWithoutGrant = accessControlContext.createResource(resourceClassName, domainName);
+
+      final ResourcePermission permission1 = ResourcePermissions.getInstance(permissionName1);
+      final ResourcePermission permission2 = ResourcePermissions.getInstance(permissionName2);
+      final ResourcePermission permission2WithGrant = ResourcePermissions.getInstanceWithGrantOption(permissionName2);
+
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  resource_bothDirect,
+                                                  setOf(permission1, permission2WithGrant));
+      accessControlContext.setResourcePermissions(accessorResource, resource_directAndInherited, setOf(permission1));
+      accessControlContext.setResourcePermissions(donorResource, resource_directAndInherited, setOf(permission2WithGrant));
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  donorResource,
+                                                  setOf(ResourcePermissions.getInstance(ResourcePermissions.INHERIT)));
+      accessControlContext.setResourcePermissions(accessorResource, resource_directAndGlobal, setOf(permission1));
+      accessControlContext.setGlobalResourcePermissions(accessorResource,
+                                                        resourceClassName,
+                                                        accessControlContext.getDomainNameByResource(resource_directAndGlobal),
+                                                        setOf(permission2WithGrant));
+      accessControlContext.setResourcePermissions(accessorResource, resource_onlyFirst, setOf(permission1));
+      accessControlContext.setResourcePermissions(accessorResource,
+                                                  resource_onlySecondWithoutGrant,
+                                                  setOf(permission1, permission2));
+
+      // verify against the set-based version
+      final Set<Resource> expectedResources = setOf(resource_bothDirect,
+                                                    resource_directAndInherited,
+                                                    resource_directAndGlobal);
+      assertThat(accessControlContext.getResourcesByResourcePermissions(accessorResource,
+                                                                        resourceClassName,
+                                                                        permission1,
+                                                                        permission2WithGrant),
+                 is(expectedResources));
+
+      final List<Resource> streamedResources
+            = drainInIdOrder(accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                                      resourceClassName,
+                                                                                      permission1,
+                                                                                      permission2WithGrant));
+      assertThat(new HashSet<>(streamedResources), is(expectedResources));
+      assertThat(streamedResources.size(), is(expectedResources.size()));
+
+      // a permission requested with and without grant is satisfied only with the grant option
+      final List<Resource> streamedResources2
+            = drainInIdOrder(accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                                      resourceClassName,
+                                                                                      setOf(permission1,
+                                                                                            permission2,
+                                                                                            permission2WithGrant)));
+      assertThat(streamedResources2, is(streamedResources));
+   }
+
+   @Test
+   public void streamResourcesByResourcePermissions_superUser_validAsAuthenticated() {
+      authenticateSystemResource();
+
+      final char[] password = generateUniquePassword();
+      final Resource accessorResource = generateAuthenticatableResource(password);
+
+      final String parentDomain = generateDomain();
+      final String childDomain = generateChildDomain(parentDomain);
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+      final Resource resource_parentDomain = accessControlContext.createResource(resourceClassName, parentDomain);
+      final Resource resource_childDomain = accessControlContext.createResource(resourceClassName, childDomain);
+      accessControlContext.createResource(resourceClassName, generateDomain());
+
+      accessControlContext.setDomainPermissions(accessorResource,
+                                                parentDomain,
+                                                setOf(DomainPermissions.getInstance(DomainPermissions.SUPER_USER)));
+
+      // authenticate as accessor and verify
+      accessControlContext.authenticate(accessorResource, PasswordCredentials.newInstance(password));
+
+      final List<Resource> streamedResources
+            = drainInIdOrder(accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                                      resourceClassName,
+                                                                                      ResourcePermissions
+                                                                                            .getInstance(permissionName)));
+      assertThat(new HashSet<>(streamedResources), is(setOf(resource_parentDomain, resource_childDomain)));
+      assertThat(streamedResources.size(), is(2));
+   }
+
+   @Test
+   public void streamResourcesByResourcePermissionsAndDomain_validAsSystemResource() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+      final String parentDomain = generateDomain();
+      final String childDomain = generateChildDomain(parentDomain);
+      final String otherDomain = generateDomain();
+      final Resource resource_parentDomain = accessControlContext.createResource(resourceClassName, parentDomain);
+      final Resource resource_childDomain = accessControlContext.createResource(resourceClassName, childDomain);
+      final Resource resource_otherDomain = accessControlContext.createResource(resourceClassName, otherDomain);
+
+      final Set<ResourcePermission> queriedPermissions = setOf(ResourcePermissions.getInstance(permissionName));
+      accessControlContext.setResourcePermissions(accessorResource, resource_parentDomain, queriedPermissions);
+      accessControlContext.setResourcePermissions(accessorResource, resource_childDomain, queriedPermissions);
+      accessControlContext.setResourcePermissions(accessorResource, resource_otherDomain, queriedPermissions);
+
+      // verify against the set-based version
+      final Set<Resource> expectedResources
+            = accessControlContext.getResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                              resourceClassName,
+                                                                              parentDomain,
+                                                                              queriedPermissions);
+      assertThat(expectedResources, is(setOf(resource_parentDomain, resource_childDomain)));
+
+      final List<Resource> streamedResources
+            = drainInIdOrder(accessControlContext.streamResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                                               resourceClassName,
+                                                                                               parentDomain,
+                                                                                               queriedPermissions));
+      assertThat(new HashSet<>(streamedResources), is(expectedResources));
+      assertThat(streamedResources.size(), is(expectedResources.size()));
+
+      final List<Resource> streamedResources2
+            = drainInIdOrder(accessControlContext.streamResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                                               resourceClassName,
+                                                                                               parentDomain,
+                                                                                               ResourcePermissions
+                                                                                                     .getInstance(permissionName)));
+      assertThat(streamedResources2, is(streamedResources));
+   }
+
+   @Test
+   public void streamResourcesByResourcePermissions_closeBeforeExhausted_shouldSucceed() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+      final String permissionName = generateResourceClassPermission(resourceClassName);
+      final String domainName = generateDomain();
+      final Set<ResourcePermission> queriedPermissions = setOf(ResourcePermissions.getInstance(permissionName));
+      for (int i = 0; i < 3; i++) {
+         final Resource accessedResource = accessControlContext.createResource(resourceClassName, domainName);
+         accessControlContext.setResourcePermissions(accessorResource, accessedResource, queriedPermissions);
+      }
+
+      final CloseableIterator<Resource> resources
+            = accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                        resourceClassName,
+                                                                        queriedPermissions);
+      assertThat(resources.hasNext(), is(true));
+      resources.next();
+      resources.close();
+      resources.close();
+      assertThat(resources.hasNext(), is(false));
+
+      // the context should remain usable after the stream was closed
+      assertThat(accessControlContext.getResourcesByResourcePermissions(accessorResource,
+                                                                        resourceClassName,
+                                                                        queriedPermissions).size(),
+                 is(3));
+   }
+
+   @Test
+   public void streamResourcesByResourcePermissions_nonExistentReferences_shouldFail() {
+      authenticateSystemResource();
+
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String resourceClassName = generateResourceClass(false, false);
+
+      try {
+         accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                   "invalid_resource_class",
+                                                                   ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+         fail("streaming resources by permission for non-existent resource class should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("could not find resource class"));
+      }
+
+      try {
+         accessControlContext.streamResourcesByResourcePermissions(accessorResource,
+                                                                   resourceClassName,
+                                                                   ResourcePermissions.getInstance("invalid_permission"));
+         fail("streaming resources by permission with non-existent permission should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("not defined for resource class"));
+      }
+
+      try {
+         accessControlContext.streamResourcesByResourcePermissionsAndDomain(accessorResource,
+                                                                            resourceClassName,
+                                                                            "invalid_domain",
+                                                                            ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+         fail("streaming resources by permission and domain for non-existent domain should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("could not find domain"));
+      }
+   }
+
+   private static List<Resource> drainInIdOrder(CloseableIterator<Resource> resources) {
+      final List<Resource> drainedResources = new ArrayList<>();
+      try {
+         Long previousId = null;
+         while (resources.hasNext()) {
+            final Resource resource = resources.next();
+            if (previousId != null) {
+               assertThat(previousId < resource.getId(), is(true));
+            }
+            previousId = resource.getId();
+            drainedResources.add(resource);
+         }
+      }
+      finally {
+         resources.close();
+      }
+      return drainedResources;
+   }
+}
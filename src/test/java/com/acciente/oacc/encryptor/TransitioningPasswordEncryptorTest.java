@@ -153,4 +153,34 @@ public class TransitioningPasswordEncryptorTest {
 
       assertThat(legacy2Jasypt2BcryptEncryptor.checkPassword(testPassword, encryptedPassword), is(true));
    }
-}
\ No newline at end of file
+
+   @Test
+   public void checkPasswordCountsByMarker() throws Exception {
+      final char[] testPassword = "SomePasswordHere".toCharArray();
+      final TransitioningPasswordEncryptor encryptor = TransitioningPasswordEncryptor.newInstance(bcryptEncryptor, legacyEncryptor);
+
+      assertThat(encryptor.checkPassword(testPassword, legacyEncryptor.encryptPassword(testPassword)), is(true));
+      assertThat(encryptor.checkPassword(testPassword, bcryptEncryptor.encryptPassword(testPassword)), is(true));
+      assertThat(encryptor.checkPassword("WrongPassword".toCharArray(), bcryptEncryptor.encryptPassword(testPassword)), is(false));
+
+      assertThat(encryptor.getOldPasswordCheckCount(), is(1L));
+      assertThat(encryptor.getNewPasswordCheckCount(), is(2L));
+   }
+
+   @Test
+   public void isRehashNeeded() throws Exception {
+      final char[] testPassword = "SomePasswordHere".toCharArray();
+
+      assertThat(transitioningEncryptor.isRehashNeeded(legacyEncryptor.encryptPassword(testPassword)), is(true));
+      assertThat(transitioningEncryptor.isRehashNeeded(bcryptEncryptor.encryptPassword(testPassword)), is(false));
+      assertThat(transitioningEncryptor.isRehashNeeded(null), is(false));
+   }
+
+   @Test
+   public void isRehashNeededWithUnmarkedNewEncryptor() throws Exception {
+      final char[] testPassword = "SomePasswordHere".toCharArray();
+      final TransitioningPasswordEncryptor bcrypt2LegacyEncryptor = TransitioningPasswordEncryptor.newInstance(legacyEncryptor, bcryptEncryptor);
+
+      assertThat(bcrypt2LegacyEncryptor.isRehashNeeded(bcryptEncryptor.encryptPassword(testPassword)), is(false));
+   }
+}
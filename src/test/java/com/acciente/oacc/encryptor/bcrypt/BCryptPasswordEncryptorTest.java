@@ -19,6 +19,8 @@ package com.acciente.oacc.encryptor.bcrypt;
 
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -159,4 +161,73 @@ public class BCryptPasswordEncryptorTest {
 
       assertThat(encryptor.checkPassword(singleCharacterPwd, encryptedPasswordPass1), is(true));
    }
-}
\ No newline at end of file
+
+   @Test
+   public void getEncryptorForTargetLatencyDoesNotAcceptNonPositiveLatency() throws Exception {
+      try {
+         BCryptPasswordEncryptor.newInstanceForTargetLatency(0, TimeUnit.MILLISECONDS);
+         fail("getting BCrypt password encryptor for a zero target latency should fail");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("must be positive"));
+      }
+   }
+
+   @Test
+   public void getEncryptorForUnreachableTargetLatencyUsesMinCostFactor() throws Exception {
+      final BCryptPasswordEncryptor passwordEncryptor
+            = BCryptPasswordEncryptor.newInstanceForTargetLatency(1, TimeUnit.NANOSECONDS);
+
+      assertThat(passwordEncryptor.getCostFactor(), is(4));
+   }
+
+   @Test
+   public void getEncryptorForTargetLatencyHashesWithinTarget() throws Exception {
+      final long targetLatencyMillis = 50;
+      final BCryptPasswordEncryptor passwordEncryptor
+            = BCryptPasswordEncryptor.newInstanceForTargetLatency(targetLatencyMillis, TimeUnit.MILLISECONDS);
+      final char[] testPassword = "SomePasswordHere".toCharArray();
+
+      final long startNanos = System.nanoTime();
+      final String encryptedPassword = passwordEncryptor.encryptPassword(testPassword);
+      final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+      assertThat(passwordEncryptor.checkPassword(testPassword, encryptedPassword), is(true));
+      // the minimum cost factor may exceed the target; otherwise a hash took less than the target while
+      // calibrating, and hashing times vary between runs, so the measured time is only checked with some slack
+      if (passwordEncryptor.getCostFactor() > 4) {
+         assertThat("hashing took " + elapsedMillis + "ms", elapsedMillis < 4 * targetLatencyMillis, is(true));
+      }
+   }
+
+   @Test
+   public void getCostFactorOfStoredPassword() throws Exception {
+      final char[] testPassword = "SomePasswordHere".toCharArray();
+
+      assertThat(BCryptPasswordEncryptor.getCostFactorOfPasswordHash(encryptor.encryptPassword(testPassword)), is(4));
+      assertThat(BCryptPasswordEncryptor.getCostFactorOfPasswordHash(BCryptPasswordEncryptor.newInstance(6).encryptPassword(testPassword)),
+                 is(6));
+   }
+
+   @Test
+   public void getCostFactorOfTooShortPasswordFails() throws Exception {
+      try {
+         BCryptPasswordEncryptor.getCostFactorOfPasswordHash("bc");
+         fail("getting the BCrypt cost factor of a password shorter than the marker should fail");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("unexpected format"));
+      }
+   }
+
+   @Test
+   public void getCostFactorOfNonBCryptPasswordFails() throws Exception {
+      try {
+         BCryptPasswordEncryptor.getCostFactorOfPasswordHash("jasypt:SHA-256$100000$16$AAAA");
+         fail("getting the BCrypt cost factor of a non-BCrypt password should fail");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("unexpected marker"));
+      }
+   }
+}
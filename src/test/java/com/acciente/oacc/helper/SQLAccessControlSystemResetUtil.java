@@ -57,6 +57,17 @@ public class SQLAccessControlSystemResetUtil {
       try {
          final String schemaNameAndTablePrefix = dbSchema != null ? dbSchema + ".OAC_" : "OAC_";
 
+         // the optional closure tables only exist in schemas for profiles that maintain them
+         if (SQLAccessControlSystemInitializer.tableExists(connection, dbSchema, "OAC_InheritanceClosure")) {
+            statement = connection.prepareStatement("DELETE FROM " + schemaNameAndTablePrefix + "InheritanceClosure");
+            statement.executeUpdate();
+            statement.close();
+         }
+         if (SQLAccessControlSystemInitializer.tableExists(connection, dbSchema, "OAC_DomainClosure")) {
+            statement = connection.prepareStatement("DELETE FROM " + schemaNameAndTablePrefix + "DomainClosure");
+            statement.executeUpdate();
+            statement.close();
+         }
          statement = connection.prepareStatement("DELETE FROM " + schemaNameAndTablePrefix + "Grant_DomPerm_Sys");
          statement.executeUpdate();
          statement.close();
@@ -35,12 +35,14 @@ public class TestConfigLoader {
    private static String            databaseSchema;
    private static PasswordEncryptor passwordEncryptor;
    private static char[]            oaccRootPwd;
+   private static boolean           inheritanceClosureEnabled;
 
    public static final String PROP_DATA_SOURCE_CLASS = "dataSourceClass";
    public static final String PROP_SQL_PROFILE       = "sqlProfile";
    public static final String PROP_DB_SCHEMA         = "dbSchema";
    public static final String PROP_PWD_ENCRYPTOR     = "pwdEncryptor";
    public static final String PROP_OACC_ROOT_PWD     = "oaccRootPwd";
+   public static final String PROP_INHERITANCE_CLOSURE_ENABLED = "inheritanceClosureEnabled";
 
    static {
       try {
@@ -73,7 +75,8 @@ public class TestConfigLoader {
                   || PROP_SQL_PROFILE.equals(propertyName)
                   || PROP_DB_SCHEMA.equals(propertyName)
                   || PROP_PWD_ENCRYPTOR.equals(propertyName)
-                  || PROP_OACC_ROOT_PWD.equals(propertyName))) {
+                  || PROP_OACC_ROOT_PWD.equals(propertyName)
+                  || PROP_INHERITANCE_CLOSURE_ENABLED.equals(propertyName))) {
                setDataSourceProperty(vendorSpecificDataSource, propertyName, properties.getProperty(propertyName));
             }
          }
@@ -83,6 +86,8 @@ public class TestConfigLoader {
          {
             oaccRootPwd = properties.getProperty(PROP_OACC_ROOT_PWD).toCharArray();
          }
+         inheritanceClosureEnabled
+               = Boolean.parseBoolean(properties.getProperty(PROP_INHERITANCE_CLOSURE_ENABLED, "false").trim());
          isDatabaseCaseSensitive = CaseSensitiveChecker.isDatabaseCaseSensitive(dataSource);
 
          // set password encryptor
@@ -140,16 +145,25 @@ public class TestConfigLoader {
          }
       }
 
+      final Class<?> valueType = valueAsInteger != null
+                                 ? int.class
+                                 : valueAsBoolean != null
+                                   ? boolean.class
+                                   : String.class;
       final String methodName = "set"
             + propertyName.substring(0, 1).toUpperCase()
             + propertyName.substring(1);
-      final Method setMethod
-            = vendorSpecificDataSource.getClass().getMethod(methodName,
-                                                            valueAsInteger != null
-                                                            ? int.class
-                                                            : valueAsBoolean != null
-                                                              ? boolean.class
-                                                              : String.class);
+      Method setMethod;
+      try {
+         setMethod = vendorSpecificDataSource.getClass().getMethod(methodName, valueType);
+      }
+      catch (NoSuchMethodException e) {
+         // sqlite-jdbc 3.8.x misspells this setter as setEnforceForeinKeys, later versions fixed the spelling
+         if (!"setEnforceForeignKeys".equals(methodName)) {
+            throw e;
+         }
+         setMethod = vendorSpecificDataSource.getClass().getMethod("setEnforceForeinKeys", valueType);
+      }
       setMethod.invoke(vendorSpecificDataSource,
                        valueAsInteger!=null ? valueAsInteger : valueAsBoolean!=null ? valueAsBoolean : valueAsString);
    }
@@ -174,6 +188,10 @@ public class TestConfigLoader {
       return isDatabaseCaseSensitive;
    }
 
+   public static boolean isInheritanceClosureEnabled() {
+      return inheritanceClosureEnabled;
+   }
+
    public static PasswordEncryptor getPasswordEncryptor() {
       return passwordEncryptor;
    }
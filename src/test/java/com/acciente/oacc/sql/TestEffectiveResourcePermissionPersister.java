@@ -0,0 +1,206 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.DomainPermissions;
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.ResourcePermission;
+import com.acciente.oacc.ResourcePermissions;
+import com.acciente.oacc.TestAccessControlBase;
+import com.acciente.oacc.helper.TestConfigLoader;
+import com.acciente.oacc.sql.internal.persister.EffectiveResourcePermissionPersister;
+import com.acciente.oacc.sql.internal.persister.SQLConnection;
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests the single statement that computes effective resource permissions against the database under test,
+ * which is only generated for recursive profiles.
+ */
+public class TestEffectiveResourcePermissionPersister extends TestAccessControlBase {
+   private EffectiveResourcePermissionPersister persister;
+   private SQLConnection                        connection;
+
+   @Before
+   public void setUpPersister() throws SQLException {
+      final SQLProfile sqlProfile = TestConfigLoader.getSQLProfile();
+      assumeTrue(sqlProfile.isRecursiveCTEEnabled());
+
+      persister = new EffectiveResourcePermissionPersister(SQLStrings.getSQLStrings(TestConfigLoader.getDatabaseSchema(),
+                                                                                    sqlProfile,
+                                                                                    TestConfigLoader.isInheritanceClosureEnabled()));
+      connection = new SQLConnection(getDataSource().getConnection());
+   }
+
+   @After
+   public void tearDownConnection() throws SQLException {
+      if (connection != null) {
+         connection.close();
+      }
+   }
+
+   @Test
+   public void construct_nonRecursiveProfile_shouldFail() {
+      try {
+         new EffectiveResourcePermissionPersister(SQLStrings.getSQLStrings("oacc", SQLProfile.SQLite_3_8_NON_RECURSIVE));
+         fail("constructing the persister for a profile without recursive queries should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().contains("not supported"), is(true));
+      }
+   }
+
+   @Test
+   public void getEffectiveResourcePermissions_noPermissions_shouldReturnEmptySet() {
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource = generateUnauthenticatableResource();
+
+      assertThat(persister.getEffectiveResourcePermissionsIgnoringSuperUser(connection, accessorResource, accessedResource)
+                       .isEmpty(),
+                 is(true));
+   }
+
+   @Test
+   public void getEffectiveResourcePermissions_direct_shouldReturnSysAndNonSysPermissions() {
+      authenticateSystemAccessControlContext();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstanceWithGrantOption(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource accessedResource = systemAccessControlContext.createResource(resourceClassName, generateDomain());
+      final ResourcePermission deletePermission = ResourcePermissions.getInstance(ResourcePermissions.DELETE);
+
+      systemAccessControlContext.setResourcePermissions(accessorResource,
+                                                        accessedResource,
+                                                        setOf(customPermission, deletePermission));
+
+      assertThat(persister.getEffectiveResourcePermissionsIgnoringSuperUser(connection, accessorResource, accessedResource),
+                 is(setOf(customPermission, deletePermission)));
+   }
+
+   @Test
+   public void getEffectiveResourcePermissions_inherited_shouldReturnPermissionsOfInheritedResources() {
+      authenticateSystemAccessControlContext();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource intermediaryResource = generateUnauthenticatableResource();
+      final Resource donorResource = generateUnauthenticatableResource();
+      final Resource accessedResource = systemAccessControlContext.createResource(resourceClassName, generateDomain());
+
+      systemAccessControlContext.setResourcePermissions(donorResource, accessedResource, setOf(customPermission));
+      systemAccessControlContext.setResourcePermissions(intermediaryResource,
+                                                        donorResource,
+                                                        setOf(ResourcePermissions.getInstance(ResourcePermissions.INHERIT)));
+      systemAccessControlContext.setResourcePermissions(accessorResource,
+                                                        intermediaryResource,
+                                                        setOf(ResourcePermissions.getInstance(ResourcePermissions.INHERIT)));
+
+      assertThat(persister.getEffectiveResourcePermissionsIgnoringSuperUser(connection, accessorResource, accessedResource),
+                 is(setOf(customPermission)));
+   }
+
+   @Test
+   public void getEffectiveResourcePermissions_globalInAncestorDomain_shouldReturnGlobalPermissions() {
+      authenticateSystemAccessControlContext();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission customPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final ResourcePermission queryPermission = ResourcePermissions.getInstanceWithGrantOption(ResourcePermissions.QUERY);
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String parentDomain = generateDomain();
+      final String childDomain = generateChildDomain(parentDomain);
+      final Resource accessedResource = systemAccessControlContext.createResource(resourceClassName, childDomain);
+
+      systemAccessControlContext.setGlobalResourcePermissions(accessorResource,
+                                                              resourceClassName,
+                                                              parentDomain,
+                                                              setOf(customPermission, queryPermission));
+
+      assertThat(persister.getEffectiveResourcePermissionsIgnoringSuperUser(connection, accessorResource, accessedResource),
+                 is(setOf(customPermission, queryPermission)));
+   }
+
+   @Test
+   public void getEffectiveResourcePermissions_shouldMatchAccessControlContext() {
+      authenticateSystemAccessControlContext();
+      final String resourceClassName = generateResourceClass(false, false);
+      final ResourcePermission directPermission
+            = ResourcePermissions.getInstance(generateResourceClassPermission(resourceClassName));
+      final ResourcePermission globalPermission
+            = ResourcePermissions.getInstanceWithGrantOption(generateResourceClassPermission(resourceClassName));
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final Resource donorResource = generateUnauthenticatableResource();
+      final String parentDomain = generateDomain();
+      final Resource accessedResource
+            = systemAccessControlContext.createResource(resourceClassName, generateChildDomain(parentDomain));
+
+      systemAccessControlContext.setResourcePermissions(accessorResource,
+                                                        donorResource,
+                                                        setOf(ResourcePermissions.getInstance(ResourcePermissions.INHERIT)));
+      systemAccessControlContext.setResourcePermissions(donorResource, accessedResource, setOf(directPermission));
+      systemAccessControlContext.setResourcePermissions(accessorResource,
+                                                        accessedResource,
+                                                        setOf(ResourcePermissions.getInstanceWithGrantOption(directPermission.getPermissionName())));
+      systemAccessControlContext.setGlobalResourcePermissions(donorResource,
+                                                              resourceClassName,
+                                                              parentDomain,
+                                                              setOf(globalPermission));
+
+      final Set<ResourcePermission> effectivePermissions
+            = systemAccessControlContext.getEffectiveResourcePermissions(accessorResource, accessedResource);
+
+      // the persister returns the permissions uncollapsed, the context only keeps the one with the grant option
+      assertThat(persister.getEffectiveResourcePermissionsIgnoringSuperUser(connection, accessorResource, accessedResource),
+                 is(setOf(directPermission,
+                          ResourcePermissions.getInstanceWithGrantOption(directPermission.getPermissionName()),
+                          globalPermission)));
+      assertThat(effectivePermissions,
+                 is(setOf(ResourcePermissions.getInstanceWithGrantOption(directPermission.getPermissionName()),
+                          globalPermission)));
+   }
+
+   @Test
+   public void getEffectiveResourcePermissions_superUserOfAncestorDomain_shouldReturnNull() {
+      authenticateSystemAccessControlContext();
+      final String resourceClassName = generateResourceClass(false, false);
+      final Resource accessorResource = generateUnauthenticatableResource();
+      final String parentDomain = generateDomain();
+      final Resource accessedResource
+            = systemAccessControlContext.createResource(resourceClassName, generateChildDomain(parentDomain));
+
+      systemAccessControlContext.setDomainPermissions(accessorResource,
+                                                      parentDomain,
+                                                      setOf(DomainPermissions.getInstance(DomainPermissions.SUPER_USER)));
+
+      assertThat(persister.getEffectiveResourcePermissionsIgnoringSuperUser(connection, accessorResource, accessedResource),
+                 is(nullValue()));
+   }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.ResourcePermission;
+import com.acciente.oacc.ResourcePermissions;
+import com.acciente.oacc.Resources;
+import com.acciente.oacc.sql.internal.persister.GrantResourcePermissionPersister;
+import com.acciente.oacc.sql.internal.persister.GrantResourcePermissionSysPersister;
+import com.acciente.oacc.sql.internal.persister.RecursiveGrantResourcePermissionPersister;
+import com.acciente.oacc.sql.internal.persister.RecursiveGrantResourcePermissionSysPersister;
+import com.acciente.oacc.sql.internal.persister.SQLConnection;
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import com.acciente.oacc.sql.internal.persister.id.Id;
+import com.acciente.oacc.sql.internal.persister.id.ResourceClassId;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that the grant persisters send their writes as a single JDBC batch, and check its update counts,
+ * against a stub connection that records the statement calls.
+ */
+public class TestGrantPersisterBatch {
+   private static final SQLProfile          SQL_PROFILE        = SQLProfile.PostgreSQL_9_3_RECURSIVE;
+   private static final Resource            ACCESSOR_RESOURCE  = Resources.getInstance(1);
+   private static final Resource            ACCESSED_RESOURCE  = Resources.getInstance(2);
+   private static final Resource            GRANTOR_RESOURCE   = Resources.getInstance(0);
+   private static final Id<ResourceClassId> RESOURCE_CLASS_ID  = Id.from(5L);
+
+   private int   addBatchCount;
+   private int   executeBatchCount;
+   private int   executeUpdateCount;
+   private int[] batchUpdateCounts;
+
+   private SQLConnection                       connection;
+   private GrantResourcePermissionPersister    grantResourcePermissionPersister;
+   private GrantResourcePermissionSysPersister grantResourcePermissionSysPersister;
+
+   @Before
+   public void setUp() {
+      addBatchCount = 0;
+      executeBatchCount = 0;
+      executeUpdateCount = 0;
+      batchUpdateCounts = null;
+      connection = new SQLConnection(newStubConnection());
+
+      final SQLStrings sqlStrings = SQLStrings.getSQLStrings("oacc", SQL_PROFILE);
+      grantResourcePermissionPersister = new RecursiveGrantResourcePermissionPersister(SQL_PROFILE, sqlStrings);
+      grantResourcePermissionSysPersister = new RecursiveGrantResourcePermissionSysPersister(SQL_PROFILE, sqlStrings);
+   }
+
+   @Test
+   public void addResourcePermissions_shouldExecuteOneBatchOfNonSystemPermissions() {
+      final Set<ResourcePermission> permissions
+            = setOf(ResourcePermissions.getInstance("view"),
+                    ResourcePermissions.getInstanceWithGrantOption("edit"),
+                    ResourcePermissions.getInstance("print"),
+                    ResourcePermissions.getInstance(ResourcePermissions.DELETE));
+      batchUpdateCounts = new int[]{1, 1, 1};
+
+      grantResourcePermissionPersister.addResourcePermissions(connection,
+                                                              ACCESSOR_RESOURCE,
+                                                              ACCESSED_RESOURCE,
+                                                              RESOURCE_CLASS_ID,
+                                                              permissions,
+                                                              GRANTOR_RESOURCE);
+
+      assertThat(addBatchCount, is(3));
+      assertThat(executeBatchCount, is(1));
+      assertThat(executeUpdateCount, is(0));
+   }
+
+   @Test
+   public void addResourcePermissions_multipleAccessedResources_shouldExecuteOneBatch() {
+      final Set<ResourcePermission> permissions
+            = setOf(ResourcePermissions.getInstance("view"), ResourcePermissions.getInstance("edit"));
+      batchUpdateCounts = new int[]{1, 1, 1, 1, 1, 1};
+
+      grantResourcePermissionPersister.addResourcePermissions(connection,
+                                                              ACCESSOR_RESOURCE,
+                                                              Arrays.asList(Resources.getInstance(2),
+                                                                            Resources.getInstance(3),
+                                                                            Resources.getInstance(4)),
+                                                              RESOURCE_CLASS_ID,
+                                                              permissions,
+                                                              GRANTOR_RESOURCE);
+
+      assertThat(addBatchCount, is(6));
+      assertThat(executeBatchCount, is(1));
+   }
+
+   @Test
+   public void addResourcePermissions_onlySystemPermissions_shouldNotExecuteBatch() {
+      grantResourcePermissionPersister.addResourcePermissions(connection,
+                                                              ACCESSOR_RESOURCE,
+                                                              ACCESSED_RESOURCE,
+                                                              RESOURCE_CLASS_ID,
+                                                              setOf(ResourcePermissions.getInstance(ResourcePermissions.QUERY)),
+                                                              GRANTOR_RESOURCE);
+
+      assertThat(addBatchCount, is(0));
+      assertThat(executeBatchCount, is(0));
+   }
+
+   @Test
+   public void addResourcePermissions_batchEntryWithoutInsert_shouldFail() {
+      final Set<ResourcePermission> permissions
+            = setOf(ResourcePermissions.getInstance("view"), ResourcePermissions.getInstance("edit"));
+      batchUpdateCounts = new int[]{1, 0};
+
+      try {
+         grantResourcePermissionPersister.addResourcePermissions(connection,
+                                                                 ACCESSOR_RESOURCE,
+                                                                 ACCESSED_RESOURCE,
+                                                                 RESOURCE_CLASS_ID,
+                                                                 permissions,
+                                                                 GRANTOR_RESOURCE);
+         fail("a batch entry that inserted no row should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage(), is("Security table data insert, 1 row expected, got: 0"));
+      }
+   }
+
+   @Test
+   public void updateResourcePermissions_countsNotReported_shouldSucceed() {
+      final Set<ResourcePermission> permissions
+            = setOf(ResourcePermissions.getInstance("view"), ResourcePermissions.getInstance("edit"));
+      batchUpdateCounts = new int[]{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO};
+
+      grantResourcePermissionPersister.updateResourcePermissions(connection,
+                                                                 ACCESSOR_RESOURCE,
+                                                                 ACCESSED_RESOURCE,
+                                                                 RESOURCE_CLASS_ID,
+                                                                 permissions,
+                                                                 GRANTOR_RESOURCE);
+
+      assertThat(addBatchCount, is(2));
+      assertThat(executeBatchCount, is(1));
+   }
+
+   @Test
+   public void updateResourcePermissions_batchEntryUpdatingTwoRows_shouldFail() {
+      batchUpdateCounts = new int[]{2};
+
+      try {
+         grantResourcePermissionPersister.updateResourcePermissions(connection,
+                                                                    ACCESSOR_RESOURCE,
+                                                                    ACCESSED_RESOURCE,
+                                                                    RESOURCE_CLASS_ID,
+                                                                    setOf(ResourcePermissions.getInstance("view")),
+                                                                    GRANTOR_RESOURCE);
+         fail("a batch entry that updated two rows should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage(), is("Security table data update, 1 row expected, got: 2"));
+      }
+   }
+
+   @Test
+   public void addResourceSysPermissions_shouldExecuteOneBatchOfSystemPermissions() {
+      final Set<ResourcePermission> permissions
+            = setOf(ResourcePermissions.getInstance(ResourcePermissions.DELETE),
+                    ResourcePermissions.getInstanceWithGrantOption(ResourcePermissions.QUERY),
+                    ResourcePermissions.getInstance("view"));
+      batchUpdateCounts = new int[]{1, 1};
+
+      grantResourcePermissionSysPersister.addResourceSysPermissions(connection,
+                                                                    ACCESSOR_RESOURCE,
+                                                                    ACCESSED_RESOURCE,
+                                                                    RESOURCE_CLASS_ID,
+                                                                    permissions,
+                                                                    GRANTOR_RESOURCE);
+
+      assertThat(addBatchCount, is(2));
+      assertThat(executeBatchCount, is(1));
+      assertThat(executeUpdateCount, is(0));
+   }
+
+   private static Set<ResourcePermission> setOf(ResourcePermission... permissions) {
+      return new HashSet<>(Arrays.asList(permissions));
+   }
+
+   private Connection newStubConnection() {
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                 new Class<?>[]{Connection.class},
+                                                 new InvocationHandler() {
+                                                    @Override
+                                                    public Object invoke(Object proxy, Method method, Object[] args) {
+                                                       if (method.getName().equals("prepareStatement")) {
+                                                          return newStubStatement();
+                                                       }
+                                                       return defaultValue(method);
+                                                    }
+                                                 });
+   }
+
+   private PreparedStatement newStubStatement() {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                                        new Class<?>[]{PreparedStatement.class},
+                                                        new InvocationHandler() {
+                                                           @Override
+                                                           public Object invoke(Object proxy, Method method, Object[] args) {
+                                                              switch (method.getName()) {
+                                                                 case "addBatch":
+                                                                    addBatchCount++;
+                                                                    return null;
+                                                                 case "executeBatch":
+                                                                    executeBatchCount++;
+                                                                    return batchUpdateCounts;
+                                                                 case "executeUpdate":
+                                                                    executeUpdateCount++;
+                                                                    return 1;
+                                                                 default:
+                                                                    return defaultValue(method);
+                                                              }
+                                                           }
+                                                        });
+   }
+
+   private static Object defaultValue(Method method) {
+      final Class<?> returnType = method.getReturnType();
+      if (returnType == boolean.class) {
+         return false;
+      }
+      if (returnType == int.class) {
+         return 0;
+      }
+      return null;
+   }
+}
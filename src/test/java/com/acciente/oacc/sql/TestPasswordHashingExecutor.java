@@ -0,0 +1,156 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.AuthenticationRejectedException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestPasswordHashingExecutor {
+   private PasswordHashingExecutor executor;
+
+   @After
+   public void tearDown() {
+      if (executor != null) {
+         executor.shutdown();
+      }
+   }
+
+   @Test
+   public void newInstance_invalidParallelism_shouldFail() {
+      try {
+         PasswordHashingExecutor.newInstance(0, 10);
+         fail("creating a password hashing executor without worker threads should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase().contains("at least 1"), is(true));
+      }
+   }
+
+   @Test
+   public void execute_shouldReturnResultAndRecordLatency() {
+      executor = PasswordHashingExecutor.newInstance(2, 10);
+
+      assertThat(executor.execute(new Callable<String>() {
+         @Override
+         public String call() {
+            return Thread.currentThread().getName();
+         }
+      }).startsWith("oacc-password-hashing-"), is(true));
+      assertThat(executor.getCompletedCount(), is(1L));
+      assertThat(executor.getMaxHashLatencyMillis() >= executor.getAverageHashLatencyMillis(), is(true));
+   }
+
+   @Test
+   public void execute_failingTask_shouldRethrowCause() {
+      executor = PasswordHashingExecutor.newInstance(1, 10);
+
+      try {
+         executor.execute(new Callable<Void>() {
+            @Override
+            public Void call() {
+               throw new IllegalStateException("hash failed");
+            }
+         });
+         fail("executing a failing task should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage(), is("hash failed"));
+      }
+      assertThat(executor.getCompletedCount(), is(1L));
+   }
+
+   @Test
+   public void execute_queueFull_shouldRejectImmediately() throws Exception {
+      executor = PasswordHashingExecutor.newInstance(1, 1);
+      final CountDownLatch workerStarted = new CountDownLatch(1);
+      final CountDownLatch releaseWorker = new CountDownLatch(1);
+      final Callable<Void> blockingTask = new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            workerStarted.countDown();
+            releaseWorker.await();
+            return null;
+         }
+      };
+
+      // occupy the only worker thread, then fill the queue
+      final Thread runningCaller = newCallerThread(blockingTask);
+      runningCaller.start();
+      assertThat(workerStarted.await(10, TimeUnit.SECONDS), is(true));
+      final Thread queuedCaller = newCallerThread(blockingTask);
+      queuedCaller.start();
+      final long deadline = System.currentTimeMillis() + 10000;
+      while (executor.getQueueDepth() < 1 && System.currentTimeMillis() < deadline) {
+         Thread.sleep(1);
+      }
+      assertThat(executor.getQueueDepth(), is(1));
+
+      try {
+         executor.execute(blockingTask);
+         fail("executing a task with a full queue should have been rejected");
+      }
+      catch (AuthenticationRejectedException e) {
+         assertThat(e.getMessage().toLowerCase().contains("queue is full"), is(true));
+      }
+      assertThat(executor.getRejectedCount(), is(1L));
+
+      releaseWorker.countDown();
+      runningCaller.join(10000);
+      queuedCaller.join(10000);
+      assertThat(executor.getCompletedCount(), is(2L));
+      assertThat(executor.getQueueDepth(), is(0));
+   }
+
+   @Test
+   public void execute_afterShutdown_shouldRejectAsShutDown() {
+      executor = PasswordHashingExecutor.newInstance(1, 10);
+      executor.shutdown();
+
+      try {
+         executor.execute(new Callable<Void>() {
+            @Override
+            public Void call() {
+               return null;
+            }
+         });
+         fail("executing a task after shutdown should have been rejected");
+      }
+      catch (AuthenticationRejectedException e) {
+         assertThat(e.getMessage().toLowerCase().contains("shut down"), is(true));
+      }
+      assertThat(executor.getRejectedCount(), is(0L));
+   }
+
+   private Thread newCallerThread(final Callable<Void> task) {
+      return new Thread(new Runnable() {
+         @Override
+         public void run() {
+            executor.execute(task);
+         }
+      });
+   }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.Resources;
+import com.acciente.oacc.sql.internal.ResourceClassInternalInfo;
+import com.acciente.oacc.sql.internal.persister.ResourceClassMetadataRegistry;
+import com.acciente.oacc.sql.internal.persister.ResourceClassPermissionPersister;
+import com.acciente.oacc.sql.internal.persister.ResourceClassPersister;
+import com.acciente.oacc.sql.internal.persister.SQLConnection;
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the resource class metadata registry through the persisters that use it, against a stub connection
+ * that counts the queries and answers them with the rows set up by each test.
+ */
+public class TestResourceClassMetadataRegistry {
+   private static final String RESOURCE_CLASS_NAME = "user";
+
+   private List<Map<String, Object>> rows;
+   private int                       queryCount;
+
+   private ResourceClassMetadataRegistry registry;
+   private SQLConnection                 connection;
+
+   @Before
+   public void setUp() {
+      rows = Collections.emptyList();
+      queryCount = 0;
+      registry = new ResourceClassMetadataRegistry();
+      connection = new SQLConnection(newStubConnection());
+   }
+
+   @Test
+   public void getResourceClassInfoByResourceId_sequenceProfile_shouldQueryOnce() {
+      final ResourceClassPersister persister = newResourceClassPersister(SQLProfile.PostgreSQL_9_3_RECURSIVE);
+      rows = Collections.singletonList(newResourceClassRow());
+
+      final ResourceClassInternalInfo resourceClassInfo
+            = persister.getResourceClassInfoByResourceId(connection, Resources.getInstance(7));
+
+      assertThat(persister.getResourceClassInfoByResourceId(connection, Resources.getInstance(7)),
+                 sameInstance(resourceClassInfo));
+      assertThat(resourceClassInfo.getResourceClassName(), is(RESOURCE_CLASS_NAME));
+      assertThat(queryCount, is(1));
+
+      // the resource class is also registered by name
+      assertThat(persister.getResourceClassInfo(connection, RESOURCE_CLASS_NAME), sameInstance(resourceClassInfo));
+      assertThat(queryCount, is(1));
+   }
+
+   @Test
+   public void getResourceClassInfoByResourceId_autoIncrementProfile_shouldQueryEveryTime() {
+      final ResourceClassPersister persister = newResourceClassPersister(SQLProfile.SQLite_3_8_RECURSIVE);
+      rows = Collections.singletonList(newResourceClassRow());
+
+      persister.getResourceClassInfoByResourceId(connection, Resources.getInstance(7));
+      persister.getResourceClassInfoByResourceId(connection, Resources.getInstance(7));
+
+      assertThat(queryCount, is(2));
+   }
+
+   @Test
+   public void getResourceClassInfoByResourceId_afterDiscard_shouldQueryAgain() {
+      final ResourceClassPersister persister = newResourceClassPersister(SQLProfile.PostgreSQL_9_3_RECURSIVE);
+      rows = Collections.singletonList(newResourceClassRow());
+
+      persister.getResourceClassInfoByResourceId(connection, Resources.getInstance(7));
+      persister.discardRegisteredResourceClassInfo(connection, Resources.getInstance(7));
+      persister.getResourceClassInfoByResourceId(connection, Resources.getInstance(7));
+
+      assertThat(queryCount, is(2));
+   }
+
+   @Test
+   public void getResourceClassInfoByResourceId_withinTransaction_shouldOnlyRegisterOnPublish() {
+      final ResourceClassPersister persister = newResourceClassPersister(SQLProfile.PostgreSQL_9_3_RECURSIVE);
+      final SQLConnection transactionConnection = new SQLConnection(newStubConnection());
+      final ResourceClassMetadataRegistry pendingRegistry = new ResourceClassMetadataRegistry();
+      transactionConnection.setPendingResourceClassMetadataRegistry(pendingRegistry);
+      rows = Collections.singletonList(newResourceClassRow());
+
+      persister.getResourceClassInfoByResourceId(transactionConnection, Resources.getInstance(7));
+      persister.getResourceClassInfoByResourceId(transactionConnection, Resources.getInstance(7));
+      assertThat(queryCount, is(1));
+
+      persister.getResourceClassInfoByResourceId(connection, Resources.getInstance(7));
+      assertThat(queryCount, is(2));
+
+      registry.publish(pendingRegistry);
+      persister.getResourceClassInfoByResourceId(connection, Resources.getInstance(8));
+      assertThat(queryCount, is(3));
+      persister.getResourceClassInfoByResourceId(connection, Resources.getInstance(7));
+      assertThat(queryCount, is(3));
+   }
+
+   @Test
+   public void getPermissionNames_shouldAlwaysQuery() {
+      final ResourceClassPermissionPersister persister = newResourceClassPermissionPersister();
+      registerResourceClass();
+      rows = Arrays.asList(newPermissionNameRow("view"), newPermissionNameRow("edit"));
+
+      persister.getPermissionNames(connection, RESOURCE_CLASS_NAME);
+      final List<String> permissionNames = persister.getPermissionNames(connection, RESOURCE_CLASS_NAME);
+
+      assertThat(permissionNames, is(Arrays.asList("view", "edit")));
+      assertThat(queryCount, is(2));
+   }
+
+   @Test
+   public void getPermissionNames_requiredNamesRegistered_shouldNotQuery() {
+      final ResourceClassPermissionPersister persister = newResourceClassPermissionPersister();
+      registerResourceClass();
+      rows = Arrays.asList(newPermissionNameRow("view"), newPermissionNameRow("edit"));
+      persister.getPermissionNames(connection, RESOURCE_CLASS_NAME);
+
+      final List<String> permissionNames
+            = persister.getPermissionNames(connection, RESOURCE_CLASS_NAME, Collections.singleton("edit"));
+
+      assertThat(permissionNames, is(Arrays.asList("view", "edit")));
+      assertThat(queryCount, is(1));
+   }
+
+   @Test
+   public void getPermissionNames_requiredNameAddedElsewhere_shouldQueryAgain() {
+      final ResourceClassPermissionPersister persister = newResourceClassPermissionPersister();
+      registerResourceClass();
+      rows = Collections.singletonList(newPermissionNameRow("view"));
+      persister.getPermissionNames(connection, RESOURCE_CLASS_NAME);
+
+      // another access control context adds a permission, which this registry does not see
+      rows = Arrays.asList(newPermissionNameRow("view"), newPermissionNameRow("edit"));
+
+      assertThat(persister.getPermissionNames(connection, RESOURCE_CLASS_NAME, Collections.singleton("edit")),
+                 hasItems("view", "edit"));
+      assertThat(queryCount, is(2));
+
+      // the names read again are registered
+      assertThat(persister.getPermissionNames(connection, RESOURCE_CLASS_NAME, Arrays.asList("view", "edit")),
+                 hasItems("view", "edit"));
+      assertThat(queryCount, is(2));
+   }
+
+   @Test
+   public void getPermissionNames_requiredNameUndefined_shouldQueryEveryTime() {
+      final ResourceClassPermissionPersister persister = newResourceClassPermissionPersister();
+      registerResourceClass();
+      rows = Collections.singletonList(newPermissionNameRow("view"));
+
+      persister.getPermissionNames(connection, RESOURCE_CLASS_NAME, Collections.singleton("undefined"));
+      persister.getPermissionNames(connection, RESOURCE_CLASS_NAME, Collections.singleton("undefined"));
+
+      assertThat(queryCount, is(2));
+   }
+
+   private void registerResourceClass() {
+      rows = Collections.singletonList(newResourceClassRow());
+      newResourceClassPersister(SQLProfile.PostgreSQL_9_3_RECURSIVE).getResourceClassInfo(connection, RESOURCE_CLASS_NAME);
+      queryCount = 0;
+   }
+
+   private ResourceClassPersister newResourceClassPersister(SQLProfile sqlProfile) {
+      return new ResourceClassPersister(sqlProfile, SQLStrings.getSQLStrings("oacc", sqlProfile), registry);
+   }
+
+   private ResourceClassPermissionPersister newResourceClassPermissionPersister() {
+      final SQLProfile sqlProfile = SQLProfile.PostgreSQL_9_3_RECURSIVE;
+      return new ResourceClassPermissionPersister(sqlProfile, SQLStrings.getSQLStrings("oacc", sqlProfile), registry);
+   }
+
+   private static Map<String, Object> newResourceClassRow() {
+      final Map<String, Object> row = new HashMap<>();
+      row.put("ResourceClassId", 3L);
+      row.put("ResourceClassName", RESOURCE_CLASS_NAME);
+      row.put("IsAuthenticatable", 1);
+      row.put("IsUnauthenticatedCreateAllowed", 0);
+      return row;
+   }
+
+   private static Map<String, Object> newPermissionNameRow(String permissionName) {
+      return Collections.<String, Object>singletonMap("PermissionName", permissionName);
+   }
+
+   private Connection newStubConnection() {
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                 new Class<?>[]{Connection.class},
+                                                 new InvocationHandler() {
+                                                    @Override
+                                                    public Object invoke(Object proxy, Method method, Object[] args) {
+                                                       if (method.getName().equals("prepareStatement")) {
+                                                          return newStubStatement();
+                                                       }
+                                                       return defaultValue(method);
+                                                    }
+                                                 });
+   }
+
+   private PreparedStatement newStubStatement() {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                                        new Class<?>[]{PreparedStatement.class},
+                                                        new InvocationHandler() {
+                                                           @Override
+                                                           public Object invoke(Object proxy, Method method, Object[] args) {
+                                                              if (method.getName().equals("executeQuery")) {
+                                                                 queryCount++;
+                                                                 return newStubResultSet(new ArrayList<>(rows));
+                                                              }
+                                                              return defaultValue(method);
+                                                           }
+                                                        });
+   }
+
+   private static ResultSet newStubResultSet(final List<Map<String, Object>> rows) {
+      final Iterator<Map<String, Object>> rowIterator = rows.iterator();
+      return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                                new Class<?>[]{ResultSet.class},
+                                                new InvocationHandler() {
+                                                   private Map<String, Object> row;
+
+                                                   @Override
+                                                   public Object invoke(Object proxy, Method method, Object[] args) {
+                                                      switch (method.getName()) {
+                                                         case "next":
+                                                            row = rowIterator.hasNext() ? rowIterator.next() : null;
+                                                            return row != null;
+                                                         case "getLong":
+                                                         case "getInt":
+                                                         case "getString":
+                                                            return row.get((String) args[0]);
+                                                         default:
+                                                            return defaultValue(method);
+                                                      }
+                                                   }
+                                                });
+   }
+
+   private static Object defaultValue(Method method) {
+      final Class<?> returnType = method.getReturnType();
+      if (returnType == boolean.class) {
+         return false;
+      }
+      if (returnType == int.class) {
+         return 0;
+      }
+      if (returnType == long.class) {
+         return 0L;
+      }
+      return null;
+   }
+}
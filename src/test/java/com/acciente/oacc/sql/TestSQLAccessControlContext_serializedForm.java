@@ -0,0 +1,165 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.AccessControlContext;
+import com.acciente.oacc.PasswordCredentials;
+import com.acciente.oacc.Resources;
+import com.acciente.oacc.encryptor.bcrypt.BCryptPasswordEncryptor;
+import com.acciente.oacc.sql.internal.SQLAccessControlContext;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+public class TestSQLAccessControlContext_serializedForm {
+   // the contexts under test never connect, so a data source that fails on use suffices
+   private static final DataSource unusableDataSource
+         = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                                               new Class<?>[]{DataSource.class},
+                                               new InvocationHandler() {
+                                                  @Override
+                                                  public Object invoke(Object proxy, Method method, Object[] args) {
+                                                     // identity semantics, since contexts share metadata per data source
+                                                     if (method.getName().equals("hashCode")) {
+                                                        return System.identityHashCode(proxy);
+                                                     }
+                                                     if (method.getName().equals("equals")) {
+                                                        return proxy == args[0];
+                                                     }
+                                                     throw new UnsupportedOperationException(method.getName());
+                                                  }
+                                               });
+
+   @Test
+   public void serialVersionUID_shouldNotChange() {
+      // contexts serialized by earlier versions only deserialize while the serialVersionUID stays the same
+      assertThat(ObjectStreamClass.lookup(SQLAccessControlContext.class).getSerialVersionUID(), is(1L));
+   }
+
+   @Test
+   public void serialize_shouldBeCompact() throws Exception {
+      for (SQLProfile sqlProfile : new SQLProfile[]{SQLProfile.PostgreSQL_9_3_RECURSIVE,
+                                                    SQLProfile.HSQLDB_2_3_NON_RECURSIVE}) {
+         final AccessControlContext accessControlContext
+               = SQLAccessControlContextFactory.getAccessControlContext(unusableDataSource,
+                                                                        "oacc",
+                                                                        sqlProfile,
+                                                                        BCryptPasswordEncryptor.newInstance(4));
+
+         // the SQL of a single persister alone is larger than this
+         assertThat(serialize(accessControlContext).length, lessThan(2048));
+      }
+   }
+
+   @Test
+   public void deserialize_shouldRequirePostDeserialize() throws Exception {
+      final SQLAccessControlContextOptions options
+            = SQLAccessControlContextOptions.builder()
+                  .domainHierarchyIndexEnabled(true)
+                  .inheritanceClosureEnabled(true)
+                  .effectiveResourcePermissionCacheSize(16)
+                  .preparedStatementCacheSize(8)
+                  .build();
+      final AccessControlContext accessControlContext
+            = SQLAccessControlContextFactory.getAccessControlContext(unusableDataSource,
+                                                                     null,
+                                                                     SQLProfile.MySQL_5_6_NON_RECURSIVE,
+                                                                     BCryptPasswordEncryptor.newInstance(4),
+                                                                     options);
+
+      final Object deserializedAccessControlContext = deserialize(serialize(accessControlContext));
+      assertThat(deserializedAccessControlContext, instanceOf(SQLAccessControlContext.class));
+
+      final AccessControlContext deserializedContext = (AccessControlContext) deserializedAccessControlContext;
+      try {
+         deserializedContext.authenticate(Resources.getInstance(0),
+                                          PasswordCredentials.newInstance("password".toCharArray()));
+         fail("using a deserialized access control context without re-initialization should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("not initialized"));
+      }
+
+      // re-initialization succeeds once, and the context can be serialized again
+      SQLAccessControlContextFactory.postDeserialize(deserializedContext, unusableDataSource);
+      assertThat(deserialize(serialize(deserializedContext)), instanceOf(SQLAccessControlContext.class));
+   }
+
+   @Test
+   public void deserialize_contextSerializedByEarlierVersion_shouldRestoreSession() throws Exception {
+      // serialized by the version before the compact form: a SQLite_3_8_RECURSIVE context without a schema,
+      // authenticated as the system resource and impersonating the resource with id 1 and external id "golden-user"
+      final byte[] legacyBytes;
+      try (InputStream in = TestSQLAccessControlContext_serializedForm.class
+            .getResourceAsStream("SQLAccessControlContext_legacy.ser")) {
+         final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         final byte[] buffer = new byte[4096];
+         int count;
+         while ((count = in.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, count);
+         }
+         legacyBytes = bytes.toByteArray();
+      }
+
+      final Object deserializedAccessControlContext = deserialize(legacyBytes);
+      assertThat(deserializedAccessControlContext, instanceOf(SQLAccessControlContext.class));
+
+      final AccessControlContext deserializedContext = (AccessControlContext) deserializedAccessControlContext;
+      SQLAccessControlContextFactory.postDeserialize(deserializedContext, unusableDataSource);
+      assertThat(deserializedContext.getAuthenticatedResource(), is(Resources.getInstance(0)));
+      assertThat(deserializedContext.getSessionResource(), is(Resources.getInstance(1L, "golden-user")));
+
+      // the context is written again in the compact form
+      final byte[] compactBytes = serialize(deserializedContext);
+      assertThat(compactBytes.length, lessThan(legacyBytes.length / 10));
+      final AccessControlContext reserializedContext = (AccessControlContext) deserialize(compactBytes);
+      SQLAccessControlContextFactory.postDeserialize(reserializedContext, unusableDataSource);
+      assertThat(reserializedContext.getSessionResource(), is(Resources.getInstance(1L, "golden-user")));
+   }
+
+   private static byte[] serialize(Object object) throws IOException {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+         out.writeObject(object);
+      }
+      return bytes.toByteArray();
+   }
+
+   private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+         return in.readObject();
+      }
+   }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestSQLStrings_getCountResourcesByPermissionsSQL {
+   @Test
+   public void getCountResourcesByPermissionsSQL_shouldCountWithoutOrdering() {
+      final SQLStrings sqlStrings = SQLStrings.getSQLStrings(null, SQLProfile.PostgreSQL_9_3_RECURSIVE);
+
+      final String countSQL = sqlStrings.getCountResourcesByPermissionsSQL(1, 2, true);
+      assertThat(countSQL, containsString("SELECT COUNT( B.ResourceId ) COUNTResourceID FROM OAC_Resource B"));
+      assertThat(countSQL.contains("ORDER BY"), is(false));
+      assertThat(countSQL.contains("ResourceExternalID"), is(false));
+      // takes the same parameters as the streaming query
+      assertThat(getParameterCount(countSQL), is(getParameterCount(sqlStrings.getStreamResourcesByPermissionsSQL(1, 2, true))));
+   }
+
+   @Test
+   public void getResourcesByPermissionsWithoutRecursionSQL_shouldBindInLists() {
+      final SQLStrings sqlStrings = SQLStrings.getSQLStrings(null, SQLProfile.MySQL_5_6_NON_RECURSIVE);
+      final Map<Long, Integer> globalDomainCountsByPermissionKey = new LinkedHashMap<>();
+      globalDomainCountsByPermissionKey.put(-101L, 2);
+      globalDomainCountsByPermissionKey.put(7L, 1);
+
+      final String countSQL = sqlStrings.getResourcesByPermissionsWithoutRecursionSQL(true, 4, 2, 1, 1,
+                                                                                      globalDomainCountsByPermissionKey,
+                                                                                      8);
+      assertThat(countSQL, startsWith("SELECT COUNT( B.ResourceId ) COUNTResourceID FROM OAC_Resource B"));
+      assertThat(countSQL, containsString("UNION ALL SELECT X.ResourceId, -101 FROM"));
+      assertThat(countSQL, containsString("HAVING COUNT( DISTINCT M.PermissionKey ) = 2"));
+      // class, restrict domains, direct system and non-system permissions, global domains per key, super-user domains
+      assertThat(getParameterCount(countSQL), is(1 + 4 + (2 + 1 + 2) + (2 + 1 + 2) + (1 + 2) + (1 + 1) + 8));
+
+      final String existsSQL = sqlStrings.getResourcesByPermissionsWithoutRecursionSQL(false, 0, 1, 0, 1,
+                                                                                       new LinkedHashMap<Long, Integer>(),
+                                                                                       0);
+      assertThat(existsSQL, startsWith("SELECT B.ResourceId FROM OAC_Resource B"));
+      assertThat(existsSQL, endsWith("ORDER BY B.ResourceId LIMIT 1"));
+      assertThat(getParameterCount(existsSQL), is(1 + (1 + 1 + 2)));
+   }
+
+   private static int getParameterCount(String sql) {
+      int parameterCount = 0;
+      for (int i = 0; i < sql.length(); i++) {
+         if (sql.charAt(i) == '?') {
+            parameterCount++;
+         }
+      }
+      return parameterCount;
+   }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestSQLStrings_getInListSQL {
+   @Test
+   public void getMaxInListSize_shouldRespectDialectLimits() {
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.Oracle_11_2_NON_RECURSIVE).getMaxInListSize(), is(1000));
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.SQLServer_12_0_NON_RECURSIVE).getMaxInListSize(), is(2000));
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.SQLite_3_8_NON_RECURSIVE).getMaxInListSize(), is(999));
+   }
+
+   @Test
+   public void getInListSQL_shouldAppendParameterList() {
+      final SQLStrings sqlStrings = SQLStrings.getSQLStrings(null, SQLProfile.MySQL_5_6_NON_RECURSIVE);
+
+      assertThat(sqlStrings.getInListSQL("SELECT X FROM T WHERE Y IN ", 1), is("SELECT X FROM T WHERE Y IN ( ? )"));
+      assertThat(sqlStrings.getInListSQL("SELECT X FROM T WHERE Y IN ", 3), is("SELECT X FROM T WHERE Y IN ( ?, ?, ? )"));
+   }
+
+   @Test
+   public void getInListSQL_invalidParameterCount_shouldFail() {
+      final SQLStrings sqlStrings = SQLStrings.getSQLStrings(null, SQLProfile.Oracle_11_2_NON_RECURSIVE);
+
+      try {
+         sqlStrings.getInListSQL("SELECT X FROM T WHERE Y IN ", 0);
+         fail("creating an empty IN list should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase().contains("between 1 and 1000"), is(true));
+      }
+
+      try {
+         sqlStrings.getInListSQL("SELECT X FROM T WHERE Y IN ", 1001);
+         fail("creating an IN list longer than the dialect allows should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase().contains("between 1 and 1000"), is(true));
+      }
+   }
+}
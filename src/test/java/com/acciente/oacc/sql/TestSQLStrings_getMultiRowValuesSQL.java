@@ -0,0 +1,58 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestSQLStrings_getMultiRowValuesSQL {
+   @Test
+   public void getMultiRowValuesSQL_shouldAppendRowsOfParameters() {
+      final SQLStrings sqlStrings = SQLStrings.getSQLStrings(null, SQLProfile.MySQL_5_6_NON_RECURSIVE);
+
+      assertThat(sqlStrings.getMultiRowValuesSQL("INSERT INTO T ( X, Y ) VALUES ", 1, 2),
+                 is("INSERT INTO T ( X, Y ) VALUES ( ?, ? )"));
+      assertThat(sqlStrings.getMultiRowValuesSQL("INSERT INTO T ( X, Y ) VALUES ", 3, 2),
+                 is("INSERT INTO T ( X, Y ) VALUES ( ?, ? ), ( ?, ? ), ( ?, ? )"));
+   }
+
+   @Test
+   public void getMultiRowValuesSQL_invalidParameterCount_shouldFail() {
+      final SQLStrings sqlStrings = SQLStrings.getSQLStrings(null, SQLProfile.SQLite_3_8_NON_RECURSIVE);
+
+      try {
+         sqlStrings.getMultiRowValuesSQL("INSERT INTO T ( X, Y ) VALUES ", 0, 2);
+         fail("creating an insert without rows should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase().contains("between 1 and 999"), is(true));
+      }
+
+      try {
+         sqlStrings.getMultiRowValuesSQL("INSERT INTO T ( X, Y ) VALUES ", 500, 2);
+         fail("creating an insert with more parameters than the dialect allows should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase().contains("between 1 and 999"), is(true));
+      }
+   }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestSQLStrings_getPageSQL {
+   @Test
+   public void getPageAccessorResourcesByPermissionsSQL_shouldUseDialectRowLimit() {
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.PostgreSQL_9_3_RECURSIVE)
+                       .getPageAccessorResourcesByPermissionsSQL(1, 1, 25),
+                 endsWith("ORDER BY B.ResourceId LIMIT 25"));
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.MySQL_5_6_NON_RECURSIVE)
+                       .getPageAccessorResourcesByPermissionsSQL(1, 0, 25),
+                 endsWith("ORDER BY B.ResourceId LIMIT 25"));
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.DB2_10_5_NON_RECURSIVE)
+                       .getPageAccessorResourcesByPermissionsSQL(0, 1, 25),
+                 endsWith("ORDER BY B.ResourceId FETCH FIRST 25 ROWS ONLY"));
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.SQLServer_12_0_RECURSIVE)
+                       .getPageAccessorResourcesByPermissionsSQL(0, 1, 25),
+                 endsWith("ORDER BY B.ResourceId OFFSET 0 ROWS FETCH NEXT 25 ROWS ONLY"));
+
+      final String oracleSQL = SQLStrings.getSQLStrings(null, SQLProfile.Oracle_11_2_NON_RECURSIVE)
+            .getPageAccessorResourcesByPermissionsSQL(0, 1, 25);
+      assertThat(oracleSQL, startsWith("SELECT * FROM ( SELECT B.ResourceId"));
+      assertThat(oracleSQL, endsWith("ORDER BY B.ResourceId ) WHERE ROWNUM <= 25"));
+   }
+
+   @Test
+   public void getPageAccessorResourcesByPermissionsSQL_shouldIntersectInSQL() {
+      final String sql = SQLStrings.getSQLStrings(null, SQLProfile.SQLite_3_8_NON_RECURSIVE)
+            .getPageAccessorResourcesByPermissionsSQL(2, 1, 10);
+
+      assertThat(sql, containsString("HAVING COUNT( DISTINCT M.PermissionKey ) = 3"));
+      assertThat(sql, containsString(" UNION ALL "));
+      // accessed resource and class with two system permissions, accessed resource and class with one permission,
+      // and the resource id the page starts after
+      assertThat(getParameterCount(sql), is((2 + 4) + (2 + 2) + 1));
+   }
+
+   @Test
+   public void getPageResourcesByPermissionsSQL_shouldStartAfterResourceId() {
+      final SQLStrings sqlStrings = SQLStrings.getSQLStrings(null, SQLProfile.PostgreSQL_9_3_RECURSIVE_DOMAIN_CLOSURE);
+
+      final String streamSQL = sqlStrings.getStreamResourcesByPermissionsSQL(1, 1, false);
+      final String pageSQL = sqlStrings.getPageResourcesByPermissionsSQL(1, 1, false, 50);
+
+      assertThat(pageSQL, endsWith("AND B.ResourceId > ? ORDER BY B.ResourceId LIMIT 50"));
+      assertThat(getParameterCount(pageSQL), is(getParameterCount(streamSQL) + 1));
+   }
+
+   @Test
+   public void getPageResourcesByPermissionsSQL_withClosures_shouldUseDialectRowLimit() {
+      final SQLStrings mySQLStrings
+            = SQLStrings.getSQLStrings(null, SQLProfile.MySQL_5_6_NON_RECURSIVE_DOMAIN_CLOSURE, true);
+      final String mySQLPageSQL = mySQLStrings.getPageResourcesByPermissionsSQL(1, 1, true, 50);
+
+      assertThat(mySQLPageSQL, containsString("OAC_InheritanceClosure"));
+      assertThat(mySQLPageSQL, endsWith("AND B.ResourceId > ? ORDER BY B.ResourceId LIMIT 50"));
+      assertThat(getParameterCount(mySQLPageSQL),
+                 is(getParameterCount(mySQLStrings.getStreamResourcesByPermissionsSQL(1, 1, true)) + 1));
+
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.HSQLDB_2_3_NON_RECURSIVE_DOMAIN_CLOSURE, true)
+                       .getPageResourcesByPermissionsSQL(0, 1, false, 50),
+                 endsWith("AND B.ResourceId > ? ORDER BY B.ResourceId LIMIT 50"));
+   }
+
+   @Test
+   public void getPageSQL_invalidPageSize_shouldFail() {
+      try {
+         SQLStrings.getSQLStrings(null, SQLProfile.HSQLDB_2_3_NON_RECURSIVE).getPageAccessorResourcesByPermissionsSQL(1, 0, 0);
+         fail("creating a page query without rows should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("page size must be at least 1"));
+      }
+   }
+
+   private static int getParameterCount(String sql) {
+      int parameterCount = 0;
+      for (int i = 0; i < sql.length(); i++) {
+         if (sql.charAt(i) == '?') {
+            parameterCount++;
+         }
+      }
+      return parameterCount;
+   }
+}
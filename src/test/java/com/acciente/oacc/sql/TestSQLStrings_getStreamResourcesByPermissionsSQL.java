@@ -0,0 +1,106 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestSQLStrings_getStreamResourcesByPermissionsSQL {
+   @Test
+   public void getStreamResourcesByPermissionsSQL_shouldIntersectAndOrderInSQL() {
+      for (SQLStrings sqlStrings : Arrays.asList(SQLStrings.getSQLStrings("oacc", SQLProfile.PostgreSQL_9_3_RECURSIVE),
+                                                 SQLStrings.getSQLStrings("oacc", SQLProfile.SQLServer_12_0_RECURSIVE_DOMAIN_CLOSURE),
+                                                 SQLStrings.getSQLStrings("oacc", SQLProfile.Oracle_11_2_RECURSIVE_DOMAIN_CLOSURE, true))) {
+         final String sql = sqlStrings.getStreamResourcesByPermissionsSQL(1, 2, false);
+         assertThat(sql, containsString("HAVING COUNT( DISTINCT PermissionKey ) = 3"));
+         assertThat(sql, endsWith("ORDER BY B.ResourceId"));
+         // accessor, global sys and non-sys permissions, direct sys and non-sys permissions, resource class
+         assertThat(getParameterCount(sql), is(1 + (1 + 2) + (1 + 4) + (2 + 2) + (2 + 4) + 1));
+
+         final String sqlForDomain = sqlStrings.getStreamResourcesByPermissionsSQL(0, 1, true);
+         assertThat(sqlForDomain, containsString("HAVING COUNT( DISTINCT PermissionKey ) = 1"));
+         assertThat(getParameterCount(sqlForDomain), is(1 + 1 + (1 + 2) + (2 + 2) + 1));
+      }
+   }
+
+   @Test
+   public void getStreamResourcesByPermissionsSQL_withClosures_shouldJoinClosureTables() {
+      for (SQLProfile sqlProfile : Arrays.asList(SQLProfile.MySQL_5_6_NON_RECURSIVE_DOMAIN_CLOSURE,
+                                                 SQLProfile.HSQLDB_2_3_NON_RECURSIVE_DOMAIN_CLOSURE)) {
+         final SQLStrings sqlStrings = SQLStrings.getSQLStrings("oacc", sqlProfile, true);
+         assertThat(sqlStrings.isResourceStreamingSupported(), is(true));
+
+         final String sql = sqlStrings.getStreamResourcesByPermissionsSQL(1, 2, false);
+         assertThat(sql, not(containsString("WITH")));
+         assertThat(sql, containsString("oacc.OAC_InheritanceClosure"));
+         assertThat(sql, containsString("oacc.OAC_DomainClosure"));
+         assertThat(sql, containsString("HAVING COUNT( DISTINCT M.PermissionKey ) = 3"));
+         assertThat(sql, endsWith("ORDER BY B.ResourceId"));
+         // resource class, direct and global sys and non-sys permissions each with the accessor twice, super-user
+         assertThat(getParameterCount(sql), is(1 + 2 * (2 + 1 + 2) + 2 * (2 + 1 + 4) + 2));
+
+         final String sqlForDomain = sqlStrings.getStreamResourcesByPermissionsSQL(0, 1, true);
+         assertThat(getParameterCount(sqlForDomain), is(1 + 1 + 2 * (2 + 1 + 2) + 2));
+      }
+
+      assertThat(SQLStrings.getSQLStrings("oacc", SQLProfile.MySQL_5_6_NON_RECURSIVE_DOMAIN_CLOSURE)
+                       .isResourceStreamingSupported(),
+                 is(false));
+      assertThat(SQLStrings.getSQLStrings("oacc", SQLProfile.MySQL_5_6_NON_RECURSIVE, true)
+                       .isResourceStreamingSupported(),
+                 is(false));
+   }
+
+   @Test
+   public void getStreamResourcesByPermissionsSQL_invalidArguments_shouldFail() {
+      try {
+         SQLStrings.getSQLStrings(null, SQLProfile.PostgreSQL_9_3_RECURSIVE).getStreamResourcesByPermissionsSQL(0, 0, false);
+         fail("streaming resources without any permissions should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("at least one permission"));
+      }
+
+      try {
+         SQLStrings.getSQLStrings(null, SQLProfile.SQLite_3_8_NON_RECURSIVE).getStreamResourcesByPermissionsSQL(1, 0, false);
+         fail("streaming resources with a non-recursive profile should have failed");
+      }
+      catch (IllegalStateException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("requires a recursive sql profile"));
+      }
+   }
+
+   private static int getParameterCount(String sql) {
+      int parameterCount = 0;
+      for (int i = 0; i < sql.length(); i++) {
+         if (sql.charAt(i) == '?') {
+            parameterCount++;
+         }
+      }
+      return parameterCount;
+   }
+}
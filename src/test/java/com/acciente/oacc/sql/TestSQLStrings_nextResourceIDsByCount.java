@@ -0,0 +1,73 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestSQLStrings_nextResourceIDsByCount {
+   @Test
+   public void nextResourceIDsByCount_postgreSQL_shouldSelectFromSeries() {
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.PostgreSQL_9_3_RECURSIVE).SQL_nextResourceIDs_BY_Count,
+                 is("SELECT nextval('OAC_ResourceId') FROM generate_series( 1, ? )"));
+   }
+
+   @Test
+   public void nextResourceIDsByCount_oracle_shouldSelectByLevel() {
+      assertThat(SQLStrings.getSQLStrings("oacc", SQLProfile.Oracle_11_2_RECURSIVE).SQL_nextResourceIDs_BY_Count,
+                 is("SELECT oacc.OAC_ResourceId.NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?"));
+   }
+
+   @Test
+   public void nextResourceIDsByCount_db2_shouldSelectFromRecursiveValues() {
+      assertThat(SQLStrings.getSQLStrings("oacc", SQLProfile.DB2_10_5_NON_RECURSIVE).SQL_nextResourceIDs_BY_Count,
+                 is("WITH N ( I ) AS ( VALUES ( 1 ) UNION ALL SELECT I + 1 FROM N WHERE I < CAST( ? AS INTEGER ) )"
+                          + " SELECT NEXT VALUE FOR oacc.OAC_ResourceId FROM N"));
+   }
+
+   @Test
+   public void nextResourceIDsByCount_sqlServer_shouldGetSequenceRange() {
+      assertThat(SQLStrings.getSQLStrings("oacc", SQLProfile.SQLServer_12_0_RECURSIVE).SQL_nextResourceIDs_BY_Count,
+                 is("SET NOCOUNT ON;"
+                          + " DECLARE @RangeSize BIGINT = ?, @FirstValue SQL_VARIANT, @Increment SQL_VARIANT;"
+                          + " EXEC sys.sp_sequence_get_range @sequence_name = N'oacc.OAC_ResourceId',"
+                          + " @range_size = @RangeSize, @range_first_value = @FirstValue OUTPUT,"
+                          + " @sequence_increment = @Increment OUTPUT;"
+                          + " WITH N ( I, Value ) AS ( SELECT CAST( 1 AS BIGINT ), CAST( @FirstValue AS BIGINT )"
+                          + " UNION ALL SELECT I + 1, Value + CAST( @Increment AS BIGINT ) FROM N WHERE I < @RangeSize )"
+                          + " SELECT Value FROM N OPTION ( MAXRECURSION 0 )"));
+   }
+
+   @Test
+   public void nextResourceIDsByCount_hsqldb_shouldSelectFromSequenceArray() {
+      assertThat(SQLStrings.getSQLStrings("OACC", SQLProfile.HSQLDB_2_3_NON_RECURSIVE).SQL_nextResourceIDs_BY_Count,
+                 is("SELECT NEXT VALUE FOR OACC.OAC_ResourceId FROM UNNEST( SEQUENCE_ARRAY( 1, CAST( ? AS INTEGER ), 1 ) )"));
+   }
+
+   @Test
+   public void nextResourceIDsByCount_dialectsWithoutSequences_shouldBeUnavailable() {
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.MySQL_5_6_NON_RECURSIVE).SQL_nextResourceIDs_BY_Count,
+                 is(nullValue()));
+      assertThat(SQLStrings.getSQLStrings(null, SQLProfile.SQLite_3_8_RECURSIVE).SQL_nextResourceIDs_BY_Count,
+                 is(nullValue()));
+   }
+}
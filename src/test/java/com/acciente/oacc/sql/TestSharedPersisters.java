@@ -0,0 +1,130 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.sql.internal.persister.SQLPasswordStrings;
+import com.acciente.oacc.sql.internal.persister.SQLStrings;
+import com.acciente.oacc.sql.internal.persister.SharedPersisters;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestSharedPersisters {
+   @Test
+   public void getInstance_sameSchemaAndProfile_shouldShareInstances() {
+      final SharedPersisters sharedPersisters = SharedPersisters.getInstance("oacc", SQLProfile.PostgreSQL_9_3_RECURSIVE);
+
+      assertThat(SharedPersisters.getInstance("oacc", SQLProfile.PostgreSQL_9_3_RECURSIVE), sameInstance(sharedPersisters));
+      assertThat(SQLStrings.getSQLStrings("oacc", SQLProfile.PostgreSQL_9_3_RECURSIVE),
+                 sameInstance(sharedPersisters.sqlStrings));
+      assertThat(sharedPersisters.streamingResourcePermissionPersister, is(notNullValue()));
+   }
+
+   @Test
+   public void getInstance_differentSchemaOrProfile_shouldNotShareInstances() {
+      final SharedPersisters sharedPersisters = SharedPersisters.getInstance("oacc", SQLProfile.HSQLDB_2_3_NON_RECURSIVE);
+
+      assertThat(SharedPersisters.getInstance(null, SQLProfile.HSQLDB_2_3_NON_RECURSIVE),
+                 not(sameInstance(sharedPersisters)));
+      assertThat(SharedPersisters.getInstance("oacc", SQLProfile.MySQL_5_6_NON_RECURSIVE),
+                 not(sameInstance(sharedPersisters)));
+      assertThat(sharedPersisters.effectiveResourcePermissionPersister, is(nullValue()));
+      assertThat(sharedPersisters.streamingResourcePermissionPersister, is(nullValue()));
+   }
+
+   @Test
+   public void getResourceClassPersisters_sameDataSource_shouldShareRegistry() {
+      final SharedPersisters sharedPersisters = SharedPersisters.getInstance("oacc", SQLProfile.PostgreSQL_9_3_RECURSIVE);
+      final DataSource dataSource = newDataSource();
+
+      final SharedPersisters.ResourceClassPersisters resourceClassPersisters
+            = sharedPersisters.getResourceClassPersisters(dataSource);
+      assertThat(sharedPersisters.getResourceClassPersisters(dataSource), sameInstance(resourceClassPersisters));
+      assertThat(resourceClassPersisters.resourceClassMetadataRegistry, is(notNullValue()));
+
+      // the metadata of another database, or of a context created with a connection, is never shared
+      assertThat(sharedPersisters.getResourceClassPersisters(newDataSource()),
+                 not(sameInstance(resourceClassPersisters)));
+      assertThat(sharedPersisters.getResourceClassPersisters(null),
+                 not(sameInstance(sharedPersisters.getResourceClassPersisters(null))));
+   }
+
+   @Test
+   public void getInstance_nonRecursiveProfileWithClosures_shouldStream() {
+      assertThat(SharedPersisters.getInstance("oacc", SQLProfile.MySQL_5_6_NON_RECURSIVE_DOMAIN_CLOSURE)
+                       .streamingResourcePermissionPersister,
+                 is(nullValue()));
+      assertThat(SharedPersisters.getInstance("oacc", SQLProfile.MySQL_5_6_NON_RECURSIVE_DOMAIN_CLOSURE, true)
+                       .streamingResourcePermissionPersister,
+                 is(notNullValue()));
+   }
+
+   @Test
+   public void deserialize_sqlStrings_shouldResolveToSharedInstance() throws Exception {
+      final SQLStrings sqlStrings = SQLStrings.getSQLStrings("oacc", SQLProfile.SQLite_3_8_RECURSIVE);
+      final SQLPasswordStrings sqlPasswordStrings = SQLPasswordStrings.getSQLPasswordStrings("oacc");
+
+      assertThat(roundTrip(sqlStrings), sameInstance((Object) sqlStrings));
+      assertThat(roundTrip(sqlPasswordStrings), sameInstance((Object) sqlPasswordStrings));
+      assertThat(roundTrip(SharedPersisters.getResourcePasswordPersister("oacc")),
+                 sameInstance((Object) SharedPersisters.getResourcePasswordPersister("oacc")));
+   }
+
+   private static Object roundTrip(Object object) throws IOException, ClassNotFoundException {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+         out.writeObject(object);
+      }
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+         return in.readObject();
+      }
+   }
+
+   private static DataSource newDataSource() {
+      return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                                                 new Class<?>[]{DataSource.class},
+                                                 new InvocationHandler() {
+                                                    @Override
+                                                    public Object invoke(Object proxy, Method method, Object[] args) {
+                                                       // identity semantics, so that the proxy can be a map key
+                                                       if (method.getName().equals("hashCode")) {
+                                                          return System.identityHashCode(proxy);
+                                                       }
+                                                       if (method.getName().equals("equals")) {
+                                                          return proxy == args[0];
+                                                       }
+                                                       throw new UnsupportedOperationException(method.getName());
+                                                    }
+                                                 });
+   }
+}
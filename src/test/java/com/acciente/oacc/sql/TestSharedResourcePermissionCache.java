@@ -0,0 +1,110 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql;
+
+import com.acciente.oacc.ResourcePermission;
+import com.acciente.oacc.ResourcePermissions;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TestSharedResourcePermissionCache {
+   private static final Set<ResourcePermission> QUERY_PERMISSIONS
+         = Collections.singleton(ResourcePermissions.getInstance(ResourcePermissions.QUERY));
+   private static final Set<ResourcePermission> DELETE_PERMISSIONS
+         = Collections.singleton(ResourcePermissions.getInstance(ResourcePermissions.DELETE));
+
+   @Test
+   public void newInstance_invalidSize_shouldFail() {
+      try {
+         SharedResourcePermissionCache.newInstance(0);
+         fail("creating a shared cache with size zero should have failed");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase().contains("at least 1"), is(true));
+      }
+   }
+
+   @Test
+   public void get_sameChangeCount_shouldHit() {
+      final SharedResourcePermissionCache cache = SharedResourcePermissionCache.newInstance(10);
+
+      assertThat(cache.get(1, 2, 5), is(nullValue()));
+      cache.put(1, 2, 5, QUERY_PERMISSIONS);
+
+      assertThat(cache.get(1, 2, 5), is(QUERY_PERMISSIONS));
+      assertThat(cache.get(2, 1, 5), is(nullValue()));
+      assertThat(cache.getHitCount(), is(1L));
+      assertThat(cache.getMissCount(), is(2L));
+   }
+
+   @Test
+   public void get_differentChangeCount_shouldMissAndEvict() {
+      final SharedResourcePermissionCache cache = SharedResourcePermissionCache.newInstance(10);
+
+      cache.put(1, 2, 5, QUERY_PERMISSIONS);
+
+      assertThat(cache.get(1, 2, 6), is(nullValue()));
+      assertThat(cache.getSize(), is(0));
+      assertThat(cache.getMissCount(), is(1L));
+   }
+
+   @Test
+   public void put_olderChangeCount_shouldNotReplaceNewerEntry() {
+      final SharedResourcePermissionCache cache = SharedResourcePermissionCache.newInstance(10);
+
+      cache.put(1, 2, 6, DELETE_PERMISSIONS);
+      cache.put(1, 2, 5, QUERY_PERMISSIONS);
+
+      assertThat(cache.get(1, 2, 6), is(DELETE_PERMISSIONS));
+   }
+
+   @Test
+   public void put_beyondMaxSize_shouldEvictLeastRecentlyUsed() {
+      final SharedResourcePermissionCache cache = SharedResourcePermissionCache.newInstance(2);
+
+      cache.put(1, 1, 0, QUERY_PERMISSIONS);
+      cache.put(1, 2, 0, QUERY_PERMISSIONS);
+      // touch the first entry, so that the second one becomes the least recently used
+      cache.get(1, 1, 0);
+      cache.put(1, 3, 0, QUERY_PERMISSIONS);
+
+      assertThat(cache.getSize(), is(2));
+      assertThat(cache.get(1, 1, 0), is(QUERY_PERMISSIONS));
+      assertThat(cache.get(1, 2, 0), is(nullValue()));
+      assertThat(cache.get(1, 3, 0), is(QUERY_PERMISSIONS));
+   }
+
+   @Test
+   public void clear_shouldRemoveEntriesButKeepStatistics() {
+      final SharedResourcePermissionCache cache = SharedResourcePermissionCache.newInstance(10);
+
+      cache.put(1, 2, 0, QUERY_PERMISSIONS);
+      cache.get(1, 2, 0);
+      cache.clear();
+
+      assertThat(cache.getSize(), is(0));
+      assertThat(cache.getHitCount(), is(1L));
+   }
+}
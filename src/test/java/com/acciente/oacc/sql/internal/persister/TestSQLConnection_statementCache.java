@@ -0,0 +1,201 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.sql.internal.persister;
+
+import com.acciente.oacc.sql.PreparedStatementCacheStatistics;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the prepared statement cache of {@link SQLConnection} against a stub connection that records which
+ * statements were prepared and closed.
+ */
+public class TestSQLConnection_statementCache {
+   private static final String SQL_A = "SELECT A FROM T";
+   private static final String SQL_B = "SELECT B FROM T";
+   private static final String SQL_C = "SELECT C FROM T";
+
+   private Map<String, Integer>             prepareCounts;
+   private List<String>                     closedStatements;
+   private PreparedStatementCacheStatistics statistics;
+
+   @Before
+   public void setUp() {
+      prepareCounts = new HashMap<>();
+      closedStatements = new ArrayList<>();
+      statistics = PreparedStatementCacheStatistics.newInstance();
+   }
+
+   @Test
+   public void prepareStatement_afterClose_shouldReuseStatement() throws Exception {
+      final SQLConnection connection = newCachingConnection(2);
+
+      final SQLStatement statement = connection.prepareStatement(SQL_A);
+      statement.close();
+      final SQLStatement reusedStatement = connection.prepareStatement(SQL_A);
+      reusedStatement.close();
+
+      assertThat(reusedStatement, sameInstance(statement));
+      assertThat(prepareCounts.get(SQL_A), is(1));
+      assertThat(closedStatements.isEmpty(), is(true));
+      assertThat(statistics.getMissCount(), is(1L));
+      assertThat(statistics.getHitCount(), is(1L));
+   }
+
+   @Test
+   public void prepareStatement_beyondCacheSize_shouldEvictLeastRecentlyUsed() throws Exception {
+      final SQLConnection connection = newCachingConnection(2);
+
+      connection.prepareStatement(SQL_A).close();
+      connection.prepareStatement(SQL_B).close();
+      // using A again makes B the least recently used statement
+      connection.prepareStatement(SQL_A).close();
+      connection.prepareStatement(SQL_C).close();
+
+      assertThat(closedStatements, is(Arrays.asList(SQL_B)));
+      assertThat(statistics.getEvictionCount(), is(1L));
+      assertThat(connection.getStatementCacheSize(), is(2));
+
+      // A is still cached, B has to be prepared again
+      connection.prepareStatement(SQL_A).close();
+      connection.prepareStatement(SQL_B).close();
+      assertThat(prepareCounts.get(SQL_A), is(1));
+      assertThat(prepareCounts.get(SQL_B), is(2));
+      assertThat(statistics.getHitCount(), is(2L));
+   }
+
+   @Test
+   public void prepareStatement_beyondCacheSize_shouldNotEvictStatementsInUse() throws Exception {
+      final SQLConnection connection = newCachingConnection(1);
+
+      final SQLStatement statementInUse = connection.prepareStatement(SQL_A);
+      connection.prepareStatement(SQL_B).close();
+
+      // A is the least recently used statement, but still in use, so B is evicted instead
+      assertThat(closedStatements, is(Arrays.asList(SQL_B)));
+      assertThat(statistics.getEvictionCount(), is(1L));
+
+      statementInUse.close();
+      assertThat(closedStatements, is(Arrays.asList(SQL_B)));
+      assertThat(connection.getStatementCacheSize(), is(1));
+      assertThat(connection.prepareStatement(SQL_A), sameInstance(statementInUse));
+   }
+
+   @Test
+   public void prepareStatement_whileSameStatementInUse_shouldPrepareUncachedStatement() throws Exception {
+      final SQLConnection connection = newCachingConnection(2);
+
+      final SQLStatement statementInUse = connection.prepareStatement(SQL_A);
+      final SQLStatement nestedStatement = connection.prepareStatement(SQL_A);
+      assertThat(nestedStatement, not(sameInstance(statementInUse)));
+      assertThat(prepareCounts.get(SQL_A), is(2));
+
+      // the nested statement is not cached, so closing it closes the JDBC statement
+      nestedStatement.close();
+      assertThat(closedStatements, is(Arrays.asList(SQL_A)));
+      statementInUse.close();
+      assertThat(closedStatements, is(Arrays.asList(SQL_A)));
+      assertThat(connection.prepareStatement(SQL_A), sameInstance(statementInUse));
+      assertThat(statistics.getMissCount(), is(2L));
+      assertThat(statistics.getHitCount(), is(1L));
+   }
+
+   @Test
+   public void closeCachedStatements_shouldOnlyCloseIdleStatements() throws Exception {
+      final SQLConnection connection = newCachingConnection(2);
+
+      connection.prepareStatement(SQL_A).close();
+      final SQLStatement statementInUse = connection.prepareStatement(SQL_B);
+
+      connection.closeCachedStatements();
+      assertThat(closedStatements, is(Arrays.asList(SQL_A)));
+      assertThat(connection.getStatementCacheSize(), is(1));
+      assertThat(statistics.getEvictionCount(), is(0L));
+
+      statementInUse.close();
+      assertThat(connection.prepareStatement(SQL_B), sameInstance(statementInUse));
+   }
+
+   @Test
+   public void prepareStatement_cacheDisabled_shouldPrepareEveryTime() throws Exception {
+      final SQLConnection connection = new SQLConnection(newStubConnection());
+
+      connection.prepareStatement(SQL_A).close();
+      connection.prepareStatement(SQL_A).close();
+
+      assertThat(prepareCounts.get(SQL_A), is(2));
+      assertThat(closedStatements, is(Arrays.asList(SQL_A, SQL_A)));
+      assertThat(connection.getStatementCacheSize(), is(0));
+   }
+
+   private SQLConnection newCachingConnection(int statementCacheSize) {
+      return new SQLConnection(newStubConnection(), statementCacheSize, statistics);
+   }
+
+   private Connection newStubConnection() {
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                 new Class<?>[]{Connection.class},
+                                                 new InvocationHandler() {
+                                                    @Override
+                                                    public Object invoke(Object proxy, Method method, Object[] args) {
+                                                       if (method.getName().equals("prepareStatement")) {
+                                                          final String sql = (String) args[0];
+                                                          final Integer prepareCount = prepareCounts.get(sql);
+                                                          prepareCounts.put(sql, prepareCount == null ? 1 : prepareCount + 1);
+                                                          return newStubPreparedStatement(sql);
+                                                       }
+                                                       throw new UnsupportedOperationException(method.getName());
+                                                    }
+                                                 });
+   }
+
+   private PreparedStatement newStubPreparedStatement(final String sql) {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                                        new Class<?>[]{PreparedStatement.class},
+                                                        new InvocationHandler() {
+                                                           @Override
+                                                           public Object invoke(Object proxy, Method method, Object[] args) {
+                                                              switch (method.getName()) {
+                                                                 case "clearParameters":
+                                                                    return null;
+                                                                 case "close":
+                                                                    closedStatements.add(sql);
+                                                                    return null;
+                                                                 default:
+                                                                    throw new UnsupportedOperationException(method.getName());
+                                                              }
+                                                           }
+                                                        });
+   }
+}
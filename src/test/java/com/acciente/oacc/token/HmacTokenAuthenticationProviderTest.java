@@ -0,0 +1,173 @@
+/*
+ * Copyright 2009-2017, Acciente LLC
+ *
+ * Acciente LLC licenses this file to you under the
+ * Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.acciente.oacc.token;
+
+import com.acciente.oacc.AuthenticationProvider;
+import com.acciente.oacc.Credentials;
+import com.acciente.oacc.IncorrectCredentialsException;
+import com.acciente.oacc.PasswordCredentials;
+import com.acciente.oacc.Resource;
+import com.acciente.oacc.Resources;
+import com.acciente.oacc.TokenCredentials;
+import com.acciente.oacc.UnsupportedCredentialsException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class HmacTokenAuthenticationProviderTest {
+   private static final byte[] SECRET_KEY = "0123456789abcdef0123456789abcdef".getBytes();
+
+   private final CountingAuthenticationProvider delegate = new CountingAuthenticationProvider();
+   private final HmacTokenAuthenticationProvider authenticationProvider
+         = HmacTokenAuthenticationProvider.newInstance(delegate, SECRET_KEY, 1, TimeUnit.HOURS);
+
+   @Test
+   public void newInstanceDoesNotAcceptShortKey() throws Exception {
+      try {
+         HmacTokenAuthenticationProvider.newInstance(delegate, Arrays.copyOf(SECRET_KEY, 31), 1, TimeUnit.HOURS);
+         fail("getting a token authentication provider with a short secret key should fail");
+      }
+      catch (IllegalArgumentException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("at least 32 bytes"));
+      }
+   }
+
+   @Test
+   public void authenticateWithIssuedTokenDoesNotCallDelegate() throws Exception {
+      final Resource resource = Resources.getInstance(42);
+      final TokenCredentials token = authenticationProvider.issueToken(resource);
+
+      authenticationProvider.authenticate(resource, token);
+      authenticationProvider.authenticate(Resources.getInstance(42, "ext42"), token);
+
+      assertThat(delegate.authenticateCount, is(0));
+   }
+
+   @Test
+   public void authenticateWithPasswordCallsDelegate() throws Exception {
+      authenticationProvider.authenticate(Resources.getInstance(42), PasswordCredentials.newInstance("pw".toCharArray()));
+
+      assertThat(delegate.authenticateCount, is(1));
+   }
+
+   @Test
+   public void authenticateWithTokenOfOtherResourceFails() throws Exception {
+      final TokenCredentials token = authenticationProvider.issueToken(Resources.getInstance(42));
+
+      assertTokenRejected(Resources.getInstance(43), token, "not issued for resource");
+      assertTokenRejected(Resources.getInstance("ext42"), token, "not issued for resource");
+   }
+
+   @Test
+   public void authenticateWithTamperedTokenFails() throws Exception {
+      final String token = authenticationProvider.issueToken(Resources.getInstance(42)).getToken();
+      final String forgedToken = "43" + token.substring(token.indexOf('.'));
+      final char lastChar = token.charAt(token.length() - 1);
+      final String alteredSignatureToken = token.substring(0, token.length() - 1) + (lastChar == '0' ? '1' : '0');
+
+      assertTokenRejected(Resources.getInstance(43), TokenCredentials.newInstance(forgedToken), "invalid token");
+      assertTokenRejected(Resources.getInstance(42), TokenCredentials.newInstance(alteredSignatureToken), "invalid token");
+      assertTokenRejected(Resources.getInstance(42), TokenCredentials.newInstance("42"), "invalid token");
+      assertTokenRejected(Resources.getInstance(42), TokenCredentials.newInstance("42.1.xyz"), "invalid token");
+   }
+
+   @Test
+   public void authenticateWithTokenSignedByOtherKeyFails() throws Exception {
+      final byte[] otherSecretKey = Arrays.copyOf(SECRET_KEY, SECRET_KEY.length);
+      otherSecretKey[0] ^= 1;
+      final TokenCredentials token
+            = HmacTokenAuthenticationProvider.newInstance(delegate, otherSecretKey, 1, TimeUnit.HOURS)
+            .issueToken(Resources.getInstance(42));
+
+      assertTokenRejected(Resources.getInstance(42), token, "invalid token");
+   }
+
+   @Test
+   public void authenticateWithExpiredTokenFails() throws Exception {
+      final HmacTokenAuthenticationProvider shortLivedAuthenticationProvider
+            = HmacTokenAuthenticationProvider.newInstance(delegate, SECRET_KEY, 1, TimeUnit.MILLISECONDS);
+      final TokenCredentials token = shortLivedAuthenticationProvider.issueToken(Resources.getInstance(42));
+      Thread.sleep(10);
+
+      try {
+         shortLivedAuthenticationProvider.authenticate(Resources.getInstance(42), token);
+         fail("authenticating with an expired token should fail");
+      }
+      catch (IncorrectCredentialsException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("expired"));
+      }
+   }
+
+   @Test
+   public void setCredentialsDoesNotAcceptToken() throws Exception {
+      final TokenCredentials token = authenticationProvider.issueToken(Resources.getInstance(42));
+      try {
+         authenticationProvider.setCredentials(Resources.getInstance(42), token);
+         fail("setting token credentials should fail");
+      }
+      catch (UnsupportedCredentialsException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString("cannot be set"));
+      }
+      assertThat(delegate.setCredentialsCount, is(0));
+   }
+
+   private void assertTokenRejected(Resource resource, TokenCredentials token, String expectedMessage) {
+      try {
+         authenticationProvider.authenticate(resource, token);
+         fail("authenticating with token " + token.getToken() + " for " + resource + " should fail");
+      }
+      catch (IncorrectCredentialsException e) {
+         assertThat(e.getMessage().toLowerCase(), containsString(expectedMessage));
+      }
+      assertThat(delegate.authenticateCount, is(0));
+   }
+
+   private static class CountingAuthenticationProvider implements AuthenticationProvider {
+      private int authenticateCount;
+      private int setCredentialsCount;
+
+      @Override
+      public void authenticate(Resource resource, Credentials credentials) {
+         authenticateCount++;
+      }
+
+      @Override
+      public void authenticate(Resource resource) {
+         authenticateCount++;
+      }
+
+      @Override
+      public void validateCredentials(String resourceClassName, String domainName, Credentials credentials) {
+      }
+
+      @Override
+      public void setCredentials(Resource resource, Credentials credentials) {
+         setCredentialsCount++;
+      }
+
+      @Override
+      public void deleteCredentials(Resource resource) {
+      }
+   }
+}